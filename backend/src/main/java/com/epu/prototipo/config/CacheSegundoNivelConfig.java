@@ -0,0 +1,57 @@
+package com.epu.prototipo.config;
+
+import com.epu.prototipo.entity.UsuarioEntity;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+// Cache de segundo nivel de Hibernate: JCache con Caffeine en proceso.
+// Las regiones se crean aca con tamaño maximo y estadisticas; Hibernate recibe este
+// CacheManager y con missing_cache_strategy=fail no arranca si una entidad cacheada
+// pide una region que no esta definida (no hay regiones sin limite).
+
+@Configuration
+@Profile("prod")
+public class CacheSegundoNivelConfig {
+
+    public static final List<String> REGIONES = List.of(UsuarioEntity.REGION, UsuarioEntity.REGION_ROLES);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerHibernate(@Value("${cache.usuarios.maximo:5000}") long maximo,
+                                              @Value("${cache.usuarios.expiracion-min:60}") long expiracionMin) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        for (String region : REGIONES) {
+            if (cacheManager.getCache(region) != null) {
+                continue;
+            }
+            CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+            configuracion.setMaximumSize(OptionalLong.of(maximo));
+            // Resguardo ante cambios hechos por fuera de JPA; las escrituras por JPA ya actualizan el cache
+            configuracion.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(expiracionMin)));
+            configuracion.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuracion);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheSegundoNivel(CacheManager cacheManagerHibernate) {
+        return propiedades -> {
+            propiedades.put("hibernate.cache.use_second_level_cache", "true");
+            propiedades.put("hibernate.cache.region.factory_class", "jcache");
+            propiedades.put("hibernate.javax.cache.cache_manager", cacheManagerHibernate);
+            propiedades.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            propiedades.put("hibernate.generate_statistics", "true");
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.epu.prototipo.config;
+
+import com.epu.prototipo.util.CamposSolicitados;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Aplica ?fields=a,b,c al serializar la respuesta: los modelos con el filtro "campos" (PTS, RTO,
+ * equipos) solo escriben esos campos y su identificador. Los servicios reciben los mismos campos
+ * para no leer de la base lo que no se va a escribir.
+ */
+@RestControllerAdvice
+public class CamposJsonAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue cuerpo, MediaType contentType, MethodParameter returnType,
+                                           ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servlet)) {
+            return;
+        }
+        CamposSolicitados campos = CamposSolicitados.de(servlet.getServletRequest().getParameter(CamposSolicitados.PARAMETRO));
+        if (!campos.todos()) {
+            cuerpo.setFilters(new SimpleFilterProvider()
+                    .addFilter(CamposSolicitados.FILTRO, SimpleBeanPropertyFilter.filterOutAllExcept(campos.nombres())));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.epu.prototipo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// DataSource de produccion: pool primario (spring.datasource.*) y, si se configura
+// datasource.replica.url, un pool de solo lectura contra la replica. Ver RuteoDataSource.
+
+@Configuration
+@Profile("prod")
+public class DataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public RuteoDataSource ruteoDataSource(DataSourceProperties propiedades, Environment entorno,
+                                           @Value("${datasource.replica.url:}") String urlReplica,
+                                           @Value("${datasource.replica.username:}") String usuarioReplica,
+                                           @Value("${datasource.replica.password:}") String claveReplica,
+                                           @Value("${datasource.replica.lag-maximo-seg:5}") long lagMaximoSeg,
+                                           @Value("${datasource.replica.verificacion-seg:5}") long verificacionSeg,
+                                           ObjectProvider<MeterRegistry> registro) {
+        HikariDataSource primaria = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(entorno).bind("spring.datasource.hikari", Bindable.ofInstance(primaria));
+        primaria.setPoolName("primaria");
+        // Metricas hikaricp.* por pool (activas, ociosas, pendientes, espera de conexion)
+        registro.ifAvailable(r -> primaria.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(r)));
+
+        HikariDataSource replica = null;
+        if (!urlReplica.isBlank()) {
+            replica = new HikariDataSource();
+            replica.setJdbcUrl(urlReplica);
+            replica.setUsername(usuarioReplica.isBlank() ? propiedades.getUsername() : usuarioReplica);
+            replica.setPassword(claveReplica.isBlank() ? propiedades.getPassword() : claveReplica);
+            replica.setDriverClassName(propiedades.determineDriverClassName());
+            Binder.get(entorno).bind("datasource.replica.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica");
+            replica.setReadOnly(true);
+            HikariDataSource poolReplica = replica;
+            registro.ifAvailable(r -> poolReplica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(r)));
+            log.info("Lecturas de reportes y busquedas habilitadas contra {}", urlReplica);
+        }
+        return new RuteoDataSource(primaria, replica, lagMaximoSeg, verificacionSeg);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RuteoDataSource ruteoDataSource) {
+        return new LazyConnectionDataSourceProxy(ruteoDataSource);
+    }
+}
@@ -0,0 +1,132 @@
+package com.epu.prototipo.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Garantiza que contra una base corre una sola instancia del backend.
+ *
+ * EstadoEquiposStore es la fuente de verdad del estado de los equipos y vive en la memoria
+ * de la instancia, y DespachadorOutbox aplica los eventos sin reclamarlos: una segunda
+ * instancia serviria y escribiria un estado que no ve los cambios de la primera. Al
+ * arrancar se toma el lock con nombre de MySQL (GET_LOCK) en una conexion propia de la
+ * primaria que se mantiene abierta; si otra instancia lo tiene, el arranque falla. El lock
+ * se suelta solo si la conexion se cae: se verifica periodicamente y se vuelve a tomar.
+ */
+@Component
+@Profile("prod")
+public class InstanciaUnica {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanciaUnica.class);
+
+    private final DataSource primaria;
+    private final String nombre;
+    private final long verificacionSeg;
+    private final ScheduledExecutorService verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "instancia-unica");
+        t.setDaemon(true);
+        return t;
+    });
+    private Connection conexion;
+    private volatile boolean propia;
+
+    public InstanciaUnica(RuteoDataSource ruteoDataSource,
+                          @Value("${instancia.lock:prototipo-backend}") String nombre,
+                          @Value("${instancia.verificacion-seg:30}") long verificacionSeg) {
+        this.primaria = ruteoDataSource.getPrimaria();
+        this.nombre = nombre;
+        this.verificacionSeg = Math.max(1, verificacionSeg);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        if (!tomar()) {
+            throw new IllegalStateException("Ya hay otra instancia del backend usando esta base (lock '" + nombre
+                    + "'): el estado de equipos en memoria no admite dos instancias");
+        }
+        log.info("Lock de instancia '{}' tomado", nombre);
+        verificador.scheduleWithFixedDelay(this::verificar, verificacionSeg, verificacionSeg, TimeUnit.SECONDS);
+    }
+
+    // Con la conexion caida el lock quedo libre: se toma en una nueva
+    synchronized void verificar() {
+        boolean sigue = false;
+        if (conexion != null) {
+            try (PreparedStatement ps = conexion.prepareStatement("SELECT IS_USED_LOCK(?) = CONNECTION_ID()")) {
+                ps.setString(1, nombre);
+                try (ResultSet rs = ps.executeQuery()) {
+                    sigue = rs.next() && rs.getBoolean(1);
+                }
+            } catch (SQLException e) {
+                log.warn("No se pudo verificar el lock de instancia '{}': {}", nombre, e.getMessage());
+            }
+        }
+        if (sigue) {
+            return;
+        }
+        boolean teniaLock = propia;
+        cerrar();
+        if (tomar()) {
+            log.warn("Lock de instancia '{}' perdido y vuelto a tomar", nombre);
+        } else if (teniaLock) {
+            // Se informa una vez; se sigue intentando en cada verificacion
+            log.error("Lock de instancia '{}' perdido: otra instancia puede estar usando la misma base", nombre);
+        }
+    }
+
+    private synchronized boolean tomar() {
+        try {
+            Connection nueva = primaria.getConnection();
+            try (PreparedStatement ps = nueva.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                ps.setString(1, nombre);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) == 1) {
+                        conexion = nueva;
+                        propia = true;
+                        return true;
+                    }
+                }
+            }
+            nueva.close();
+        } catch (SQLException e) {
+            log.warn("No se pudo tomar el lock de instancia '{}': {}", nombre, e.getMessage());
+        }
+        propia = false;
+        return false;
+    }
+
+    public boolean isPropia() {
+        return propia;
+    }
+
+    private synchronized void cerrar() {
+        if (conexion != null) {
+            try {
+                conexion.close();
+            } catch (SQLException ignored) {}
+            conexion = null;
+        }
+        propia = false;
+    }
+
+    // Cerrar la conexion suelta el lock
+    @PreDestroy
+    void detener() {
+        verificador.shutdownNow();
+        cerrar();
+    }
+}
@@ -0,0 +1,20 @@
+package com.epu.prototipo.config;
+
+import com.epu.prototipo.util.CamposSolicitados;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Los modelos con @JsonFilter necesitan un filtro registrado aunque no se pida ?fields=:
+// por defecto se serializa todo (lo reemplaza CamposJsonAdvice cuando hay parametro)
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer filtroCamposPorDefecto() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(CamposSolicitados.FILTRO, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
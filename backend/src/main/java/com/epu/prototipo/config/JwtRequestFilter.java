@@ -8,6 +8,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull; 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,6 +30,8 @@ import java.io.IOException;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtRequestFilter.class);
+
     @Autowired
     private UserDetailsServiceCustom userDetailsService;
 
@@ -53,13 +58,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 // Para obtener el legajo (username) del token
                 username = jwtTokenUtil.getUsernameFromToken(jwtToken);
             } catch (IllegalArgumentException e) {
-                System.err.println("No se pudo obtener el legajo del token JWT.");
+                log.debug("No se pudo obtener el legajo del token JWT.");
             } catch (ExpiredJwtException e) {
-                System.err.println("El token JWT ha expirado.");
+                log.debug("El token JWT ha expirado.");
             }
         } else {
-            // Si el encabezado no existe o no es Bearer
-            logger.warn("El token JWT no comienza con 'Bearer ' o no existe.");
+            // Si el encabezado no existe o no es Bearer (login, health, scrape de metricas): no es un error
+            log.debug("El token JWT no comienza con 'Bearer ' o no existe.");
         }
 
         // Una vez que tenemos el username (del token) y no hay autenticacion
@@ -82,6 +87,8 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 // Se establece la autenticacion en el Contexto de Seguridad
                 // Esto confirma a @PreAuthorize que el usuario esta logueado
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                // El legajo acompaña el requestId en los logs del resto del request (RequestIdFilter limpia el MDC)
+                MDC.put("usuario", username);
             }
         }
         
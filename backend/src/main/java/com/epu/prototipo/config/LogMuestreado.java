@@ -0,0 +1,43 @@
+package com.epu.prototipo.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Limite de lineas de log para un punto caliente: deja pasar hasta porVentana llamadas por
+// ventana y descarta el resto contando cuantas se perdieron, que se informan con la primera
+// linea de la ventana siguiente. Se usa como
+//   if (log.isDebugEnabled() && MUESTREO.permitir()) log.debug(...)
+// para que con DEBUG activo una rafaga de requests no inunde la salida.
+
+public final class LogMuestreado {
+
+    private final int porVentana;
+    private final long ventanaNanos;
+    private final AtomicLong inicioVentana = new AtomicLong(System.nanoTime());
+    private final AtomicInteger enVentana = new AtomicInteger();
+    private final AtomicLong descartados = new AtomicLong();
+
+    public LogMuestreado(int porVentana, long ventana, TimeUnit unidad) {
+        this.porVentana = Math.max(1, porVentana);
+        this.ventanaNanos = unidad.toNanos(Math.max(1, ventana));
+    }
+
+    public boolean permitir() {
+        long ahora = System.nanoTime();
+        long inicio = inicioVentana.get();
+        if (ahora - inicio >= ventanaNanos && inicioVentana.compareAndSet(inicio, ahora)) {
+            enVentana.set(0);
+        }
+        if (enVentana.incrementAndGet() <= porVentana) {
+            return true;
+        }
+        descartados.incrementAndGet();
+        return false;
+    }
+
+    // Descartadas desde la ultima consulta; para agregar "(+N omitidas)" a la linea que si sale
+    public long tomarDescartados() {
+        return descartados.getAndSet(0);
+    }
+}
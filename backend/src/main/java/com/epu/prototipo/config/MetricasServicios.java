@@ -0,0 +1,58 @@
+package com.epu.prototipo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Latencia de cada metodo de IPtsService e IRtoService (cualquier perfil) en el timer
+// servicio.llamadas{servicio, metodo, exception}. Va por fuera de @Transactional, asi que
+// incluye el commit y los reintentos optimistas. Las llamadas internas de un servicio a
+// si mismo no pasan por el proxy y no se miden aparte.
+
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricasServicios {
+
+    private final MeterRegistry registro;
+
+    public MetricasServicios(MeterRegistry registro) {
+        this.registro = registro;
+    }
+
+    @Around("execution(* com.epu.prototipo.service.IPtsService.*(..))")
+    public Object medirPts(ProceedingJoinPoint llamada) throws Throwable {
+        return medir("IPtsService", llamada);
+    }
+
+    @Around("execution(* com.epu.prototipo.service.IRtoService.*(..))")
+    public Object medirRto(ProceedingJoinPoint llamada) throws Throwable {
+        return medir("IRtoService", llamada);
+    }
+
+    private Object medir(String servicio, ProceedingJoinPoint llamada) throws Throwable {
+        long inicio = System.nanoTime();
+        String excepcion = "none";
+        try {
+            return llamada.proceed();
+        } catch (Throwable t) {
+            excepcion = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            Timer.builder("servicio.llamadas")
+                    .description("Latencia de los metodos de los servicios de PTS y RTO")
+                    .tag("servicio", servicio)
+                    .tag("metodo", llamada.getSignature().getName())
+                    .tag("exception", excepcion)
+                    .register(registro)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.epu.prototipo.config;
+
+import com.epu.prototipo.service.gateway.DcsGateway;
+import com.epu.prototipo.service.gateway.modbus.ModbusEsclavoSimulador;
+import com.epu.prototipo.service.gateway.modbus.ModbusTcpDcsGateway;
+import com.epu.prototipo.service.gateway.modbus.PuntoModbus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+
+// Gateway DCS real por Modbus TCP (dcs.gateway=modbus).
+// Con dcs.modbus.simulador=true se levanta un esclavo Modbus en proceso en el mismo puerto.
+
+@Configuration
+@Profile("prod")
+@ConditionalOnProperty(name = "dcs.gateway", havingValue = "modbus")
+public class ModbusConfig {
+
+    @Bean
+    public DcsGateway dcsGateway(@Value("${dcs.modbus.host:127.0.0.1}") String host,
+                                 @Value("${dcs.modbus.puerto:502}") int puerto,
+                                 @Value("${dcs.modbus.conexiones:2}") int conexiones,
+                                 @Value("${dcs.modbus.timeout-ms:1000}") int timeoutMs,
+                                 @Value("${dcs.modbus.mapa:}") String mapa) {
+        return new ModbusTcpDcsGateway(host, puerto, conexiones, timeoutMs, PuntoModbus.parsearMapa(mapa));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "dcs.modbus.simulador", havingValue = "true")
+    public ModbusEsclavoSimulador modbusEsclavoSimulador(@Value("${dcs.modbus.puerto:502}") int puerto,
+                                                         @Value("${dcs.simulacion.latencia-ms:0}") long latenciaMs) throws IOException {
+        return new ModbusEsclavoSimulador(puerto, latenciaMs);
+    }
+}
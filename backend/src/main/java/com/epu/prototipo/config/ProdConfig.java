@@ -1,7 +1,10 @@
 package com.epu.prototipo.config;
 
 import com.epu.prototipo.service.gateway.DcsGateway;
+import com.epu.prototipo.service.gateway.LatenciaDcsGateway;
 import com.epu.prototipo.service.gateway.MockDcsGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -10,8 +13,16 @@ import org.springframework.context.annotation.Profile;
 @Profile("prod")
 public class ProdConfig {
 
+    // Con dcs.simulacion.latencia-ms > 0 el mock simula el viaje de ida y vuelta al DCS
     @Bean
-    public DcsGateway dcsGateway() {
-        return new MockDcsGateway();
+    @ConditionalOnProperty(name = "dcs.gateway", havingValue = "mock", matchIfMissing = true)
+    public DcsGateway dcsGateway(@Value("${dcs.simulacion.latencia-ms:0}") long latenciaMs,
+                                 @Value("${dcs.simulacion.jitter-ms:0}") long jitterMs,
+                                 @Value("${dcs.simulacion.tasa-fallos:0}") double tasaFallos) {
+        DcsGateway mock = new MockDcsGateway();
+        if (latenciaMs > 0 || tasaFallos > 0) {
+            return new LatenciaDcsGateway(mock, latenciaMs, jitterMs, tasaFallos);
+        }
+        return mock;
     }
 }
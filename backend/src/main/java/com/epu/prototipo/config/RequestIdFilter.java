@@ -0,0 +1,52 @@
+package com.epu.prototipo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Primer filtro de cada peticion: toma el X-Request-Id que mande el cliente o el proxy
+ * (si es razonable) o genera uno, lo deja en el MDC como "requestId" para que todas las
+ * lineas de log del request lo lleven y lo devuelve en la respuesta.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    public static final String ENCABEZADO = "X-Request-Id";
+    public static final String CLAVE_MDC = "requestId";
+
+    // Evita que un encabezado arbitrario termine tal cual en los logs
+    private static final Pattern VALIDO = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain)
+            throws ServletException, IOException {
+
+        String requestId = request.getHeader(ENCABEZADO);
+        if (requestId == null || !VALIDO.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        }
+        MDC.put(CLAVE_MDC, requestId);
+        response.setHeader(ENCABEZADO, requestId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Los hilos de Tomcat se reutilizan: no dejar el contexto de este request en el siguiente
+            MDC.clear();
+        }
+    }
+}
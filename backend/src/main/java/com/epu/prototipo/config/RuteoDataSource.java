@@ -0,0 +1,196 @@
+package com.epu.prototipo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Elige la primaria o la replica para cada conexion.
+// Van a la replica las transacciones readOnly abiertas por metodos de la aplicacion
+// (busquedas, reportes). Las lecturas sueltas de los repositorios de Spring Data tambien
+// son readOnly por defecto, pero siguen en la primaria para que quien acaba de escribir
+// lea lo suyo. Por lo mismo las versiones de los GET condicionales (getVersion*) y los
+// cuerpos que validan van en transacciones que no son readOnly. Un hilo mide el atraso de la replica; si supera
+// el maximo, no responde o la replicacion esta detenida, las lecturas vuelven a la
+// primaria hasta que se recupere.
+// Va detras de un LazyConnectionDataSourceProxy: la conexion se pide recien en la
+// primera sentencia, cuando la transaccion ya marco readOnly.
+
+public class RuteoDataSource extends AbstractRoutingDataSource implements AutoCloseable, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(RuteoDataSource.class);
+
+    private static final String PRIMARIA = "primaria";
+    private static final String REPLICA = "replica";
+    private static final String PAQUETE_APLICACION = "com.epu.prototipo.";
+
+    private final HikariDataSource primaria;
+    private final HikariDataSource replica;
+    private final long lagMaximoSeg;
+    private final long verificacionSeg;
+    private ScheduledExecutorService verificador;
+
+    private volatile boolean replicaDisponible;
+    private volatile long lagSeg = -1;
+    private volatile boolean sinSoporteReplica;
+    private final AtomicLong lecturasReplica = new AtomicLong();
+    private final AtomicLong lecturasDesviadas = new AtomicLong();
+
+    public RuteoDataSource(HikariDataSource primaria, HikariDataSource replica, long lagMaximoSeg, long verificacionSeg) {
+        this.primaria = primaria;
+        this.replica = replica;
+        this.lagMaximoSeg = lagMaximoSeg;
+        this.verificacionSeg = Math.max(1, verificacionSeg);
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIA, primaria);
+        if (replica != null) {
+            destinos.put(REPLICA, replica);
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (replica == null) {
+            return;
+        }
+        verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag");
+            t.setDaemon(true);
+            return t;
+        });
+        verificador.scheduleWithFixedDelay(this::verificarReplica, 0, verificacionSeg, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replica == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIA;
+        }
+        String transaccion = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transaccion == null || !transaccion.startsWith(PAQUETE_APLICACION)) {
+            return PRIMARIA;
+        }
+        if (!replicaDisponible) {
+            lecturasDesviadas.incrementAndGet();
+            return PRIMARIA;
+        }
+        lecturasReplica.incrementAndGet();
+        return REPLICA;
+    }
+
+    private void verificarReplica() {
+        boolean disponible;
+        try (Connection conexion = replica.getConnection(); Statement sentencia = conexion.createStatement()) {
+            Long atraso = leerAtraso(sentencia);
+            if (atraso == null) {
+                // Servidor sin replicacion configurada (ej. una segunda instancia local de prueba)
+                lagSeg = 0;
+                disponible = true;
+            } else {
+                lagSeg = atraso;
+                disponible = atraso >= 0 && atraso <= lagMaximoSeg;
+            }
+        } catch (SQLException e) {
+            lagSeg = -1;
+            disponible = false;
+            if (replicaDisponible) {
+                log.warn("Error verificando la replica: {}", e.getMessage());
+            }
+        }
+        if (disponible != replicaDisponible) {
+            log.info("{} (atraso {} s, maximo {} s)", disponible ? "Lecturas a la replica" : "Lecturas a la primaria", lagSeg, lagMaximoSeg);
+        }
+        replicaDisponible = disponible;
+    }
+
+    // null si el servidor no es replica; -1 si la replicacion esta detenida (atraso NULL)
+    private Long leerAtraso(Statement sentencia) throws SQLException {
+        if (!sinSoporteReplica) {
+            try (ResultSet rs = sentencia.executeQuery("SHOW REPLICA STATUS")) {
+                return rs.next() ? atraso(rs, "Seconds_Behind_Source") : null;
+            } catch (SQLSyntaxErrorException e) {
+                // MySQL anterior a 8.0.22
+                sinSoporteReplica = true;
+            }
+        }
+        try (ResultSet rs = sentencia.executeQuery("SHOW SLAVE STATUS")) {
+            return rs.next() ? atraso(rs, "Seconds_Behind_Master") : null;
+        }
+    }
+
+    private static long atraso(ResultSet rs, String columna) throws SQLException {
+        long segundos = rs.getLong(columna);
+        return rs.wasNull() ? -1 : segundos;
+    }
+
+    public Map<String, Object> getMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("replicaConfigurada", replica != null);
+        metricas.put("replicaDisponible", replicaDisponible);
+        metricas.put("atrasoSeg", lagSeg);
+        metricas.put("lecturasReplica", lecturasReplica.get());
+        metricas.put("lecturasDesviadasAPrimaria", lecturasDesviadas.get());
+        return metricas;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registro) {
+        if (replica == null) {
+            return;
+        }
+        Gauge.builder("datasource.replica.disponible", this, r -> r.replicaDisponible ? 1 : 0)
+                .description("1 si las lecturas van a la replica, 0 si vuelven a la primaria")
+                .register(registro);
+        Gauge.builder("datasource.replica.atraso", this, r -> r.lagSeg)
+                .description("Atraso de la replica medido en la ultima verificacion (-1 sin dato)")
+                .baseUnit("seconds")
+                .register(registro);
+        FunctionCounter.builder("datasource.lecturas", lecturasReplica, AtomicLong::get)
+                .description("Transacciones de solo lectura por destino")
+                .tag("destino", "replica")
+                .register(registro);
+        FunctionCounter.builder("datasource.lecturas", lecturasDesviadas, AtomicLong::get)
+                .tag("destino", "primaria-por-atraso")
+                .register(registro);
+    }
+
+    public HikariDataSource getPrimaria() {
+        return primaria;
+    }
+
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    @Override
+    public void close() {
+        if (verificador != null) {
+            verificador.shutdownNow();
+        }
+        if (replica != null) {
+            replica.close();
+        }
+        primaria.close();
+    }
+}
@@ -7,6 +7,8 @@ import com.epu.prototipo.security.service.UserDetailsServiceCustom;
 import com.epu.prototipo.service.IUsuarioService;
 import com.epu.prototipo.util.JwtTokenUtil;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -21,6 +23,8 @@ import java.util.Map;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
@@ -50,7 +54,7 @@ public class AuthController {
             }
 
             if (usuario.isAccountLocked()) {
-                System.out.println("[LOGIN BLOQUEADO] Usuario: " + legajo + " intenta acceder pero su cuenta está bloqueada.");
+                log.warn("Login rechazado: la cuenta de {} está bloqueada", legajo);
                 return ResponseEntity.status(403).body("Su cuenta está bloqueada debido a múltiples intentos fallidos. Contacte al administrador.");
             }
 
@@ -67,12 +71,12 @@ public class AuthController {
                     // Bloquear la cuenta
                     usuario.setAccountLocked(true);
                     usuarioService.updateUsuario(legajo, usuario);
-                    System.out.println("[LOGIN BLOQUEADO] Usuario: " + legajo + " bloqueado por 5 intentos fallidos.");
+                    log.warn("Cuenta de {} bloqueada por 5 intentos fallidos", legajo);
                     return ResponseEntity.status(403).body("Su cuenta ha sido bloqueada por seguridad. Contacte al administrador.");
                 } else {
                     // Actualizar intentos fallidos sin bloquear
                     usuarioService.updateUsuario(legajo, usuario);
-                    System.out.println("[LOGIN FALLIDO] Usuario: " + legajo + " intento fallido. Intentos restantes: " + remainingAttempts);
+                    log.info("Login fallido de {}; intentos restantes: {}", legajo, remainingAttempts);
                     return ResponseEntity.status(401).body("Contraseña inválida. Intentos restantes: " + remainingAttempts);
                 }
             }
@@ -86,14 +90,14 @@ public class AuthController {
             
             // 5. Verificar si el usuario debe cambiar su contraseña
             boolean requiresPasswordChange = usuario.isMustChangePassword();
-            System.out.println("[LOGIN EXITOSO] Usuario: " + legajo + " | mustChangePassword: " + requiresPasswordChange);
+            log.info("Login exitoso de {} (mustChangePassword={})", legajo, requiresPasswordChange);
 
             // Respuesta con el token real
             return ResponseEntity.ok(new LoginResponse(token, requiresPasswordChange));
 
         } catch (Exception e) {
             // Si el usuario no existe
-            System.err.println("[LOGIN ERROR] Error para usuario: " + legajo + " - " + e.getMessage());
+            log.warn("Error en el login de {}: {}", legajo, e.getMessage());
             return ResponseEntity.status(401).body("Error: Legajo o contraseña inválidos.");
         }
     }
@@ -141,11 +145,11 @@ public class AuthController {
             usuario.setMustChangePassword(false);
             usuarioService.updateUsuario(legajo, usuario);
 
-            System.out.println("Contraseña cambiada exitosamente para usuario: " + legajo);
+            log.info("Contraseña cambiada exitosamente para usuario: {}", legajo);
             return ResponseEntity.ok(Map.of("message", "Contraseña actualizada exitosamente."));
 
         } catch (Exception e) {
-            System.err.println("Error al cambiar contraseña: " + e.getMessage());
+            log.warn("Error al cambiar contraseña: {}", e.getMessage());
             return ResponseEntity.status(500).body("Error al cambiar la contraseña.");
         }
     }
@@ -177,11 +181,11 @@ public class AuthController {
             usuario.setMustChangePassword(true);
             usuarioService.updateUsuario(legajo, usuario);
 
-            System.out.println("[DESBLOQUEAR] Usuario: " + legajo + " ha sido desbloqueado.");
+            log.info("Usuario: {} ha sido desbloqueado.", legajo);
             return ResponseEntity.ok(Map.of("message", "Cuenta desbloqueada exitosamente."));
 
         } catch (Exception e) {
-            System.err.println("Error al desbloquear cuenta: " + e.getMessage());
+            log.warn("Error al desbloquear cuenta: {}", e.getMessage());
             return ResponseEntity.status(500).body("Error al desbloquear la cuenta.");
         }
     }
@@ -210,11 +214,11 @@ public class AuthController {
             usuario.setFailedLoginAttempts(5);
             usuarioService.updateUsuario(legajo, usuario);
 
-            System.out.println("[BLOQUEAR] Usuario: " + legajo + " ha sido bloqueado.");
+            log.info("Usuario: {} ha sido bloqueado.", legajo);
             return ResponseEntity.ok(Map.of("message", "Cuenta bloqueada exitosamente."));
 
         } catch (Exception e) {
-            System.err.println("Error al bloquear cuenta: " + e.getMessage());
+            log.warn("Error al bloquear cuenta: {}", e.getMessage());
             return ResponseEntity.status(500).body("Error al bloquear la cuenta.");
         }
     }
@@ -0,0 +1,28 @@
+package com.epu.prototipo.controller;
+
+import com.epu.prototipo.service.CacheSegundoNivel;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@Profile("prod")
+public class CacheController {
+
+    private final CacheSegundoNivel cache;
+
+    public CacheController(CacheSegundoNivel cache) {
+        this.cache = cache;
+    }
+
+    // Aciertos, fallos, escrituras y tamaño por region del cache de segundo nivel
+    @GetMapping("/estadisticas")
+    public ResponseEntity<Map<String, Object>> getEstadisticas() {
+        return ResponseEntity.ok(cache.getEstadisticas());
+    }
+}
@@ -1,21 +1,38 @@
 package com.epu.prototipo.controller;
 
+import com.epu.prototipo.model.EstadoDcs;
 import com.epu.prototipo.service.IEquipoService;
+import com.epu.prototipo.service.gateway.AsyncDcsGateway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/dcs")
 public class DcsSimController {
 
+    private static final Logger log = LoggerFactory.getLogger(DcsSimController.class);
+
     private final IEquipoService equipoService;
+    private final AsyncDcsGateway dcsGateway;
 
     @Autowired
-    public DcsSimController(IEquipoService equipoService) {
+    public DcsSimController(IEquipoService equipoService, AsyncDcsGateway dcsGateway) {
         this.equipoService = equipoService;
+        this.dcsGateway = dcsGateway;
+    }
+
+    // Estado del circuit breaker y metricas de llamadas por controlador DCS
+    @GetMapping("/circuitos")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCircuitos() {
+        return ResponseEntity.ok(dcsGateway.getMetricasCircuitos());
     }
 
     @PostMapping("/update")
@@ -27,10 +44,39 @@ public class DcsSimController {
         }
         try {
             equipoService.actualizarEstadoEquipo(tag, estado);
-            System.out.println(">>> [MOCK_DCS_GATEWAY] Señal recibida desde DCS: TAG=" + tag + ", ESTADO=" + estado);
+            log.debug("Señal recibida desde DCS: TAG={}, ESTADO={}", tag, estado);
             return ResponseEntity.ok("Estado actualizado correctamente desde DCS");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    // Lote de señales DCS (ej: replay tras reconexion): [{tag, estado}, ...]
+    // Se aplica solo el ultimo estado de cada tag, en un unico batch y transaccion.
+    @PostMapping("/update/lote")
+    public ResponseEntity<?> recibirLoteDcs(@RequestBody List<Map<String, String>> payload) {
+        Map<String, String> ultimoPorTag = new LinkedHashMap<>();
+        List<Map<String, String>> invalidas = new ArrayList<>();
+        for (Map<String, String> actualizacion : payload) {
+            String tag = actualizacion.get("tag");
+            String estado = actualizacion.get("estado");
+            if (tag == null || tag.isBlank() || !EstadoDcs.esValido(estado)) {
+                invalidas.add(actualizacion);
+                continue;
+            }
+            ultimoPorTag.put(tag, estado);
+        }
+        try {
+            List<String> noEncontrados = equipoService.aplicarEstadosDcs(ultimoPorTag);
+            log.debug("Lote recibido: {} señales, {} tags distintos", payload.size(), ultimoPorTag.size());
+            return ResponseEntity.ok(Map.of(
+                    "recibidas", payload.size(),
+                    "aplicadas", ultimoPorTag.size() - noEncontrados.size(),
+                    "coalescidas", payload.size() - invalidas.size() - ultimoPorTag.size(),
+                    "invalidas", invalidas,
+                    "noEncontrados", noEncontrados));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
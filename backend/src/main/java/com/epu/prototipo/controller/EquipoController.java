@@ -1,28 +1,59 @@
 package com.epu.prototipo.controller;
 
+import com.epu.prototipo.dto.ImportacionEquiposDTO;
+import com.epu.prototipo.dto.SugerenciaEquipoDTO;
 import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.TransicionEquipo;
 import com.epu.prototipo.service.IEquipoService;
+import com.epu.prototipo.service.IHistorialEquipoService;
+import com.epu.prototipo.service.ImportacionEquiposService;
+import com.epu.prototipo.service.IndiceEquipos;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/equipos")
 public class EquipoController {
     private final IEquipoService equipoService;
+    private final IHistorialEquipoService historialService;
+    private final ImportacionEquiposService importacionService;
+    private final IndiceEquipos indice;
 
-    public EquipoController(IEquipoService equipoService) {
+    public EquipoController(IEquipoService equipoService, IHistorialEquipoService historialService,
+                            ImportacionEquiposService importacionService, IndiceEquipos indice) {
         this.equipoService = equipoService;
+        this.historialService = historialService;
+        this.importacionService = importacionService;
+        this.indice = indice;
     }
 
-    //  Obtener todos los equipos
+    //  Obtener todos los equipos (304 si no cambio ninguno desde el ETag del cliente). Con ?fields=
+    //  solo se escriben esos campos; el estado ya esta en memoria, no hay lectura que recortar
     @GetMapping
-    public ResponseEntity<List<Equipo>> getAllEquipos() {
+    public ResponseEntity<List<Equipo>> getAllEquipos(WebRequest request) {
+        if (GetCondicional.noModificado(request, equipoService.getVersionEquipos())) {
+            return null;
+        }
         return ResponseEntity.ok(equipoService.getAllEquipos());
     }
 
+    // Autocompletado por tag o descripcion (sin acentos, tolera errores de tipeo)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SugerenciaEquipoDTO>> sugerirEquipos(@RequestParam String q,
+                                                                     @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(indice.sugerir(q, Math.min(Math.max(limite, 1), 50)));
+    }
+
     // Obtener un equipo por tag
     @GetMapping("/{tag}")
     public ResponseEntity<Equipo> getEquipo(@PathVariable String tag) {
@@ -36,6 +67,12 @@ public class EquipoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    // Importacion masiva desde CSV o XLSX (columnas: tag, descripcion, condicion)
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacionEquiposDTO> importarEquipos(@RequestParam("archivo") MultipartFile archivo) throws IOException {
+        return ResponseEntity.ok(importacionService.importar(archivo));
+    }
+
     // Actualizar un equipo
     @PutMapping("/{tag}")
     public ResponseEntity<Equipo> updateEquipo(@PathVariable String tag, @RequestBody Equipo equipo) {
@@ -64,6 +101,35 @@ public class EquipoController {
         return ResponseEntity.ok(equipo);
     }
 
+    // Historial de transiciones de estadoDcs y condicion (por defecto, ultimos 30 dias)
+    @GetMapping("/{tag}/historial")
+    public ResponseEntity<List<TransicionEquipo>> getHistorial(
+            @PathVariable String tag,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(30);
+        return ResponseEntity.ok(historialService.getTransiciones(tag, inicio, fin));
+    }
+
+    // Segundos en cada valor del campo dentro del rango, ej. ?campo=condicion -> {"BLOQUEADO": 86400, ...}
+    @GetMapping("/{tag}/historial/duraciones")
+    public ResponseEntity<Map<String, Long>> getDuraciones(
+            @PathVariable String tag,
+            @RequestParam(defaultValue = TransicionEquipo.CAMPO_CONDICION) String campo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(30);
+        return ResponseEntity.ok(historialService.getDuraciones(tag, campo, inicio, fin));
+    }
+
+    // Manejo de errores: parametros no validos
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleParametroInvalido(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
     // Manejo de errores: Equipo no encontrado
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleEquipoNoEncontrado(RuntimeException ex) {
@@ -0,0 +1,26 @@
+package com.epu.prototipo.controller;
+
+import com.epu.prototipo.service.CambiosBroadcaster;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/eventos")
+public class EventosController {
+
+    private final CambiosBroadcaster broadcaster;
+
+    public EventosController(CambiosBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    // Stream SSE de cambios (eventos "equipo", "pts" y "rto") para no tener que hacer polling
+    // de /api/equipos y /api/pts. Si el servidor corta la conexion, reconectar y recargar todo.
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribir() {
+        return broadcaster.suscribir();
+    }
+}
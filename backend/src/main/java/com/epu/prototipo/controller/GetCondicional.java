@@ -0,0 +1,34 @@
+package com.epu.prototipo.controller;
+
+import com.epu.prototipo.dto.VersionRecurso;
+import com.epu.prototipo.util.CamposSolicitados;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * GET condicional con la version del recurso, consultada antes de cargarlo. Va con
+ * Cache-Control: no-cache para que el navegador guarde la respuesta y la revalide en cada uso
+ * (Spring Security pone no-store si el controlador no define Cache-Control). El ETag depende
+ * tambien de ?fields=, que CamposJsonAdvice aplica a cualquier GET.
+ */
+final class GetCondicional {
+
+    private GetCondicional() {}
+
+    /**
+     * @return true si el cliente ya tiene esta version: el controlador devuelve null y Spring
+     * contesta 304. Con false, ETag y Last-Modified ya quedaron en la respuesta.
+     */
+    static boolean noModificado(WebRequest request, VersionRecurso version) {
+        if (version == null) {
+            return false;
+        }
+        if (request instanceof ServletWebRequest servlet && servlet.getResponse() != null) {
+            servlet.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        // Con ?fields= la respuesta es otra representacion del recurso: ETag propio por seleccion
+        CamposSolicitados campos = CamposSolicitados.de(request.getParameter(CamposSolicitados.PARAMETRO));
+        return request.checkNotModified(version.conCampos(campos).etag(), version.ultimaModificacionMillis());
+    }
+}
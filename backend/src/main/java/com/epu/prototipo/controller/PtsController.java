@@ -1,26 +1,42 @@
 package com.epu.prototipo.controller;
 
+import com.epu.prototipo.config.LogMuestreado;
 import com.epu.prototipo.dto.CerrarPtsRequest;
 import com.epu.prototipo.dto.FirmaPtsRequest;
 import com.epu.prototipo.model.PermisoTrabajoSeguro;
 import com.epu.prototipo.service.IPtsService;
+import com.epu.prototipo.util.CamposSolicitados;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/pts")
 @Profile({"prod", "test"})
 public class PtsController {
 
+    private static final Logger log = LoggerFactory.getLogger(PtsController.class);
+    // El detalle se consulta en cada refresco del frontend: con DEBUG, hasta 20 lineas por segundo
+    private static final LogMuestreado MUESTREO_DETALLE = new LogMuestreado(20, 1, TimeUnit.SECONDS);
+
     private final IPtsService ptsService;
+    private final int tamanioMaximoBusqueda;
 
     // Servicio para manejar la logica de PTS
-    public PtsController(IPtsService ptsService) {
+    public PtsController(IPtsService ptsService,
+                         @Value("${pts.busqueda.tamanio-maximo:100}") int tamanioMaximoBusqueda) {
         this.ptsService = ptsService;
+        this.tamanioMaximoBusqueda = Math.max(1, tamanioMaximoBusqueda);
     }
 
 
@@ -48,6 +64,9 @@ public class PtsController {
      * @param area Filtro por area 
      * @param estado Filtro por estado RTO: PENDIENTE, CERRADO 
      * @param fechaInicio Filtro por fecha de inicio en formato AAAA-MM-DD 
+     * @param desde Fecha de inicio minima AAAA-MM-DD (incluida)
+     * @param hasta Fecha de inicio maxima AAAA-MM-DD (incluida)
+     * @param fields Campos a devolver separados por coma (ej. id,equipoOInstalacion,rtoEstado); sin el, todos
      * @return Lista filtrada de PTS
      * 
      */
@@ -57,38 +76,107 @@ public class PtsController {
             @RequestParam(required = false) String usuario,
             @RequestParam(required = false) String area,
             @RequestParam(required = false) String estado,
-            @RequestParam(required = false) String fechaInicio) {
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(name = CamposSolicitados.PARAMETRO, required = false) String fields) {
         
         try {
             // Llamada al metodo de busqueda del servicio
-            List<PermisoTrabajoSeguro> resultados = ptsService.buscarPts(equipo, usuario, area, estado, fechaInicio);
+            List<PermisoTrabajoSeguro> resultados = ptsService.buscarPts(equipo, usuario, area, estado, fechaInicio, desde, hasta,
+                    CamposSolicitados.de(fields));
             return ResponseEntity.ok(resultados);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             // En error, devolver lista vacia y log del error
-            System.err.println("Error en búsqueda de PTS: " + e.getMessage());
+            log.warn("Error en búsqueda de PTS: {}", e.getMessage());
             return ResponseEntity.ok(java.util.Collections.emptyList());
         }
     }
 
+    // *******************************************************************
+    // Historial de PTS por rango de fechas (incluye los archivados)
+    // *******************************************************************
+    /**
+     * PTS con fecha de inicio entre desde y hasta, del mas reciente al mas antiguo. Los PTS
+     * cerrados viejos se archivan; solo se consultan si el rango llega a esas fechas.
+     *
+     * @param desde Fecha inicial AAAA-MM-DD (incluida)
+     * @param hasta Fecha final AAAA-MM-DD (incluida)
+     * @param fields Campos a devolver separados por coma; sin el, todos
+     * @return Lista de PTS del rango, hasta pts.rango.maximo
+     */
+    @GetMapping("/historial")
+    public ResponseEntity<?> historialPts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String equipo,
+            @RequestParam(required = false) String usuario,
+            @RequestParam(required = false) String estado,
+            @RequestParam(name = CamposSolicitados.PARAMETRO, required = false) String fields) {
+        try {
+            return ResponseEntity.ok(ptsService.buscarPtsPorRango(desde, hasta, equipo, usuario, estado,
+                    CamposSolicitados.de(fields)));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>("Datos inválidos: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (RuntimeException e) {
+            log.error("Error en historial de PTS {} a {}", desde, hasta, e);
+            return new ResponseEntity<>("Error interno: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // *******************************************************************
+    // Busqueda de texto libre (descripcion, tarea, ubicacion, riesgos)
+    // *******************************************************************
+    /**
+     * @param q Texto a buscar, ej. "sello mecánico"; todas las palabras tienen que aparecer
+     * @param pagina Pagina desde 0
+     * @param tamanio Resultados por pagina (maximo pts.busqueda.tamanio-maximo)
+     * @return Pagina de resultados de mayor a menor relevancia
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> buscarTexto(@RequestParam String q,
+                                         @RequestParam(defaultValue = "0") int pagina,
+                                         @RequestParam(defaultValue = "20") int tamanio) {
+        if (pagina < 0 || tamanio < 1) {
+            return new ResponseEntity<>("Datos inválidos: pagina >= 0 y tamanio >= 1", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return ResponseEntity.ok(ptsService.buscarTexto(q, pagina, Math.min(tamanio, tamanioMaximoBusqueda)));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>("Datos inválidos: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (RuntimeException e) {
+            log.error("Error en búsqueda de texto '{}'", q, e);
+            return new ResponseEntity<>("Error interno: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // ****************************************************
     // Obtener los PTS por ID (Para DetallePTS)
     // ****************************************************
     @GetMapping("/{id}")
-    public ResponseEntity<?> getPtsById(@PathVariable String id) {
+    public ResponseEntity<?> getPtsById(@PathVariable String id,
+                                        @RequestParam(name = CamposSolicitados.PARAMETRO, required = false) String fields,
+                                        WebRequest request) {
         try {
-            System.out.println("Buscando PTS con ID: " + id);
-            
-            PermisoTrabajoSeguro pts = ptsService.getPtsById(id);
-            
+            // Si el cliente ya tiene esta version, 304 sin cargar el PTS
+            if (GetCondicional.noModificado(request, ptsService.getVersionPts(id))) {
+                return null;
+            }
+            PermisoTrabajoSeguro pts = ptsService.getPtsById(id, CamposSolicitados.de(fields));
+
+            if (log.isDebugEnabled() && MUESTREO_DETALLE.permitir()) {
+                log.debug("Detalle de PTS {}: {} (+{} omitidos)", id, pts != null ? "encontrado" : "no encontrado",
+                        MUESTREO_DETALLE.tomarDescartados());
+            }
             if (pts == null) {
-                System.out.println("PTS no encontrado: " + id);
                 return new ResponseEntity<>("PTS no encontrado", HttpStatus.NOT_FOUND);
             }
-            
-            System.out.println("PTS encontrado: " + pts.getId() + " - " + pts.getDescripcionTrabajo());
+
             return ResponseEntity.ok(pts);
         } catch (RuntimeException e) {
-            System.err.println("Error al buscar PTS " + id + ": " + e.getMessage());
+            log.error("Error al buscar PTS {}", id, e);
             return new ResponseEntity<>("Error interno: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
@@ -105,6 +193,8 @@ public class PtsController {
             
             // Retorna el objeto creado y el estado 201 Created
             return new ResponseEntity<>(newPts, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>("Datos inválidos: " + e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (RuntimeException e) {
             // Para manejar errores de persistencia
             return new ResponseEntity<>("Error al crear el PTS: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
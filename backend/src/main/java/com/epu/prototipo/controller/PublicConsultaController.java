@@ -5,6 +5,7 @@ import com.epu.prototipo.service.PublicConsultaService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/public/consulta")
@@ -17,7 +18,11 @@ public class PublicConsultaController {
     }
 
     @GetMapping("/equipo/{tag}")
-    public ResponseEntity<EquipoStatusDTO> getStatusPorTag(@PathVariable String tag) {
+    public ResponseEntity<EquipoStatusDTO> getStatusPorTag(@PathVariable String tag, WebRequest request) {
+        // Los tableros de planta consultan seguido: 304 si el equipo y sus PTS no cambiaron
+        if (GetCondicional.noModificado(request, publicConsultaService.getVersionEquipoStatus(tag))) {
+            return null;
+        }
         EquipoStatusDTO dto = publicConsultaService.getEquipoStatus(tag);
         return ResponseEntity.ok(dto);
     }
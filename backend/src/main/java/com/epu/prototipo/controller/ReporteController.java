@@ -1,6 +1,8 @@
 package com.epu.prototipo.controller;
 
 import com.epu.prototipo.service.ReporteService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
@@ -15,6 +17,8 @@ import java.util.Date;
 @RequestMapping("/api/reportes")
 public class ReporteController {
 
+    private static final Logger log = LoggerFactory.getLogger(ReporteController.class);
+
     @Autowired
     private ReporteService reporteService;
 
@@ -25,7 +29,7 @@ public class ReporteController {
     @GetMapping("/pdf/{ptsId}")
     public ResponseEntity<byte[]> exportarPtsPdf(@PathVariable String ptsId) {
         try {
-            System.out.println("Solicitud de exportación PDF para PTS ID: " + ptsId);
+            log.debug("Solicitud de exportación PDF para PTS ID: {}", ptsId);
             
             // Generar PDF usando el servicio
             byte[] pdfBytes = reporteService.exportarPtsPdf(ptsId);
@@ -36,12 +40,12 @@ public class ReporteController {
             headers.setContentDispositionFormData("attachment", "PTS-" + ptsId + ".pdf");
             headers.setContentLength(pdfBytes.length);
             
-            System.out.println("PDF generado exitosamente. Tamaño: " + pdfBytes.length + " bytes");
+            log.debug("PDF generado exitosamente. Tamaño: {} bytes", pdfBytes.length);
             
             return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
             
         } catch (Exception e) {
-            System.err.println("Error al exportar PDF para PTS " + ptsId + ": " + e.getMessage());
+            log.error("Error al exportar PDF para PTS {}: {}", ptsId, e.getMessage());
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
@@ -58,9 +62,7 @@ public class ReporteController {
             @RequestParam(required = false) 
             @DateTimeFormat(pattern = "yyyy-MM-dd") Date fechaHasta) {        
         try {
-            System.out.println("Solicitud de exportación Excel con filtros:");
-            System.out.println("- fechaDesde: " + fechaDesde);
-            System.out.println("- fechaHasta: " + fechaHasta);
+            log.debug("Solicitud de exportación Excel: fechaDesde={}, fechaHasta={}", fechaDesde, fechaHasta);
             
             // Generar Excel con el servicio
             byte[] excelBytes = reporteService.exportarPtsExcel(fechaDesde, fechaHasta);
@@ -71,12 +73,12 @@ public class ReporteController {
             headers.setContentDispositionFormData("attachment", "Reporte_PTS.xlsx");
             headers.setContentLength(excelBytes.length);
             
-            System.out.println("Excel generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+            log.debug("Excel generado exitosamente. Tamaño: {} bytes", excelBytes.length);
             
             return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
             
         } catch (Exception e) {
-            System.err.println("Error al exportar Excel: " + e.getMessage());
+            log.error("Error al exportar Excel: {}", e.getMessage());
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
@@ -113,10 +115,7 @@ public class ReporteController {
 
             @RequestParam(required = false) String equipo) {
         try {
-            System.out.println("Solicitud de exportación PDF lista con filtros:");
-            System.out.println("- fechaDesde: " + fechaDesde);
-            System.out.println("- fechaHasta: " + fechaHasta);
-            System.out.println("- equipo: " + equipo);
+            log.debug("Solicitud de exportación PDF lista: fechaDesde={}, fechaHasta={}, equipo={}", fechaDesde, fechaHasta, equipo);
 
             byte[] pdfBytes = reporteService.exportarPtsListaPdf(fechaDesde, fechaHasta, equipo);
 
@@ -125,11 +124,11 @@ public class ReporteController {
             headers.setContentDispositionFormData("attachment", "Reporte_PTS.pdf");
             headers.setContentLength(pdfBytes.length);
 
-            System.out.println("PDF lista generado exitosamente. Tamaño: " + pdfBytes.length + " bytes");
+            log.debug("PDF lista generado exitosamente. Tamaño: {} bytes", pdfBytes.length);
             return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
 
         } catch (Exception e) {
-            System.err.println("Error al exportar PDF lista: " + e.getMessage());
+            log.error("Error al exportar PDF lista: {}", e.getMessage());
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
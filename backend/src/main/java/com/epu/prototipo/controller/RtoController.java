@@ -1,11 +1,14 @@
 package com.epu.prototipo.controller;
 
+import com.epu.prototipo.dto.ResumenRtoDTO;
 import com.epu.prototipo.model.RetornoOperaciones;
 import com.epu.prototipo.service.IRtoService;
+import com.epu.prototipo.util.CamposSolicitados;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -34,20 +37,32 @@ public class RtoController {
 
     // Obtener todos los RTOs
     @GetMapping
-    public ResponseEntity<List<RetornoOperaciones>> getAllRtos() {
-        return ResponseEntity.ok(rtoService.getAllRtos());
+    public ResponseEntity<List<RetornoOperaciones>> getAllRtos(
+            @RequestParam(name = CamposSolicitados.PARAMETRO, required = false) String fields) {
+        return ResponseEntity.ok(rtoService.getAllRtos(CamposSolicitados.de(fields)));
     }
 
-    // Obtener RTOs abiertos
+    // Obtener RTOs abiertos (304 si no cambio ninguno desde el ETag del cliente)
     @GetMapping("/abiertos")
-    public ResponseEntity<List<RetornoOperaciones>> getRtosAbiertos() {
-        return ResponseEntity.ok(rtoService.getRtosAbiertos());
+    public ResponseEntity<List<RetornoOperaciones>> getRtosAbiertos(
+            @RequestParam(name = CamposSolicitados.PARAMETRO, required = false) String fields, WebRequest request) {
+        if (GetCondicional.noModificado(request, rtoService.getVersionRtosAbiertos())) {
+            return null;
+        }
+        return ResponseEntity.ok(rtoService.getRtosAbiertos(CamposSolicitados.de(fields)));
+    }
+
+    // Tablero de RTOs abiertos: conteos de PTS y especialidades, sin las listas completas
+    @GetMapping("/abiertos/tablero")
+    public ResponseEntity<List<ResumenRtoDTO>> getTableroAbiertos() {
+        return ResponseEntity.ok(rtoService.getTableroAbiertos());
     }
 
     // Obtener un RTO por ID
     @GetMapping("/{id}")
-    public ResponseEntity<?> getRtoById(@PathVariable String id) {
-        RetornoOperaciones rto = rtoService.getRtoById(id);
+    public ResponseEntity<?> getRtoById(@PathVariable String id,
+                                        @RequestParam(name = CamposSolicitados.PARAMETRO, required = false) String fields) {
+        RetornoOperaciones rto = rtoService.getRtoById(id, CamposSolicitados.de(fields));
         if (rto == null) {
             return new ResponseEntity<>("RTO no encontrado", HttpStatus.NOT_FOUND);
         }
@@ -0,0 +1,43 @@
+package com.epu.prototipo.dto;
+
+/**
+ * Resultado de la busqueda de texto libre: los datos de la lista, sin firma ni riesgos.
+ */
+public class CoincidenciaPtsDTO {
+
+    private String id;
+    private String equipoOInstalacion;
+    private String descripcionTrabajo;
+    private String ubicacion;
+    private String fechaInicio;
+    private String rtoEstado;
+    private double relevancia;
+
+    public CoincidenciaPtsDTO() {}
+
+    public CoincidenciaPtsDTO(String id, String equipoOInstalacion, String descripcionTrabajo, String ubicacion,
+                              String fechaInicio, String rtoEstado, double relevancia) {
+        this.id = id;
+        this.equipoOInstalacion = equipoOInstalacion;
+        this.descripcionTrabajo = descripcionTrabajo;
+        this.ubicacion = ubicacion;
+        this.fechaInicio = fechaInicio;
+        this.rtoEstado = rtoEstado;
+        this.relevancia = relevancia;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getEquipoOInstalacion() { return equipoOInstalacion; }
+    public void setEquipoOInstalacion(String equipoOInstalacion) { this.equipoOInstalacion = equipoOInstalacion; }
+    public String getDescripcionTrabajo() { return descripcionTrabajo; }
+    public void setDescripcionTrabajo(String descripcionTrabajo) { this.descripcionTrabajo = descripcionTrabajo; }
+    public String getUbicacion() { return ubicacion; }
+    public void setUbicacion(String ubicacion) { this.ubicacion = ubicacion; }
+    public String getFechaInicio() { return fechaInicio; }
+    public void setFechaInicio(String fechaInicio) { this.fechaInicio = fechaInicio; }
+    public String getRtoEstado() { return rtoEstado; }
+    public void setRtoEstado(String rtoEstado) { this.rtoEstado = rtoEstado; }
+    public double getRelevancia() { return relevancia; }
+    public void setRelevancia(double relevancia) { this.relevancia = relevancia; }
+}
@@ -0,0 +1,40 @@
+package com.epu.prototipo.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// DTO de un cambio publicado por SSE en /api/eventos.
+// Solo lleva el delta (clave y campos que cambiaron), el cliente refresca lo que necesite.
+public class EventoCambioDTO {
+
+    private long id;                    // secuencia creciente del servidor
+    private String tipo;                // equipo, pts, rto
+    private String accion;              // ESTADO_DCS, CONDICION, CREADO, FIRMADO, CERRADO, ...
+    private String clave;               // tag del equipo o id de PTS/RTO
+    private Map<String, Object> datos;  // campos cambiados
+    private LocalDateTime fecha;
+
+    public EventoCambioDTO() {}
+
+    public EventoCambioDTO(long id, String tipo, String accion, String clave, Map<String, Object> datos) {
+        this.id = id;
+        this.tipo = tipo;
+        this.accion = accion;
+        this.clave = clave;
+        this.datos = datos;
+        this.fecha = LocalDateTime.now();
+    }
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+    public String getAccion() { return accion; }
+    public void setAccion(String accion) { this.accion = accion; }
+    public String getClave() { return clave; }
+    public void setClave(String clave) { this.clave = clave; }
+    public Map<String, Object> getDatos() { return datos; }
+    public void setDatos(Map<String, Object> datos) { this.datos = datos; }
+    public LocalDateTime getFecha() { return fecha; }
+    public void setFecha(LocalDateTime fecha) { this.fecha = fecha; }
+}
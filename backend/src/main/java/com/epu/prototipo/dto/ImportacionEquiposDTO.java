@@ -0,0 +1,48 @@
+package com.epu.prototipo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importacion masiva de equipos, con el detalle de cada fila rechazada.
+ */
+public class ImportacionEquiposDTO {
+
+    private int filasLeidas;
+    private int insertados;
+    private List<ErrorFila> errores = new ArrayList<>();
+
+    public ImportacionEquiposDTO() {}
+
+    public void agregarError(int fila, String tag, String mensaje) {
+        errores.add(new ErrorFila(fila, tag, mensaje));
+    }
+
+    public int getFilasLeidas() { return filasLeidas; }
+    public void setFilasLeidas(int filasLeidas) { this.filasLeidas = filasLeidas; }
+    public int getInsertados() { return insertados; }
+    public void setInsertados(int insertados) { this.insertados = insertados; }
+    public List<ErrorFila> getErrores() { return errores; }
+    public void setErrores(List<ErrorFila> errores) { this.errores = errores; }
+
+    public static class ErrorFila {
+        private int fila; // Numero de fila en el archivo, empezando en 1
+        private String tag;
+        private String mensaje;
+
+        public ErrorFila() {}
+
+        public ErrorFila(int fila, String tag, String mensaje) {
+            this.fila = fila;
+            this.tag = tag;
+            this.mensaje = mensaje;
+        }
+
+        public int getFila() { return fila; }
+        public void setFila(int fila) { this.fila = fila; }
+        public String getTag() { return tag; }
+        public void setTag(String tag) { this.tag = tag; }
+        public String getMensaje() { return mensaje; }
+        public void setMensaje(String mensaje) { this.mensaje = mensaje; }
+    }
+}
@@ -0,0 +1,36 @@
+package com.epu.prototipo.dto;
+
+import java.util.List;
+
+/**
+ * Pagina de resultados de /api/pts/search, de mayor a menor relevancia.
+ */
+public class PaginaBusquedaPtsDTO {
+
+    private String consulta;
+    private int pagina;
+    private int tamanio;
+    private long total;
+    private List<CoincidenciaPtsDTO> resultados;
+
+    public PaginaBusquedaPtsDTO() {}
+
+    public PaginaBusquedaPtsDTO(String consulta, int pagina, int tamanio, long total, List<CoincidenciaPtsDTO> resultados) {
+        this.consulta = consulta;
+        this.pagina = pagina;
+        this.tamanio = tamanio;
+        this.total = total;
+        this.resultados = resultados;
+    }
+
+    public String getConsulta() { return consulta; }
+    public void setConsulta(String consulta) { this.consulta = consulta; }
+    public int getPagina() { return pagina; }
+    public void setPagina(int pagina) { this.pagina = pagina; }
+    public int getTamanio() { return tamanio; }
+    public void setTamanio(int tamanio) { this.tamanio = tamanio; }
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public List<CoincidenciaPtsDTO> getResultados() { return resultados; }
+    public void setResultados(List<CoincidenciaPtsDTO> resultados) { this.resultados = resultados; }
+}
@@ -0,0 +1,48 @@
+package com.epu.prototipo.dto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Fila del tablero de RTOs abiertos: solo conteos, sin las listas de PTS ni las
+ * observaciones de las especialidades.
+ */
+public class ResumenRtoDTO {
+
+    private String id;
+    private String equipoTag;
+    private LocalDateTime fechaCreacion;
+    private long ptsAsociados;
+    private long especialidadesTotal;
+    private long especialidadesCerradas;
+    private long antiguedadMinutos;
+
+    public ResumenRtoDTO() {}
+
+    // Orden de argumentos del constructor usado en la consulta agregada del repositorio
+    public ResumenRtoDTO(String id, String equipoTag, LocalDateTime fechaCreacion,
+                         long ptsAsociados, long especialidadesTotal, long especialidadesCerradas) {
+        this.id = id;
+        this.equipoTag = equipoTag;
+        this.fechaCreacion = fechaCreacion;
+        this.ptsAsociados = ptsAsociados;
+        this.especialidadesTotal = especialidadesTotal;
+        this.especialidadesCerradas = especialidadesCerradas;
+        this.antiguedadMinutos = fechaCreacion == null ? 0 : Duration.between(fechaCreacion, LocalDateTime.now()).toMinutes();
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getEquipoTag() { return equipoTag; }
+    public void setEquipoTag(String equipoTag) { this.equipoTag = equipoTag; }
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+    public long getPtsAsociados() { return ptsAsociados; }
+    public void setPtsAsociados(long ptsAsociados) { this.ptsAsociados = ptsAsociados; }
+    public long getEspecialidadesTotal() { return especialidadesTotal; }
+    public void setEspecialidadesTotal(long especialidadesTotal) { this.especialidadesTotal = especialidadesTotal; }
+    public long getEspecialidadesCerradas() { return especialidadesCerradas; }
+    public void setEspecialidadesCerradas(long especialidadesCerradas) { this.especialidadesCerradas = especialidadesCerradas; }
+    public long getAntiguedadMinutos() { return antiguedadMinutos; }
+    public void setAntiguedadMinutos(long antiguedadMinutos) { this.antiguedadMinutos = antiguedadMinutos; }
+}
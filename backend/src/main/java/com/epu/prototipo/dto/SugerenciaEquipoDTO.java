@@ -0,0 +1,26 @@
+package com.epu.prototipo.dto;
+
+/**
+ * Resultado del autocompletado de equipos.
+ */
+public class SugerenciaEquipoDTO {
+
+    private String tag;
+    private String descripcion;
+    private String coincidencia; // "TAG", "DESCRIPCION" o "APROXIMADA"
+
+    public SugerenciaEquipoDTO() {}
+
+    public SugerenciaEquipoDTO(String tag, String descripcion, String coincidencia) {
+        this.tag = tag;
+        this.descripcion = descripcion;
+        this.coincidencia = coincidencia;
+    }
+
+    public String getTag() { return tag; }
+    public void setTag(String tag) { this.tag = tag; }
+    public String getDescripcion() { return descripcion; }
+    public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
+    public String getCoincidencia() { return coincidencia; }
+    public void setCoincidencia(String coincidencia) { this.coincidencia = coincidencia; }
+}
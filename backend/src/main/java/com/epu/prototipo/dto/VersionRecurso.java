@@ -0,0 +1,50 @@
+package com.epu.prototipo.dto;
+
+import com.epu.prototipo.util.CamposSolicitados;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.TreeSet;
+
+/**
+ * Version de un recurso para los GET condicionales: ETag y, si se conoce, fecha de la ultima
+ * modificacion. Se arma con datos baratos de obtener (columnas @Version, contadores en memoria)
+ * para contestar 304 sin cargar el recurso completo.
+ *
+ * El ETag es debil (W/): identifica el contenido, no los bytes, que cambian con la compresion.
+ */
+public record VersionRecurso(String etag, Instant ultimaModificacion) {
+
+    /**
+     * @param recurso prefijo legible del ETag
+     * @param ultimaModificacion null si no se conoce
+     * @param partes valores que cambian cuando cambia el recurso; el ETag lleva su MD5
+     */
+    public static VersionRecurso de(String recurso, Instant ultimaModificacion, Object... partes) {
+        StringBuilder texto = new StringBuilder();
+        for (Object parte : partes) {
+            texto.append(parte).append('|');
+        }
+        String huella = DigestUtils.md5DigestAsHex(texto.toString().getBytes(StandardCharsets.UTF_8));
+        return new VersionRecurso("W/\"" + recurso + "-" + huella + "\"", ultimaModificacion);
+    }
+
+    /**
+     * La misma version vista con ?fields=: el ETag suma la huella de los campos pedidos (sin
+     * importar el orden), para que un 304 no valide una respuesta con otros campos.
+     */
+    public VersionRecurso conCampos(CamposSolicitados campos) {
+        if (campos.todos()) {
+            return this;
+        }
+        String nombres = String.join(",", new TreeSet<>(campos.nombres()));
+        String huella = DigestUtils.md5DigestAsHex(nombres.getBytes(StandardCharsets.UTF_8));
+        return new VersionRecurso(etag.substring(0, etag.length() - 1) + "-" + huella + "\"", ultimaModificacion);
+    }
+
+    // Para Last-Modified: -1 si no hay fecha
+    public long ultimaModificacionMillis() {
+        return ultimaModificacion != null ? ultimaModificacion.toEpochMilli() : -1;
+    }
+}
@@ -4,6 +4,7 @@ import com.epu.prototipo.dto.UsuarioDTO;
 import com.epu.prototipo.model.Equipo;
 import com.epu.prototipo.model.PermisoTrabajoSeguro;
 import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.util.FechasPts;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -100,10 +101,10 @@ public final class EntityMapper {
         e.setSupervisorLegajo(trimToNull(pts.getSupervisorLegajo()));
         e.setReceptorLegajo(trimToNull(pts.getReceptorLegajo()));
         e.setNombreReceptor(pts.getNombreReceptor());
-        e.setFechaInicio(pts.getFechaInicio());
-        e.setFechaFin(pts.getFechaFin());
-        e.setHoraInicio(pts.getHoraInicio());
-        e.setHoraFin(pts.getHoraFin());
+        e.setFechaInicio(FechasPts.fecha(pts.getFechaInicio()));
+        e.setFechaFin(FechasPts.fecha(pts.getFechaFin()));
+        e.setHoraInicio(FechasPts.hora(pts.getHoraInicio()));
+        e.setHoraFin(FechasPts.hora(pts.getHoraFin()));
         e.setUbicacion(pts.getUbicacion());
         e.setTareaDetallada(pts.getTareaDetallada());
         e.setTipoTrabajo(pts.getTipoTrabajo());
@@ -141,10 +142,10 @@ public final class EntityMapper {
         pts.setSupervisorLegajo(e.getSupervisorLegajo());
         pts.setReceptorLegajo(e.getReceptorLegajo());
         pts.setNombreReceptor(e.getNombreReceptor());
-        pts.setFechaInicio(e.getFechaInicio());
-        pts.setFechaFin(e.getFechaFin());
-        pts.setHoraInicio(e.getHoraInicio());
-        pts.setHoraFin(e.getHoraFin());
+        pts.setFechaInicio(FechasPts.texto(e.getFechaInicio()));
+        pts.setFechaFin(FechasPts.texto(e.getFechaFin()));
+        pts.setHoraInicio(FechasPts.texto(e.getHoraInicio()));
+        pts.setHoraFin(FechasPts.texto(e.getHoraFin()));
         pts.setUbicacion(e.getUbicacion());
         pts.setTareaDetallada(e.getTareaDetallada());
         pts.setTipoTrabajo(e.getTipoTrabajo());
@@ -174,6 +175,7 @@ public final class EntityMapper {
 
     // ==================== RTO ====================
 
+    // Solo la fila del RTO; PTS y especialidades se guardan como filas propias
     public static RtoEntity toEntity(RetornoOperaciones rto) {
         RtoEntity e = new RtoEntity();
         e.setId(rto.getId());
@@ -182,17 +184,14 @@ public final class EntityMapper {
         e.setFechaCreacion(rto.getFechaCreacion());
         e.setFechaCierre(rto.getFechaCierre());
         e.setObservaciones(rto.getObservaciones());
-        e.setPtsIds(rto.getPtsIds() != null ? new ArrayList<>(rto.getPtsIds()) : new ArrayList<>());
-
-        if (rto.getEspecialidades() != null) {
-            e.setEspecialidades(rto.getEspecialidades().stream().map(esp -> {
-                EspecialidadRtoEmb emb = new EspecialidadRtoEmb(esp.getNombre(), esp.getResponsableLegajo());
-                emb.setCerrada(esp.isCerrada());
-                emb.setFechaCierre(esp.getFechaCierre());
-                emb.setObservaciones(esp.getObservaciones());
-                return emb;
-            }).collect(Collectors.toList()));
-        }
+        return e;
+    }
+
+    public static EspecialidadRtoEntity toEntity(String rtoId, RetornoOperaciones.EspecialidadRTO esp) {
+        EspecialidadRtoEntity e = new EspecialidadRtoEntity(rtoId, esp.getNombre(), esp.getResponsableLegajo());
+        e.setCerrada(esp.isCerrada());
+        e.setFechaCierre(esp.getFechaCierre());
+        e.setObservaciones(esp.getObservaciones());
         return e;
     }
 
@@ -204,17 +203,16 @@ public final class EntityMapper {
         rto.setFechaCreacion(e.getFechaCreacion());
         rto.setFechaCierre(e.getFechaCierre());
         rto.setObservaciones(e.getObservaciones());
-        rto.setPtsIds(e.getPtsIds() != null ? new ArrayList<>(e.getPtsIds()) : new ArrayList<>());
-
-        if (e.getEspecialidades() != null) {
-            rto.setEspecialidades(e.getEspecialidades().stream().map(emb -> {
-                RetornoOperaciones.EspecialidadRTO esp = new RetornoOperaciones.EspecialidadRTO(emb.getNombre(), emb.getResponsableLegajo());
-                esp.setCerrada(emb.isCerrada());
-                esp.setFechaCierre(emb.getFechaCierre());
-                esp.setObservaciones(emb.getObservaciones());
-                return esp;
-            }).collect(Collectors.toList()));
-        }
+        rto.setPtsIds(e.getPts().stream().map(RtoPtsEntity::getPtsId).collect(Collectors.toList()));
+        rto.setEspecialidades(e.getEspecialidades().stream().map(EntityMapper::toModel).collect(Collectors.toList()));
         return rto;
     }
+
+    public static RetornoOperaciones.EspecialidadRTO toModel(EspecialidadRtoEntity e) {
+        RetornoOperaciones.EspecialidadRTO esp = new RetornoOperaciones.EspecialidadRTO(e.getNombre(), e.getResponsableLegajo());
+        esp.setCerrada(e.isCerrada());
+        esp.setFechaCierre(e.getFechaCierre());
+        esp.setObservaciones(e.getObservaciones());
+        return esp;
+    }
 }
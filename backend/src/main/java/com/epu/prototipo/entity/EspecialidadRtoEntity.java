@@ -0,0 +1,81 @@
+package com.epu.prototipo.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Especialidad de un RTO como fila propia, identificada por (rto_id, nombre). Cerrar una
+ * especialidad actualiza solo su fila.
+ */
+@Entity
+@Table(name = "rto_especialidades")
+@IdClass(EspecialidadRtoEntity.Clave.class)
+public class EspecialidadRtoEntity {
+
+    @Id
+    @Column(name = "rto_id", length = 50)
+    private String rtoId;
+
+    @Id
+    @Column(length = 100)
+    private String nombre;
+
+    @Column(length = 50)
+    private String responsableLegajo;
+
+    private boolean cerrada;
+
+    private LocalDateTime fechaCierre;
+
+    @Lob
+    @Column(columnDefinition = "LONGTEXT")
+    private String observaciones;
+
+    public EspecialidadRtoEntity() {}
+
+    public EspecialidadRtoEntity(String rtoId, String nombre, String responsableLegajo) {
+        this.rtoId = rtoId;
+        this.nombre = nombre;
+        this.responsableLegajo = responsableLegajo;
+        this.cerrada = false;
+    }
+
+    public String getRtoId() { return rtoId; }
+    public void setRtoId(String rtoId) { this.rtoId = rtoId; }
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public String getResponsableLegajo() { return responsableLegajo; }
+    public void setResponsableLegajo(String responsableLegajo) { this.responsableLegajo = responsableLegajo; }
+    public boolean isCerrada() { return cerrada; }
+    public void setCerrada(boolean cerrada) { this.cerrada = cerrada; }
+    public LocalDateTime getFechaCierre() { return fechaCierre; }
+    public void setFechaCierre(LocalDateTime fechaCierre) { this.fechaCierre = fechaCierre; }
+    public String getObservaciones() { return observaciones; }
+    public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
+
+    public static class Clave implements Serializable {
+        private String rtoId;
+        private String nombre;
+
+        public Clave() {}
+
+        public Clave(String rtoId, String nombre) {
+            this.rtoId = rtoId;
+            this.nombre = nombre;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave otra)) return false;
+            return Objects.equals(rtoId, otra.rtoId) && Objects.equals(nombre, otra.nombre);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(rtoId, nombre);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.epu.prototipo.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Efecto pendiente de un cambio de PTS o RTO (bloquear/liberar equipo, asociar RTO).
+ * Se inserta en la misma transaccion que el cambio y lo aplica el despachador en orden
+ * de id por equipo.
+ */
+@Entity
+@Table(name = "outbox_eventos",
+        indexes = @Index(name = "idx_outbox_estado_id", columnList = "estado, id"))
+public class OutboxEventoEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 50, nullable = false)
+    private String equipoTag;
+
+    @Column(length = 30, nullable = false)
+    private String tipo;
+
+    // Id del PTS o RTO que origino el evento
+    @Column(length = 50)
+    private String referencia;
+
+    @Column(length = 15, nullable = false)
+    private String estado;
+
+    private int intentos;
+
+    // Epoch ms a partir del cual se puede volver a intentar
+    private long siguienteIntento;
+
+    @Column(length = 500)
+    private String ultimoError;
+
+    private LocalDateTime creado;
+    private LocalDateTime procesado;
+
+    public OutboxEventoEntity() {}
+
+    public OutboxEventoEntity(String equipoTag, String tipo, String referencia, String estado) {
+        this.equipoTag = equipoTag;
+        this.tipo = tipo;
+        this.referencia = referencia;
+        this.estado = estado;
+        this.creado = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getEquipoTag() { return equipoTag; }
+    public void setEquipoTag(String equipoTag) { this.equipoTag = equipoTag; }
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+    public String getReferencia() { return referencia; }
+    public void setReferencia(String referencia) { this.referencia = referencia; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public int getIntentos() { return intentos; }
+    public void setIntentos(int intentos) { this.intentos = intentos; }
+    public long getSiguienteIntento() { return siguienteIntento; }
+    public void setSiguienteIntento(long siguienteIntento) { this.siguienteIntento = siguienteIntento; }
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+    public LocalDateTime getCreado() { return creado; }
+    public void setCreado(LocalDateTime creado) { this.creado = creado; }
+    public LocalDateTime getProcesado() { return procesado; }
+    public void setProcesado(LocalDateTime procesado) { this.procesado = procesado; }
+}
@@ -1,12 +1,21 @@
 package com.epu.prototipo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "permisos_trabajo_seguro")
+// En MySQL la tabla se particiona por mes de fechaInicio (ver ParticionesPts): sin claves
+// foraneas hacia ella ni desde ella
+@Table(name = "permisos_trabajo_seguro",
+        indexes = {
+                @Index(name = "idx_pts_fecha", columnList = "fechaInicio"),
+                @Index(name = "idx_pts_equipo", columnList = "equipoOInstalacion")
+        })
 public class PtsEntity {
 
     @Id
@@ -34,17 +43,14 @@ public class PtsEntity {
     @Column(length = 200)
     private String nombreReceptor;
 
-    @Column(length = 20)
-    private String fechaInicio;
+    // DATE/TIME (antes VARCHAR, ver MigracionFechasPts): los rangos usan idx_pts_fecha
+    private LocalDate fechaInicio;
 
-    @Column(length = 20)
-    private String fechaFin;
+    private LocalDate fechaFin;
 
-    @Column(length = 10)
-    private String horaInicio;
+    private LocalTime horaInicio;
 
-    @Column(length = 10)
-    private String horaFin;
+    private LocalTime horaFin;
 
     @Column(length = 200)
     private String ubicacion;
@@ -82,12 +88,24 @@ public class PtsEntity {
     @Column(length = 50)
     private String rtoAsociadoId;
 
+    // Concurrencia optimista: el UPDATE incluye la version leida y falla si otro ya la cambio.
+    // Default 0 para las filas existentes; en null la entidad es nueva y save() hace persist
+    @Version
+    @Column(columnDefinition = "bigint not null default 0")
+    private Long version;
+
+    // Last-Modified del detalle; Hibernate la pone en cada alta y modificacion
+    @UpdateTimestamp
+    private LocalDateTime ultimaModificacion;
+
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "pts_riesgos_controles", joinColumns = @JoinColumn(name = "pts_id"))
+    @CollectionTable(name = "pts_riesgos_controles", joinColumns = @JoinColumn(name = "pts_id"),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private List<RiesgoControlEmb> riesgosControles = new ArrayList<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "pts_equipos_seguridad", joinColumns = @JoinColumn(name = "pts_id"))
+    @CollectionTable(name = "pts_equipos_seguridad", joinColumns = @JoinColumn(name = "pts_id"),
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private List<EquipoSeguridadEmb> equiposSeguridad = new ArrayList<>();
 
     public PtsEntity() {}
@@ -95,6 +113,10 @@ public class PtsEntity {
     // Getters y Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public LocalDateTime getUltimaModificacion() { return ultimaModificacion; }
+    public void setUltimaModificacion(LocalDateTime ultimaModificacion) { this.ultimaModificacion = ultimaModificacion; }
     public String getEquipoOInstalacion() { return equipoOInstalacion; }
     public void setEquipoOInstalacion(String equipoOInstalacion) { this.equipoOInstalacion = equipoOInstalacion; }
     public String getDescripcionTrabajo() { return descripcionTrabajo; }
@@ -109,14 +131,14 @@ public class PtsEntity {
     public void setReceptorLegajo(String receptorLegajo) { this.receptorLegajo = receptorLegajo; }
     public String getNombreReceptor() { return nombreReceptor; }
     public void setNombreReceptor(String nombreReceptor) { this.nombreReceptor = nombreReceptor; }
-    public String getFechaInicio() { return fechaInicio; }
-    public void setFechaInicio(String fechaInicio) { this.fechaInicio = fechaInicio; }
-    public String getFechaFin() { return fechaFin; }
-    public void setFechaFin(String fechaFin) { this.fechaFin = fechaFin; }
-    public String getHoraInicio() { return horaInicio; }
-    public void setHoraInicio(String horaInicio) { this.horaInicio = horaInicio; }
-    public String getHoraFin() { return horaFin; }
-    public void setHoraFin(String horaFin) { this.horaFin = horaFin; }
+    public LocalDate getFechaInicio() { return fechaInicio; }
+    public void setFechaInicio(LocalDate fechaInicio) { this.fechaInicio = fechaInicio; }
+    public LocalDate getFechaFin() { return fechaFin; }
+    public void setFechaFin(LocalDate fechaFin) { this.fechaFin = fechaFin; }
+    public LocalTime getHoraInicio() { return horaInicio; }
+    public void setHoraInicio(LocalTime horaInicio) { this.horaInicio = horaInicio; }
+    public LocalTime getHoraFin() { return horaFin; }
+    public void setHoraFin(LocalTime horaFin) { this.horaFin = horaFin; }
     public String getUbicacion() { return ubicacion; }
     public void setUbicacion(String ubicacion) { this.ubicacion = ubicacion; }
     public String getTareaDetallada() { return tareaDetallada; }
@@ -1,6 +1,8 @@
 package com.epu.prototipo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,20 +28,33 @@ public class RtoEntity {
     @Column(columnDefinition = "LONGTEXT")
     private String observaciones;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "rto_pts_ids", joinColumns = @JoinColumn(name = "rto_id"))
-    @Column(name = "pts_id", length = 50)
-    private List<String> ptsIds = new ArrayList<>();
+    // Concurrencia optimista: el UPDATE incluye la version leida y falla si otro ya la cambio.
+    // Default 0 para las filas existentes; en null la entidad es nueva y save() hace persist
+    @Version
+    @Column(columnDefinition = "bigint not null default 0")
+    private Long version;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "rto_especialidades", joinColumns = @JoinColumn(name = "rto_id"))
-    private List<EspecialidadRtoEmb> especialidades = new ArrayList<>();
+    // Las filas hijas se leen con el RTO pero se escriben con sus propios repositorios,
+    // asi guardar el RTO nunca borra y reinserta sus PTS o especialidades
+    @OneToMany(fetch = FetchType.EAGER)
+    @JoinColumn(name = "rto_id", insertable = false, updatable = false)
+    @Fetch(FetchMode.SUBSELECT)
+    @OrderBy("ptsId")
+    private List<RtoPtsEntity> pts = new ArrayList<>();
+
+    @OneToMany(fetch = FetchType.EAGER)
+    @JoinColumn(name = "rto_id", insertable = false, updatable = false)
+    @Fetch(FetchMode.SUBSELECT)
+    @OrderBy("nombre")
+    private List<EspecialidadRtoEntity> especialidades = new ArrayList<>();
 
     public RtoEntity() {}
 
     // Getters y Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getEquipoTag() { return equipoTag; }
     public void setEquipoTag(String equipoTag) { this.equipoTag = equipoTag; }
     public String getEstado() { return estado; }
@@ -50,8 +65,6 @@ public class RtoEntity {
     public void setFechaCierre(LocalDateTime fechaCierre) { this.fechaCierre = fechaCierre; }
     public String getObservaciones() { return observaciones; }
     public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
-    public List<String> getPtsIds() { return ptsIds; }
-    public void setPtsIds(List<String> ptsIds) { this.ptsIds = ptsIds; }
-    public List<EspecialidadRtoEmb> getEspecialidades() { return especialidades; }
-    public void setEspecialidades(List<EspecialidadRtoEmb> especialidades) { this.especialidades = especialidades; }
+    public List<RtoPtsEntity> getPts() { return pts; }
+    public List<EspecialidadRtoEntity> getEspecialidades() { return especialidades; }
 }
@@ -0,0 +1,59 @@
+package com.epu.prototipo.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Asociacion PTS -> RTO. Cada PTS agregado a un RTO es una fila propia: asociar es un
+ * INSERT, sin reescribir la lista completa del RTO.
+ */
+@Entity
+@Table(name = "rto_pts_ids")
+@IdClass(RtoPtsEntity.Clave.class)
+public class RtoPtsEntity {
+
+    @Id
+    @Column(name = "rto_id", length = 50)
+    private String rtoId;
+
+    @Id
+    @Column(name = "pts_id", length = 50)
+    private String ptsId;
+
+    public RtoPtsEntity() {}
+
+    public RtoPtsEntity(String rtoId, String ptsId) {
+        this.rtoId = rtoId;
+        this.ptsId = ptsId;
+    }
+
+    public String getRtoId() { return rtoId; }
+    public void setRtoId(String rtoId) { this.rtoId = rtoId; }
+    public String getPtsId() { return ptsId; }
+    public void setPtsId(String ptsId) { this.ptsId = ptsId; }
+
+    public static class Clave implements Serializable {
+        private String rtoId;
+        private String ptsId;
+
+        public Clave() {}
+
+        public Clave(String rtoId, String ptsId) {
+            this.rtoId = rtoId;
+            this.ptsId = ptsId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave otra)) return false;
+            return Objects.equals(rtoId, otra.rtoId) && Objects.equals(ptsId, otra.ptsId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(rtoId, ptsId);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.epu.prototipo.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Fila del historial de estados de equipos. Es solo de insercion y se guarda angosta:
+ * campo y valor como codigos de un byte e instante en milisegundos epoch, con un
+ * indice por (tag, campo, instante) para las consultas por rango.
+ */
+@Entity
+@Table(name = "equipo_transiciones",
+        indexes = @Index(name = "idx_transicion_tag_campo_instante", columnList = "tag, campo, instante"))
+public class TransicionEquipoEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 50, nullable = false)
+    private String tag;
+
+    @Column(nullable = false)
+    private byte campo;
+
+    @Column(nullable = false)
+    private byte valor;
+
+    @Column(nullable = false)
+    private long instante;
+
+    public TransicionEquipoEntity() {}
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTag() { return tag; }
+    public void setTag(String tag) { this.tag = tag; }
+    public byte getCampo() { return campo; }
+    public void setCampo(byte campo) { this.campo = campo; }
+    public byte getValor() { return valor; }
+    public void setValor(byte valor) { this.valor = valor; }
+    public long getInstante() { return instante; }
+    public void setInstante(long instante) { this.instante = instante; }
+}
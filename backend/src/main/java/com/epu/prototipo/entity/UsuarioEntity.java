@@ -1,13 +1,22 @@
 package com.epu.prototipo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 
+// Se lee en cada request autenticado (filtro JWT) y cambia poco: va al cache de segundo nivel
 @Entity
 @Table(name = "usuarios")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UsuarioEntity.REGION)
 public class UsuarioEntity {
 
+    public static final String REGION = "usuarios";
+    public static final String REGION_ROLES = "usuarios-roles";
+
+
     @Id
     @Column(name = "legajo", length = 50)
     private String legajo;
@@ -21,6 +30,7 @@ public class UsuarioEntity {
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "usuario_roles", joinColumns = @JoinColumn(name = "legajo"))
     @Column(name = "rol", length = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = REGION_ROLES)
     private List<String> roles = new ArrayList<>();
 
     @Column(name = "password", length = 200)
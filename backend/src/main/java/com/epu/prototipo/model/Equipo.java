@@ -1,5 +1,9 @@
 package com.epu.prototipo.model;
 
+import com.epu.prototipo.util.CamposSolicitados;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+@JsonFilter(CamposSolicitados.FILTRO)
 public class Equipo {
     private String tag; // Clave primaria, ej: "K7451"
     private String descripcion; // Ej: "Compresor de aire de instrumentos"
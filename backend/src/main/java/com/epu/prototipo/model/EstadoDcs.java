@@ -8,4 +8,9 @@ public final class EstadoDcs {
     public static final String EN_MARCHA = "EN_MARCHA";
 
     private EstadoDcs() {}
+
+    public static boolean esValido(String estado) {
+        return SIN_CONEXION.equals(estado) || HABILITADO.equals(estado) || DESHABILITADO.equals(estado)
+                || PARADO.equals(estado) || EN_MARCHA.equals(estado);
+    }
 }
@@ -1,11 +1,16 @@
 package com.epu.prototipo.model;
 
+import com.epu.prototipo.util.CamposSolicitados;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import java.util.List;
 import java.time.LocalDateTime;
 
 // Clase DTO y Modelo que representa los datos de PTS
 // !!! Ver campos adic para Firma Digital (HU-005) y para la gestion del RTO (HU-019).
 
+// Filtro de ?fields= (CamposSolicitados); sin el parametro se serializan todos los campos
+@JsonFilter(CamposSolicitados.FILTRO)
 public class PermisoTrabajoSeguro {
 
     private String id;
@@ -1,5 +1,8 @@
 package com.epu.prototipo.model;
 
+import com.epu.prototipo.util.CamposSolicitados;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,6 +12,7 @@ import java.util.List;
  * Un RTO agrupa uno o más PTS asociados a un mismo equipo.
  * Tiene especialidades con responsables; al cerrar todas, el equipo pasa a DESBLOQUEADO.
  */
+@JsonFilter(CamposSolicitados.FILTRO)
 public class RetornoOperaciones {
 
     private String id;                          // RTO-YYMMDD-###
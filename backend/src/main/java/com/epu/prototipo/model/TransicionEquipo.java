@@ -0,0 +1,31 @@
+package com.epu.prototipo.model;
+
+import java.time.LocalDateTime;
+
+public class TransicionEquipo {
+    public static final String CAMPO_ESTADO_DCS = "estadoDcs";
+    public static final String CAMPO_CONDICION = "condicion";
+
+    private String tag;
+    private String campo; // "estadoDcs" o "condicion"
+    private String valor; // Nuevo valor del campo a partir de la fecha
+    private LocalDateTime fecha;
+
+    public TransicionEquipo() {}
+
+    public TransicionEquipo(String tag, String campo, String valor, LocalDateTime fecha) {
+        this.tag = tag;
+        this.campo = campo;
+        this.valor = valor;
+        this.fecha = fecha;
+    }
+
+    public String getTag() { return tag; }
+    public void setTag(String tag) { this.tag = tag; }
+    public String getCampo() { return campo; }
+    public void setCampo(String campo) { this.campo = campo; }
+    public String getValor() { return valor; }
+    public void setValor(String valor) { this.valor = valor; }
+    public LocalDateTime getFecha() { return fecha; }
+    public void setFecha(LocalDateTime fecha) { this.fecha = fecha; }
+}
@@ -2,8 +2,20 @@ package com.epu.prototipo.repository;
 
 import com.epu.prototipo.entity.EquipoEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface EquipoRepository extends JpaRepository<EquipoEntity, String> {
+
+    @Query("select e.tag from EquipoEntity e where e.tag in :tags")
+    List<String> findTagsExistentes(@Param("tags") Collection<String> tags);
+
+    // Bloquea la fila del equipo hasta el fin de la transaccion; vacia si no existe
+    @Query(value = "SELECT tag FROM equipos WHERE tag = :tag FOR UPDATE", nativeQuery = true)
+    List<String> bloquearFila(@Param("tag") String tag);
 }
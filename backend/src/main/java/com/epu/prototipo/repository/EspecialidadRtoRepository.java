@@ -0,0 +1,13 @@
+package com.epu.prototipo.repository;
+
+import com.epu.prototipo.entity.EspecialidadRtoEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EspecialidadRtoRepository extends JpaRepository<EspecialidadRtoEntity, EspecialidadRtoEntity.Clave> {
+
+    List<EspecialidadRtoEntity> findByRtoIdOrderByNombre(String rtoId);
+}
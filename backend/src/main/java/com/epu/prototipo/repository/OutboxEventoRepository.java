@@ -0,0 +1,26 @@
+package com.epu.prototipo.repository;
+
+import com.epu.prototipo.entity.OutboxEventoEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventoRepository extends JpaRepository<OutboxEventoEntity, Long> {
+
+    List<OutboxEventoEntity> findByEstadoOrderByIdAsc(String estado, Pageable pagina);
+
+    long countByEstado(String estado);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxEventoEntity e where e.estado = :estado and e.procesado < :limite")
+    int borrarProcesados(@Param("estado") String estado, @Param("limite") LocalDateTime limite);
+}
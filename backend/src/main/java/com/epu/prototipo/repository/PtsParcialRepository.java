@@ -0,0 +1,187 @@
+package com.epu.prototipo.repository;
+
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.util.CamposSolicitados;
+import com.epu.prototipo.util.FechasPts;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura de PTS con JDBC que trae solo las columnas y colecciones pedidas. Con JPA el PTS se
+ * carga siempre entero: la firma en base64 (LONGTEXT) y las dos colecciones EAGER, una
+ * consulta mas por PTS. Sirve a las tablas vivas y a las de archivo (mismas columnas, sufijo
+ * _archivo); las columnas tienen el nombre del campo del modelo.
+ */
+@Repository
+@Profile("prod")
+public class PtsParcialRepository {
+
+    private static final String PTS = "permisos_trabajo_seguro";
+    private static final String RIESGOS = "pts_riesgos_controles";
+    private static final String ELEMENTOS = "pts_equipos_seguridad";
+    private static final String SUFIJO_ARCHIVO = "_archivo";
+    private static final int LOTE_IDS = 1000;
+
+    @FunctionalInterface
+    private interface Columna {
+        void leer(ResultSet rs, PermisoTrabajoSeguro p) throws SQLException;
+    }
+
+    // Columna (= campo del modelo) -> como se lee; el id se lee siempre
+    private static final Map<String, Columna> COLUMNAS = new LinkedHashMap<>();
+
+    static {
+        COLUMNAS.put("equipoOInstalacion", (rs, p) -> p.setEquipoOInstalacion(rs.getString("equipoOInstalacion")));
+        COLUMNAS.put("descripcionTrabajo", (rs, p) -> p.setDescripcionTrabajo(rs.getString("descripcionTrabajo")));
+        COLUMNAS.put("solicitanteLegajo", (rs, p) -> p.setSolicitanteLegajo(rs.getString("solicitanteLegajo")));
+        COLUMNAS.put("nombreSolicitante", (rs, p) -> p.setNombreSolicitante(rs.getString("nombreSolicitante")));
+        COLUMNAS.put("supervisorLegajo", (rs, p) -> p.setSupervisorLegajo(rs.getString("supervisorLegajo")));
+        COLUMNAS.put("receptorLegajo", (rs, p) -> p.setReceptorLegajo(rs.getString("receptorLegajo")));
+        COLUMNAS.put("nombreReceptor", (rs, p) -> p.setNombreReceptor(rs.getString("nombreReceptor")));
+        COLUMNAS.put("fechaInicio", (rs, p) -> p.setFechaInicio(FechasPts.texto(rs.getObject("fechaInicio", LocalDate.class))));
+        COLUMNAS.put("fechaFin", (rs, p) -> p.setFechaFin(FechasPts.texto(rs.getObject("fechaFin", LocalDate.class))));
+        COLUMNAS.put("horaInicio", (rs, p) -> p.setHoraInicio(FechasPts.texto(rs.getObject("horaInicio", LocalTime.class))));
+        COLUMNAS.put("horaFin", (rs, p) -> p.setHoraFin(FechasPts.texto(rs.getObject("horaFin", LocalTime.class))));
+        COLUMNAS.put("ubicacion", (rs, p) -> p.setUbicacion(rs.getString("ubicacion")));
+        COLUMNAS.put("tareaDetallada", (rs, p) -> p.setTareaDetallada(rs.getString("tareaDetallada")));
+        COLUMNAS.put("tipoTrabajo", (rs, p) -> p.setTipoTrabajo(rs.getString("tipoTrabajo")));
+        COLUMNAS.put("requiereAnalisisRiesgoAdicional",
+                (rs, p) -> p.setRequiereAnalisisRiesgoAdicional(rs.getBoolean("requiereAnalisisRiesgoAdicional")));
+        COLUMNAS.put("firmaSupervisorBase64", (rs, p) -> p.setFirmaSupervisorBase64(rs.getString("firmaSupervisorBase64")));
+        COLUMNAS.put("dniSupervisorFirmante", (rs, p) -> p.setDniSupervisorFirmante(rs.getString("dniSupervisorFirmante")));
+        COLUMNAS.put("fechaHoraFirmaSupervisor",
+                (rs, p) -> p.setFechaHoraFirmaSupervisor(rs.getObject("fechaHoraFirmaSupervisor", LocalDateTime.class)));
+        COLUMNAS.put("rtoEstado", (rs, p) -> p.setRtoEstado(rs.getString("rtoEstado")));
+        COLUMNAS.put("rtoObservaciones", (rs, p) -> p.setRtoObservaciones(rs.getString("rtoObservaciones")));
+        COLUMNAS.put("rtoResponsableCierreLegajo",
+                (rs, p) -> p.setRtoResponsableCierreLegajo(rs.getString("rtoResponsableCierreLegajo")));
+        COLUMNAS.put("rtoFechaHoraCierre", (rs, p) -> p.setRtoFechaHoraCierre(rs.getObject("rtoFechaHoraCierre", LocalDateTime.class)));
+        COLUMNAS.put("requiereRTO", (rs, p) -> p.setRequiereRTO(rs.getBoolean("requiereRTO")));
+        COLUMNAS.put("rtoAsociadoId", (rs, p) -> p.setRtoAsociadoId(rs.getString("rtoAsociadoId")));
+    }
+
+    private final JdbcTemplate jdbc;
+
+    public PtsParcialRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Mismos filtros y orden que PtsRepository.buscar: fechaInicio en [desde, hastaExclusivo),
+     * null = sin filtro.
+     * @param archivo true para leer las tablas de archivo
+     * @param limite PTS como maximo; 0 = sin limite
+     */
+    public List<PermisoTrabajoSeguro> buscar(boolean archivo, LocalDate desde, LocalDate hastaExclusivo, String equipo,
+                                             String usuario, String estado, int limite, CamposSolicitados campos) {
+        List<Columna> lectores = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(select(archivo, campos, lectores)).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (desde != null) {
+            sql.append(" AND fechaInicio >= ?");
+            args.add(desde);
+        }
+        if (hastaExclusivo != null) {
+            sql.append(" AND fechaInicio < ?");
+            args.add(hastaExclusivo);
+        }
+        if (equipo != null) {
+            sql.append(" AND equipoOInstalacion LIKE ?");
+            args.add("%" + equipo + "%");
+        }
+        if (usuario != null) {
+            sql.append(" AND (solicitanteLegajo LIKE ? OR nombreSolicitante LIKE ?)");
+            args.add("%" + usuario + "%");
+            args.add("%" + usuario + "%");
+        }
+        if (estado != null) {
+            sql.append(" AND rtoEstado = ?");
+            args.add(estado);
+        }
+        sql.append(" ORDER BY fechaInicio DESC, id DESC");
+        if (limite > 0) {
+            sql.append(" LIMIT ?");
+            args.add(limite);
+        }
+        return conHijos(archivo, campos, jdbc.query(sql.toString(), (rs, n) -> fila(rs, lectores), args.toArray()));
+    }
+
+    // null si no existe
+    public PermisoTrabajoSeguro porId(boolean archivo, String id, CamposSolicitados campos) {
+        List<Columna> lectores = new ArrayList<>();
+        List<PermisoTrabajoSeguro> encontrados = conHijos(archivo, campos, jdbc.query(
+                select(archivo, campos, lectores) + " WHERE id = ?", (rs, n) -> fila(rs, lectores), id));
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    private static String select(boolean archivo, CamposSolicitados campos, List<Columna> lectores) {
+        StringBuilder columnas = new StringBuilder("id");
+        COLUMNAS.forEach((nombre, lector) -> {
+            if (campos.incluye(nombre)) {
+                columnas.append(", `").append(nombre).append('`');
+                lectores.add(lector);
+            }
+        });
+        return "SELECT " + columnas + " FROM " + PTS + (archivo ? SUFIJO_ARCHIVO : "");
+    }
+
+    private static PermisoTrabajoSeguro fila(ResultSet rs, List<Columna> lectores) throws SQLException {
+        PermisoTrabajoSeguro p = new PermisoTrabajoSeguro();
+        p.setId(rs.getString("id"));
+        for (Columna lector : lectores) {
+            lector.leer(rs, p);
+        }
+        return p;
+    }
+
+    // Riesgos y elementos de seguridad, solo si se pidieron: una consulta por tabla y lote de ids
+    private List<PermisoTrabajoSeguro> conHijos(boolean archivo, CamposSolicitados campos, List<PermisoTrabajoSeguro> lista) {
+        boolean riesgos = campos.incluye("riesgosControles");
+        boolean elementos = campos.incluye("equiposSeguridad");
+        if (lista.isEmpty() || (!riesgos && !elementos)) {
+            return lista;
+        }
+        Map<String, PermisoTrabajoSeguro> porId = new LinkedHashMap<>();
+        for (PermisoTrabajoSeguro p : lista) {
+            porId.put(p.getId(), p);
+            if (riesgos) {
+                p.setRiesgosControles(new ArrayList<>());
+            }
+            if (elementos) {
+                p.setEquiposSeguridad(new ArrayList<>());
+            }
+        }
+        String sufijo = archivo ? SUFIJO_ARCHIVO : "";
+        // De a LOTE_IDS ids: un listado sin limite no entra en una sola lista de parametros
+        List<String> todos = new ArrayList<>(porId.keySet());
+        for (int i = 0; i < todos.size(); i += LOTE_IDS) {
+            List<String> ids = todos.subList(i, Math.min(i + LOTE_IDS, todos.size()));
+            String enIds = " WHERE pts_id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+            if (riesgos) {
+                jdbc.query("SELECT pts_id, peligro, consecuencia, controlRequerido FROM " + RIESGOS + sufijo + enIds, rs -> {
+                    porId.get(rs.getString(1)).getRiesgosControles().add(
+                            new PermisoTrabajoSeguro.RiesgoControl(rs.getString(2), rs.getString(3), rs.getString(4)));
+                }, ids.toArray());
+            }
+            if (elementos) {
+                jdbc.query("SELECT pts_id, equipo, esRequerido, esProporcionado, observacion FROM " + ELEMENTOS + sufijo + enIds, rs -> {
+                    porId.get(rs.getString(1)).getEquiposSeguridad().add(new PermisoTrabajoSeguro.EquipoSeguridad(
+                            rs.getString(2), rs.getBoolean(3), rs.getBoolean(4), rs.getString(5)));
+                }, ids.toArray());
+            }
+        }
+        return lista;
+    }
+}
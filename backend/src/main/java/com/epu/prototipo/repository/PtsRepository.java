@@ -1,13 +1,46 @@
 package com.epu.prototipo.repository;
 
 import com.epu.prototipo.entity.PtsEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface PtsRepository extends JpaRepository<PtsEntity, String> {
 
-    List<PtsEntity> findByFechaInicio(String fechaInicio);
+    // IDs que empiezan con el prefijo (patron LIKE): rango sobre la PK (id, fechaInicio) en cada particion
+    @Query("SELECT p.id FROM PtsEntity p WHERE p.id LIKE :patron")
+    List<String> idsComo(@Param("patron") String patron);
+
+    // [version, ultimaModificacion] sin cargar el PTS ni sus colecciones, para el GET condicional
+    @Query("SELECT p.version, p.ultimaModificacion FROM PtsEntity p WHERE p.id = :id")
+    List<Object[]> versionPorId(@Param("id") String id);
+
+    // PTS de un equipo (tag exacto, usa idx_pts_equipo) que no estan en el estado dado
+    @Query("SELECT p FROM PtsEntity p WHERE p.equipoOInstalacion = :tag"
+            + " AND (p.rtoEstado IS NULL OR p.rtoEstado <> :excluido) ORDER BY p.id")
+    List<PtsEntity> buscarPorEquipoSinEstado(@Param("tag") String tag, @Param("excluido") String excluido);
+
+    // [id, version] de los mismos PTS que buscarPorEquipoSinEstado
+    @Query("SELECT p.id, p.version FROM PtsEntity p WHERE p.equipoOInstalacion = :tag"
+            + " AND (p.rtoEstado IS NULL OR p.rtoEstado <> :excluido) ORDER BY p.id")
+    List<Object[]> versionesPorEquipoSinEstado(@Param("tag") String tag, @Param("excluido") String excluido);
+
+    // Filtros opcionales (null = sin filtro). El rango [desde, hastaExclusivo) sobre la columna
+    // DATE usa idx_pts_fecha y, con la tabla particionada, solo lee los meses del rango
+    @Query("SELECT p FROM PtsEntity p WHERE (:desde IS NULL OR p.fechaInicio >= :desde)"
+            + " AND (:hastaExclusivo IS NULL OR p.fechaInicio < :hastaExclusivo)"
+            + " AND (:equipo IS NULL OR p.equipoOInstalacion LIKE CONCAT('%', :equipo, '%'))"
+            + " AND (:usuario IS NULL OR p.solicitanteLegajo LIKE CONCAT('%', :usuario, '%')"
+            + " OR p.nombreSolicitante LIKE CONCAT('%', :usuario, '%'))"
+            + " AND (:estado IS NULL OR p.rtoEstado = :estado)"
+            + " ORDER BY p.fechaInicio DESC, p.id DESC")
+    List<PtsEntity> buscar(@Param("desde") LocalDate desde, @Param("hastaExclusivo") LocalDate hastaExclusivo,
+                           @Param("equipo") String equipo, @Param("usuario") String usuario,
+                           @Param("estado") String estado, Pageable pagina);
 }
@@ -0,0 +1,129 @@
+package com.epu.prototipo.repository;
+
+import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.util.CamposSolicitados;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura de RTO con JDBC que trae solo las columnas y colecciones pedidas. RtoEntity carga
+ * siempre sus PTS y especialidades (EAGER) y las observaciones (LONGTEXT); un listado que solo
+ * muestra equipo y estado no necesita nada de eso.
+ */
+@Repository
+@Profile("prod")
+public class RtoParcialRepository {
+
+    private static final int LOTE_IDS = 1000;
+
+    @FunctionalInterface
+    private interface Columna {
+        void leer(ResultSet rs, RetornoOperaciones rto) throws SQLException;
+    }
+
+    // Columna (= campo del modelo) -> como se lee; el id se lee siempre
+    private static final Map<String, Columna> COLUMNAS = new LinkedHashMap<>();
+
+    static {
+        COLUMNAS.put("equipoTag", (rs, r) -> r.setEquipoTag(rs.getString("equipoTag")));
+        COLUMNAS.put("estado", (rs, r) -> r.setEstado(rs.getString("estado")));
+        COLUMNAS.put("fechaCreacion", (rs, r) -> r.setFechaCreacion(rs.getObject("fechaCreacion", LocalDateTime.class)));
+        COLUMNAS.put("fechaCierre", (rs, r) -> r.setFechaCierre(rs.getObject("fechaCierre", LocalDateTime.class)));
+        COLUMNAS.put("observaciones", (rs, r) -> r.setObservaciones(rs.getString("observaciones")));
+    }
+
+    private final JdbcTemplate jdbc;
+
+    public RtoParcialRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // estado null = todos
+    public List<RetornoOperaciones> buscar(String estado, CamposSolicitados campos) {
+        List<Columna> lectores = new ArrayList<>();
+        String sql = select(campos, lectores);
+        List<RetornoOperaciones> lista = estado == null
+                ? jdbc.query(sql, (rs, n) -> fila(rs, lectores))
+                : jdbc.query(sql + " WHERE estado = ?", (rs, n) -> fila(rs, lectores), estado);
+        return conHijos(campos, lista);
+    }
+
+    // null si no existe
+    public RetornoOperaciones porId(String id, CamposSolicitados campos) {
+        List<Columna> lectores = new ArrayList<>();
+        List<RetornoOperaciones> encontrados = conHijos(campos,
+                jdbc.query(select(campos, lectores) + " WHERE id = ?", (rs, n) -> fila(rs, lectores), id));
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    private static String select(CamposSolicitados campos, List<Columna> lectores) {
+        StringBuilder columnas = new StringBuilder("id");
+        COLUMNAS.forEach((nombre, lector) -> {
+            if (campos.incluye(nombre)) {
+                columnas.append(", `").append(nombre).append('`');
+                lectores.add(lector);
+            }
+        });
+        return "SELECT " + columnas + " FROM retorno_operaciones";
+    }
+
+    private static RetornoOperaciones fila(ResultSet rs, List<Columna> lectores) throws SQLException {
+        RetornoOperaciones rto = new RetornoOperaciones();
+        rto.setId(rs.getString("id"));
+        for (Columna lector : lectores) {
+            lector.leer(rs, rto);
+        }
+        return rto;
+    }
+
+    // PTS y especialidades, solo si se pidieron: una consulta por tabla y lote de ids
+    private List<RetornoOperaciones> conHijos(CamposSolicitados campos, List<RetornoOperaciones> lista) {
+        boolean pts = campos.incluye("ptsIds");
+        boolean especialidades = campos.incluye("especialidades");
+        if (lista.isEmpty() || (!pts && !especialidades)) {
+            return lista;
+        }
+        Map<String, RetornoOperaciones> porId = new LinkedHashMap<>();
+        for (RetornoOperaciones rto : lista) {
+            porId.put(rto.getId(), rto);
+            if (pts) {
+                rto.setPtsIds(new ArrayList<>());
+            }
+            if (especialidades) {
+                rto.setEspecialidades(new ArrayList<>());
+            }
+        }
+        List<String> todos = new ArrayList<>(porId.keySet());
+        for (int i = 0; i < todos.size(); i += LOTE_IDS) {
+            List<String> ids = todos.subList(i, Math.min(i + LOTE_IDS, todos.size()));
+            String enIds = " WHERE rto_id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+            if (pts) {
+                jdbc.query("SELECT rto_id, pts_id FROM rto_pts_ids" + enIds + " ORDER BY pts_id", rs -> {
+                    porId.get(rs.getString(1)).getPtsIds().add(rs.getString(2));
+                }, ids.toArray());
+            }
+            if (especialidades) {
+                jdbc.query("SELECT rto_id, nombre, responsableLegajo, cerrada, fechaCierre, observaciones FROM rto_especialidades"
+                        + enIds + " ORDER BY nombre", rs -> {
+                    RetornoOperaciones.EspecialidadRTO esp =
+                            new RetornoOperaciones.EspecialidadRTO(rs.getString(2), rs.getString(3));
+                    esp.setCerrada(rs.getBoolean(4));
+                    esp.setFechaCierre(rs.getObject(5, LocalDateTime.class));
+                    esp.setObservaciones(rs.getString(6));
+                    porId.get(rs.getString(1)).getEspecialidades().add(esp);
+                }, ids.toArray());
+            }
+        }
+        return lista;
+    }
+}
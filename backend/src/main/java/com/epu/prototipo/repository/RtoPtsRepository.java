@@ -0,0 +1,17 @@
+package com.epu.prototipo.repository;
+
+import com.epu.prototipo.entity.RtoPtsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RtoPtsRepository extends JpaRepository<RtoPtsEntity, RtoPtsEntity.Clave> {
+
+    // Un solo INSERT; si el PTS ya estaba asociado no hace nada y devuelve 0
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT IGNORE INTO rto_pts_ids (rto_id, pts_id) VALUES (:rtoId, :ptsId)", nativeQuery = true)
+    int agregar(@Param("rtoId") String rtoId, @Param("ptsId") String ptsId);
+}
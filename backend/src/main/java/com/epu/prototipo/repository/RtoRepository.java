@@ -1,7 +1,12 @@
 package com.epu.prototipo.repository;
 
+import com.epu.prototipo.dto.ResumenRtoDTO;
 import com.epu.prototipo.entity.RtoEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +18,25 @@ public interface RtoRepository extends JpaRepository<RtoEntity, String> {
     Optional<RtoEntity> findByEquipoTagAndEstado(String equipoTag, String estado);
 
     List<RtoEntity> findByEstado(String estado);
+
+    // Para modificar el RTO o sus filas hijas: al confirmar sube la version aunque la fila
+    // del RTO no cambie, asi dos transacciones que leyeron la misma version no confirman ambas
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select r from RtoEntity r where r.id = :id")
+    Optional<RtoEntity> findParaActualizarById(@Param("id") String id);
+
+    // [id, version, PTS asociados] por RTO: agregar un PTS no sube la version del RTO, el conteo si cambia
+    @Query("select r.id, r.version, count(p.ptsId) from RtoEntity r left join r.pts p "
+            + "where r.estado = :estado group by r.id, r.version order by r.id")
+    List<Object[]> versionesPorEstado(@Param("estado") String estado);
+
+    // Un GROUP BY sobre las filas hijas; count(distinct) porque los dos joins se multiplican
+    @Query("select new com.epu.prototipo.dto.ResumenRtoDTO(r.id, r.equipoTag, r.fechaCreacion, "
+            + "count(distinct p.ptsId), count(distinct e.nombre), "
+            + "count(distinct case when e.cerrada = true then e.nombre end)) "
+            + "from RtoEntity r left join r.pts p left join r.especialidades e "
+            + "where r.estado = :estado "
+            + "group by r.id, r.equipoTag, r.fechaCreacion "
+            + "order by r.fechaCreacion")
+    List<ResumenRtoDTO> resumirPorEstado(@Param("estado") String estado);
 }
@@ -0,0 +1,19 @@
+package com.epu.prototipo.repository;
+
+import com.epu.prototipo.entity.TransicionEquipoEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransicionEquipoRepository extends JpaRepository<TransicionEquipoEntity, Long> {
+
+    List<TransicionEquipoEntity> findByTagAndInstanteBetweenOrderByInstanteAscIdAsc(String tag, long desde, long hasta);
+
+    List<TransicionEquipoEntity> findByTagAndCampoAndInstanteBetweenOrderByInstanteAscIdAsc(String tag, byte campo, long desde, long hasta);
+
+    // Ultima transicion anterior al rango: da el valor vigente al inicio
+    Optional<TransicionEquipoEntity> findFirstByTagAndCampoAndInstanteLessThanOrderByInstanteDescIdDesc(String tag, byte campo, long instante);
+}
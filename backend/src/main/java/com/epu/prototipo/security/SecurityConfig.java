@@ -1,6 +1,7 @@
 package com.epu.prototipo.security;
 
 import com.epu.prototipo.config.JwtRequestFilter; 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -41,6 +42,8 @@ public class SecurityConfig {
             
             // Configuracion de autorizacion de rutas
             .authorizeHttpRequests(auth -> auth
+                    // Dispatch asincrono del stream SSE: la peticion original ya fue autenticada
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     // Login público
                     .requestMatchers("/api/auth/login").permitAll()
                     // Cambio de contraseña requiere token
@@ -49,6 +52,10 @@ public class SecurityConfig {
                     .requestMatchers("/api/auth/desbloquear-cuenta").hasRole("ADMIN")
                     // Bloqueo de cuenta solo para ADMIN
                     .requestMatchers("/api/auth/bloquear-cuenta").hasRole("ADMIN")
+                    // Estadisticas del cache de segundo nivel solo para ADMIN
+                    .requestMatchers("/api/cache/**").hasRole("ADMIN")
+                    // Salud y metricas para el scraper de Prometheus (exponer solo en la red interna)
+                    .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                     // Endpoints PTS públicos
                     .requestMatchers("/api/pts", "/api/pts/**").permitAll()
                     .requestMatchers("/public/consulta/**").permitAll()
@@ -56,6 +63,8 @@ public class SecurityConfig {
                 .requestMatchers("/api/usuarios/test").permitAll()
                 // Endpoint de usuarios requiere autenticacion
                 .requestMatchers("/api/usuarios", "/api/usuarios/**").authenticated()
+                // Importacion masiva de equipos solo para ADMIN
+                .requestMatchers("/api/equipos/importar").hasRole("ADMIN")
                 // Endpoints de equipos requieren autenticacion
                 .requestMatchers("/api/equipos/**").authenticated()
                 // Cualquier otra solicitud debe estar autenticada
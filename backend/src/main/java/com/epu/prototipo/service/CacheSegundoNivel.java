@@ -0,0 +1,90 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.config.CacheSegundoNivelConfig;
+import com.epu.prototipo.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precarga y estadisticas del cache de segundo nivel.
+ *
+ * Al arrancar lee todos los usuarios con sus roles: Hibernate guarda en el cache cada
+ * entidad y coleccion que carga, asi el primer request de cada usuario (filtro JWT) ya no
+ * va a la base. Las estadisticas salen de Hibernate por region.
+ */
+@Component
+@Profile("prod")
+public class CacheSegundoNivel {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSegundoNivel.class);
+
+    private final Statistics estadisticas;
+    private final CacheManager cacheManager;
+    private final UsuarioRepository usuarioRepo;
+    private final boolean precalentar;
+
+    public CacheSegundoNivel(EntityManagerFactory emf, CacheManager cacheManagerHibernate, UsuarioRepository usuarioRepo,
+                             @Value("${cache.precalentar:true}") boolean precalentar) {
+        this.estadisticas = emf.unwrap(SessionFactory.class).getStatistics();
+        this.cacheManager = cacheManagerHibernate;
+        this.usuarioRepo = usuarioRepo;
+        this.precalentar = precalentar;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precalentar() {
+        if (!precalentar) {
+            return;
+        }
+        try {
+            long inicio = System.nanoTime();
+            int usuarios = usuarioRepo.findAll().size();
+            log.info("{} usuarios precargados en {} ms", usuarios, (System.nanoTime() - inicio) / 1_000_000);
+        } catch (Exception e) {
+            // Sin precarga el cache se llena con los primeros requests
+            log.warn("No se pudo precargar usuarios: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getEstadisticas() {
+        Map<String, Object> regiones = new LinkedHashMap<>();
+        for (String region : CacheSegundoNivelConfig.REGIONES) {
+            CacheRegionStatistics r = estadisticas.getDomainDataRegionStatistics(region);
+            long consultas = r.getHitCount() + r.getMissCount();
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("aciertos", r.getHitCount());
+            datos.put("fallos", r.getMissCount());
+            datos.put("escrituras", r.getPutCount());
+            datos.put("tasaAciertos", consultas == 0 ? 0.0 : (double) r.getHitCount() / consultas);
+            datos.put("elementos", tamano(region));
+            regiones.put(region, datos);
+        }
+        return regiones;
+    }
+
+    private long tamano(String region) {
+        Cache<Object, Object> cache = cacheManager.getCache(region);
+        if (cache == null) {
+            return 0;
+        }
+        try {
+            return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.dto.EventoCambioDTO;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.model.RetornoOperaciones;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difusion de cambios de equipos, PTS y RTO a los clientes SSE.
+ *
+ * Publicar nunca bloquea: cada suscriptor tiene una cola acotada y un pool chico de
+ * hilos hace los envios. Si la cola de un suscriptor se llena (cliente lento o caido)
+ * se lo desconecta; el cliente debe reconectarse y recargar el estado completo.
+ */
+@Component
+public class CambiosBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(CambiosBroadcaster.class);
+
+    private static final EventoCambioDTO LATIDO = new EventoCambioDTO();
+
+    private final int capacidadCola;
+    private final long timeoutMs;
+    private final Map<Long, Suscriptor> suscriptores = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final AtomicLong idsSuscriptor = new AtomicLong();
+    private final ExecutorService envios;
+    private final ScheduledExecutorService latidos;
+
+    public CambiosBroadcaster(@Value("${eventos.sse.capacidad-cola:256}") int capacidadCola,
+                              @Value("${eventos.sse.timeout-ms:1800000}") long timeoutMs,
+                              @Value("${eventos.sse.hilos:4}") int hilos,
+                              @Value("${eventos.sse.latido-seg:20}") long latidoSeg) {
+        this.capacidadCola = capacidadCola;
+        this.timeoutMs = timeoutMs;
+        this.envios = Executors.newFixedThreadPool(hilos, r -> {
+            Thread t = new Thread(r, "sse-envio");
+            t.setDaemon(true);
+            return t;
+        });
+        this.latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-latido");
+            t.setDaemon(true);
+            return t;
+        });
+        // El latido mantiene viva la conexion en proxies y detecta clientes que se fueron
+        latidos.scheduleAtFixedRate(() -> difundir(LATIDO), latidoSeg, latidoSeg, TimeUnit.SECONDS);
+    }
+
+    public SseEmitter suscribir() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(idsSuscriptor.incrementAndGet(), emitter);
+        suscriptores.put(suscriptor.id, suscriptor);
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor.id));
+        emitter.onTimeout(() -> suscriptores.remove(suscriptor.id));
+        emitter.onError(e -> suscriptores.remove(suscriptor.id));
+        return emitter;
+    }
+
+    public int getCantidadSuscriptores() {
+        return suscriptores.size();
+    }
+
+    public void publicar(String tipo, String accion, String clave, Map<String, Object> datos) {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        difundir(new EventoCambioDTO(secuencia.incrementAndGet(), tipo, accion, clave, datos));
+    }
+
+    public void equipo(String accion, Equipo equipo) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("estadoDcs", equipo.getEstadoDcs());
+        datos.put("condicion", equipo.getCondicion());
+        publicar("equipo", accion, equipo.getTag(), datos);
+    }
+
+    public void pts(String accion, PermisoTrabajoSeguro pts) {
+        // Nunca se difunde la firma ni los textos largos, solo lo que cambia el listado
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("rtoEstado", pts.getRtoEstado());
+        datos.put("equipo", pts.getEquipoOInstalacion());
+        datos.put("firmado", pts.getFirmaSupervisorBase64() != null);
+        datos.put("rtoAsociadoId", pts.getRtoAsociadoId());
+        publicar("pts", accion, pts.getId(), datos);
+    }
+
+    public void rto(String accion, RetornoOperaciones rto, String especialidad) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("estado", rto.getEstado());
+        datos.put("equipo", rto.getEquipoTag());
+        if (especialidad != null) {
+            datos.put("especialidad", especialidad);
+        }
+        publicar("rto", accion, rto.getId(), datos);
+    }
+
+    // Dentro de una transaccion el evento sale recien al confirmar, para que el cliente que
+    // recarga al recibirlo ya vea el cambio
+    public void despuesDelCommit(Runnable publicacion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicacion.run();
+                }
+            });
+        } else {
+            publicacion.run();
+        }
+    }
+
+    private void difundir(EventoCambioDTO evento) {
+        for (Suscriptor s : suscriptores.values()) {
+            if (!s.ofrecer(evento)) {
+                log.warn("Suscriptor {} descartado: cola llena ({})", s.id, capacidadCola);
+                desconectar(s);
+            }
+        }
+    }
+
+    private void desconectar(Suscriptor s) {
+        suscriptores.remove(s.id);
+        try {
+            s.emitter.complete();
+        } catch (RuntimeException ignored) {}
+    }
+
+    @PreDestroy
+    public void detener() {
+        latidos.shutdownNow();
+        envios.shutdownNow();
+        suscriptores.values().forEach(this::desconectar);
+    }
+
+    private class Suscriptor implements Runnable {
+        final long id;
+        final SseEmitter emitter;
+        final BlockingQueue<EventoCambioDTO> cola = new ArrayBlockingQueue<>(capacidadCola);
+        final AtomicBoolean programado = new AtomicBoolean();
+
+        Suscriptor(long id, SseEmitter emitter) {
+            this.id = id;
+            this.emitter = emitter;
+        }
+
+        boolean ofrecer(EventoCambioDTO evento) {
+            if (!cola.offer(evento)) {
+                return false;
+            }
+            programar();
+            return true;
+        }
+
+        private void programar() {
+            if (programado.compareAndSet(false, true)) {
+                envios.execute(this);
+            }
+        }
+
+        // Un solo hilo a la vez vacia la cola de este suscriptor, asi se respeta el orden
+        @Override
+        public void run() {
+            try {
+                EventoCambioDTO evento;
+                while ((evento = cola.poll()) != null) {
+                    if (evento == LATIDO) {
+                        emitter.send(SseEmitter.event().comment("latido"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(evento.getId()))
+                                .name(evento.getTipo())
+                                .data(evento, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                suscriptores.remove(id);
+                return;
+            } finally {
+                programado.set(false);
+            }
+            if (!cola.isEmpty()) {
+                programar();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.epu.prototipo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detecta hilos virtuales fijados a su carrier (pinning) en modo spring.threads.virtual.enabled.
+ *
+ * En Java 21 un hilo virtual que se bloquea dentro de un bloque synchronized (o en codigo
+ * nativo) no libera el carrier, y con pocos carriers unos cuantos bloqueos largos frenan
+ * todo el servidor. Escucha el evento JFR jdk.VirtualThreadPinned por encima del umbral,
+ * lo atribuye al primer metodo de la aplicacion en la pila y lo loguea la primera vez por
+ * sitio; despues solo cuenta. Los sitios conocidos de la aplicacion (escritura Modbus,
+ * reconexion del pool, volcado del historial) ya usan ReentrantLock.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class DiagnosticoHilosVirtuales {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagnosticoHilosVirtuales.class);
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+    private static final String PAQUETE_APLICACION = "com.epu.prototipo.";
+
+    private final long umbralMs;
+    private final Map<String, LongAdder> porSitio = new ConcurrentHashMap<>();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maximoMs = new AtomicLong();
+    private RecordingStream grabacion;
+
+    public DiagnosticoHilosVirtuales(@Value("${hilos.virtuales.umbral-fijado-ms:20}") long umbralMs) {
+        this.umbralMs = Math.max(0, umbralMs);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        try {
+            grabacion = new RecordingStream();
+            grabacion.enable(EVENTO).withThreshold(Duration.ofMillis(umbralMs)).withStackTrace();
+            grabacion.onEvent(EVENTO, this::registrar);
+            grabacion.startAsync();
+            log.info("Hilos virtuales activos; se reportan fijaciones de mas de {} ms", umbralMs);
+        } catch (RuntimeException e) {
+            // JFR no disponible en esta JVM: el modo virtual sigue, sin diagnostico
+            grabacion = null;
+            log.warn("No se pudo iniciar el diagnostico de fijacion: {}", e.getMessage());
+        }
+    }
+
+    private void registrar(RecordedEvent evento) {
+        long ms = evento.getDuration().toMillis();
+        total.incrementAndGet();
+        maximoMs.accumulateAndGet(ms, Math::max);
+        String sitio = sitio(evento.getStackTrace());
+        LongAdder contador = porSitio.computeIfAbsent(sitio, s -> new LongAdder());
+        contador.increment();
+        if (contador.sum() == 1) {
+            log.warn("Hilo virtual fijado {} ms en {} (bloqueo dentro de synchronized o nativo); las siguientes en este sitio solo se cuentan", ms, sitio);
+        }
+    }
+
+    // Primer marco de la aplicacion; si no hay ninguno, el de mas arriba
+    private static String sitio(RecordedStackTrace pila) {
+        if (pila == null || pila.getFrames().isEmpty()) {
+            return "desconocido";
+        }
+        for (RecordedFrame marco : pila.getFrames()) {
+            String clase = marco.getMethod().getType().getName();
+            if (clase.startsWith(PAQUETE_APLICACION)) {
+                return clase + "." + marco.getMethod().getName() + ":" + marco.getLineNumber();
+            }
+        }
+        RecordedFrame tope = pila.getFrames().get(0);
+        return tope.getMethod().getType().getName() + "." + tope.getMethod().getName();
+    }
+
+    public Map<String, Object> getMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("activo", grabacion != null);
+        metricas.put("umbralMs", umbralMs);
+        metricas.put("fijaciones", total.get());
+        metricas.put("maximoMs", maximoMs.get());
+        Map<String, Long> sitios = new TreeMap<>();
+        porSitio.forEach((sitio, contador) -> sitios.put(sitio, contador.sum()));
+        metricas.put("porSitio", sitios);
+        return metricas;
+    }
+
+    @PreDestroy
+    void detener() {
+        if (grabacion != null) {
+            grabacion.close();
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.epu.prototipo.service;
 
 
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.model.Equipo;
 import com.epu.prototipo.model.EstadoDcs;
 import com.epu.prototipo.model.CondicionEquipo;
-import com.epu.prototipo.service.gateway.DcsGateway;
+import com.epu.prototipo.model.TransicionEquipo;
+import com.epu.prototipo.service.gateway.AsyncDcsGateway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
@@ -17,11 +21,21 @@ import java.util.*;
 @Primary
 @Profile("test")
 public class EquipoService implements IEquipoService {
+
+    private static final Logger log = LoggerFactory.getLogger(EquipoService.class);
     private final Map<String, Equipo> baseDeDatosEquipos = new HashMap<>();
-    private final DcsGateway dcsGateway;
+    private final AsyncDcsGateway dcsGateway;
+    private final CambiosBroadcaster cambios;
+    private final IHistorialEquipoService historial;
+    private final IndiceEquipos indice;
+    private final Revision revision = new Revision("equipos");
 
-    public EquipoService(DcsGateway dcsGateway) {
+    public EquipoService(AsyncDcsGateway dcsGateway, CambiosBroadcaster cambios, IHistorialEquipoService historial,
+                         IndiceEquipos indice) {
         this.dcsGateway = dcsGateway;
+        this.cambios = cambios;
+        this.historial = historial;
+        this.indice = indice;
         // Inicializacion de datos mock
         baseDeDatosEquipos.put("K7451", new Equipo("K7451", "Compresor de aire de instrumentos", EstadoDcs.HABILITADO, CondicionEquipo.DESBLOQUEADO));
         baseDeDatosEquipos.put("F1002A", new Equipo("F1002A", "Bomba de refrigeración Torre 1", EstadoDcs.PARADO, CondicionEquipo.DESBLOQUEADO));
@@ -33,6 +47,7 @@ public class EquipoService implements IEquipoService {
         baseDeDatosEquipos.put("V2633", new Equipo("V2633", "Almacenamiento solvente", EstadoDcs.DESHABILITADO, CondicionEquipo.DESBLOQUEADO));
         baseDeDatosEquipos.put("MX2233", new Equipo("MX2233", "Mezclador en linea", EstadoDcs.EN_MARCHA, CondicionEquipo.DESBLOQUEADO));
         baseDeDatosEquipos.put("V1231", new Equipo("V1231", "Reservorio aceite", EstadoDcs.HABILITADO, CondicionEquipo.DESBLOQUEADO));
+        indice.reconstruir(baseDeDatosEquipos.values());
     }
 
     @Override
@@ -49,17 +64,37 @@ public class EquipoService implements IEquipoService {
         return new ArrayList<>(baseDeDatosEquipos.values());
     }
 
+    @Override
+    public VersionRecurso getVersionEquipos() {
+        return revision.version();
+    }
+
+    @Override
+    public VersionRecurso getVersionEquipo(String tag) {
+        Equipo equipo = baseDeDatosEquipos.get(tag);
+        if (equipo == null) {
+            return null;
+        }
+        return VersionRecurso.de("equipo", null, tag, equipo.getDescripcion(), equipo.getEstadoDcs(), equipo.getCondicion());
+    }
+
     @Override
     public Equipo actualizarEstadoEquipo(String tag, String nuevoEstadoDcs) {
         Equipo equipo = getEquipoByTag(tag);
+        String estadoAnterior = equipo.getEstadoDcs();
         switch (nuevoEstadoDcs) {
             case EstadoDcs.HABILITADO:
-                dcsGateway.habilitarEquipo(tag);
-                equipo.setEstadoDcs(EstadoDcs.HABILITADO);
-                break;
             case EstadoDcs.DESHABILITADO:
-                dcsGateway.deshabilitarEquipo(tag);
-                equipo.setEstadoDcs(EstadoDcs.DESHABILITADO);
+                equipo.setEstadoDcs(nuevoEstadoDcs);
+                dcsGateway.enviar(tag, nuevoEstadoDcs).whenComplete((ok, error) -> {
+                    // Sin confirmacion del DCS el equipo queda SIN_CONEXION
+                    if (error != null && nuevoEstadoDcs.equals(equipo.getEstadoDcs())) {
+                        equipo.setEstadoDcs(EstadoDcs.SIN_CONEXION);
+                        historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, EstadoDcs.SIN_CONEXION);
+                        revision.avanzar();
+                        cambios.equipo("ESTADO_DCS", equipo);
+                    }
+                });
                 break;
             case EstadoDcs.PARADO:
             case EstadoDcs.EN_MARCHA:
@@ -69,32 +104,122 @@ public class EquipoService implements IEquipoService {
                 throw new IllegalArgumentException("Estado DCS no válido: " + nuevoEstadoDcs);
         }
         baseDeDatosEquipos.put(tag, equipo);
+        if (!nuevoEstadoDcs.equals(estadoAnterior)) {
+            historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, nuevoEstadoDcs);
+        }
+        revision.avanzar();
+        cambios.equipo("ESTADO_DCS", equipo);
         return equipo;
     }
 
     @Override
     public Equipo actualizarCondicionEquipo(String tag, String nuevaCondicion) {
-        System.out.println("[DEBUG] Llamada a actualizarCondicionEquipo: tag=" + tag + ", nuevaCondicion=" + nuevaCondicion);
+        log.debug("Llamada a actualizarCondicionEquipo: tag={}, nuevaCondicion={}", tag, nuevaCondicion);
         Equipo equipo = getEquipoByTag(tag);
         if (CondicionEquipo.BLOQUEADO.equals(nuevaCondicion) || CondicionEquipo.DESBLOQUEADO.equals(nuevaCondicion)) {
+            if (!nuevaCondicion.equals(equipo.getCondicion())) {
+                historial.registrar(tag, TransicionEquipo.CAMPO_CONDICION, nuevaCondicion);
+            }
             equipo.setCondicion(nuevaCondicion);
-            System.out.println("[DEBUG] Condición actualizada: " + equipo.getCondicion());
+            log.debug("Condición actualizada: {}", equipo.getCondicion());
         } else {
             throw new IllegalArgumentException("Condición no válida: " + nuevaCondicion);
         }
         baseDeDatosEquipos.put(tag, equipo);
+        revision.avanzar();
+        cambios.equipo("CONDICION", equipo);
         return equipo;
     }
 
+    @Override
+    public synchronized Equipo bloquearEquipo(String tag) {
+        Equipo equipo = getEquipoByTag(tag);
+        if (!EstadoDcs.DESHABILITADO.equals(equipo.getEstadoDcs())) {
+            historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, EstadoDcs.DESHABILITADO);
+        }
+        if (!CondicionEquipo.BLOQUEADO.equals(equipo.getCondicion())) {
+            historial.registrar(tag, TransicionEquipo.CAMPO_CONDICION, CondicionEquipo.BLOQUEADO);
+        }
+        equipo.setEstadoDcs(EstadoDcs.DESHABILITADO);
+        equipo.setCondicion(CondicionEquipo.BLOQUEADO);
+        dcsGateway.enviar(tag, EstadoDcs.DESHABILITADO).whenComplete((ok, error) -> {
+            if (error != null && EstadoDcs.DESHABILITADO.equals(equipo.getEstadoDcs())) {
+                equipo.setEstadoDcs(EstadoDcs.SIN_CONEXION);
+                historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, EstadoDcs.SIN_CONEXION);
+                revision.avanzar();
+                cambios.equipo("ESTADO_DCS", equipo);
+            }
+        });
+        revision.avanzar();
+        cambios.equipo("BLOQUEADO", equipo);
+        return equipo;
+    }
+
+    @Override
+    public Equipo liberarEquipo(String tag) {
+        return actualizarCondicionEquipo(tag, CondicionEquipo.DESBLOQUEADO);
+    }
+
+    @Override
+    public List<String> aplicarEstadosDcs(Map<String, String> estadosPorTag) {
+        List<String> noEncontrados = new ArrayList<>();
+        estadosPorTag.forEach((tag, estado) -> {
+            if (!EstadoDcs.esValido(estado)) {
+                throw new IllegalArgumentException("Estado DCS no válido: " + estado);
+            }
+            Equipo equipo = baseDeDatosEquipos.get(tag);
+            if (equipo == null) {
+                noEncontrados.add(tag);
+            } else {
+                if (!estado.equals(equipo.getEstadoDcs())) {
+                    historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, estado);
+                }
+                equipo.setEstadoDcs(estado);
+                revision.avanzar();
+                cambios.equipo("ESTADO_DCS", equipo);
+            }
+        });
+        return noEncontrados;
+    }
+
     @Override
     public Equipo createEquipo(Equipo equipo) {
         if (baseDeDatosEquipos.containsKey(equipo.getTag())) {
             throw new RuntimeException("Ya existe un equipo con tag: " + equipo.getTag());
         }
         baseDeDatosEquipos.put(equipo.getTag(), equipo);
+        indice.indexar(equipo);
+        revision.avanzar();
+        cambios.equipo("CREADO", equipo);
         return equipo;
     }
 
+    @Override
+    public List<String> crearEquipos(List<Equipo> equipos) {
+        List<String> existentes = new ArrayList<>();
+        // Sin distinguir mayusculas, como equipos.tag en MySQL
+        Set<String> ocupados = new HashSet<>();
+        baseDeDatosEquipos.keySet().forEach(t -> ocupados.add(t.toUpperCase(Locale.ROOT)));
+        for (Equipo equipo : equipos) {
+            if (!ocupados.add(equipo.getTag().toUpperCase(Locale.ROOT))) {
+                existentes.add(equipo.getTag());
+                continue;
+            }
+            equipo.setEstadoDcs(EstadoDcs.SIN_CONEXION);
+            baseDeDatosEquipos.put(equipo.getTag(), equipo);
+            indice.indexar(equipo);
+            historial.registrar(equipo.getTag(), TransicionEquipo.CAMPO_ESTADO_DCS, EstadoDcs.SIN_CONEXION);
+            if (equipo.getCondicion() != null) {
+                historial.registrar(equipo.getTag(), TransicionEquipo.CAMPO_CONDICION, equipo.getCondicion());
+            }
+        }
+        if (existentes.size() < equipos.size()) {
+            revision.avanzar();
+            cambios.publicar("equipo", "IMPORTADOS", null, Map.of("cantidad", equipos.size() - existentes.size()));
+        }
+        return existentes;
+    }
+
     @Override
     public Equipo updateEquipo(String tag, Equipo equipo) {
         if (!baseDeDatosEquipos.containsKey(tag)) {
@@ -102,6 +227,9 @@ public class EquipoService implements IEquipoService {
         }
         equipo.setTag(tag);
         baseDeDatosEquipos.put(tag, equipo);
+        indice.indexar(equipo);
+        revision.avanzar();
+        cambios.equipo("ACTUALIZADO", equipo);
         return equipo;
     }
 
@@ -111,5 +239,8 @@ public class EquipoService implements IEquipoService {
             throw new RuntimeException("Equipo no encontrado con tag: " + tag);
         }
         baseDeDatosEquipos.remove(tag);
+        indice.quitar(tag);
+        revision.avanzar();
+        cambios.publicar("equipo", "ELIMINADO", tag, Map.of());
     }
 }
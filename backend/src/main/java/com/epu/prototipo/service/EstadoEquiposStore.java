@@ -0,0 +1,380 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.dto.VersionRecurso;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.TransicionEquipo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estado de los equipos en memoria, fuente de verdad para lecturas y cambios de estado.
+ *
+ * Cada tag guarda una instantanea inmutable detras de un AtomicReference y los cambios
+ * se aplican con CAS, sin locks. Un cambio al mismo valor no hace nada. Los cambios de
+ * estadoDcs quedan marcados como sucios y un hilo los vuelca a MySQL en lotes cada
+ * equipos.estado.volcado-ms; la condicion (bloqueo) se escribe en el momento porque
+ * no puede perderse ante una caida. Al arrancar se precarga desde la base.
+ *
+ * Los cambios de condicion pedidos dentro de una transaccion (efectos del outbox) escriben
+ * la base en ella y llegan a la memoria recien al confirmar; un rollback no deja en
+ * memoria un bloqueo que la base no tiene.
+ *
+ * Cada cambio aplicado avanza una revision, que es el ETag de la lista de equipos.
+ *
+ * La memoria no se sincroniza entre procesos: corre una sola instancia por base, y
+ * InstanciaUnica impide arrancar una segunda.
+ */
+@Component
+@Profile("prod")
+// La precarga lee equipos por JDBC: en una base nueva la tabla la crea Hibernate (ddl-auto) al iniciar el EMF.
+// El lock de instancia se toma antes de cargar nada
+@DependsOn({"entityManagerFactory", "instanciaUnica"})
+public class EstadoEquiposStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadoEquiposStore.class);
+
+    private static final String SQL_VOLCADO = "UPDATE equipos SET estadoDcs = ? WHERE tag = ?";
+
+    private record Estado(String descripcion, String estadoDcs, String condicion) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IHistorialEquipoService historial;
+    private final long volcadoMs;
+    private final int loteMaximo;
+    private final Map<String, AtomicReference<Estado>> estados = new ConcurrentHashMap<>();
+    private final Set<String> sucios = ConcurrentHashMap.newKeySet();
+    private final AtomicLong cambiosAplicados = new AtomicLong();
+    private final AtomicLong cambiosSinEfecto = new AtomicLong();
+    private final AtomicLong filasVolcadas = new AtomicLong();
+    private final Revision revision = new Revision("equipos");
+    private final ScheduledExecutorService volcador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "equipos-volcado");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public EstadoEquiposStore(JdbcTemplate jdbcTemplate, IHistorialEquipoService historial,
+                              @Value("${equipos.estado.volcado-ms:1000}") long volcadoMs,
+                              @Value("${equipos.estado.lote-maximo:500}") int loteMaximo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.historial = historial;
+        this.volcadoMs = volcadoMs;
+        this.loteMaximo = Math.max(1, loteMaximo);
+    }
+
+    @PostConstruct
+    public void precargar() {
+        jdbcTemplate.query("SELECT tag, descripcion, estadoDcs, condicion FROM equipos", rs -> {
+            estados.put(rs.getString("tag"), new AtomicReference<>(
+                    new Estado(rs.getString("descripcion"), rs.getString("estadoDcs"), rs.getString("condicion"))));
+        });
+        log.info("Estado precargado: {} equipos", estados.size());
+        volcador.scheduleWithFixedDelay(this::volcarSeguro, volcadoMs, volcadoMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean contiene(String tag) {
+        return estados.containsKey(tag);
+    }
+
+    public Equipo obtener(String tag) {
+        AtomicReference<Estado> ref = estados.get(tag);
+        return ref == null ? null : aModelo(tag, ref.get());
+    }
+
+    public List<Equipo> obtenerTodos() {
+        List<Equipo> equipos = new ArrayList<>(estados.size());
+        estados.forEach((tag, ref) -> equipos.add(aModelo(tag, ref.get())));
+        equipos.sort(Comparator.comparing(Equipo::getTag));
+        return equipos;
+    }
+
+    // Version de la lista completa; se lee antes que la lista
+    public VersionRecurso version() {
+        return revision.version();
+    }
+
+    // Version de un equipo, de su instantanea actual; null si no existe
+    public VersionRecurso version(String tag) {
+        AtomicReference<Estado> ref = estados.get(tag);
+        if (ref == null) {
+            return null;
+        }
+        Estado estado = ref.get();
+        return VersionRecurso.de("equipo", null, tag, estado.descripcion(), estado.estadoDcs(), estado.condicion());
+    }
+
+    /**
+     * Aplica un nuevo estadoDcs. Devuelve false si el tag no existe o ya tenia ese estado;
+     * en ese caso no se marca nada para volcar.
+     */
+    public boolean aplicarEstadoDcs(String tag, String nuevo) {
+        return aplicarEstadoDcsSiCoincide(tag, null, nuevo);
+    }
+
+    /**
+     * Como {@link #aplicarEstadoDcs(String, String)}, pero solo si el estado actual es el
+     * esperado (null acepta cualquiera). Sirve para no pisar un cambio posterior.
+     */
+    public boolean aplicarEstadoDcsSiCoincide(String tag, String esperado, String nuevo) {
+        AtomicReference<Estado> ref = estados.get(tag);
+        if (ref == null) {
+            return false;
+        }
+        while (true) {
+            Estado actual = ref.get();
+            if (esperado != null && !esperado.equals(actual.estadoDcs())) {
+                return false;
+            }
+            if (nuevo.equals(actual.estadoDcs())) {
+                cambiosSinEfecto.incrementAndGet();
+                return false;
+            }
+            if (ref.compareAndSet(actual, new Estado(actual.descripcion(), nuevo, actual.condicion()))) {
+                sucios.add(tag);
+                historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, nuevo);
+                cambiosAplicados.incrementAndGet();
+                revision.avanzar();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Cambia la condicion y la escribe en la base en el momento. Devuelve false si el tag
+     * no existe o ya tenia esa condicion. Dentro de una transaccion la memoria cambia al
+     * confirmarla.
+     */
+    public boolean aplicarCondicion(String tag, String nueva) {
+        AtomicReference<Estado> ref = estados.get(tag);
+        if (ref == null) {
+            return false;
+        }
+        if (enTransaccion()) {
+            return alConfirmar(tag, ref, null, nueva, () -> jdbcTemplate.update(
+                    "UPDATE equipos SET condicion = ? WHERE tag = ? AND NOT (condicion <=> ?)", nueva, tag, nueva));
+        }
+        while (true) {
+            Estado actual = ref.get();
+            if (nueva.equals(actual.condicion())) {
+                cambiosSinEfecto.incrementAndGet();
+                return false;
+            }
+            Estado cambiado = new Estado(actual.descripcion(), actual.estadoDcs(), nueva);
+            if (ref.compareAndSet(actual, cambiado)) {
+                try {
+                    jdbcTemplate.update("UPDATE equipos SET condicion = ? WHERE tag = ? AND NOT (condicion <=> ?)", nueva, tag, nueva);
+                } catch (DataAccessException e) {
+                    // Sin persistir no se informa el bloqueo: se deshace si nadie lo cambio despues
+                    ref.compareAndSet(cambiado, actual);
+                    revision.avanzar();
+                    throw e;
+                }
+                historial.registrar(tag, TransicionEquipo.CAMPO_CONDICION, nueva);
+                cambiosAplicados.incrementAndGet();
+                revision.avanzar();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Aplica estadoDcs y condicion juntos en un solo CAS y los escribe con un unico
+     * UPDATE condicional. Nadie observa el equipo a medio bloquear. Devuelve false si el
+     * tag no existe o ya estaba asi. Dentro de una transaccion la memoria cambia al
+     * confirmarla.
+     */
+    public boolean aplicarEstadoYCondicion(String tag, String estadoDcs, String condicion) {
+        AtomicReference<Estado> ref = estados.get(tag);
+        if (ref == null) {
+            return false;
+        }
+        if (enTransaccion()) {
+            return alConfirmar(tag, ref, estadoDcs, condicion, () -> jdbcTemplate.update(
+                    "UPDATE equipos SET estadoDcs = ?, condicion = ? WHERE tag = ?"
+                            + " AND NOT (estadoDcs <=> ? AND condicion <=> ?)",
+                    estadoDcs, condicion, tag, estadoDcs, condicion));
+        }
+        while (true) {
+            Estado actual = ref.get();
+            if (estadoDcs.equals(actual.estadoDcs()) && condicion.equals(actual.condicion())) {
+                cambiosSinEfecto.incrementAndGet();
+                return false;
+            }
+            Estado cambiado = new Estado(actual.descripcion(), estadoDcs, condicion);
+            if (ref.compareAndSet(actual, cambiado)) {
+                try {
+                    jdbcTemplate.update("UPDATE equipos SET estadoDcs = ?, condicion = ? WHERE tag = ?"
+                                    + " AND NOT (estadoDcs <=> ? AND condicion <=> ?)",
+                            estadoDcs, condicion, tag, estadoDcs, condicion);
+                } catch (DataAccessException e) {
+                    ref.compareAndSet(cambiado, actual);
+                    revision.avanzar();
+                    throw e;
+                }
+                if (!estadoDcs.equals(actual.estadoDcs())) {
+                    historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, estadoDcs);
+                }
+                if (!condicion.equals(actual.condicion())) {
+                    historial.registrar(tag, TransicionEquipo.CAMPO_CONDICION, condicion);
+                }
+                cambiosAplicados.incrementAndGet();
+                revision.avanzar();
+                return true;
+            }
+        }
+    }
+
+    private static boolean enTransaccion() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    // El UPDATE va en la transaccion; memoria, historial y revision al confirmar. estadoDcs null lo deja como esta
+    private boolean alConfirmar(String tag, AtomicReference<Estado> ref, String estadoDcs, String condicion, Runnable escritura) {
+        Estado actual = ref.get();
+        if ((estadoDcs == null || estadoDcs.equals(actual.estadoDcs())) && condicion.equals(actual.condicion())) {
+            cambiosSinEfecto.incrementAndGet();
+            return false;
+        }
+        escritura.run();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Estado previo = ref.getAndUpdate(e -> new Estado(e.descripcion(),
+                        estadoDcs == null ? e.estadoDcs() : estadoDcs, condicion));
+                if (estadoDcs != null && !estadoDcs.equals(previo.estadoDcs())) {
+                    historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, estadoDcs);
+                }
+                if (!condicion.equals(previo.condicion())) {
+                    historial.registrar(tag, TransicionEquipo.CAMPO_CONDICION, condicion);
+                }
+                cambiosAplicados.incrementAndGet();
+                revision.avanzar();
+            }
+        });
+        return true;
+    }
+
+    // Para altas y ediciones completas, que ya se guardaron en la base
+    public void registrar(Equipo equipo) {
+        String tag = equipo.getTag();
+        sucios.remove(tag);
+        AtomicReference<Estado> anterior = estados.put(tag, new AtomicReference<>(
+                new Estado(equipo.getDescripcion(), equipo.getEstadoDcs(), equipo.getCondicion())));
+        Estado previo = anterior == null ? null : anterior.get();
+        if (equipo.getEstadoDcs() != null && (previo == null || !equipo.getEstadoDcs().equals(previo.estadoDcs()))) {
+            historial.registrar(tag, TransicionEquipo.CAMPO_ESTADO_DCS, equipo.getEstadoDcs());
+        }
+        if (equipo.getCondicion() != null && (previo == null || !equipo.getCondicion().equals(previo.condicion()))) {
+            historial.registrar(tag, TransicionEquipo.CAMPO_CONDICION, equipo.getCondicion());
+        }
+        revision.avanzar();
+    }
+
+    public void quitar(String tag) {
+        estados.remove(tag);
+        sucios.remove(tag);
+        revision.avanzar();
+    }
+
+    /**
+     * Vuelca a MySQL los estados sucios en batches JDBC. Cada tag se saca del conjunto
+     * antes de leer su valor, asi un cambio concurrente lo vuelve a marcar y sale en el
+     * siguiente volcado. Si el batch falla, los tags vuelven a quedar sucios.
+     */
+    public int volcar() {
+        int total = 0;
+        List<String> tags = new ArrayList<>(loteMaximo);
+        List<Object[]> filas = new ArrayList<>(loteMaximo);
+        for (String tag : sucios) {
+            if (!sucios.remove(tag)) {
+                continue;
+            }
+            AtomicReference<Estado> ref = estados.get(tag);
+            if (ref == null) {
+                continue;
+            }
+            tags.add(tag);
+            filas.add(new Object[] {ref.get().estadoDcs(), tag});
+            if (filas.size() == loteMaximo) {
+                total += ejecutarLote(tags, filas);
+            }
+        }
+        if (!filas.isEmpty()) {
+            total += ejecutarLote(tags, filas);
+        }
+        return total;
+    }
+
+    private int ejecutarLote(List<String> tags, List<Object[]> filas) {
+        try {
+            jdbcTemplate.batchUpdate(SQL_VOLCADO, filas);
+            filasVolcadas.addAndGet(filas.size());
+            return filas.size();
+        } catch (DataAccessException e) {
+            sucios.addAll(tags);
+            log.warn("Falla volcando {} estados, se reintenta: {}", filas.size(), e.getMessage());
+            return 0;
+        } finally {
+            tags.clear();
+            filas.clear();
+        }
+    }
+
+    private void volcarSeguro() {
+        try {
+            volcar();
+        } catch (RuntimeException e) {
+            log.warn("Error en el volcado de estados: {}", e.getMessage());
+        }
+    }
+
+    public int getPendientes() {
+        return sucios.size();
+    }
+
+    public long getCambiosAplicados() {
+        return cambiosAplicados.get();
+    }
+
+    public long getCambiosSinEfecto() {
+        return cambiosSinEfecto.get();
+    }
+
+    public long getFilasVolcadas() {
+        return filasVolcadas.get();
+    }
+
+    @PreDestroy
+    public void detener() {
+        volcador.shutdownNow();
+        int volcados = volcar();
+        log.info("Volcado final: {} estados", volcados);
+    }
+
+    private static Equipo aModelo(String tag, Estado estado) {
+        return new Equipo(tag, estado.descripcion(), estado.estadoDcs(), estado.condicion());
+    }
+}
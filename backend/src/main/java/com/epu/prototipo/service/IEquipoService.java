@@ -1,8 +1,10 @@
 package com.epu.prototipo.service;
 
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.model.Equipo;
 
 import java.util.List;
+import java.util.Map;
 
 public interface IEquipoService {
 
@@ -10,12 +12,45 @@ public interface IEquipoService {
 
     List<Equipo> getAllEquipos();
 
+    // Version de la lista de equipos (ETag y Last-Modified); cambia con cada alta, baja o cambio de estado
+    VersionRecurso getVersionEquipos();
+
+    // Version de un equipo (solo ETag); null si no existe
+    VersionRecurso getVersionEquipo(String tag);
+
     Equipo actualizarEstadoEquipo(String tag, String nuevoEstadoDcs);
 
     Equipo actualizarCondicionEquipo(String tag, String nuevaCondicion);
 
+    /**
+     * Bloqueo del equipo para trabajar: DESHABILITADO y BLOQUEADO en una sola operacion,
+     * mas el comando de deshabilitar al DCS.
+     */
+    Equipo bloquearEquipo(String tag);
+
+    /**
+     * Libera el bloqueo (DESBLOQUEADO). No se habilita el equipo en el DCS: eso lo hace
+     * operaciones cuando corresponde.
+     */
+    Equipo liberarEquipo(String tag);
+
+    /**
+     * Aplica estados reportados por el DCS (señales entrantes, no se reenvian comandos).
+     * @param estadosPorTag ultimo estado recibido de cada tag
+     * @return tags que no existen como equipo
+     */
+    List<String> aplicarEstadosDcs(Map<String, String> estadosPorTag);
+
     Equipo createEquipo(Equipo equipo);
 
+    /**
+     * Alta en bloque: crea los equipos cuyo tag no existe, todos SIN_CONEXION, en una sola
+     * transaccion. Los que ya existen se omiten; los tags se comparan sin distinguir
+     * mayusculas, como la columna en MySQL.
+     * @return tags del lote (tal como vinieron) que ya existian y no se crearon
+     */
+    List<String> crearEquipos(List<Equipo> equipos);
+
     Equipo updateEquipo(String tag, Equipo equipo);
 
     void deleteEquipo(String tag);
@@ -0,0 +1,52 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.model.TransicionEquipo;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historial de transiciones de estadoDcs y condicion de los equipos.
+ */
+public interface IHistorialEquipoService {
+
+    // Registra que el campo del equipo paso a tener el valor, con la hora actual
+    void registrar(String tag, String campo, String valor);
+
+    List<TransicionEquipo> getTransiciones(String tag, LocalDateTime desde, LocalDateTime hasta);
+
+    List<TransicionEquipo> getTransiciones(String tag, String campo, LocalDateTime desde, LocalDateTime hasta);
+
+    // Valor vigente del campo justo antes del instante, o null si no hay registro previo
+    String getValorAnterior(String tag, String campo, LocalDateTime instante);
+
+    /**
+     * Segundos que el campo estuvo en cada valor dentro del rango. El tramo anterior a la
+     * primera transicion conocida no se cuenta. Ej: duraciones de "condicion" de K7451
+     * en el trimestre responde cuanto estuvo BLOQUEADO.
+     */
+    default Map<String, Long> getDuraciones(String tag, String campo, LocalDateTime desde, LocalDateTime hasta) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime fin = hasta.isAfter(ahora) ? ahora : hasta;
+        Map<String, Long> duraciones = new LinkedHashMap<>();
+        if (!fin.isAfter(desde)) {
+            return duraciones;
+        }
+        String valor = getValorAnterior(tag, campo, desde);
+        LocalDateTime inicioTramo = desde;
+        for (TransicionEquipo t : getTransiciones(tag, campo, desde, fin)) {
+            if (valor != null) {
+                duraciones.merge(valor, Duration.between(inicioTramo, t.getFecha()).toSeconds(), Long::sum);
+            }
+            valor = t.getValor();
+            inicioTramo = t.getFecha();
+        }
+        if (valor != null) {
+            duraciones.merge(valor, Duration.between(inicioTramo, fin).toSeconds(), Long::sum);
+        }
+        return duraciones;
+    }
+}
@@ -3,7 +3,11 @@ package com.epu.prototipo.service;
 
 import com.epu.prototipo.dto.CerrarPtsRequest;
 import com.epu.prototipo.dto.FirmaPtsRequest;
+import com.epu.prototipo.dto.PaginaBusquedaPtsDTO;
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.util.CamposSolicitados;
+import java.time.LocalDate;
 import java.util.List;
 
 // Interface para servicio gestion PTS
@@ -23,10 +27,39 @@ public interface IPtsService {
      * @param usuario Filtro por nombre o legajo de solicitante 
      * @param estado Filtro por estado RTO: PENDIENTE, CERRADO 
      * @param fechaInicio Filtro por fecha de inicio en formato YYYY-MM-DD 
+     * @param desde Fecha de inicio minima, incluida
+     * @param hasta Fecha de inicio maxima, incluida
+     * @param campos Campos a cargar de cada PTS
      * @return Lista filtrada de PTS que cumplen con los criterios especificados
      */
-    List<PermisoTrabajoSeguro> buscarPts(String equipo, String usuario, String area, String estado, String fechaInicio);
+    List<PermisoTrabajoSeguro> buscarPts(String equipo, String usuario, String area, String estado, String fechaInicio,
+                                         LocalDate desde, LocalDate hasta, CamposSolicitados campos);
+
+    /**
+     * Busca PTS con fecha de inicio entre desde y hasta (ambas incluidas), del mas reciente al
+     * mas antiguo. Incluye los PTS archivados solo si el rango llega a fechas archivadas.
+     * @param equipo Tag exacto del equipo (opcional)
+     * @param usuario Legajo o parte del nombre del solicitante (opcional)
+     * @param estado Estado del PTS (opcional)
+     * @param campos Campos a cargar de cada PTS
+     * @return Hasta pts.rango.maximo PTS
+     * @throws IllegalArgumentException si falta alguna fecha o hasta es anterior a desde
+     */
+    List<PermisoTrabajoSeguro> buscarPtsPorRango(LocalDate desde, LocalDate hasta, String equipo, String usuario, String estado,
+                                                 CamposSolicitados campos);
     
+    /**
+     * Busqueda de texto libre en descripcion, tarea, ubicacion y riesgos/controles, incluidos
+     * los PTS archivados. Todos los terminos (de 3 o mas letras, sin distinguir acentos ni
+     * mayusculas) tienen que aparecer, como palabra o prefijo.
+     * @param consulta Texto a buscar
+     * @param pagina Pagina, desde 0
+     * @param tamanio PTS por pagina
+     * @return Pagina de resultados de mayor a menor relevancia
+     * @throws IllegalArgumentException si la consulta no tiene terminos buscables
+     */
+    PaginaBusquedaPtsDTO buscarTexto(String consulta, int pagina, int tamanio);
+
     /**
      * Crea un nuevo PTS.
      * @param pts El PTS a crear
@@ -40,6 +73,35 @@ public interface IPtsService {
      * @return El PTS encontrado o null si no existe
      */
     PermisoTrabajoSeguro getPtsById(String id);
+
+    /**
+     * Obtiene un PTS por su ID con solo los campos pedidos; los demas quedan vacios.
+     * @param id ID del PTS a buscar
+     * @param campos Campos a cargar
+     * @return El PTS encontrado o null si no existe
+     */
+    PermisoTrabajoSeguro getPtsById(String id, CamposSolicitados campos);
+
+    /**
+     * Version del PTS para GET condicionales, sin cargarlo.
+     * @param id ID del PTS
+     * @return La version, o null si no existe o no se versiona (PTS archivado)
+     */
+    VersionRecurso getVersionPts(String id);
+
+    /**
+     * PTS no cerrados de un equipo, para la consulta publica.
+     * @param tag Tag exacto del equipo
+     * @return PTS del equipo con estado distinto de CERRADO
+     */
+    List<PermisoTrabajoSeguro> getPtsActivosPorEquipo(String tag);
+
+    /**
+     * Version de {@link #getPtsActivosPorEquipo(String)}, sin cargar los PTS.
+     * @param tag Tag exacto del equipo
+     * @return La version (solo ETag)
+     */
+    VersionRecurso getVersionPtsActivosPorEquipo(String tag);
     
     /**
      * Firma un PTS con validación biométrica simulada.
@@ -1,6 +1,9 @@
 package com.epu.prototipo.service;
 
+import com.epu.prototipo.dto.ResumenRtoDTO;
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.util.CamposSolicitados;
 
 import java.util.List;
 
@@ -10,7 +13,10 @@ public interface IRtoService {
 
     RetornoOperaciones getRtoById(String id);
 
-    List<RetornoOperaciones> getAllRtos();
+    // Solo con los campos pedidos: sin ptsIds ni especialidades no se leen sus tablas
+    RetornoOperaciones getRtoById(String id, CamposSolicitados campos);
+
+    List<RetornoOperaciones> getAllRtos(CamposSolicitados campos);
 
     RetornoOperaciones getRtoByEquipoTag(String equipoTag);
 
@@ -20,5 +26,11 @@ public interface IRtoService {
 
     RetornoOperaciones cerrarEspecialidad(String rtoId, String especialidadNombre, String responsableLegajo, String observaciones);
 
-    List<RetornoOperaciones> getRtosAbiertos();
+    List<RetornoOperaciones> getRtosAbiertos(CamposSolicitados campos);
+
+    // Version de getRtosAbiertos(...) para GET condicionales (solo ETag), sin cargar los RTO
+    VersionRecurso getVersionRtosAbiertos();
+
+    // Conteos por RTO abierto para el tablero, del mas antiguo al mas nuevo
+    List<ResumenRtoDTO> getTableroAbiertos();
 }
@@ -0,0 +1,290 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.dto.ImportacionEquiposDTO;
+import com.epu.prototipo.model.CondicionEquipo;
+import com.epu.prototipo.model.Equipo;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importacion masiva de equipos desde CSV o XLSX.
+ *
+ * Las filas se leen en streaming (el XLSX con el lector SAX de POI, sin cargar el libro)
+ * y se validan una a una. Las validas se acumulan en lotes de equipos.importacion.lote:
+ * por lote se consulta de una vez que tags ya existen y el resto se inserta en batch.
+ * Columnas: tag, descripcion, condicion (opcional, DESBLOQUEADO por defecto). La primera
+ * fila se toma como encabezado si su primera celda dice "tag".
+ */
+@Service
+public class ImportacionEquiposService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionEquiposService.class);
+
+    private static final int LARGO_MAXIMO_TAG = 50;
+    private static final int LARGO_MAXIMO_DESCRIPCION = 200;
+
+    private final IEquipoService equipoService;
+    private final int tamanoLote;
+
+    public ImportacionEquiposService(IEquipoService equipoService,
+                                     @Value("${equipos.importacion.lote:1000}") int tamanoLote) {
+        this.equipoService = equipoService;
+        this.tamanoLote = Math.max(1, tamanoLote);
+    }
+
+    public ImportacionEquiposDTO importar(MultipartFile archivo) throws IOException {
+        String nombre = archivo.getOriginalFilename() == null ? "" : archivo.getOriginalFilename().toLowerCase(Locale.ROOT);
+        Procesador procesador = new Procesador();
+        if (nombre.endsWith(".xlsx")) {
+            // OPCPackage lee el zip con acceso aleatorio desde disco, sin pasarlo entero a memoria
+            Path temporal = Files.createTempFile("importacion-equipos", ".xlsx");
+            try {
+                archivo.transferTo(temporal);
+                leerXlsx(temporal, procesador);
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } else if (nombre.endsWith(".csv")) {
+            try (InputStream entrada = archivo.getInputStream()) {
+                leerCsv(entrada, procesador);
+            }
+        } else {
+            throw new IllegalArgumentException("Formato no soportado, se espera .csv o .xlsx: " + archivo.getOriginalFilename());
+        }
+        procesador.terminar();
+        log.info("{}: {} filas, {} equipos creados, {} con error", archivo.getOriginalFilename(), procesador.resultado.getFilasLeidas(), procesador.resultado.getInsertados(), procesador.resultado.getErrores().size());
+        return procesador.resultado;
+    }
+
+    private void leerCsv(InputStream entrada, Procesador procesador) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String linea = lector.readLine();
+        if (linea == null) {
+            return;
+        }
+        if (linea.startsWith("\uFEFF")) {
+            linea = linea.substring(1);
+        }
+        // Excel en configuracion regional es-AR exporta CSV con punto y coma
+        char separador = linea.indexOf(';') >= 0 && linea.indexOf(',') < 0 ? ';' : ',';
+        int numero = 1;
+        do {
+            procesador.fila(numero++, separarCsv(linea, separador));
+        } while ((linea = lector.readLine()) != null);
+    }
+
+    static List<String> separarCsv(String linea, char separador) {
+        List<String> celdas = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                celdas.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        celdas.add(actual.toString());
+        return celdas;
+    }
+
+    private void leerXlsx(Path archivo, Procesador procesador) throws IOException {
+        try (OPCPackage paquete = OPCPackage.open(archivo.toFile(), PackageAccess.READ)) {
+            XSSFReader lector = new XSSFReader(paquete);
+            ReadOnlySharedStringsTable textos = new ReadOnlySharedStringsTable(paquete);
+            XSSFReader.SheetIterator hojas = (XSSFReader.SheetIterator) lector.getSheetsData();
+            if (!hojas.hasNext()) {
+                return;
+            }
+            try (InputStream hoja = hojas.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(lector.getStylesTable(), null, textos,
+                        new FilasXlsx(procesador), new DataFormatter(), false));
+                parser.parse(new InputSource(hoja));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IllegalArgumentException("Archivo XLSX no válido: " + e.getMessage(), e);
+        }
+    }
+
+    // Arma cada fila con sus celdas en la columna que corresponde (las vacias no llegan)
+    private static class FilasXlsx implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Procesador procesador;
+        private final List<String> celdas = new ArrayList<>();
+
+        FilasXlsx(Procesador procesador) {
+            this.procesador = procesador;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            celdas.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            procesador.fila(rowNum + 1, new ArrayList<>(celdas));
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int columna = new CellReference(cellReference).getCol();
+            while (celdas.size() < columna) {
+                celdas.add("");
+            }
+            celdas.add(formattedValue);
+        }
+    }
+
+    private record FilaEquipo(int numero, Equipo equipo) {}
+
+    // Valida filas, descarta duplicados dentro del archivo y envia lotes al servicio
+    private class Procesador {
+        final ImportacionEquiposDTO resultado = new ImportacionEquiposDTO();
+        final Map<String, Integer> filaPorTag = new HashMap<>();
+        final List<FilaEquipo> lote = new ArrayList<>(tamanoLote);
+        int columnaTag = 0;
+        int columnaDescripcion = 1;
+        int columnaCondicion = 2;
+        boolean primeraFila = true;
+
+        void fila(int numero, List<String> celdas) {
+            if (celdas.stream().allMatch(c -> c == null || c.isBlank())) {
+                return;
+            }
+            if (primeraFila) {
+                primeraFila = false;
+                if ("tag".equalsIgnoreCase(celda(celdas, 0))) {
+                    leerEncabezado(celdas);
+                    return;
+                }
+            }
+            resultado.setFilasLeidas(resultado.getFilasLeidas() + 1);
+
+            String tag = celda(celdas, columnaTag);
+            String descripcion = celda(celdas, columnaDescripcion);
+            String condicion = celda(celdas, columnaCondicion).toUpperCase(Locale.ROOT);
+            if (tag.isEmpty()) {
+                resultado.agregarError(numero, null, "El tag es requerido");
+                return;
+            }
+            if (tag.length() > LARGO_MAXIMO_TAG) {
+                resultado.agregarError(numero, tag, "El tag supera " + LARGO_MAXIMO_TAG + " caracteres");
+                return;
+            }
+            if (descripcion.length() > LARGO_MAXIMO_DESCRIPCION) {
+                resultado.agregarError(numero, tag, "La descripción supera " + LARGO_MAXIMO_DESCRIPCION + " caracteres");
+                return;
+            }
+            if (condicion.isEmpty()) {
+                condicion = CondicionEquipo.DESBLOQUEADO;
+            } else if (!CondicionEquipo.BLOQUEADO.equals(condicion) && !CondicionEquipo.DESBLOQUEADO.equals(condicion)) {
+                resultado.agregarError(numero, tag, "Condición no válida: " + condicion);
+                return;
+            }
+            // La columna tag de MySQL no distingue mayusculas: K7451 y k7451 son el mismo equipo
+            Integer filaAnterior = filaPorTag.putIfAbsent(tag.toUpperCase(Locale.ROOT), numero);
+            if (filaAnterior != null) {
+                resultado.agregarError(numero, tag, "Tag repetido en el archivo (fila " + filaAnterior + ")");
+                return;
+            }
+
+            lote.add(new FilaEquipo(numero, new Equipo(tag, descripcion.isEmpty() ? null : descripcion, null, condicion)));
+            if (lote.size() >= tamanoLote) {
+                enviarLote();
+            }
+        }
+
+        void terminar() {
+            if (!lote.isEmpty()) {
+                enviarLote();
+            }
+        }
+
+        private void enviarLote() {
+            List<Equipo> equipos = new ArrayList<>(lote.size());
+            lote.forEach(f -> equipos.add(f.equipo()));
+            try {
+                Set<String> existentes = new HashSet<>(equipoService.crearEquipos(equipos));
+                for (FilaEquipo f : lote) {
+                    if (existentes.contains(f.equipo().getTag())) {
+                        resultado.agregarError(f.numero(), f.equipo().getTag(), "Ya existe un equipo con tag: " + f.equipo().getTag());
+                    }
+                }
+                resultado.setInsertados(resultado.getInsertados() + lote.size() - existentes.size());
+            } catch (RuntimeException e) {
+                // El lote se inserta en una sola transaccion: si falla, ninguna de sus filas quedo
+                for (FilaEquipo f : lote) {
+                    resultado.agregarError(f.numero(), f.equipo().getTag(), "No se pudo insertar el lote: " + e.getMessage());
+                }
+            }
+            lote.clear();
+        }
+
+        private void leerEncabezado(List<String> celdas) {
+            columnaDescripcion = -1;
+            columnaCondicion = -1;
+            for (int i = 0; i < celdas.size(); i++) {
+                String nombre = celdas.get(i) == null ? "" : celdas.get(i).trim().toLowerCase(Locale.ROOT);
+                switch (nombre) {
+                    case "tag" -> columnaTag = i;
+                    case "descripcion", "descripción" -> columnaDescripcion = i;
+                    case "condicion", "condición" -> columnaCondicion = i;
+                    default -> { }
+                }
+            }
+        }
+
+        private String celda(List<String> celdas, int columna) {
+            if (columna < 0 || columna >= celdas.size() || celdas.get(columna) == null) {
+                return "";
+            }
+            return celdas.get(columna).trim();
+        }
+    }
+}
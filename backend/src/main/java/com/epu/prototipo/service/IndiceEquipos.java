@@ -0,0 +1,388 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.dto.SugerenciaEquipoDTO;
+import com.epu.prototipo.model.Equipo;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Indice en memoria para autocompletar equipos por tag y descripcion.
+ *
+ * Tags y palabras de la descripcion se normalizan (minusculas, sin acentos, sin
+ * separadores en el tag) y se guardan en dos tries para busqueda por prefijo. Para
+ * errores de tipeo hay un indice invertido de bigramas (con tags de 4-6 caracteres los
+ * trigramas no toleran ni una transposicion): los candidatos que comparten bigramas con
+ * la consulta se ordenan por coeficiente de Dice. Cada clave (tag o palabra) tiene un id
+ * entero y los bigramas en comun se cuentan sobre un int[] recorriendo las listas de ids
+ * del indice, sin hashear ni volver a armar los bigramas de cada candidato. Los servicios
+ * de equipos lo mantienen al dia en cada alta, edicion y baja.
+ */
+@Component
+public class IndiceEquipos {
+
+    public static final String COINCIDENCIA_TAG = "TAG";
+    public static final String COINCIDENCIA_DESCRIPCION = "DESCRIPCION";
+    public static final String COINCIDENCIA_APROXIMADA = "APROXIMADA";
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+    private static final double SIMILITUD_MINIMA = 0.45;
+    private static final int CANDIDATOS_POR_PALABRA = 500;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, String> descripciones = new HashMap<>();
+    private final Map<String, Set<String>> clavesPorTag = new HashMap<>();
+    private final Map<String, Integer> idPorClave = new HashMap<>();
+    private final List<Clave> clavesPorId = new ArrayList<>();
+    private final Deque<Integer> idsLibres = new ArrayDeque<>();
+    private final Map<String, ListaIds> idsPorBigrama = new HashMap<>();
+    private final Nodo raizTags = new Nodo();
+    private final Nodo raizPalabras = new Nodo();
+
+    private static class Nodo {
+        final TreeMap<Character, Nodo> hijos = new TreeMap<>();
+        final Set<String> tags = new TreeSet<>();
+    }
+
+    // Clave normalizada (tag o palabra): equipos que la tienen y cuantos bigramas distintos suma
+    private static class Clave {
+        final Set<String> tags = new HashSet<>();
+        final int bigramas;
+
+        Clave(int bigramas) {
+            this.bigramas = bigramas;
+        }
+    }
+
+    // Ids de claves sin boxing; el orden no importa
+    private static class ListaIds {
+        int[] ids = new int[4];
+        int tamano;
+
+        void agregar(int id) {
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            ids[tamano++] = id;
+        }
+
+        void quitar(int id) {
+            for (int i = 0; i < tamano; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--tamano];
+                    return;
+                }
+            }
+        }
+    }
+
+    public void reconstruir(Collection<Equipo> equipos) {
+        lock.writeLock().lock();
+        try {
+            descripciones.clear();
+            clavesPorTag.clear();
+            idPorClave.clear();
+            clavesPorId.clear();
+            idsLibres.clear();
+            idsPorBigrama.clear();
+            raizTags.hijos.clear();
+            raizTags.tags.clear();
+            raizPalabras.hijos.clear();
+            raizPalabras.tags.clear();
+            equipos.forEach(this::agregar);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexar(Equipo equipo) {
+        lock.writeLock().lock();
+        try {
+            quitarInterno(equipo.getTag());
+            agregar(equipo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(String tag) {
+        lock.writeLock().lock();
+        try {
+            quitarInterno(tag);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hasta limite sugerencias: primero tags que empiezan con la consulta, despues equipos
+     * cuya descripcion tiene palabras que empiezan con cada palabra de la consulta, y por
+     * ultimo coincidencias aproximadas.
+     */
+    public List<SugerenciaEquipoDTO> sugerir(String consulta, int limite) {
+        String claveTag = normalizarTag(consulta);
+        List<String> palabras = palabras(consulta);
+        Map<String, String> encontrados = new LinkedHashMap<>();
+        if (claveTag.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            for (String tag : buscarPrefijo(raizTags, claveTag, limite)) {
+                encontrados.putIfAbsent(tag, COINCIDENCIA_TAG);
+            }
+            if (encontrados.size() < limite && !palabras.isEmpty()) {
+                Set<String> enTodas = null;
+                for (String palabra : palabras) {
+                    Set<String> conPalabra = new LinkedHashSet<>(buscarPrefijo(raizPalabras, palabra, CANDIDATOS_POR_PALABRA));
+                    if (enTodas == null) {
+                        enTodas = conPalabra;
+                    } else {
+                        enTodas.retainAll(conPalabra);
+                    }
+                }
+                for (String tag : enTodas) {
+                    if (encontrados.size() >= limite) {
+                        break;
+                    }
+                    encontrados.putIfAbsent(tag, COINCIDENCIA_DESCRIPCION);
+                }
+            }
+            if (encontrados.size() < limite) {
+                for (String tag : buscarAproximado(claveTag, palabras, encontrados.keySet(), limite - encontrados.size())) {
+                    encontrados.put(tag, COINCIDENCIA_APROXIMADA);
+                }
+            }
+            List<SugerenciaEquipoDTO> sugerencias = new ArrayList<>(encontrados.size());
+            encontrados.forEach((tag, tipo) -> sugerencias.add(new SugerenciaEquipoDTO(tag, descripciones.get(tag), tipo)));
+            return sugerencias;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getCantidad() {
+        lock.readLock().lock();
+        try {
+            return descripciones.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void agregar(Equipo equipo) {
+        String tag = equipo.getTag();
+        descripciones.put(tag, equipo.getDescripcion());
+        Set<String> delTag = new HashSet<>();
+        String claveTag = normalizarTag(tag);
+        insertar(raizTags, claveTag, tag);
+        delTag.add(claveTag);
+        for (String palabra : palabras(equipo.getDescripcion())) {
+            insertar(raizPalabras, palabra, tag);
+            delTag.add(palabra);
+        }
+        for (String clave : delTag) {
+            Integer id = idPorClave.get(clave);
+            if (id == null) {
+                Set<String> suyos = bigramas(clave);
+                id = idsLibres.isEmpty() ? clavesPorId.size() : idsLibres.pop();
+                if (id == clavesPorId.size()) {
+                    clavesPorId.add(null);
+                }
+                clavesPorId.set(id, new Clave(suyos.size()));
+                idPorClave.put(clave, id);
+                for (String bigrama : suyos) {
+                    idsPorBigrama.computeIfAbsent(bigrama, b -> new ListaIds()).agregar(id);
+                }
+            }
+            clavesPorId.get(id).tags.add(tag);
+        }
+        clavesPorTag.put(tag, delTag);
+    }
+
+    private void quitarInterno(String tag) {
+        Set<String> delTag = clavesPorTag.remove(tag);
+        descripciones.remove(tag);
+        if (delTag == null) {
+            return;
+        }
+        for (String clave : delTag) {
+            quitarDeTrie(raizTags, clave, tag);
+            quitarDeTrie(raizPalabras, clave, tag);
+            Integer id = idPorClave.get(clave);
+            if (id == null || !clavesPorId.get(id).tags.remove(tag) || !clavesPorId.get(id).tags.isEmpty()) {
+                continue;
+            }
+            // Ningun equipo usa mas la clave: sale de las listas de bigramas y su id se reusa
+            idPorClave.remove(clave);
+            clavesPorId.set(id, null);
+            idsLibres.push(id);
+            for (String bigrama : bigramas(clave)) {
+                ListaIds conBigrama = idsPorBigrama.get(bigrama);
+                if (conBigrama != null) {
+                    conBigrama.quitar(id);
+                    if (conBigrama.tamano == 0) {
+                        idsPorBigrama.remove(bigrama);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void insertar(Nodo raiz, String clave, String tag) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < clave.length(); i++) {
+            nodo = nodo.hijos.computeIfAbsent(clave.charAt(i), c -> new Nodo());
+        }
+        nodo.tags.add(tag);
+    }
+
+    // Los nodos vacios quedan; se limpian en la proxima reconstruccion
+    private static void quitarDeTrie(Nodo raiz, String clave, String tag) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < clave.length() && nodo != null; i++) {
+            nodo = nodo.hijos.get(clave.charAt(i));
+        }
+        if (nodo != null) {
+            nodo.tags.remove(tag);
+        }
+    }
+
+    // Recorrido en profundidad desde el nodo del prefijo; corta al juntar limite tags
+    private static Set<String> buscarPrefijo(Nodo raiz, String prefijo, int limite) {
+        Set<String> resultado = new LinkedHashSet<>();
+        Nodo nodo = raiz;
+        for (int i = 0; i < prefijo.length() && nodo != null; i++) {
+            nodo = nodo.hijos.get(prefijo.charAt(i));
+        }
+        if (nodo != null) {
+            recolectar(nodo, resultado, limite);
+        }
+        return resultado;
+    }
+
+    private static void recolectar(Nodo nodo, Set<String> resultado, int limite) {
+        for (String tag : nodo.tags) {
+            if (resultado.size() >= limite) {
+                return;
+            }
+            resultado.add(tag);
+        }
+        for (Nodo hijo : nodo.hijos.values()) {
+            if (resultado.size() >= limite) {
+                return;
+            }
+            recolectar(hijo, resultado, limite);
+        }
+    }
+
+    // Tags aproximados por similitud de Dice descendente y tag, hasta faltan y sin los ya encontrados
+    private List<String> buscarAproximado(String claveTag, List<String> palabras, Set<String> yaEncontrados, int faltan) {
+        List<String> consultas = new ArrayList<>(palabras);
+        if (!consultas.contains(claveTag)) {
+            consultas.add(claveTag);
+        }
+        Map<Integer, Double> similitudes = new HashMap<>();
+        int[] enComun = new int[clavesPorId.size()];
+        for (String consulta : consultas) {
+            Set<String> bigramasConsulta = bigramas(consulta);
+            ListaIds tocadas = new ListaIds();
+            for (String bigrama : bigramasConsulta) {
+                ListaIds conBigrama = idsPorBigrama.get(bigrama);
+                for (int i = 0; conBigrama != null && i < conBigrama.tamano; i++) {
+                    if (enComun[conBigrama.ids[i]]++ == 0) {
+                        tocadas.agregar(conBigrama.ids[i]);
+                    }
+                }
+            }
+            for (int i = 0; i < tocadas.tamano; i++) {
+                int id = tocadas.ids[i];
+                double similitud = dice(enComun[id], bigramasConsulta.size(), clavesPorId.get(id).bigramas);
+                enComun[id] = 0;
+                if (similitud >= SIMILITUD_MINIMA) {
+                    similitudes.merge(id, similitud, Math::max);
+                }
+            }
+        }
+        // Por nivel de similitud, de mayor a menor. Si un nivel no llena el cupo entra
+        // completo, asi que un tag con varias claves no reaparece en un nivel menor
+        List<Map.Entry<Integer, Double>> porSimilitud = new ArrayList<>(similitudes.entrySet());
+        porSimilitud.sort(Map.Entry.<Integer, Double>comparingByValue().reversed());
+        List<String> resultado = new ArrayList<>();
+        Set<String> vistos = new HashSet<>(yaEncontrados);
+        int i = 0;
+        while (i < porSimilitud.size() && resultado.size() < faltan) {
+            double nivel = porSimilitud.get(i).getValue();
+            int cupo = faltan - resultado.size();
+            TreeSet<String> primeros = new TreeSet<>();
+            for (; i < porSimilitud.size() && porSimilitud.get(i).getValue() == nivel; i++) {
+                for (String tag : clavesPorId.get(porSimilitud.get(i).getKey()).tags) {
+                    if (primeros.size() == cupo && tag.compareTo(primeros.last()) >= 0 || vistos.contains(tag)) {
+                        continue;
+                    }
+                    if (primeros.add(tag) && primeros.size() > cupo) {
+                        primeros.pollLast();
+                    }
+                }
+            }
+            resultado.addAll(primeros);
+            vistos.addAll(primeros);
+        }
+        return resultado;
+    }
+
+    private static double dice(int comunes, int tamanoA, int tamanoB) {
+        return tamanoA + tamanoB == 0 ? 0 : 2.0 * comunes / (tamanoA + tamanoB);
+    }
+
+    // Con un espacio de relleno en los extremos, que pesan mas en tags cortos
+    private static Set<String> bigramas(String clave) {
+        String s = " " + clave + " ";
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + 2 <= s.length(); i++) {
+            resultado.add(s.substring(i, i + 2));
+        }
+        return resultado;
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    // "P-5511" y "p5511" tienen la misma clave
+    static String normalizarTag(String tag) {
+        return NO_ALFANUMERICO.matcher(normalizar(tag)).replaceAll("");
+    }
+
+    static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        for (String palabra : NO_ALFANUMERICO.split(normalizar(texto))) {
+            if (palabra.length() >= 2) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+}
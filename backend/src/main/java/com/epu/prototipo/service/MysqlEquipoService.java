@@ -1,82 +1,173 @@
 package com.epu.prototipo.service;
 
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.entity.EntityMapper;
-import com.epu.prototipo.entity.EquipoEntity;
 import com.epu.prototipo.model.CondicionEquipo;
 import com.epu.prototipo.model.Equipo;
 import com.epu.prototipo.model.EstadoDcs;
 import com.epu.prototipo.repository.EquipoRepository;
-import com.epu.prototipo.service.gateway.DcsGateway;
+import com.epu.prototipo.service.gateway.AsyncDcsGateway;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Profile("prod")
 public class MysqlEquipoService implements IEquipoService {
 
+    private static final Logger log = LoggerFactory.getLogger(MysqlEquipoService.class);
+
     private final EquipoRepository repo;
-    private final DcsGateway dcsGateway;
+    private final AsyncDcsGateway dcsGateway;
+    private final EstadoEquiposStore estados;
+    private final JdbcTemplate jdbcTemplate;
+    private final CambiosBroadcaster cambios;
+    private final IndiceEquipos indice;
 
-    public MysqlEquipoService(EquipoRepository repo, DcsGateway dcsGateway) {
+    public MysqlEquipoService(EquipoRepository repo, AsyncDcsGateway dcsGateway, EstadoEquiposStore estados,
+                              JdbcTemplate jdbcTemplate, CambiosBroadcaster cambios, IndiceEquipos indice) {
         this.repo = repo;
         this.dcsGateway = dcsGateway;
+        this.estados = estados;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cambios = cambios;
+        this.indice = indice;
+    }
+
+    @PostConstruct
+    public void indexarEquipos() {
+        indice.reconstruir(estados.obtenerTodos());
     }
 
     @Override
     public Equipo getEquipoByTag(String tag) {
-        EquipoEntity entity = repo.findById(tag)
-                .orElseThrow(() -> new RuntimeException("Equipo no encontrado con tag: " + tag));
-        return EntityMapper.toModel(entity);
+        Equipo equipo = estados.obtener(tag);
+        if (equipo == null) {
+            throw new RuntimeException("Equipo no encontrado con tag: " + tag);
+        }
+        return equipo;
     }
 
     @Override
     public List<Equipo> getAllEquipos() {
-        return repo.findAll().stream()
-                .map(EntityMapper::toModel)
-                .collect(Collectors.toList());
+        return estados.obtenerTodos();
+    }
+
+    @Override
+    public VersionRecurso getVersionEquipos() {
+        return estados.version();
+    }
+
+    @Override
+    public VersionRecurso getVersionEquipo(String tag) {
+        return estados.version(tag);
     }
 
     @Override
     public Equipo actualizarEstadoEquipo(String tag, String nuevoEstadoDcs) {
+        if (!EstadoDcs.esValido(nuevoEstadoDcs)) {
+            throw new IllegalArgumentException("Estado DCS no válido: " + nuevoEstadoDcs);
+        }
+        if (!estados.contiene(tag)) {
+            throw new RuntimeException("Equipo no encontrado con tag: " + tag);
+        }
+        // El estado se aplica en memoria y se vuelca a la base en el proximo lote
+        boolean cambio = estados.aplicarEstadoDcs(tag, nuevoEstadoDcs);
+        if (EstadoDcs.HABILITADO.equals(nuevoEstadoDcs) || EstadoDcs.DESHABILITADO.equals(nuevoEstadoDcs)) {
+            // El comando viaja al DCS en segundo plano; si no se confirma, el equipo queda SIN_CONEXION
+            dcsGateway.enviar(tag, nuevoEstadoDcs)
+                    .whenComplete((ok, error) -> confirmarComandoDcs(tag, nuevoEstadoDcs, error));
+        }
         Equipo equipo = getEquipoByTag(tag);
-        switch (nuevoEstadoDcs) {
-            case EstadoDcs.SIN_CONEXION:
-                equipo.setEstadoDcs(EstadoDcs.SIN_CONEXION);
-                break;
-            case EstadoDcs.HABILITADO:
-                dcsGateway.habilitarEquipo(tag);
-                equipo.setEstadoDcs(EstadoDcs.HABILITADO);
-                break;
-            case EstadoDcs.DESHABILITADO:
-                dcsGateway.deshabilitarEquipo(tag);
-                equipo.setEstadoDcs(EstadoDcs.DESHABILITADO);
-                break;
-            case EstadoDcs.PARADO:
-            case EstadoDcs.EN_MARCHA:
-                equipo.setEstadoDcs(nuevoEstadoDcs);
-                break;
-            default:
-                throw new IllegalArgumentException("Estado DCS no válido: " + nuevoEstadoDcs);
+        if (cambio) {
+            cambios.equipo("ESTADO_DCS", equipo);
         }
-        repo.save(EntityMapper.toEntity(equipo));
         return equipo;
     }
 
+    private void confirmarComandoDcs(String tag, String estadoEnviado, Throwable error) {
+        if (error == null) {
+            return;
+        }
+        log.warn("El DCS no confirmó {} para {}: {}", estadoEnviado, tag, error.getMessage());
+        if (estados.aplicarEstadoDcsSiCoincide(tag, estadoEnviado, EstadoDcs.SIN_CONEXION)) {
+            cambios.publicar("equipo", "ESTADO_DCS", tag, Map.of("estadoDcs", EstadoDcs.SIN_CONEXION));
+        }
+    }
+
     @Override
     public Equipo actualizarCondicionEquipo(String tag, String nuevaCondicion) {
-        Equipo equipo = getEquipoByTag(tag);
-        if (CondicionEquipo.BLOQUEADO.equals(nuevaCondicion) || CondicionEquipo.DESBLOQUEADO.equals(nuevaCondicion)) {
-            equipo.setCondicion(nuevaCondicion);
-        } else {
+        if (!CondicionEquipo.BLOQUEADO.equals(nuevaCondicion) && !CondicionEquipo.DESBLOQUEADO.equals(nuevaCondicion)) {
             throw new IllegalArgumentException("Condición no válida: " + nuevaCondicion);
         }
-        repo.save(EntityMapper.toEntity(equipo));
+        if (!estados.contiene(tag)) {
+            throw new RuntimeException("Equipo no encontrado con tag: " + tag);
+        }
+        boolean cambio = estados.aplicarCondicion(tag, nuevaCondicion);
+        // Dentro de una transaccion (outbox) la memoria cambia al confirmar: se devuelve como va a quedar
+        Equipo equipo = getEquipoByTag(tag);
+        equipo.setCondicion(nuevaCondicion);
+        if (cambio) {
+            cambios.despuesDelCommit(() -> cambios.equipo("CONDICION", getEquipoByTag(tag)));
+        }
+        return equipo;
+    }
+
+    @Override
+    public Equipo bloquearEquipo(String tag) {
+        if (!estados.contiene(tag)) {
+            throw new RuntimeException("Equipo no encontrado con tag: " + tag);
+        }
+        boolean cambio = estados.aplicarEstadoYCondicion(tag, EstadoDcs.DESHABILITADO, CondicionEquipo.BLOQUEADO);
+        // El comando al DCS sale solo con el bloqueo confirmado en la base
+        cambios.despuesDelCommit(() -> {
+            dcsGateway.enviar(tag, EstadoDcs.DESHABILITADO)
+                    .whenComplete((ok, error) -> confirmarComandoDcs(tag, EstadoDcs.DESHABILITADO, error));
+            if (cambio) {
+                cambios.equipo("BLOQUEADO", getEquipoByTag(tag));
+            }
+        });
+        Equipo equipo = getEquipoByTag(tag);
+        equipo.setEstadoDcs(EstadoDcs.DESHABILITADO);
+        equipo.setCondicion(CondicionEquipo.BLOQUEADO);
         return equipo;
     }
 
+    @Override
+    public Equipo liberarEquipo(String tag) {
+        return actualizarCondicionEquipo(tag, CondicionEquipo.DESBLOQUEADO);
+    }
+
+    @Override
+    public List<String> aplicarEstadosDcs(Map<String, String> estadosPorTag) {
+        for (String estado : estadosPorTag.values()) {
+            if (!EstadoDcs.esValido(estado)) {
+                throw new IllegalArgumentException("Estado DCS no válido: " + estado);
+            }
+        }
+        // Solo los cambios reales quedan sucios para el volcado y generan evento
+        List<String> noEncontrados = new ArrayList<>();
+        estadosPorTag.forEach((tag, estado) -> {
+            if (!estados.contiene(tag)) {
+                noEncontrados.add(tag);
+            } else if (estados.aplicarEstadoDcs(tag, estado)) {
+                cambios.publicar("equipo", "ESTADO_DCS", tag, Map.of("estadoDcs", estado));
+            }
+        });
+        return noEncontrados;
+    }
+
     @Override
     public Equipo createEquipo(Equipo equipo) {
         if (repo.existsById(equipo.getTag())) {
@@ -85,9 +176,45 @@ public class MysqlEquipoService implements IEquipoService {
         // Los equipos nuevos se crean siempre sin conexión al DCS.
         equipo.setEstadoDcs(EstadoDcs.SIN_CONEXION);
         repo.save(EntityMapper.toEntity(equipo));
+        estados.registrar(equipo);
+        indice.indexar(equipo);
+        cambios.equipo("CREADO", equipo);
         return equipo;
     }
 
+    @Override
+    @Transactional
+    public List<String> crearEquipos(List<Equipo> equipos) {
+        List<String> tags = equipos.stream().map(Equipo::getTag).toList();
+        // Una sola consulta para todo el lote en lugar de un existsById por equipo. La collation
+        // de equipos.tag no distingue mayusculas: se compara en mayusculas para no llegar a un
+        // duplicate key en el batch, que revertiria el lote entero
+        Set<String> ocupados = new HashSet<>();
+        repo.findTagsExistentes(tags).forEach(t -> ocupados.add(t.toUpperCase(Locale.ROOT)));
+        List<String> existentes = new ArrayList<>();
+        List<Equipo> nuevos = new ArrayList<>(equipos.size());
+        List<Object[]> filas = new ArrayList<>(equipos.size());
+        for (Equipo equipo : equipos) {
+            if (!ocupados.add(equipo.getTag().toUpperCase(Locale.ROOT))) {
+                existentes.add(equipo.getTag());
+            } else {
+                equipo.setEstadoDcs(EstadoDcs.SIN_CONEXION);
+                nuevos.add(equipo);
+                filas.add(new Object[] {equipo.getTag(), equipo.getDescripcion(), equipo.getEstadoDcs(), equipo.getCondicion()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO equipos (tag, descripcion, estadoDcs, condicion) VALUES (?, ?, ?, ?)", filas);
+        // La memoria y los clientes se enteran solo si el lote quedo confirmado
+        cambios.despuesDelCommit(() -> {
+            nuevos.forEach(estados::registrar);
+            nuevos.forEach(indice::indexar);
+            if (!nuevos.isEmpty()) {
+                cambios.publicar("equipo", "IMPORTADOS", null, Map.of("cantidad", nuevos.size()));
+            }
+        });
+        return existentes;
+    }
+
     @Override
     public Equipo updateEquipo(String tag, Equipo equipo) {
         if (!repo.existsById(tag)) {
@@ -95,6 +222,9 @@ public class MysqlEquipoService implements IEquipoService {
         }
         equipo.setTag(tag);
         repo.save(EntityMapper.toEntity(equipo));
+        estados.registrar(equipo);
+        indice.indexar(equipo);
+        cambios.equipo("ACTUALIZADO", equipo);
         return equipo;
     }
 
@@ -104,5 +234,8 @@ public class MysqlEquipoService implements IEquipoService {
             throw new RuntimeException("Equipo no encontrado con tag: " + tag);
         }
         repo.deleteById(tag);
+        estados.quitar(tag);
+        indice.quitar(tag);
+        cambios.publicar("equipo", "ELIMINADO", tag, Map.of());
     }
 }
@@ -0,0 +1,174 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.entity.TransicionEquipoEntity;
+import com.epu.prototipo.model.CondicionEquipo;
+import com.epu.prototipo.model.EstadoDcs;
+import com.epu.prototipo.model.TransicionEquipo;
+import com.epu.prototipo.repository.TransicionEquipoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Historial de estados sobre la tabla equipo_transiciones.
+ *
+ * Registrar no toca la base: la transicion se encola con su instante y un hilo la
+ * inserta en batch junto con las demas. Las consultas vuelcan lo pendiente antes de
+ * leer y resuelven por el indice (tag, campo, instante), sin recorrer PTS.
+ */
+@Service
+@Profile("prod")
+public class MysqlHistorialEquipoService implements IHistorialEquipoService {
+
+    private static final Logger log = LoggerFactory.getLogger(MysqlHistorialEquipoService.class);
+
+    // El codigo guardado es la posicion en estos arreglos; solo se agregan valores al final
+    private static final String[] CAMPOS = {TransicionEquipo.CAMPO_ESTADO_DCS, TransicionEquipo.CAMPO_CONDICION};
+    private static final String[][] VALORES = {
+            {EstadoDcs.SIN_CONEXION, EstadoDcs.HABILITADO, EstadoDcs.DESHABILITADO, EstadoDcs.PARADO, EstadoDcs.EN_MARCHA},
+            {CondicionEquipo.BLOQUEADO, CondicionEquipo.DESBLOQUEADO}
+    };
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final TransicionEquipoRepository repo;
+    private final JdbcTemplate jdbcTemplate;
+    private final Queue<Object[]> pendientes = new ConcurrentLinkedQueue<>();
+    // Un volcado a la vez; lock y no synchronized para no fijar hilos virtuales durante el batch JDBC
+    private final ReentrantLock volcado = new ReentrantLock();
+    private final ScheduledExecutorService escritor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "historial-equipos");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MysqlHistorialEquipoService(TransicionEquipoRepository repo, JdbcTemplate jdbcTemplate,
+                                       @Value("${equipos.estado.volcado-ms:1000}") long volcadoMs) {
+        this.repo = repo;
+        this.jdbcTemplate = jdbcTemplate;
+        escritor.scheduleWithFixedDelay(this::volcarSeguro, volcadoMs, volcadoMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void registrar(String tag, String campo, String valor) {
+        try {
+            byte codigoCampo = codigoCampo(campo);
+            pendientes.add(new Object[] {tag, codigoCampo, codigoValor(codigoCampo, valor), System.currentTimeMillis()});
+        } catch (IllegalArgumentException e) {
+            // Un valor fuera de catalogo (ej. cargado a mano en la base) no corta el cambio de estado
+            log.warn("Transición no registrada para {}: {}", tag, e.getMessage());
+        }
+    }
+
+    @Override
+    public List<TransicionEquipo> getTransiciones(String tag, LocalDateTime desde, LocalDateTime hasta) {
+        volcar();
+        return repo.findByTagAndInstanteBetweenOrderByInstanteAscIdAsc(tag, aMillis(desde), aMillis(hasta)).stream()
+                .map(MysqlHistorialEquipoService::toModel)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TransicionEquipo> getTransiciones(String tag, String campo, LocalDateTime desde, LocalDateTime hasta) {
+        volcar();
+        return repo.findByTagAndCampoAndInstanteBetweenOrderByInstanteAscIdAsc(tag, codigoCampo(campo), aMillis(desde), aMillis(hasta)).stream()
+                .map(MysqlHistorialEquipoService::toModel)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String getValorAnterior(String tag, String campo, LocalDateTime instante) {
+        volcar();
+        return repo.findFirstByTagAndCampoAndInstanteLessThanOrderByInstanteDescIdDesc(tag, codigoCampo(campo), aMillis(instante))
+                .map(e -> VALORES[e.getCampo()][e.getValor()])
+                .orElse(null);
+    }
+
+    // Inserta lo encolado en un batch JDBC; si falla, las filas vuelven a la cola
+    public int volcar() {
+        volcado.lock();
+        try {
+            return volcarPendientes();
+        } finally {
+            volcado.unlock();
+        }
+    }
+
+    private int volcarPendientes() {
+        List<Object[]> filas = new ArrayList<>();
+        Object[] fila;
+        while ((fila = pendientes.poll()) != null) {
+            filas.add(fila);
+        }
+        if (filas.isEmpty()) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.batchUpdate("INSERT INTO equipo_transiciones (tag, campo, valor, instante) VALUES (?, ?, ?, ?)", filas);
+            return filas.size();
+        } catch (DataAccessException e) {
+            pendientes.addAll(filas);
+            log.warn("Falla insertando {} transiciones, se reintenta: {}", filas.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private void volcarSeguro() {
+        try {
+            volcar();
+        } catch (RuntimeException e) {
+            log.warn("Error en el volcado: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        escritor.shutdownNow();
+        volcar();
+    }
+
+    private static byte codigoCampo(String campo) {
+        for (byte i = 0; i < CAMPOS.length; i++) {
+            if (CAMPOS[i].equals(campo)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Campo de historial no válido: " + campo);
+    }
+
+    private static byte codigoValor(byte campo, String valor) {
+        String[] valores = VALORES[campo];
+        for (byte i = 0; i < valores.length; i++) {
+            if (valores[i].equals(valor)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Valor no válido para " + CAMPOS[campo] + ": " + valor);
+    }
+
+    private static long aMillis(LocalDateTime fecha) {
+        return fecha.atZone(ZONA).toInstant().toEpochMilli();
+    }
+
+    private static TransicionEquipo toModel(TransicionEquipoEntity e) {
+        return new TransicionEquipo(e.getTag(), CAMPOS[e.getCampo()], VALORES[e.getCampo()][e.getValor()],
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(e.getInstante()), ZONA));
+    }
+}
@@ -1,33 +1,76 @@
 package com.epu.prototipo.service;
 
 import com.epu.prototipo.dto.CerrarPtsRequest;
+import com.epu.prototipo.dto.CoincidenciaPtsDTO;
 import com.epu.prototipo.dto.FirmaPtsRequest;
+import com.epu.prototipo.dto.PaginaBusquedaPtsDTO;
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.entity.EntityMapper;
 import com.epu.prototipo.entity.PtsEntity;
 import com.epu.prototipo.model.*;
+import com.epu.prototipo.repository.PtsParcialRepository;
 import com.epu.prototipo.repository.PtsRepository;
+import com.epu.prototipo.service.archivo.ArchivoPts;
+import com.epu.prototipo.service.busqueda.IndiceTextoPts;
+import com.epu.prototipo.service.outbox.Outbox;
+import com.epu.prototipo.util.CamposSolicitados;
+import com.epu.prototipo.util.FechasPts;
+import com.epu.prototipo.util.TextoBusqueda;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Profile("prod")
 public class MysqlPtsService implements IPtsService {
 
+    private static final Logger log = LoggerFactory.getLogger(MysqlPtsService.class);
+    // Lo que muestra un resultado de la busqueda de texto (CoincidenciaPtsDTO)
+    private static final CamposSolicitados CAMPOS_COINCIDENCIA =
+            CamposSolicitados.de("equipoOInstalacion,descripcionTrabajo,ubicacion,fechaInicio,rtoEstado");
+    private static final DateTimeFormatter ID_CORTO = DateTimeFormatter.ofPattern("yyMMdd");
+
     private final PtsRepository repo;
-    private final IEquipoService equipoService;
+    private final PtsParcialRepository parcial;
     private final IRtoService rtoService;
-
-    public MysqlPtsService(PtsRepository repo, IEquipoService equipoService, IRtoService rtoService) {
+    private final Outbox outbox;
+    private final CambiosBroadcaster cambios;
+    private final ReintentosOptimistas reintentos;
+    private final ArchivoPts archivo;
+    private final IndiceTextoPts indiceTexto;
+    private final int maximoRango;
+
+    public MysqlPtsService(PtsRepository repo, PtsParcialRepository parcial, IRtoService rtoService, Outbox outbox, CambiosBroadcaster cambios,
+                           ReintentosOptimistas reintentos, ArchivoPts archivo, IndiceTextoPts indiceTexto,
+                           @Value("${pts.rango.maximo:2000}") int maximoRango) {
         this.repo = repo;
-        this.equipoService = equipoService;
+        this.parcial = parcial;
         this.rtoService = rtoService;
+        this.outbox = outbox;
+        this.cambios = cambios;
+        this.reintentos = reintentos;
+        this.archivo = archivo;
+        this.indiceTexto = indiceTexto;
+        this.maximoRango = Math.max(1, maximoRango);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PermisoTrabajoSeguro> getAllPts() {
         return repo.findAll().stream()
                 .map(EntityMapper::toModel)
@@ -35,26 +78,39 @@ public class MysqlPtsService implements IPtsService {
     }
 
     @Override
+    @Transactional
     public PermisoTrabajoSeguro createPts(PermisoTrabajoSeguro pts) {
-        // Actualizar estado y condición del equipo
-        try {
-            String tag = pts.getEquipoOInstalacion();
-            equipoService.actualizarEstadoEquipo(tag, EstadoDcs.DESHABILITADO);
-            equipoService.actualizarCondicionEquipo(tag, CondicionEquipo.BLOQUEADO);
-        } catch (Exception e) {
-            System.err.println("[ERROR] No se pudo actualizar el estado/condición del equipo: " + e.getMessage());
+        // fechaInicio es la clave de particion: sin fecha, el PTS es de hoy
+        LocalDate fecha = FechasPts.fecha(pts.getFechaInicio());
+        if (fecha == null) {
+            fecha = LocalDate.now();
         }
-
-        // Generar ID si no tiene
+        pts.setFechaInicio(fecha.toString());
+        // La PK de la tabla particionada es (id, fechaInicio) y no garantiza sola que el ID sea
+        // unico. Todo ID nuevo lleva la fecha con la que se crea el PTS: dos altas con el mismo
+        // ID tienen la misma fecha y la PK rechaza la segunda. La numeracion va por prefijo de
+        // ID (ver obtenerUltimoNumeroPtsPorFecha), asi que un PTS que despues cambia de fecha
+        // no deja su ID libre para otro
+        List<String> prefijos = prefijosId(fecha);
         if (pts.getId() == null || pts.getId().isEmpty()) {
-            String fecha = pts.getFechaInicio() != null ? pts.getFechaInicio().replace("-", "") : "00000000";
             int ultimoNum = obtenerUltimoNumeroPtsPorFecha(pts.getFechaInicio());
-            pts.setId(String.format("PTS-%s-%03d", fecha, ultimoNum + 1));
+            pts.setId(String.format("%s%03d", prefijos.get(0), ultimoNum + 1));
+        } else if (prefijos.stream().noneMatch(pts.getId()::startsWith)) {
+            throw new IllegalArgumentException("El ID " + pts.getId() + " no corresponde a la fecha de inicio " + fecha
+                    + " (se espera " + prefijos.get(0) + "NNN)");
+        } else if (repo.existsById(pts.getId()) || archivo.contiene(pts.getId())) {
+            // save() con un ID existente actualizaria ese PTS en lugar de crear uno
+            throw new IllegalArgumentException("Ya existe un PTS con ID " + pts.getId());
         }
 
         PtsEntity saved = repo.save(EntityMapper.toEntity(pts));
-        System.out.println("PTS creado con éxito. ID: " + saved.getId());
-        return EntityMapper.toModel(saved);
+        indiceTexto.indexar(pts);
+        // El bloqueo del equipo (y su comando al DCS) lo aplica el despachador del outbox
+        outbox.encolar(saved.getEquipoOInstalacion(), Outbox.BLOQUEAR_EQUIPO, saved.getId());
+        log.info("PTS creado con éxito. ID: {}", saved.getId());
+        PermisoTrabajoSeguro creado = EntityMapper.toModel(saved);
+        cambios.despuesDelCommit(() -> cambios.pts("CREADO", creado));
+        return creado;
     }
 
     @Override
@@ -62,7 +118,52 @@ public class MysqlPtsService implements IPtsService {
         if (id == null) {
             throw new IllegalArgumentException("ID del PTS no puede ser nulo");
         }
-        return repo.findById(id).map(EntityMapper::toModel).orElse(null);
+        // Los PTS viejos pueden estar en el archivo
+        return repo.findById(id).map(EntityMapper::toModel).orElseGet(() -> archivo.porId(id, CamposSolicitados.TODOS));
+    }
+
+    @Override
+    public PermisoTrabajoSeguro getPtsById(String id, CamposSolicitados campos) {
+        if (campos.todos()) {
+            return getPtsById(id);
+        }
+        PermisoTrabajoSeguro pts = parcial.porId(false, id, campos);
+        return pts != null ? pts : archivo.porId(id, campos);
+    }
+
+    // Solo los PTS vivos: un archivado no tiene version y se sirve completo. Las versiones de
+    // los GET condicionales se leen de la primaria (transaccion no readOnly, ver RuteoDataSource):
+    // con una replica atrasada el cliente recibiria un 304 justo despues de su propio cambio
+    @Override
+    @Transactional
+    public VersionRecurso getVersionPts(String id) {
+        List<Object[]> filas = repo.versionPorId(id);
+        if (filas.isEmpty()) {
+            return null;
+        }
+        LocalDateTime modificado = (LocalDateTime) filas.get(0)[1];
+        return VersionRecurso.de("pts", modificado != null ? modificado.atZone(ZoneId.systemDefault()).toInstant() : null,
+                id, filas.get(0)[0]);
+    }
+
+    // De la primaria, como su version: un cuerpo viejo guardado con un ETag nuevo quedaria
+    // validado por 304 hasta el proximo cambio
+    @Override
+    @Transactional
+    public List<PermisoTrabajoSeguro> getPtsActivosPorEquipo(String tag) {
+        return repo.buscarPorEquipoSinEstado(tag, EstadoPts.CERRADO).stream()
+                .map(EntityMapper::toModel)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public VersionRecurso getVersionPtsActivosPorEquipo(String tag) {
+        List<Object> partes = new ArrayList<>();
+        for (Object[] fila : repo.versionesPorEquipoSinEstado(tag, EstadoPts.CERRADO)) {
+            partes.addAll(Arrays.asList(fila));
+        }
+        return VersionRecurso.de("pts-activos", null, partes.toArray());
     }
 
     @Override
@@ -71,6 +172,10 @@ public class MysqlPtsService implements IPtsService {
             throw new IllegalArgumentException("PTS ID y DNI del firmante son requeridos.");
         }
 
+        return reintentos.ejecutar("firmarPts", () -> firmar(request));
+    }
+
+    private PermisoTrabajoSeguro firmar(FirmaPtsRequest request) {
         PtsEntity entity = repo.findById(request.getPtsId()).orElse(null);
         if (entity == null) return null;
 
@@ -88,7 +193,9 @@ public class MysqlPtsService implements IPtsService {
         entity.setFechaHoraFirmaSupervisor(LocalDateTime.now());
         repo.save(entity);
 
-        return EntityMapper.toModel(entity);
+        PermisoTrabajoSeguro firmado = EntityMapper.toModel(entity);
+        cambios.despuesDelCommit(() -> cambios.pts("FIRMADO", firmado));
+        return firmado;
     }
 
     @Override
@@ -99,6 +206,10 @@ public class MysqlPtsService implements IPtsService {
         if (request.getRtoResponsableCierreLegajo() == null || request.getRtoResponsableCierreLegajo().trim().isEmpty())
             throw new IllegalArgumentException("El legajo del responsable de cierre es requerido");
 
+        return reintentos.ejecutar("cerrarPts", () -> cerrar(request));
+    }
+
+    private PermisoTrabajoSeguro cerrar(CerrarPtsRequest request) {
         PtsEntity entity = repo.findById(request.getPtsId()).orElse(null);
         if (entity == null) return null;
 
@@ -130,29 +241,35 @@ public class MysqlPtsService implements IPtsService {
 
         String tagEquipo = pts.getEquipoOInstalacion();
         if (request.isRequiereRTO()) {
-            try {
-                RetornoOperaciones rtoExistente = rtoService.getRtoByEquipoTag(tagEquipo);
-                if (rtoExistente != null) {
-                    rtoService.agregarPtsAlRto(rtoExistente.getId(), pts.getId());
-                    entity.setRtoAsociadoId(rtoExistente.getId());
-                } else {
-                    RetornoOperaciones nuevoRto = new RetornoOperaciones();
-                    nuevoRto.setEquipoTag(tagEquipo);
-                    nuevoRto.agregarPtsId(pts.getId());
-                    RetornoOperaciones rtoCreado = rtoService.createRto(nuevoRto);
-                    entity.setRtoAsociadoId(rtoCreado.getId());
-                }
-            } catch (RuntimeException e) {
-                System.err.println("Error al crear/asociar RTO: " + e.getMessage());
+            // En la misma transaccion que el cierre: si el RTO no se puede crear o asociar, el
+            // PTS no queda cerrado sin RTO. El equipo sigue bloqueado hasta cerrar el RTO
+            RetornoOperaciones rtoExistente = rtoService.getRtoByEquipoTag(tagEquipo);
+            if (rtoExistente != null) {
+                rtoService.agregarPtsAlRto(rtoExistente.getId(), pts.getId());
+                entity.setRtoAsociadoId(rtoExistente.getId());
+            } else {
+                RetornoOperaciones nuevoRto = new RetornoOperaciones();
+                nuevoRto.setEquipoTag(tagEquipo);
+                nuevoRto.agregarPtsId(pts.getId());
+                entity.setRtoAsociadoId(rtoService.createRto(nuevoRto).getId());
             }
+        } else {
+            // Sin RTO el equipo se libera al cerrar el PTS
+            outbox.encolar(tagEquipo, Outbox.LIBERAR_EQUIPO, pts.getId());
         }
 
         repo.save(entity);
-        return EntityMapper.toModel(entity);
+        PermisoTrabajoSeguro cerrado = EntityMapper.toModel(entity);
+        cambios.despuesDelCommit(() -> cambios.pts("CERRADO", cerrado));
+        return cerrado;
     }
 
     @Override
     public PermisoTrabajoSeguro updatePts(PermisoTrabajoSeguro pts) {
+        return reintentos.ejecutar("updatePts", () -> actualizar(pts));
+    }
+
+    private PermisoTrabajoSeguro actualizar(PermisoTrabajoSeguro pts) {
         PtsEntity existing = repo.findById(pts.getId())
                 .orElseThrow(() -> new RuntimeException("PTS no encontrado: " + pts.getId()));
 
@@ -161,30 +278,117 @@ public class MysqlPtsService implements IPtsService {
         }
 
         if (pts.getRtoEstado() != null && !EstadoPts.STANDBY.equals(pts.getRtoEstado())) {
-            String tag = pts.getEquipoOInstalacion();
-            if (tag != null && !tag.isEmpty()) {
-                equipoService.actualizarEstadoEquipo(tag, EstadoDcs.DESHABILITADO);
-                equipoService.actualizarCondicionEquipo(tag, CondicionEquipo.BLOQUEADO);
-            }
+            outbox.encolar(pts.getEquipoOInstalacion(), Outbox.BLOQUEAR_EQUIPO, pts.getId());
         }
 
-        PtsEntity saved = repo.save(EntityMapper.toEntity(pts));
-        return EntityMapper.toModel(saved);
+        // Reemplaza el PTS leido arriba; si otro lo cambio antes de confirmar, falla la version.
+        // Es un UPDATE por ID: si cambia fechaInicio la fila pasa de particion con el mismo ID
+        PtsEntity entity = EntityMapper.toEntity(pts);
+        entity.setVersion(existing.getVersion());
+        if (entity.getFechaInicio() == null) {
+            entity.setFechaInicio(existing.getFechaInicio());
+        }
+        PtsEntity saved = repo.save(entity);
+        PermisoTrabajoSeguro actualizado = EntityMapper.toModel(saved);
+        indiceTexto.indexar(actualizado);
+        cambios.despuesDelCommit(() -> cambios.pts("ACTUALIZADO", actualizado));
+        return actualizado;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PermisoTrabajoSeguro> buscarPts(String equipo, String usuario, String area, String estado, String fechaInicio,
+                                                LocalDate desde, LocalDate hasta, CamposSolicitados campos) {
+        // fechaInicio es el rango de un solo dia
+        LocalDate dia = FechasPts.fecha(fechaInicio);
+        if (dia != null) {
+            desde = desde == null || dia.isAfter(desde) ? dia : desde;
+            hasta = hasta == null || dia.isBefore(hasta) ? dia : hasta;
+        }
+        if (desde != null && hasta != null && hasta.isBefore(desde)) {
+            return new ArrayList<>();
+        }
+        return buscar(desde, hasta, equipo, usuario, estado, Pageable.unpaged(), campos);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PermisoTrabajoSeguro> buscarPtsPorRango(LocalDate desde, LocalDate hasta, String equipo, String usuario, String estado,
+                                                        CamposSolicitados campos) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido: se requieren desde y hasta, con desde <= hasta");
+        }
+        return buscar(desde, hasta, equipo, usuario, estado, PageRequest.of(0, maximoRango), campos);
+    }
+
+    private List<PermisoTrabajoSeguro> buscar(LocalDate desde, LocalDate hasta, String equipo, String usuario, String estado,
+                                              Pageable pagina, CamposSolicitados campos) {
+        LocalDate fin = hasta != null ? hasta.plusDays(1) : null;
+        List<PermisoTrabajoSeguro> resultado = new ArrayList<>();
+        if (campos.todos()) {
+            for (PtsEntity e : repo.buscar(desde, fin, sinVacio(equipo), sinVacio(usuario), sinVacio(estado), pagina)) {
+                resultado.add(EntityMapper.toModel(e));
+            }
+        } else {
+            // Sin la entidad: solo las columnas pedidas y las colecciones si se pidieron
+            resultado.addAll(parcial.buscar(false, desde, fin, sinVacio(equipo), sinVacio(usuario), sinVacio(estado),
+                    pagina.isPaged() ? pagina.getPageSize() : 0, campos));
+        }
+        // Las tablas de archivo solo se leen si el rango pide fechas archivadas
+        int restantes = pagina.isPaged() ? pagina.getPageSize() - resultado.size() : Integer.MAX_VALUE;
+        if (desde != null && restantes > 0 && archivo.incluye(desde)) {
+            resultado.addAll(archivo.buscar(desde, fin, sinVacio(equipo), sinVacio(usuario), sinVacio(estado), restantes, campos));
+        }
+        return resultado;
     }
 
     @Override
-    public List<PermisoTrabajoSeguro> buscarPts(String equipo, String usuario, String area, String estado, String fechaInicio) {
-        // Delega a getAllPts y filtra en memoria
-        return getAllPts();
+    @Transactional(readOnly = true)
+    public PaginaBusquedaPtsDTO buscarTexto(String consulta, int pagina, int tamanio) {
+        List<String> terminos = TextoBusqueda.terminos(consulta);
+        if (terminos.isEmpty()) {
+            throw new IllegalArgumentException("La búsqueda necesita al menos una palabra de "
+                    + TextoBusqueda.LARGO_MINIMO + " o más letras");
+        }
+        Map<String, Double> relevancias = indiceTexto.buscar(terminos, pagina, tamanio);
+        Map<String, CoincidenciaPtsDTO> vivos = indiceTexto.resumenes(relevancias);
+        List<CoincidenciaPtsDTO> resultados = new ArrayList<>(relevancias.size());
+        for (Map.Entry<String, Double> r : relevancias.entrySet()) {
+            CoincidenciaPtsDTO c = vivos.get(r.getKey());
+            if (c == null) {
+                // Archivado (o borrado): se completa desde el archivo
+                PermisoTrabajoSeguro p = archivo.porId(r.getKey(), CAMPOS_COINCIDENCIA);
+                if (p == null) continue;
+                c = new CoincidenciaPtsDTO(p.getId(), p.getEquipoOInstalacion(), p.getDescripcionTrabajo(),
+                        p.getUbicacion(), p.getFechaInicio(), p.getRtoEstado(), r.getValue());
+            }
+            resultados.add(c);
+        }
+        // Si la primera pagina no se llena, ya se sabe el total sin contar
+        long total = pagina == 0 && relevancias.size() < tamanio ? relevancias.size() : indiceTexto.contar(terminos);
+        return new PaginaBusquedaPtsDTO(consulta, pagina, tamanio, total, resultados);
     }
 
+    private static String sinVacio(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    // Por prefijo de ID y no por fechaInicio: un PTS en STANDBY puede cambiar de fecha y
+    // conserva su ID. Cuenta tambien los archivados, para no volver a generar un ID que ya existio
     @Override
     public int obtenerUltimoNumeroPtsPorFecha(String fechaInicio) {
-        List<PtsEntity> ptsMismaFecha = repo.findByFechaInicio(fechaInicio);
+        LocalDate fecha = FechasPts.fecha(fechaInicio);
+        if (fecha == null) {
+            return 0;
+        }
+        List<String> ids = new ArrayList<>();
+        for (String prefijo : prefijosId(fecha)) {
+            ids.addAll(repo.idsComo(prefijo + "%"));
+            ids.addAll(archivo.idsConPrefijo(prefijo));
+        }
         int max = 0;
-        for (PtsEntity e : ptsMismaFecha) {
-            String id = e.getId();
-            if (id != null && id.matches("PTS-\\d{8}-\\d+")) {
+        for (String id : ids) {
+            if (id != null && FechasPts.fechaDelId(id) != null) {
                 String[] partes = id.split("-");
                 try {
                     int num = Integer.parseInt(partes[2]);
@@ -194,4 +398,10 @@ public class MysqlPtsService implements IPtsService {
         }
         return max;
     }
+
+    // PTS-AAMMDD-, el que arma el frontend y el que se genera; y PTS-AAAAMMDD-, el de los IDs
+    // que generaba antes el backend, que siguen contando para la numeracion
+    private static List<String> prefijosId(LocalDate fecha) {
+        return List.of("PTS-" + fecha.format(ID_CORTO) + "-", "PTS-" + fecha.format(DateTimeFormatter.BASIC_ISO_DATE) + "-");
+    }
 }
@@ -1,34 +1,63 @@
 package com.epu.prototipo.service;
 
+import com.epu.prototipo.dto.ResumenRtoDTO;
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.entity.EntityMapper;
-import com.epu.prototipo.entity.EspecialidadRtoEmb;
+import com.epu.prototipo.entity.EspecialidadRtoEntity;
 import com.epu.prototipo.entity.RtoEntity;
-import com.epu.prototipo.model.CondicionEquipo;
 import com.epu.prototipo.model.EstadoRto;
 import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.repository.EspecialidadRtoRepository;
+import com.epu.prototipo.repository.RtoParcialRepository;
+import com.epu.prototipo.repository.RtoPtsRepository;
 import com.epu.prototipo.repository.RtoRepository;
+import com.epu.prototipo.service.outbox.Outbox;
+import com.epu.prototipo.util.CamposSolicitados;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
 @Profile("prod")
 public class MysqlRtoService implements IRtoService {
 
-    private final RtoRepository repo;
-    private final IEquipoService equipoService;
+    private static final Logger log = LoggerFactory.getLogger(MysqlRtoService.class);
 
-    public MysqlRtoService(RtoRepository repo, IEquipoService equipoService) {
+    private final RtoRepository repo;
+    private final RtoPtsRepository ptsRepo;
+    private final EspecialidadRtoRepository especialidadRepo;
+    private final RtoParcialRepository parcial;
+    private final Outbox outbox;
+    private final CambiosBroadcaster cambios;
+    private final ReintentosOptimistas reintentos;
+
+    public MysqlRtoService(RtoRepository repo, RtoPtsRepository ptsRepo, EspecialidadRtoRepository especialidadRepo,
+                           RtoParcialRepository parcial, Outbox outbox, CambiosBroadcaster cambios,
+                           ReintentosOptimistas reintentos) {
         this.repo = repo;
-        this.equipoService = equipoService;
+        this.ptsRepo = ptsRepo;
+        this.especialidadRepo = especialidadRepo;
+        this.parcial = parcial;
+        this.reintentos = reintentos;
+        this.outbox = outbox;
+        this.cambios = cambios;
     }
 
     @Override
+    @Transactional
     public RetornoOperaciones createRto(RetornoOperaciones rto) {
         // Generar ID: RTO-YYMMDD-###
         String fecha = LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd"));
@@ -40,7 +69,16 @@ public class MysqlRtoService implements IRtoService {
         rto.setFechaCreacion(LocalDateTime.now());
         rto.setEstado(EstadoRto.ABIERTO);
         repo.save(EntityMapper.toEntity(rto));
-        System.out.println("[MYSQL] RTO creado: " + id + " para equipo: " + rto.getEquipoTag());
+        if (rto.getPtsIds() != null) {
+            rto.getPtsIds().forEach(ptsId -> ptsRepo.agregar(id, ptsId));
+        }
+        if (rto.getEspecialidades() != null) {
+            especialidadRepo.saveAll(rto.getEspecialidades().stream()
+                    .map(esp -> EntityMapper.toEntity(id, esp))
+                    .collect(Collectors.toList()));
+        }
+        log.info("RTO creado: {} para equipo: {}", id, rto.getEquipoTag());
+        cambios.despuesDelCommit(() -> cambios.rto("CREADO", rto, null));
         return rto;
     }
 
@@ -50,7 +88,16 @@ public class MysqlRtoService implements IRtoService {
     }
 
     @Override
-    public List<RetornoOperaciones> getAllRtos() {
+    public RetornoOperaciones getRtoById(String id, CamposSolicitados campos) {
+        return campos.todos() ? getRtoById(id) : parcial.porId(id, campos);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RetornoOperaciones> getAllRtos(CamposSolicitados campos) {
+        if (!campos.todos()) {
+            return parcial.buscar(null, campos);
+        }
         return repo.findAll().stream()
                 .map(EntityMapper::toModel)
                 .collect(Collectors.toList());
@@ -65,76 +112,132 @@ public class MysqlRtoService implements IRtoService {
 
     @Override
     public RetornoOperaciones agregarPtsAlRto(String rtoId, String ptsId) {
-        RtoEntity entity = repo.findById(rtoId)
-                .orElseThrow(() -> new RuntimeException("RTO no encontrado: " + rtoId));
-        RetornoOperaciones rto = EntityMapper.toModel(entity);
-        rto.agregarPtsId(ptsId);
-        repo.save(EntityMapper.toEntity(rto));
-        return rto;
+        return reintentos.ejecutar("agregarPtsAlRto", () -> {
+            if (!repo.existsById(rtoId)) {
+                throw new RuntimeException("RTO no encontrado: " + rtoId);
+            }
+            // Asociacion append-only: un INSERT de una fila, sin reescribir los PTS ya asociados
+            boolean nuevo = ptsRepo.agregar(rtoId, ptsId) > 0;
+            RetornoOperaciones rto = getRtoById(rtoId);
+            if (nuevo) {
+                cambios.despuesDelCommit(() -> cambios.rto("PTS_AGREGADO", rto, null));
+            }
+            return rto;
+        });
     }
 
     @Override
     public RetornoOperaciones agregarEspecialidades(String rtoId, java.util.List<RetornoOperaciones.EspecialidadRTO> especialidades) {
-        RtoEntity entity = repo.findById(rtoId)
-                .orElseThrow(() -> new RuntimeException("RTO no encontrado: " + rtoId));
-        java.util.List<EspecialidadRtoEmb> embs = especialidades.stream().map(esp -> {
-            EspecialidadRtoEmb emb = new EspecialidadRtoEmb(esp.getNombre(), esp.getResponsableLegajo());
-            emb.setCerrada(esp.isCerrada());
-            emb.setFechaCierre(esp.getFechaCierre());
-            emb.setObservaciones(esp.getObservaciones());
-            return emb;
-        }).collect(Collectors.toList());
-        entity.setEspecialidades(embs);
-        repo.save(entity);
-        return EntityMapper.toModel(entity);
+        return reintentos.ejecutar("agregarEspecialidades", () -> {
+            RtoEntity entity = repo.findParaActualizarById(rtoId)
+                    .orElseThrow(() -> new RuntimeException("RTO no encontrado: " + rtoId));
+            // La lista recibida reemplaza a la actual, pero solo se tocan las filas que cambian
+            Map<String, EspecialidadRtoEntity> actuales = new HashMap<>();
+            entity.getEspecialidades().forEach(e -> actuales.put(e.getNombre(), e));
+            List<EspecialidadRtoEntity> nuevas = new ArrayList<>();
+            for (RetornoOperaciones.EspecialidadRTO esp : especialidades) {
+                EspecialidadRtoEntity actual = actuales.remove(esp.getNombre());
+                if (actual == null) {
+                    nuevas.add(EntityMapper.toEntity(rtoId, esp));
+                } else if (!igual(actual, esp)) {
+                    actual.setResponsableLegajo(esp.getResponsableLegajo());
+                    actual.setCerrada(esp.isCerrada());
+                    actual.setFechaCierre(esp.getFechaCierre());
+                    actual.setObservaciones(esp.getObservaciones());
+                }
+            }
+            especialidadRepo.deleteAll(actuales.values());
+            especialidadRepo.saveAll(nuevas);
+            especialidadRepo.flush();
+
+            RetornoOperaciones rto = EntityMapper.toModel(entity);
+            rto.setEspecialidades(especialidadRepo.findByRtoIdOrderByNombre(rtoId).stream()
+                    .map(EntityMapper::toModel)
+                    .collect(Collectors.toList()));
+            return rto;
+        });
+    }
+
+    private static boolean igual(EspecialidadRtoEntity e, RetornoOperaciones.EspecialidadRTO esp) {
+        return Objects.equals(e.getResponsableLegajo(), esp.getResponsableLegajo())
+                && e.isCerrada() == esp.isCerrada()
+                && Objects.equals(e.getFechaCierre(), esp.getFechaCierre())
+                && Objects.equals(e.getObservaciones(), esp.getObservaciones());
     }
 
     @Override
     public RetornoOperaciones cerrarEspecialidad(String rtoId, String especialidadNombre, String responsableLegajo, String observaciones) {
-        RtoEntity entity = repo.findById(rtoId)
-                .orElseThrow(() -> new RuntimeException("RTO no encontrado: " + rtoId));
+        return reintentos.ejecutar("cerrarEspecialidad", () -> {
+            // Sube la version del RTO al confirmar: si dos responsables cierran a la vez, el
+            // segundo reintenta y ve la especialidad del primero ya cerrada
+            RtoEntity entity = repo.findParaActualizarById(rtoId)
+                    .orElseThrow(() -> new RuntimeException("RTO no encontrado: " + rtoId));
+
+            if (EstadoRto.CERRADO.equals(entity.getEstado())) {
+                throw new IllegalStateException("El RTO ya está cerrado.");
+            }
 
-        if (EstadoRto.CERRADO.equals(entity.getEstado())) {
-            throw new IllegalStateException("El RTO ya está cerrado.");
-        }
+            EspecialidadRtoEntity especialidad = entity.getEspecialidades().stream()
+                    .filter(e -> especialidadNombre.equals(e.getNombre()))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Especialidad no encontrada: " + especialidadNombre));
 
-        EspecialidadRtoEmb especialidad = entity.getEspecialidades().stream()
-                .filter(e -> especialidadNombre.equals(e.getNombre()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Especialidad no encontrada: " + especialidadNombre));
+            if (especialidad.isCerrada()) {
+                throw new IllegalStateException("La especialidad '" + especialidadNombre + "' ya fue cerrada.");
+            }
+            if (especialidad.getResponsableLegajo() != null &&
+                    !especialidad.getResponsableLegajo().equals(responsableLegajo)) {
+                throw new SecurityException("Solo el responsable asignado puede cerrar esta especialidad.");
+            }
 
-        if (especialidad.isCerrada()) {
-            throw new IllegalStateException("La especialidad '" + especialidadNombre + "' ya fue cerrada.");
-        }
-        if (especialidad.getResponsableLegajo() != null &&
-                !especialidad.getResponsableLegajo().equals(responsableLegajo)) {
-            throw new SecurityException("Solo el responsable asignado puede cerrar esta especialidad.");
-        }
+            // Solo se actualiza la fila de esta especialidad
+            especialidad.setCerrada(true);
+            especialidad.setFechaCierre(LocalDateTime.now());
+            especialidad.setObservaciones(observaciones);
 
-        especialidad.setCerrada(true);
-        especialidad.setFechaCierre(LocalDateTime.now());
-        especialidad.setObservaciones(observaciones);
-
-        // Verificar si todas cerradas
-        boolean todasCerradas = entity.getEspecialidades().stream().allMatch(EspecialidadRtoEmb::isCerrada);
-        if (todasCerradas) {
-            entity.setEstado(EstadoRto.CERRADO);
-            entity.setFechaCierre(LocalDateTime.now());
-            try {
-                equipoService.actualizarCondicionEquipo(entity.getEquipoTag(), CondicionEquipo.DESBLOQUEADO);
-            } catch (Exception e) {
-                System.err.println("[ERROR] No se pudo desbloquear el equipo: " + e.getMessage());
+            // Verificar si todas cerradas
+            boolean todasCerradas = entity.getEspecialidades().stream().allMatch(EspecialidadRtoEntity::isCerrada);
+            if (todasCerradas) {
+                entity.setEstado(EstadoRto.CERRADO);
+                entity.setFechaCierre(LocalDateTime.now());
+            }
+
+            if (todasCerradas) {
+                // Se libera en orden con los demas efectos del equipo, despues de confirmar el cierre
+                outbox.encolar(entity.getEquipoTag(), Outbox.LIBERAR_EQUIPO, rtoId);
             }
-        }
 
-        repo.save(entity);
-        return EntityMapper.toModel(entity);
+            RetornoOperaciones actualizado = EntityMapper.toModel(entity);
+            cambios.despuesDelCommit(() ->
+                    cambios.rto(todasCerradas ? "CERRADO" : "ESPECIALIDAD_CERRADA", actualizado, especialidadNombre));
+            return actualizado;
+        });
     }
 
     @Override
-    public List<RetornoOperaciones> getRtosAbiertos() {
+    public List<RetornoOperaciones> getRtosAbiertos(CamposSolicitados campos) {
+        if (!campos.todos()) {
+            return parcial.buscar(EstadoRto.ABIERTO, campos);
+        }
         return repo.findByEstado(EstadoRto.ABIERTO).stream()
                 .map(EntityMapper::toModel)
                 .collect(Collectors.toList());
     }
+
+    // Version de un GET condicional: de la primaria, como en MysqlPtsService.getVersionPts
+    @Override
+    @Transactional
+    public VersionRecurso getVersionRtosAbiertos() {
+        List<Object> partes = new ArrayList<>();
+        for (Object[] fila : repo.versionesPorEstado(EstadoRto.ABIERTO)) {
+            partes.addAll(Arrays.asList(fila));
+        }
+        return VersionRecurso.de("rtos-abiertos", null, partes.toArray());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResumenRtoDTO> getTableroAbiertos() {
+        return repo.resumirPorEstado(EstadoRto.ABIERTO);
+    }
 }
@@ -1,15 +1,14 @@
 package com.epu.prototipo.service;
 
 import com.epu.prototipo.dto.EquipoStatusDTO;
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.model.Equipo;
 import com.epu.prototipo.model.PermisoTrabajoSeguro;
-import com.epu.prototipo.model.EstadoPts;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.epu.prototipo.service.IPtsService;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class PublicConsultaService {
@@ -22,11 +21,16 @@ public class PublicConsultaService {
 
     public EquipoStatusDTO getEquipoStatus(String tag) {
         Equipo equipo = equipoService.getEquipoByTag(tag);
-        List<PermisoTrabajoSeguro> permisosActivos = ptsService.getAllPts().stream()
-            .filter(pts -> pts.getEquipoOInstalacion() != null)
-            .filter(pts -> pts.getEquipoOInstalacion().equalsIgnoreCase(tag))
-                .filter(pts -> pts.getRtoEstado() == null || !EstadoPts.CERRADO.equals(pts.getRtoEstado()))
-                .collect(Collectors.toList());
+        List<PermisoTrabajoSeguro> permisosActivos = ptsService.getPtsActivosPorEquipo(tag);
         return new EquipoStatusDTO(equipo, permisosActivos);
     }
+
+    // Version de la consulta (el equipo y sus PTS activos); null si el equipo no existe
+    public VersionRecurso getVersionEquipoStatus(String tag) {
+        VersionRecurso equipo = equipoService.getVersionEquipo(tag);
+        if (equipo == null) {
+            return null;
+        }
+        return VersionRecurso.de("consulta", null, equipo.etag(), ptsService.getVersionPtsActivosPorEquipo(tag).etag());
+    }
 }
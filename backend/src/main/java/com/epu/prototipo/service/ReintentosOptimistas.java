@@ -0,0 +1,101 @@
+package com.epu.prototipo.service;
+
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta operaciones de lectura-modificacion-escritura de PTS y RTO en una transaccion
+ * y las repite si fallan por concurrencia optimista (@Version).
+ *
+ * Cada intento es una transaccion nueva que vuelve a leer el estado actual, asi que las
+ * validaciones (ya firmado, ya cerrado) se reevaluan contra lo que confirmo el otro. No se
+ * toman locks de lectura: el conflicto se detecta recien en el UPDATE. Si ya hay una
+ * transaccion en curso la operacion se une a ella sin reintentar; el reintento queda a
+ * cargo de quien la abrio.
+ */
+@Component
+@Profile("prod")
+public class ReintentosOptimistas {
+
+    private static final Logger log = LoggerFactory.getLogger(ReintentosOptimistas.class);
+
+    private final TransactionTemplate transaccion;
+    private final int intentosMaximos;
+    private final long esperaMs;
+    private final AtomicLong conflictos = new AtomicLong();
+    private final AtomicLong agotados = new AtomicLong();
+
+    public ReintentosOptimistas(PlatformTransactionManager transactionManager,
+                                @Value("${persistencia.reintentos.intentos:4}") int intentosMaximos,
+                                @Value("${persistencia.reintentos.espera-ms:20}") long esperaMs) {
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.intentosMaximos = Math.max(1, intentosMaximos);
+        this.esperaMs = Math.max(0, esperaMs);
+    }
+
+    public <T> T ejecutar(String operacion, Supplier<T> accion) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return accion.get();
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                return transaccion.execute(estado -> accion.get());
+            } catch (RuntimeException e) {
+                if (!esConflicto(e)) {
+                    throw e;
+                }
+                conflictos.incrementAndGet();
+                if (intento >= intentosMaximos) {
+                    agotados.incrementAndGet();
+                    log.warn("{}: conflicto en {} intentos, se abandona", operacion, intento);
+                    throw e;
+                }
+                log.debug("{}: conflicto de version, reintento {}", operacion, intento);
+                esperar(intento);
+            }
+        }
+    }
+
+    private static boolean esConflicto(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockingFailureException || t instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Espera creciente con jitter para que los que chocaron no vuelvan a chocar juntos
+    private void esperar(int intento) {
+        if (esperaMs == 0) {
+            return;
+        }
+        long espera = esperaMs * intento + ThreadLocalRandom.current().nextLong(esperaMs + 1);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando para reintentar", ie);
+        }
+    }
+
+    public long getConflictos() {
+        return conflictos.get();
+    }
+
+    public long getAgotados() {
+        return agotados.get();
+    }
+}
@@ -1,20 +1,29 @@
 package com.epu.prototipo.service;
 
 import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.util.CamposSolicitados;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -23,14 +32,48 @@ import org.apache.poi.ss.util.CellRangeAddress;
 @Service
 public class ReporteService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReporteService.class);
+    // Columnas de los listados Excel y PDF: sin firma ni riesgos/elementos de seguridad
+    private static final CamposSolicitados CAMPOS_LISTADO = CamposSolicitados.de("equipoOInstalacion,descripcionTrabajo,"
+            + "solicitanteLegajo,supervisorLegajo,dniSupervisorFirmante,ubicacion,fechaInicio,fechaFin,rtoEstado");
+
     @Autowired
     private IPtsService ptsService;
 
+    @Autowired
+    private MeterRegistry registro;
+
     // Fuentes reutilizables
     private static final PDType1Font FONT_BOLD = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
     private static final PDType1Font FONT_NORMAL = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
     private static final PDType1Font FONT_ITALIC = new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE);
 
+    // Tiempo de generacion (reportes.generacion) y tamaño del archivo (reportes.tamano) por tipo de reporte
+    private byte[] medir(String reporte, Supplier<byte[]> generador) {
+        long inicio = System.nanoTime();
+        String resultado = "ok";
+        try {
+            byte[] archivo = generador.get();
+            DistributionSummary.builder("reportes.tamano")
+                    .description("Tamaño de los reportes generados")
+                    .baseUnit("bytes")
+                    .tag("reporte", reporte)
+                    .register(registro)
+                    .record(archivo.length);
+            return archivo;
+        } catch (RuntimeException e) {
+            resultado = "error";
+            throw e;
+        } finally {
+            Timer.builder("reportes.generacion")
+                    .description("Tiempo de generacion de los reportes")
+                    .tag("reporte", reporte)
+                    .tag("resultado", resultado)
+                    .register(registro)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
     // Márgenes y tamaños
     private static final float MARGIN = 50;
     private static final float LINE_HEIGHT = 16;
@@ -42,6 +85,10 @@ public class ReporteService {
      * @return byte[] que representa el archivo PDF generado
      */
     public byte[] exportarPtsPdf(String ptsId) {
+        return medir("pts-pdf", () -> generarPtsPdf(ptsId));
+    }
+
+    private byte[] generarPtsPdf(String ptsId) {
         try {
             PermisoTrabajoSeguro pts = ptsService.getPtsById(ptsId);
 
@@ -49,7 +96,7 @@ public class ReporteService {
                 throw new RuntimeException("PTS no encontrado con ID: " + ptsId);
             }
 
-            System.out.println("Generando PDF real para PTS ID: " + ptsId);
+            log.debug("Generando PDF real para PTS ID: {}", ptsId);
 
             try (PDDocument document = new PDDocument();
                  ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
@@ -220,12 +267,12 @@ public class ReporteService {
 
                 document.save(baos);
                 byte[] pdfBytes = baos.toByteArray();
-                System.out.println("PDF generado exitosamente. Tamaño: " + pdfBytes.length + " bytes");
+                log.debug("PDF generado exitosamente. Tamaño: {} bytes", pdfBytes.length);
                 return pdfBytes;
             }
 
         } catch (Exception e) {
-            System.err.println("Error al generar PDF para PTS " + ptsId + ": " + e.getMessage());
+            log.error("Error al generar PDF para PTS {}", ptsId, e);
             throw new RuntimeException("Error en la generación del PDF: " + e.getMessage());
         }
     }
@@ -404,6 +451,10 @@ public class ReporteService {
         return value != null ? value : "-";
     }
 
+    private static LocalDate aFecha(Date fecha) {
+        return fecha != null ? fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDate() : null;
+    }
+
     /**
      * Para exportar multiples PTS filtrados a formato Excel
      * @param fechaDesde Fecha de inicio del filtro
@@ -411,11 +462,16 @@ public class ReporteService {
      * @return byte[] representa el archivo Excel generado
      */
     public byte[] exportarPtsExcel(Date fechaDesde, Date fechaHasta) {
+        return medir("pts-excel", () -> generarPtsExcel(fechaDesde, fechaHasta));
+    }
+
+    private byte[] generarPtsExcel(Date fechaDesde, Date fechaHasta) {
         try {
-            String fechaDesdeStr = fechaDesde != null ? fechaDesde.toString() : null;
-            List<PermisoTrabajoSeguro> ptsList = ptsService.buscarPts(null, null, null, null, fechaDesdeStr);
+            // El rango va a la consulta (indice sobre fechaInicio), no se filtra fila por fila
+            List<PermisoTrabajoSeguro> ptsList = ptsService.buscarPts(null, null, null, null, null,
+                    aFecha(fechaDesde), aFecha(fechaHasta), CAMPOS_LISTADO);
 
-            System.out.println("Generando Excel real con " + ptsList.size() + " registros");
+            log.debug("Generando Excel real con {} registros", ptsList.size());
 
             try (XSSFWorkbook workbook = new XSSFWorkbook();
                  ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
@@ -525,12 +581,12 @@ public class ReporteService {
 
                 workbook.write(baos);
                 byte[] excelBytes = baos.toByteArray();
-                System.out.println("Excel generado exitosamente. Tamaño: " + excelBytes.length + " bytes");
+                log.debug("Excel generado exitosamente. Tamaño: {} bytes", excelBytes.length);
                 return excelBytes;
             }
 
         } catch (Exception e) {
-            System.err.println("Error al generar Excel con filtros: " + e.getMessage());
+            log.error("Error al generar Excel con filtros", e);
             throw new RuntimeException("Error en la generación del Excel: " + e.getMessage());
         }
     }
@@ -545,33 +601,16 @@ public class ReporteService {
      * Exportar lista de PTS filtrados a PDF (tabla resumen)
      */
     public byte[] exportarPtsListaPdf(Date fechaDesde, Date fechaHasta, String equipo) {
-        try {
-            String fechaDesdeStr = fechaDesde != null ? fechaDesde.toString() : null;
-            List<PermisoTrabajoSeguro> ptsList = ptsService.buscarPts(null, null, null, null, fechaDesdeStr);
-
-            // Filtrar por fecha hasta
-            if (fechaHasta != null) {
-                ptsList = ptsList.stream()
-                    .filter(p -> {
-                        if (p.getFechaInicio() == null) return true;
-                        try {
-                            java.time.LocalDate fi = java.time.LocalDate.parse(p.getFechaInicio().substring(0, 10));
-                            java.time.LocalDate fh = fechaHasta.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
-                            return !fi.isAfter(fh);
-                        } catch (Exception ex) { return true; }
-                    })
-                    .collect(Collectors.toList());
-            }
+        return medir("pts-lista-pdf", () -> generarPtsListaPdf(fechaDesde, fechaHasta, equipo));
+    }
 
-            // Filtrar por equipo
-            if (equipo != null && !equipo.trim().isEmpty()) {
-                final String eq = equipo.trim().toLowerCase();
-                ptsList = ptsList.stream()
-                    .filter(p -> (p.getEquipoOInstalacion() != null && p.getEquipoOInstalacion().toLowerCase().contains(eq)))
-                    .collect(Collectors.toList());
-            }
+    private byte[] generarPtsListaPdf(Date fechaDesde, Date fechaHasta, String equipo) {
+        try {
+            // Rango de fechas y equipo van a la consulta, no se filtra fila por fila
+            List<PermisoTrabajoSeguro> ptsList = ptsService.buscarPts(equipo, null, null, null, null,
+                    aFecha(fechaDesde), aFecha(fechaHasta), CAMPOS_LISTADO);
 
-            System.out.println("Generando PDF lista con " + ptsList.size() + " registros");
+            log.debug("Generando PDF lista con {} registros", ptsList.size());
 
             // Usar A4 horizontal (landscape)
             try (PDDocument document = new PDDocument();
@@ -624,7 +663,7 @@ public class ReporteService {
                         truncateStr(safe(pts.getDescripcionTrabajo()), 45),
                         safe(pts.getSolicitanteLegajo()),
                         safe(pts.getSupervisorLegajo()),
-                        safe(pts.getFechaInicio() != null && pts.getFechaInicio().length() >= 10 ? pts.getFechaInicio().substring(0, 10) : pts.getFechaInicio()),
+                        safe(pts.getFechaInicio()),
                         safe(pts.getRtoEstado()),
                         safe(pts.getDniSupervisorFirmante())
                     };
@@ -636,11 +675,11 @@ public class ReporteService {
                 y = writeTextRaw(document, page, y, pw, "Total de registros: " + ptsList.size(), FONT_BOLD, 9, false);
 
                 document.save(baos);
-                System.out.println("PDF lista generado. Tamaño: " + baos.size() + " bytes");
+                log.debug("PDF lista generado. Tamaño: {} bytes", baos.size());
                 return baos.toByteArray();
             }
         } catch (Exception e) {
-            System.err.println("Error al generar PDF lista: " + e.getMessage());
+            log.error("Error al generar PDF lista", e);
             throw new RuntimeException("Error en la generación del PDF lista: " + e.getMessage());
         }
     }
@@ -0,0 +1,31 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.dto.VersionRecurso;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contador de cambios de un conjunto de datos en memoria, para su ETag y Last-Modified. Lleva
+ * el instante de arranque: al reiniciar el contador vuelve a 0 y un ETag viejo no debe coincidir.
+ */
+final class Revision {
+
+    private final String recurso;
+    private final long arranque = System.currentTimeMillis();
+    private final AtomicLong numero = new AtomicLong();
+    private volatile long ultimoCambio = arranque;
+
+    Revision(String recurso) {
+        this.recurso = recurso;
+    }
+
+    void avanzar() {
+        numero.incrementAndGet();
+        ultimoCambio = System.currentTimeMillis();
+    }
+
+    VersionRecurso version() {
+        return VersionRecurso.de(recurso, Instant.ofEpochMilli(ultimoCambio), arranque, numero.get());
+    }
+}
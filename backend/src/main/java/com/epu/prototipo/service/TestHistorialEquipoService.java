@@ -0,0 +1,65 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.model.TransicionEquipo;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Profile("test")
+public class TestHistorialEquipoService implements IHistorialEquipoService {
+
+    // Transiciones por tag, en orden de registro
+    private final Map<String, List<TransicionEquipo>> historial = new ConcurrentHashMap<>();
+
+    @Override
+    public void registrar(String tag, String campo, String valor) {
+        List<TransicionEquipo> transiciones = historial.computeIfAbsent(tag, t -> new ArrayList<>());
+        synchronized (transiciones) {
+            transiciones.add(new TransicionEquipo(tag, campo, valor, LocalDateTime.now()));
+        }
+    }
+
+    @Override
+    public List<TransicionEquipo> getTransiciones(String tag, LocalDateTime desde, LocalDateTime hasta) {
+        return filtrar(tag, null, desde, hasta);
+    }
+
+    @Override
+    public List<TransicionEquipo> getTransiciones(String tag, String campo, LocalDateTime desde, LocalDateTime hasta) {
+        return filtrar(tag, campo, desde, hasta);
+    }
+
+    @Override
+    public String getValorAnterior(String tag, String campo, LocalDateTime instante) {
+        String valor = null;
+        for (TransicionEquipo t : filtrar(tag, campo, LocalDateTime.MIN, instante)) {
+            if (t.getFecha().isBefore(instante)) {
+                valor = t.getValor();
+            }
+        }
+        return valor;
+    }
+
+    private List<TransicionEquipo> filtrar(String tag, String campo, LocalDateTime desde, LocalDateTime hasta) {
+        List<TransicionEquipo> resultado = new ArrayList<>();
+        List<TransicionEquipo> transiciones = historial.get(tag);
+        if (transiciones == null) {
+            return resultado;
+        }
+        synchronized (transiciones) {
+            for (TransicionEquipo t : transiciones) {
+                if ((campo == null || campo.equals(t.getCampo()))
+                        && !t.getFecha().isBefore(desde) && !t.getFecha().isAfter(hasta)) {
+                    resultado.add(t);
+                }
+            }
+        }
+        return resultado;
+    }
+}
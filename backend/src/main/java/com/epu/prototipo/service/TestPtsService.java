@@ -2,20 +2,32 @@
 package com.epu.prototipo.service;
 
 import com.epu.prototipo.dto.CerrarPtsRequest;
+import com.epu.prototipo.dto.CoincidenciaPtsDTO;
 import com.epu.prototipo.dto.FirmaPtsRequest;
+import com.epu.prototipo.dto.PaginaBusquedaPtsDTO;
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.model.PermisoTrabajoSeguro;
 import com.epu.prototipo.model.RetornoOperaciones;
 import com.epu.prototipo.model.EstadoPts;
-import com.epu.prototipo.model.EstadoDcs;
 import com.epu.prototipo.model.EstadoRto;
-import com.epu.prototipo.model.CondicionEquipo;
+import com.epu.prototipo.util.CamposSolicitados;
+import com.epu.prototipo.util.FechasPts;
+import com.epu.prototipo.util.TextoBusqueda;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 import org.springframework.context.annotation.Primary;
 
@@ -23,16 +35,23 @@ import org.springframework.context.annotation.Primary;
 @Primary
 @Profile("test")
 public class TestPtsService implements IPtsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TestPtsService.class);
     private final IEquipoService equipoService;
     private final IRtoService rtoService;
+    private final CambiosBroadcaster cambios;
 
 
-    // Lista en memoria para almacenar PTS creados en la prueba
-    private final List<PermisoTrabajoSeguro> ptsInMemory = new ArrayList<>();
+    // PTS creados en la prueba por ID. Se lee y escribe desde varios requests; un mapa
+    // concurrente y no una lista copy-on-write, que copiaba todo en cada alta
+    private final Map<String, PermisoTrabajoSeguro> ptsInMemory = new ConcurrentHashMap<>();
+    private final ReentrantLock numeracion = new ReentrantLock();
+    private final Revision revision = new Revision("pts");
 
-    public TestPtsService(IEquipoService equipoService, IRtoService rtoService) {
+    public TestPtsService(IEquipoService equipoService, IRtoService rtoService, CambiosBroadcaster cambios) {
         this.equipoService = equipoService;
         this.rtoService = rtoService;
+        this.cambios = cambios;
         // Inicializa con datos de prueba
         initializeTestData();
     }
@@ -74,15 +93,15 @@ public class TestPtsService implements IPtsService {
         pts3.setSupervisorLegajo("SUP222");
         pts3.setRtoEstado(EstadoPts.PENDIENTE);
 
-        ptsInMemory.add(pts1);
-        ptsInMemory.add(pts2);
-        ptsInMemory.add(pts3);
+        ptsInMemory.put(pts1.getId(), pts1);
+        ptsInMemory.put(pts2.getId(), pts2);
+        ptsInMemory.put(pts3.getId(), pts3);
     }
 
     @Override
     public List<PermisoTrabajoSeguro> getAllPts() {
         // Para retornar copia de la lista para evitar modificaciones externas
-        return new ArrayList<>(ptsInMemory);
+        return new ArrayList<>(ptsInMemory.values());
     }
 
     @Override
@@ -93,24 +112,31 @@ public class TestPtsService implements IPtsService {
         if (!isStandby) {
             try {
                 String tag = pts.getEquipoOInstalacion();
-                equipoService.actualizarEstadoEquipo(tag, EstadoDcs.DESHABILITADO);
-                equipoService.actualizarCondicionEquipo(tag, CondicionEquipo.BLOQUEADO);
+                equipoService.bloquearEquipo(tag);
             } catch (Exception e) {
-                System.err.println("[ERROR][TEST] No se pudo actualizar el estado/condición del equipo: " + e.getMessage());
+                log.warn("No se pudo actualizar el estado/condición del equipo: {}", e.getMessage());
             }
         }
-        // Generar ID unico en formato PTS-YYMMDD-XXX
-        String fechaInicio = pts.getFechaInicio();
-        if (fechaInicio != null && fechaInicio.length() >= 10) {
-            String yymmdd = fechaInicio.replaceAll("-", "").substring(2, 8);
-            int ultimoNumero = obtenerUltimoNumeroPtsPorFecha(fechaInicio);
-            int nuevoNumero = ultimoNumero + 1;
-            pts.setId(String.format("PTS-%s-%03d", yymmdd, nuevoNumero));
-        } else {
-            pts.setId("PTS-" + System.currentTimeMillis());
+        // Generar ID unico en formato PTS-YYMMDD-XXX. Numerar y agregar bajo el mismo lock: dos
+        // altas simultaneas del mismo dia tomaban el mismo numero
+        numeracion.lock();
+        try {
+            String fechaInicio = pts.getFechaInicio();
+            if (fechaInicio != null && fechaInicio.length() >= 10) {
+                String yymmdd = fechaInicio.replaceAll("-", "").substring(2, 8);
+                int ultimoNumero = obtenerUltimoNumeroPtsPorFecha(fechaInicio);
+                int nuevoNumero = ultimoNumero + 1;
+                pts.setId(String.format("PTS-%s-%03d", yymmdd, nuevoNumero));
+            } else {
+                pts.setId("PTS-" + System.currentTimeMillis());
+            }
+            ptsInMemory.put(pts.getId(), pts);
+        } finally {
+            numeracion.unlock();
         }
-        ptsInMemory.add(pts);
-        System.out.println("PTS creado en modo test: " + pts.getId() + " - " + pts.getDescripcionTrabajo() + " - Estado: " + pts.getRtoEstado());
+        log.info("PTS creado en modo test: {} - {} - Estado: {}", pts.getId(), pts.getDescripcionTrabajo(), pts.getRtoEstado());
+        revision.avanzar();
+        cambios.pts("CREADO", pts);
         return pts;
     }
 
@@ -133,27 +159,48 @@ public class TestPtsService implements IPtsService {
         if (!EstadoPts.STANDBY.equals(pts.getRtoEstado())) {
             try {
                 String tag = pts.getEquipoOInstalacion();
-                equipoService.actualizarEstadoEquipo(tag, EstadoDcs.DESHABILITADO);
-                equipoService.actualizarCondicionEquipo(tag, CondicionEquipo.BLOQUEADO);
+                equipoService.bloquearEquipo(tag);
             } catch (Exception e) {
-                System.err.println("[ERROR][TEST] No se pudo actualizar el estado/condición del equipo: " + e.getMessage());
+                log.warn("No se pudo actualizar el estado/condición del equipo: {}", e.getMessage());
             }
         }
 
         // Reemplazar el PTS en la lista en memoria
-        ptsInMemory.removeIf(p -> pts.getId().equals(p.getId()));
-        ptsInMemory.add(pts);
-        System.out.println("PTS actualizado en modo test: " + pts.getId() + " - Estado: " + pts.getRtoEstado());
+        ptsInMemory.put(pts.getId(), pts);
+        log.info("PTS actualizado en modo test: {} - Estado: {}", pts.getId(), pts.getRtoEstado());
+        revision.avanzar();
+        cambios.pts("ACTUALIZADO", pts);
         return pts;
     }
 
     @Override
     public PermisoTrabajoSeguro getPtsById(String id) {
-        // Buscar en la lista en memoria
-        return ptsInMemory.stream()
-                .filter(pts -> id.equals(pts.getId()))
-                .findFirst()
-                .orElse(null);
+        return ptsInMemory.get(id);
+    }
+
+    // En memoria no hay nada que dejar de leer: el filtro de campos se aplica al serializar
+    @Override
+    public PermisoTrabajoSeguro getPtsById(String id, CamposSolicitados campos) {
+        return getPtsById(id);
+    }
+
+    // Una revision para todos los PTS en memoria: cualquier cambio invalida los ETag de todos
+    @Override
+    public VersionRecurso getVersionPts(String id) {
+        return getPtsById(id) != null ? revision.version() : null;
+    }
+
+    @Override
+    public List<PermisoTrabajoSeguro> getPtsActivosPorEquipo(String tag) {
+        return ptsInMemory.values().stream()
+                .filter(pts -> tag.equalsIgnoreCase(pts.getEquipoOInstalacion()))
+                .filter(pts -> !EstadoPts.CERRADO.equals(pts.getRtoEstado()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public VersionRecurso getVersionPtsActivosPorEquipo(String tag) {
+        return revision.version();
     }
 
     @Override
@@ -185,7 +232,9 @@ public class TestPtsService implements IPtsService {
         pts.setDniSupervisorFirmante(request.getDniFirmante());
         pts.setFechaHoraFirmaSupervisor(LocalDateTime.now());
 
-        System.out.println("PTS firmado en modo test: " + request.getPtsId());
+        log.info("PTS firmado en modo test: {}", request.getPtsId());
+        revision.avanzar();
+        cambios.pts("FIRMADO", pts);
         return pts;
     }
 
@@ -236,12 +285,12 @@ public class TestPtsService implements IPtsService {
         // Desbloquear el equipo asociado al cerrar el PTS (solo si NO requiere RTO)
         try {
             String tag = pts.getEquipoOInstalacion();
-            System.out.println("[DEBUG][RTO] Tag recibido para desbloqueo: '" + tag + "'");
+            log.debug("Tag recibido para desbloqueo: '{}'", tag);
 
             if (request.isRequiereRTO()) {
                 // Si requiere RTO: el equipo queda BLOQUEADO, se crea/asocia un RTO
                 pts.setRequiereRTO(true);
-                System.out.println("[DEBUG][RTO] PTS requiere RTO. El equipo '" + tag + "' permanece BLOQUEADO.");
+                log.debug("PTS requiere RTO. El equipo '{}' permanece BLOQUEADO.", tag);
 
                 // Buscar si ya existe un RTO abierto para este equipo
                 RetornoOperaciones rtoExistente = rtoService.getRtoByEquipoTag(tag);
@@ -249,7 +298,7 @@ public class TestPtsService implements IPtsService {
                     // Agregar este PTS al RTO existente
                     rtoService.agregarPtsAlRto(rtoExistente.getId(), pts.getId());
                     pts.setRtoAsociadoId(rtoExistente.getId());
-                    System.out.println("[DEBUG][RTO] PTS " + pts.getId() + " asociado al RTO existente: " + rtoExistente.getId());
+                    log.debug("PTS {} asociado al RTO existente: {}", pts.getId(), rtoExistente.getId());
                 } else {
                     // Crear un nuevo RTO para este equipo
                     RetornoOperaciones nuevoRto = new RetornoOperaciones();
@@ -257,21 +306,21 @@ public class TestPtsService implements IPtsService {
                     nuevoRto.agregarPtsId(pts.getId());
                     RetornoOperaciones rtoCreado = rtoService.createRto(nuevoRto);
                     pts.setRtoAsociadoId(rtoCreado.getId());
-                    System.out.println("[DEBUG][RTO] Nuevo RTO creado: " + rtoCreado.getId() + " para equipo: " + tag);
+                    log.debug("Nuevo RTO creado: {} para equipo: {}", rtoCreado.getId(), tag);
                 }
             } else {
                 // Si NO requiere RTO: desbloquear el equipo normalmente
                 try {
                     equipoService.getEquipoByTag(tag);
-                    System.out.println("[DEBUG][RTO] Equipo encontrado en base de datos: '" + tag + "'");
+                    log.debug("Equipo encontrado en base de datos: '{}'", tag);
                 } catch (Exception ex) {
-                    System.err.println("[DEBUG][RTO] Equipo NO encontrado en base de datos: '" + tag + "'. Excepción: " + ex.getMessage());
+                    log.warn("Equipo NO encontrado en base de datos: '{}'. Excepción: {}", tag, ex.getMessage());
                 }
-                equipoService.actualizarCondicionEquipo(tag, CondicionEquipo.DESBLOQUEADO);
-                System.out.println("[DEBUG][RTO] Equipo '" + tag + "' DESBLOQUEADO.");
+                equipoService.liberarEquipo(tag);
+                log.debug("Equipo '{}' DESBLOQUEADO.", tag);
             }
         } catch (Exception e) {
-            System.err.println("[ERROR][TEST] Error al procesar equipo al cerrar PTS: " + e.getMessage());
+            log.warn("Error al procesar equipo al cerrar PTS: {}", e.getMessage());
         }
         // Hacer cierre simulado
         pts.setRtoEstado(EstadoPts.CERRADO);
@@ -279,15 +328,17 @@ public class TestPtsService implements IPtsService {
         pts.setRtoObservaciones(request.getRtoObservaciones());
         pts.setRtoFechaHoraCierre(LocalDateTime.now());
 
-        System.out.println("PTS cerrado en modo test: " + request.getPtsId() + " por responsable: " + request.getRtoResponsableCierreLegajo());
+        log.info("PTS cerrado en modo test: {} por responsable: {}", request.getPtsId(), request.getRtoResponsableCierreLegajo());
+        revision.avanzar();
+        cambios.pts("CERRADO", pts);
         return pts;
     }
 
     @Override
-    public List<PermisoTrabajoSeguro> buscarPts(String equipo, String usuario, String area, String estado, String fechaInicio) {
-        System.out.println("Búsqueda de PTS en modo test - parámetros: equipo=" + equipo + 
-                          ", usuario=" + usuario + ", area=" + area + 
-                          ", estado=" + estado + ", fechaInicio=" + fechaInicio);
+    public List<PermisoTrabajoSeguro> buscarPts(String equipo, String usuario, String area, String estado, String fechaInicio,
+                                                LocalDate desde, LocalDate hasta, CamposSolicitados campos) {
+        log.debug("Búsqueda de PTS en modo test - parámetros: equipo={}, usuario={}, area={}, estado={}, fechaInicio={}, desde={}, hasta={}",
+                equipo, usuario, area, estado, fechaInicio, desde, hasta);
         
         // Obtener todos los PTS y aplicar filtros en memoria
         List<PermisoTrabajoSeguro> todosLosPts = getAllPts();
@@ -295,17 +346,13 @@ public class TestPtsService implements IPtsService {
         
         // Aplicar filtros solo si parametros no estan vacios
         if (equipo != null && !equipo.trim().isEmpty()) {
-            System.out.println("Filtrando por equipo: '" + equipo + "'");
+            log.debug("Filtrando por equipo: '{}'", equipo);
             int antesDelFiltro = resultado.size();
             resultado = resultado.stream()
-                .filter(pts -> {
-                    boolean coincide = pts.getEquipoOInstalacion() != null && 
-                                     pts.getEquipoOInstalacion().toLowerCase().contains(equipo.toLowerCase());
-                    System.out.println("PTS " + pts.getId() + " - Equipo: '" + pts.getEquipoOInstalacion() + "' - Coincide: " + coincide);
-                    return coincide;
-                })
+                .filter(pts -> pts.getEquipoOInstalacion() != null &&
+                                     pts.getEquipoOInstalacion().toLowerCase().contains(equipo.toLowerCase()))
                 .collect(java.util.stream.Collectors.toList());
-            System.out.println("Resultados después del filtro equipo: " + antesDelFiltro + " -> " + resultado.size());
+            log.debug("Resultados después del filtro equipo: {} -> {}", antesDelFiltro, resultado.size());
         }
         
         if (usuario != null && !usuario.trim().isEmpty()) {
@@ -332,15 +379,86 @@ public class TestPtsService implements IPtsService {
                 .filter(pts -> fechaInicio.equals(pts.getFechaInicio()))
                 .collect(java.util.stream.Collectors.toList());
         }
+
+        if (desde != null || hasta != null) {
+            resultado = resultado.stream()
+                .filter(pts -> enRango(pts, desde, hasta))
+                .collect(java.util.stream.Collectors.toList());
+        }
         
-        System.out.println("Resultados encontrados en modo test: " + resultado.size());
+        log.debug("Resultados encontrados en modo test: {}", resultado.size());
         return resultado;
     }
+    @Override
+    public List<PermisoTrabajoSeguro> buscarPtsPorRango(LocalDate desde, LocalDate hasta, String equipo, String usuario, String estado,
+                                                        CamposSolicitados campos) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido: se requieren desde y hasta, con desde <= hasta");
+        }
+        // En memoria no hay archivo: mismos filtros que la busqueda, del mas reciente al mas antiguo
+        return buscarPts(equipo, usuario, null, estado, null, desde, hasta, campos).stream()
+                .sorted(Comparator.comparing(PermisoTrabajoSeguro::getFechaInicio)
+                        .thenComparing(PermisoTrabajoSeguro::getId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .reversed())
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    @Override
+    public PaginaBusquedaPtsDTO buscarTexto(String consulta, int pagina, int tamanio) {
+        List<String> terminos = TextoBusqueda.terminos(consulta);
+        if (terminos.isEmpty()) {
+            throw new IllegalArgumentException("La búsqueda necesita al menos una palabra de "
+                    + TextoBusqueda.LARGO_MINIMO + " o más letras");
+        }
+        // Sin indice: todos los terminos como prefijo de alguna palabra, relevancia = apariciones
+        List<CoincidenciaPtsDTO> coincidencias = new ArrayList<>();
+        for (PermisoTrabajoSeguro pts : ptsInMemory.values()) {
+            String[] palabras = TextoBusqueda.texto(pts).split(" ");
+            int relevancia = 0;
+            boolean todos = true;
+            for (String termino : terminos) {
+                int apariciones = 0;
+                for (String palabra : palabras) {
+                    if (palabra.startsWith(termino)) apariciones++;
+                }
+                todos &= apariciones > 0;
+                relevancia += apariciones;
+            }
+            if (todos) {
+                coincidencias.add(new CoincidenciaPtsDTO(pts.getId(), pts.getEquipoOInstalacion(), pts.getDescripcionTrabajo(),
+                        pts.getUbicacion(), pts.getFechaInicio(), pts.getRtoEstado(), relevancia));
+            }
+        }
+        coincidencias.sort(Comparator.comparingDouble(CoincidenciaPtsDTO::getRelevancia)
+                .thenComparing(CoincidenciaPtsDTO::getId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .reversed());
+        int desde = (int) Math.min(coincidencias.size(), (long) pagina * tamanio);
+        int hasta = (int) Math.min(coincidencias.size(), (long) desde + tamanio);
+        return new PaginaBusquedaPtsDTO(consulta, pagina, tamanio, coincidencias.size(),
+                new ArrayList<>(coincidencias.subList(desde, hasta)));
+    }
+
+    private static boolean enRango(PermisoTrabajoSeguro pts, LocalDate desde, LocalDate hasta) {
+        LocalDate fecha;
+        try {
+            fecha = FechasPts.fecha(pts.getFechaInicio());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return fecha != null && (desde == null || !fecha.isBefore(desde)) && (hasta == null || !fecha.isAfter(hasta));
+    }
+
     @Override
     public int obtenerUltimoNumeroPtsPorFecha(String fechaInicio) {
         int max = 0;
-        for (PermisoTrabajoSeguro pts : ptsInMemory) {
+        // Por prefijo de ID, como en MySQL: un PTS que cambio de fecha conserva su numero
+        String prefijo = fechaInicio != null && fechaInicio.length() >= 10
+                ? "PTS-" + fechaInicio.replaceAll("-", "").substring(2, 8) + "-" : null;
+        for (PermisoTrabajoSeguro pts : ptsInMemory.values()) {
             String id = pts.getId();
+            if (prefijo != null && (id == null || !id.startsWith(prefijo))) {
+                continue;
+            }
             if (id != null && id.matches("PTS-\\d{6}-\\d+")) {
                 // Formato PTS-YYMMDD-XXX
                 String[] partes = id.split("-");
@@ -352,4 +470,11 @@ public class TestPtsService implements IPtsService {
         }
         return max;
     }
-}
\ No newline at end of file
+
+    // Carga en bloque del generador de datos sinteticos: los PTS ya traen ID y no se bloquean
+    // equipos ni se avisa a los clientes
+    public void cargarSinteticos(List<PermisoTrabajoSeguro> lote) {
+        lote.forEach(pts -> ptsInMemory.put(pts.getId(), pts));
+        revision.avanzar();
+    }
+}
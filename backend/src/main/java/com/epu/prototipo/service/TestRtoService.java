@@ -1,8 +1,12 @@
 package com.epu.prototipo.service;
 
-import com.epu.prototipo.model.CondicionEquipo;
+import com.epu.prototipo.dto.ResumenRtoDTO;
+import com.epu.prototipo.dto.VersionRecurso;
 import com.epu.prototipo.model.EstadoRto;
 import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.util.CamposSolicitados;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
@@ -11,6 +15,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,11 +26,16 @@ import java.util.stream.Collectors;
 @Profile("test")
 public class TestRtoService implements IRtoService {
 
+    private static final Logger log = LoggerFactory.getLogger(TestRtoService.class);
+
     private final Map<String, RetornoOperaciones> rtosInMemory = new LinkedHashMap<>();
     private final IEquipoService equipoService;
+    private final CambiosBroadcaster cambios;
+    private final Revision revision = new Revision("rtos");
 
-    public TestRtoService(IEquipoService equipoService) {
+    public TestRtoService(IEquipoService equipoService, CambiosBroadcaster cambios) {
         this.equipoService = equipoService;
+        this.cambios = cambios;
     }
 
     @Override
@@ -40,7 +50,9 @@ public class TestRtoService implements IRtoService {
         rto.setFechaCreacion(LocalDateTime.now());
         rto.setEstado(EstadoRto.ABIERTO);
         rtosInMemory.put(id, rto);
-        System.out.println("[TEST] RTO creado: " + id + " para equipo: " + rto.getEquipoTag());
+        log.info("RTO creado: {} para equipo: {}", id, rto.getEquipoTag());
+        revision.avanzar();
+        cambios.rto("CREADO", rto, null);
         return rto;
     }
 
@@ -49,8 +61,14 @@ public class TestRtoService implements IRtoService {
         return rtosInMemory.get(id);
     }
 
+    // En memoria no hay nada que dejar de leer: el filtro de campos se aplica al serializar
+    @Override
+    public RetornoOperaciones getRtoById(String id, CamposSolicitados campos) {
+        return getRtoById(id);
+    }
+
     @Override
-    public List<RetornoOperaciones> getAllRtos() {
+    public List<RetornoOperaciones> getAllRtos(CamposSolicitados campos) {
         return new ArrayList<>(rtosInMemory.values());
     }
 
@@ -69,7 +87,9 @@ public class TestRtoService implements IRtoService {
             throw new RuntimeException("RTO no encontrado: " + rtoId);
         }
         rto.agregarPtsId(ptsId);
-        System.out.println("[TEST] PTS " + ptsId + " agregado al RTO " + rtoId);
+        log.info("PTS {} agregado al RTO {}", ptsId, rtoId);
+        revision.avanzar();
+        cambios.rto("PTS_AGREGADO", rto, null);
         return rto;
     }
 
@@ -80,7 +100,8 @@ public class TestRtoService implements IRtoService {
             throw new RuntimeException("RTO no encontrado: " + rtoId);
         }
         rto.setEspecialidades(especialidades);
-        System.out.println("[TEST] Especialidades actualizadas en RTO " + rtoId);
+        revision.avanzar();
+        log.info("Especialidades actualizadas en RTO {}", rtoId);
         return rto;
     }
 
@@ -112,30 +133,56 @@ public class TestRtoService implements IRtoService {
         especialidad.setCerrada(true);
         especialidad.setFechaCierre(LocalDateTime.now());
         especialidad.setObservaciones(observaciones);
-        System.out.println("[TEST] Especialidad '" + especialidadNombre + "' cerrada en RTO " + rtoId);
+        log.info("Especialidad '{}' cerrada en RTO {}", especialidadNombre, rtoId);
 
         // Si todas las especialidades están cerradas, cerrar el RTO y desbloquear equipo
         if (rto.todasEspecialidadesCerradas()) {
             rto.setEstado(EstadoRto.CERRADO);
             rto.setFechaCierre(LocalDateTime.now());
-            System.out.println("[TEST] RTO " + rtoId + " CERRADO - Todas las especialidades completadas");
+            log.info("RTO {} CERRADO - Todas las especialidades completadas", rtoId);
 
             // Desbloquear el equipo asociado
             try {
-                equipoService.actualizarCondicionEquipo(rto.getEquipoTag(), CondicionEquipo.DESBLOQUEADO);
-                System.out.println("[TEST] Equipo " + rto.getEquipoTag() + " DESBLOQUEADO tras cierre completo del RTO");
+                equipoService.liberarEquipo(rto.getEquipoTag());
+                log.info("Equipo {} DESBLOQUEADO tras cierre completo del RTO", rto.getEquipoTag());
             } catch (Exception e) {
-                System.err.println("[ERROR][TEST] No se pudo desbloquear el equipo: " + e.getMessage());
+                log.warn("No se pudo desbloquear el equipo: {}", e.getMessage());
             }
         }
 
+        revision.avanzar();
+
+        cambios.rto(EstadoRto.CERRADO.equals(rto.getEstado()) ? "CERRADO" : "ESPECIALIDAD_CERRADA", rto, especialidadNombre);
         return rto;
     }
 
     @Override
-    public List<RetornoOperaciones> getRtosAbiertos() {
+    public List<RetornoOperaciones> getRtosAbiertos(CamposSolicitados campos) {
         return rtosInMemory.values().stream()
                 .filter(r -> EstadoRto.ABIERTO.equals(r.getEstado()))
                 .collect(Collectors.toList());
     }
+
+    // Una revision para todos los RTO en memoria: cualquier cambio invalida la lista
+    @Override
+    public VersionRecurso getVersionRtosAbiertos() {
+        return revision.version();
+    }
+
+    @Override
+    public List<ResumenRtoDTO> getTableroAbiertos() {
+        return getRtosAbiertos(CamposSolicitados.TODOS).stream()
+                .map(r -> new ResumenRtoDTO(r.getId(), r.getEquipoTag(), r.getFechaCreacion(),
+                        r.getPtsIds() == null ? 0 : r.getPtsIds().size(),
+                        r.getEspecialidades() == null ? 0 : r.getEspecialidades().size(),
+                        r.getEspecialidades() == null ? 0 : r.getEspecialidades().stream().filter(RetornoOperaciones.EspecialidadRTO::isCerrada).count()))
+                .sorted(Comparator.comparing(ResumenRtoDTO::getFechaCreacion, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+    }
+
+    // Carga en bloque del generador de datos sinteticos (IDs ya asignados, sin avisos)
+    public void cargarSinteticos(List<RetornoOperaciones> lote) {
+        lote.forEach(rto -> rtosInMemory.putIfAbsent(rto.getId(), rto));
+        revision.avanzar();
+    }
 }
@@ -0,0 +1,262 @@
+package com.epu.prototipo.service.archivo;
+
+import com.epu.prototipo.model.EstadoPts;
+import com.epu.prototipo.model.EstadoRto;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.repository.PtsParcialRepository;
+import com.epu.prototipo.util.CamposSolicitados;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archivo de PTS terminados: los CERRADO y CANCELADO con fechaInicio anterior a
+ * pts.archivo.meses meses (mes completo) pasan, con sus riesgos y elementos de seguridad, a
+ * las tablas *_archivo y salen de las vivas. Asi findAll, el tablero y las busquedas dejan
+ * de recorrer años de permisos cerrados. No se archivan los asociados a un RTO abierto.
+ *
+ * Una pasada por dia (pts.archivo.intervalo-min) en el hilo pts-archivo: crea o completa las
+ * tablas de archivo (mismas columnas que las vivas; si Hibernate agrega una columna, se agrega
+ * tambien aca), mantiene las particiones de {@link ParticionesPts} y mueve de a
+ * pts.archivo.lote PTS por transaccion. Las lecturas por rango de fechas consultan el archivo
+ * solo si el rango empieza en o antes del PTS archivado mas reciente.
+ */
+@Component
+@Profile("prod")
+@DependsOn("migracionFechasPts")
+public class ArchivoPts {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoPts.class);
+
+    private static final String SUFIJO = "_archivo";
+    private static final String PTS = ParticionesPts.TABLA;
+    private static final String RIESGOS = "pts_riesgos_controles";
+    private static final String ELEMENTOS = "pts_equipos_seguridad";
+
+    private final JdbcTemplate jdbc;
+    private final PtsParcialRepository lectura;
+    private final TransactionTemplate transaccion;
+    private final ParticionesPts particiones;
+    private final boolean activo;
+    private final int meses;
+    private final int lote;
+    private final long intervaloMin;
+    private final boolean convertir;
+
+    private final ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "pts-archivo");
+        t.setDaemon(true);
+        return t;
+    });
+    // fechaInicio del PTS archivado mas reciente; null si no hay tablas o estan vacias
+    private volatile LocalDate archivadoHasta;
+    private volatile boolean tablasListas;
+
+    public ArchivoPts(JdbcTemplate jdbc, PtsParcialRepository lectura, PlatformTransactionManager transactionManager, ParticionesPts particiones,
+                      @Value("${pts.archivo.activo:true}") boolean activo,
+                      @Value("${pts.archivo.meses:12}") int meses,
+                      @Value("${pts.archivo.lote:500}") int lote,
+                      @Value("${pts.archivo.intervalo-min:1440}") long intervaloMin,
+                      @Value("${pts.particiones.convertir:false}") boolean convertir) {
+        this.jdbc = jdbc;
+        this.lectura = lectura;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.particiones = particiones;
+        this.activo = activo;
+        this.meses = Math.max(1, meses);
+        this.lote = Math.max(1, lote);
+        this.intervaloMin = Math.max(1, intervaloMin);
+        this.convertir = convertir;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        try {
+            actualizarArchivadoHasta();
+        } catch (DataAccessException e) {
+            log.debug("Tablas de archivo de PTS todavia no creadas");
+        }
+        if (activo) {
+            // Unos minutos despues del arranque, para no competir con la carga inicial
+            programador.scheduleWithFixedDelay(this::mantenimientoSeguro, 2, intervaloMin, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        programador.shutdownNow();
+    }
+
+    private void mantenimientoSeguro() {
+        try {
+            mantenimiento();
+        } catch (Exception e) {
+            log.error("Error en el mantenimiento del archivo de PTS", e);
+        }
+    }
+
+    void mantenimiento() {
+        crearTablas();
+        if (particiones.particionada()) {
+            particiones.agregarMesesFuturos();
+        } else if (convertir) {
+            particiones.convertir();
+        } else {
+            log.warn("{} no esta particionada; con pts.particiones.convertir=true se particiona en la proxima pasada", PTS);
+        }
+        archivar(LocalDate.now().withDayOfMonth(1).minusMonths(meses));
+    }
+
+    /**
+     * Mueve al archivo los PTS terminados con fechaInicio anterior a corte.
+     * @return PTS archivados
+     */
+    public int archivar(LocalDate corte) {
+        crearTablas();
+        long inicio = System.nanoTime();
+        int total = 0;
+        while (true) {
+            List<String> ids = jdbc.queryForList("SELECT p.id FROM " + PTS + " p"
+                    + " WHERE p.fechaInicio < ? AND p.rtoEstado IN (?, ?)"
+                    + " AND NOT EXISTS (SELECT 1 FROM retorno_operaciones r WHERE r.id = p.rtoAsociadoId AND r.estado = ?)"
+                    + " LIMIT ?", String.class, corte, EstadoPts.CERRADO, EstadoPts.CANCELADO, EstadoRto.ABIERTO, lote);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer movidos = transaccion.execute(estado -> moverLote(ids));
+            total += movidos == null ? 0 : movidos;
+            if (ids.size() < lote) {
+                break;
+            }
+        }
+        actualizarArchivadoHasta();
+        if (total > 0) {
+            log.info("{} PTS anteriores a {} archivados en {} ms", total, corte, (System.nanoTime() - inicio) / 1_000_000);
+        }
+        return total;
+    }
+
+    int moverLote(List<String> ids) {
+        String enIds = " WHERE " + "%s" + " IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        Object[] args = ids.toArray();
+        // Las tres tablas igual: lo que el archivo ya tuviera de estos PTS (un PTS archivado,
+        // vuelto a la tabla viva y archivado otra vez) se reemplaza por la version viva, asi
+        // padre e hijos no quedan duplicados ni de versiones distintas. Los hijos primero,
+        // leyendo de la tabla viva antes de borrar la fila padre
+        for (String hija : List.of(RIESGOS, ELEMENTOS)) {
+            String columnas = columnas(hija);
+            jdbc.update("DELETE FROM " + hija + SUFIJO + String.format(enIds, "pts_id"), args);
+            jdbc.update("INSERT INTO " + hija + SUFIJO + " (" + columnas + ") SELECT " + columnas + " FROM " + hija
+                    + String.format(enIds, "pts_id"), args);
+            jdbc.update("DELETE FROM " + hija + String.format(enIds, "pts_id"), args);
+        }
+        String columnas = columnas(PTS);
+        jdbc.update("DELETE FROM " + PTS + SUFIJO + String.format(enIds, "id"), args);
+        jdbc.update("INSERT INTO " + PTS + SUFIJO + " (" + columnas + ") SELECT " + columnas + " FROM " + PTS
+                + String.format(enIds, "id"), args);
+        return jdbc.update("DELETE FROM " + PTS + String.format(enIds, "id"), args);
+    }
+
+    // ---------- Lectura ----------
+
+    // true si un rango que empieza en desde puede tener PTS archivados
+    public boolean incluye(LocalDate desde) {
+        LocalDate hasta = archivadoHasta;
+        return hasta != null && (desde == null || !desde.isAfter(hasta));
+    }
+
+    // Mismos filtros que PtsRepository.buscar: fechaInicio en [desde, hastaExclusivo), null = sin limite
+    public List<PermisoTrabajoSeguro> buscar(LocalDate desde, LocalDate hastaExclusivo, String equipo, String usuario, String estado,
+                                             int limite, CamposSolicitados campos) {
+        if (!incluye(desde) || limite <= 0) {
+            return List.of();
+        }
+        return lectura.buscar(true, desde, hastaExclusivo, equipo, usuario, estado, limite, campos);
+    }
+
+    public PermisoTrabajoSeguro porId(String id, CamposSolicitados campos) {
+        if (archivadoHasta == null) {
+            return null;
+        }
+        return lectura.porId(true, id, campos);
+    }
+
+    public boolean contiene(String id) {
+        if (archivadoHasta == null) {
+            return false;
+        }
+        Integer cantidad = jdbc.queryForObject("SELECT COUNT(*) FROM " + PTS + SUFIJO + " WHERE id = ?", Integer.class, id);
+        return cantidad != null && cantidad > 0;
+    }
+
+    // IDs archivados que empiezan con prefijo: la numeracion de PTS no los reusa
+    public List<String> idsConPrefijo(String prefijo) {
+        if (archivadoHasta == null) {
+            return List.of();
+        }
+        return jdbc.queryForList("SELECT id FROM " + PTS + SUFIJO + " WHERE id LIKE ?", String.class, prefijo + "%");
+    }
+
+    // ---------- Tablas ----------
+
+    // Crea las tablas de archivo (sin particiones) y les agrega las columnas nuevas de las vivas
+    private void crearTablas() {
+        for (String tabla : List.of(PTS, RIESGOS, ELEMENTOS)) {
+            String archivo = tabla + SUFIJO;
+            jdbc.execute("CREATE TABLE IF NOT EXISTS " + archivo + " LIKE " + tabla);
+            Integer particionada = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.PARTITIONS"
+                    + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", Integer.class, archivo);
+            if (particionada != null && particionada > 0) {
+                jdbc.execute("ALTER TABLE " + archivo + " REMOVE PARTITIONING");
+            }
+            jdbc.query("SELECT c.COLUMN_NAME, c.COLUMN_TYPE FROM information_schema.COLUMNS c"
+                    + " WHERE c.TABLE_SCHEMA = DATABASE() AND c.TABLE_NAME = ? AND NOT EXISTS ("
+                    + " SELECT 1 FROM information_schema.COLUMNS a WHERE a.TABLE_SCHEMA = c.TABLE_SCHEMA"
+                    + " AND a.TABLE_NAME = ? AND a.COLUMN_NAME = c.COLUMN_NAME)", rs -> {
+                jdbc.execute("ALTER TABLE " + archivo + " ADD COLUMN `" + rs.getString(1) + "` " + rs.getString(2) + " NULL");
+            }, tabla, archivo);
+        }
+        asegurarIndice(PTS + SUFIJO, "idx_pts_archivo_fecha", "fechaInicio");
+        asegurarIndice(RIESGOS + SUFIJO, "idx_riesgos_archivo_pts", "pts_id");
+        asegurarIndice(ELEMENTOS + SUFIJO, "idx_elementos_archivo_pts", "pts_id");
+        if (!tablasListas) {
+            tablasListas = true;
+            actualizarArchivadoHasta();
+        }
+    }
+
+    private void asegurarIndice(String tabla, String nombre, String columna) {
+        Integer existe = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.STATISTICS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? AND SEQ_IN_INDEX = 1",
+                Integer.class, tabla, columna);
+        if (existe == null || existe == 0) {
+            jdbc.execute("ALTER TABLE " + tabla + " ADD INDEX " + nombre + " (" + columna + ")");
+        }
+    }
+
+    private String columnas(String tabla) {
+        return String.join(", ", jdbc.queryForList("SELECT CONCAT('`', COLUMN_NAME, '`') FROM information_schema.COLUMNS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION", String.class, tabla));
+    }
+
+    private void actualizarArchivadoHasta() {
+        archivadoHasta = jdbc.queryForObject("SELECT MAX(fechaInicio) FROM " + PTS + SUFIJO, LocalDate.class);
+    }
+}
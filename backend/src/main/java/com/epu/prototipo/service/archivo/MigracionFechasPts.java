@@ -0,0 +1,141 @@
+package com.epu.prototipo.service.archivo;
+
+import com.epu.prototipo.util.FechasPts;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pasa fechaInicio/fechaFin a DATE y horaInicio/horaFin a TIME en permisos_trabajo_seguro y en
+ * su tabla de archivo, si todavia son VARCHAR. ddl-auto=update no cambia tipos de columnas
+ * existentes, por eso se hace aca, al arrancar y antes de atender peticiones.
+ *
+ * Primero normaliza los valores que MySQL no convertiria tal cual (vacios, fecha con hora,
+ * DD/MM/AAAA, H:mm): se leen solo esas filas y se reescriben de a pts.migracion.lote. Lo que no
+ * se reconoce queda en NULL (y se loguea); un fechaInicio vacio se toma del ID del PTS. Despues
+ * un ALTER por tabla cambia los tipos, repitiendo el particionado si la tabla lo tiene.
+ */
+@Component
+@Profile("prod")
+public class MigracionFechasPts {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracionFechasPts.class);
+
+    private static final String FECHA_CANONICA = "'^[0-9]{4}-[0-9]{2}-[0-9]{2}$'";
+    private static final String HORA_CANONICA = "'^[0-9]{2}:[0-9]{2}(:[0-9]{2})?$'";
+
+    private final JdbcTemplate jdbc;
+    private final ParticionesPts particiones;
+    private final int lote;
+
+    public MigracionFechasPts(JdbcTemplate jdbc, ParticionesPts particiones,
+                              @Value("${pts.migracion.lote:1000}") int lote) {
+        this.jdbc = jdbc;
+        this.particiones = particiones;
+        this.lote = Math.max(1, lote);
+    }
+
+    @PostConstruct
+    void migrar() {
+        migrar(ParticionesPts.TABLA);
+        migrar(ParticionesPts.TABLA + "_archivo");
+    }
+
+    private void migrar(String tabla) {
+        Map<String, String> pendientes = new LinkedHashMap<>();
+        jdbc.query("SELECT COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()"
+                + " AND TABLE_NAME = ? AND DATA_TYPE IN ('varchar', 'char')"
+                + " AND COLUMN_NAME IN ('fechaInicio', 'fechaFin', 'horaInicio', 'horaFin')", rs -> {
+            String columna = rs.getString(1);
+            pendientes.put(columna, columna.startsWith("fecha") ? "DATE" : "TIME");
+        }, tabla);
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        String particionado = particiones.definicionActual(tabla);
+        int normalizadas = normalizar(tabla, pendientes, particionado != null);
+
+        List<String> cambios = new ArrayList<>();
+        pendientes.forEach((columna, tipo) -> cambios.add("MODIFY `" + columna + "` " + tipo
+                + ("fechaInicio".equals(columna) && particionado != null ? " NOT NULL" : " NULL")));
+        jdbc.execute("ALTER TABLE " + tabla + " " + String.join(", ", cambios) + (particionado != null ? particionado : ""));
+        log.info("{}: columnas {} convertidas a DATE/TIME ({} filas normalizadas) en {} ms", tabla, pendientes.keySet(),
+                normalizadas, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // Reescribe en formato AAAA-MM-DD / HH:mm:ss las filas con algun valor no canonico
+    private int normalizar(String tabla, Map<String, String> pendientes, boolean particionada) {
+        List<String> condiciones = new ArrayList<>();
+        pendientes.forEach((columna, tipo) -> condiciones.add("(`" + columna + "` IS NOT NULL AND (`" + columna
+                + "` NOT REGEXP " + ("DATE".equals(tipo) ? FECHA_CANONICA + " OR STR_TO_DATE(`" + columna
+                + "`, '%Y-%m-%d') IS NULL" : HORA_CANONICA) + "))"));
+        if (particionada && pendientes.containsKey("fechaInicio")) {
+            condiciones.add("fechaInicio IS NULL");
+        }
+        List<String> columnas = new ArrayList<>(pendientes.keySet());
+        String select = "SELECT id, `" + String.join("`, `", columnas) + "` FROM " + tabla
+                + " WHERE " + String.join(" OR ", condiciones);
+        String update = "UPDATE " + tabla + " SET `" + String.join("` = ?, `", columnas) + "` = ? WHERE id = ?";
+
+        List<Object[]> filas = new ArrayList<>();
+        int[] total = {0, 0};
+        jdbc.query(select, rs -> {
+            String id = rs.getString(1);
+            Object[] valores = new Object[columnas.size() + 1];
+            for (int i = 0; i < columnas.size(); i++) {
+                String columna = columnas.get(i);
+                String texto = rs.getString(i + 2);
+                String valor = normalizado(columna, texto);
+                if (valor == null && "fechaInicio".equals(columna)) {
+                    LocalDate delId = FechasPts.fechaDelId(id);
+                    valor = delId != null ? delId.toString() : particionada ? ParticionesPts.SIN_FECHA.toString() : null;
+                }
+                if (valor == null && texto != null && !texto.isBlank()) {
+                    total[1]++;
+                    log.warn("{} {}: {}='{}' no es una fecha/hora valida, queda vacio", tabla, id, columna, texto);
+                }
+                valores[i] = valor;
+            }
+            valores[columnas.size()] = id;
+            filas.add(valores);
+            if (filas.size() == lote) {
+                jdbc.batchUpdate(update, filas);
+                total[0] += filas.size();
+                filas.clear();
+            }
+        });
+        if (!filas.isEmpty()) {
+            jdbc.batchUpdate(update, filas);
+            total[0] += filas.size();
+        }
+        if (total[1] > 0) {
+            log.warn("{}: {} valores de fecha/hora no reconocidos quedaron en NULL", tabla, total[1]);
+        }
+        return total[0];
+    }
+
+    private static String normalizado(String columna, String texto) {
+        try {
+            if (columna.startsWith("fecha")) {
+                LocalDate fecha = FechasPts.fecha(texto);
+                return fecha != null ? fecha.toString() : null;
+            }
+            LocalTime hora = FechasPts.hora(texto);
+            return hora != null ? hora.toString() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.epu.prototipo.service.archivo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Particionado mensual de permisos_trabajo_seguro por fechaInicio (RANGE COLUMNS sobre la
+ * columna DATE).
+ *
+ * Layout: p_inicial (anteriores al primer mes con datos; los PTS sin fecha quedan en
+ * {@link #SIN_FECHA}), un pAAAAMM por mes hasta
+ * pts.particiones.meses-adelante meses en el futuro y p_futuro (MAXVALUE). Las busquedas por
+ * fecha o rango solo leen las particiones de esos meses y el archivado borra de las viejas.
+ * MySQL exige que la clave primaria incluya la columna de particion (queda id, fechaInicio) y
+ * la unicidad del ID la asegura MysqlPtsService.createPts: los ID nuevos llevan la fecha de
+ * alta y se numeran por prefijo, asi dos filas con el mismo ID tendrian la misma fecha y la PK
+ * las rechaza. MySQL tampoco admite claves foraneas en
+ * tablas particionadas: se quitan las de riesgos y elementos de seguridad, que ya no se crean
+ * (ConstraintMode.NO_CONSTRAINT en PtsEntity).
+ */
+@Component
+@Profile("prod")
+public class ParticionesPts {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionesPts.class);
+
+    static final String TABLA = "permisos_trabajo_seguro";
+    // fechaInicio de los PTS que no la tenian: la columna de particion no admite NULL
+    public static final LocalDate SIN_FECHA = LocalDate.of(1970, 1, 1);
+    private static final String INICIAL = "p_inicial";
+    private static final String FUTURO = "p_futuro";
+    private static final DateTimeFormatter NOMBRE = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbc;
+    private final int mesesAdelante;
+
+    public ParticionesPts(JdbcTemplate jdbc, @Value("${pts.particiones.meses-adelante:3}") int mesesAdelante) {
+        this.jdbc = jdbc;
+        this.mesesAdelante = Math.max(1, mesesAdelante);
+    }
+
+    public boolean particionada() {
+        Integer cantidad = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.PARTITIONS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", Integer.class, TABLA);
+        return cantidad != null && cantidad > 0;
+    }
+
+    /**
+     * Pasa la tabla al layout mensual. Reconstruye la tabla completa (bloquea escrituras mientras
+     * dura): pensado para una ventana de mantenimiento, con pts.particiones.convertir=true.
+     */
+    public void convertir() {
+        for (String[] fk : jdbc.query("SELECT TABLE_NAME, CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS"
+                        + " WHERE CONSTRAINT_SCHEMA = DATABASE() AND (REFERENCED_TABLE_NAME = ? OR TABLE_NAME = ?)",
+                (rs, n) -> new String[] {rs.getString(1), rs.getString(2)}, TABLA, TABLA)) {
+            jdbc.execute("ALTER TABLE `" + fk[0] + "` DROP FOREIGN KEY `" + fk[1] + "`");
+        }
+        jdbc.update("UPDATE " + TABLA + " SET fechaInicio = ? WHERE fechaInicio IS NULL", SIN_FECHA);
+
+        LocalDate minima = jdbc.queryForObject("SELECT MIN(fechaInicio) FROM " + TABLA + " WHERE fechaInicio > ?",
+                LocalDate.class, SIN_FECHA);
+        YearMonth desde = YearMonth.from(minima != null ? minima : LocalDate.now());
+        List<String> particiones = new ArrayList<>();
+        particiones.add("PARTITION " + INICIAL + " VALUES LESS THAN ('" + desde.atDay(1) + "')");
+        particiones.addAll(mensuales(desde, YearMonth.now().plusMonths(mesesAdelante)));
+        particiones.add("PARTITION " + FUTURO + " VALUES LESS THAN (MAXVALUE)");
+
+        long inicio = System.nanoTime();
+        jdbc.execute("ALTER TABLE " + TABLA
+                + " MODIFY fechaInicio DATE NOT NULL,"
+                + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, fechaInicio)"
+                + " PARTITION BY RANGE COLUMNS (fechaInicio) (" + String.join(", ", particiones) + ")");
+        log.info("{} particionada por mes desde {} ({} particiones) en {} ms", TABLA, desde, particiones.size(),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Crea los meses que faltan hasta pts.particiones.meses-adelante partiendo p_futuro, que en
+     * uso normal esta vacia, asi que la reorganizacion no mueve filas.
+     * @return particiones agregadas
+     */
+    public int agregarMesesFuturos() {
+        List<String> nombres = jdbc.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL"
+                + " ORDER BY PARTITION_ORDINAL_POSITION", String.class, TABLA);
+        YearMonth ultimo = null;
+        for (String nombre : nombres) {
+            if (!INICIAL.equals(nombre) && !FUTURO.equals(nombre)) {
+                ultimo = YearMonth.parse(nombre, NOMBRE);
+            }
+        }
+        YearMonth hasta = YearMonth.now().plusMonths(mesesAdelante);
+        YearMonth desde = ultimo == null ? YearMonth.now() : ultimo.plusMonths(1);
+        if (!nombres.contains(FUTURO) || desde.isAfter(hasta)) {
+            return 0;
+        }
+        List<String> nuevas = mensuales(desde, hasta);
+        jdbc.execute("ALTER TABLE " + TABLA + " REORGANIZE PARTITION " + FUTURO + " INTO ("
+                + String.join(", ", nuevas) + ", PARTITION " + FUTURO + " VALUES LESS THAN (MAXVALUE))");
+        log.info("Particiones de {} agregadas: {} a {}", TABLA, desde, hasta);
+        return nuevas.size();
+    }
+
+    /**
+     * Clausula PARTITION BY con el layout actual, para repetirla en un ALTER TABLE que cambia
+     * la columna de particion. null si la tabla no esta particionada.
+     */
+    public String definicionActual(String tabla) {
+        List<String> particiones = jdbc.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS"
+                        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL"
+                        + " ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, n) -> "PARTITION " + rs.getString(1) + " VALUES LESS THAN (" + rs.getString(2) + ")", tabla);
+        if (particiones.isEmpty()) {
+            return null;
+        }
+        return " PARTITION BY RANGE COLUMNS (fechaInicio) (" + String.join(", ", particiones) + ")";
+    }
+
+    private static List<String> mensuales(YearMonth desde, YearMonth hasta) {
+        List<String> particiones = new ArrayList<>();
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            particiones.add("PARTITION " + mes.format(NOMBRE) + " VALUES LESS THAN ('" + mes.plusMonths(1).atDay(1) + "')");
+        }
+        return particiones;
+    }
+}
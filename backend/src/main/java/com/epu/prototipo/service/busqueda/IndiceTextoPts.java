@@ -0,0 +1,186 @@
+package com.epu.prototipo.service.busqueda;
+
+import com.epu.prototipo.dto.CoincidenciaPtsDTO;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.util.FechasPts;
+import com.epu.prototipo.util.TextoBusqueda;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Indice FULLTEXT de los PTS para la busqueda de texto libre. InnoDB no admite FULLTEXT en
+ * tablas particionadas, asi que el texto (descripcion, tarea, ubicacion y riesgos/controles,
+ * normalizado con {@link TextoBusqueda}) vive en pts_texto, una fila por PTS. Se escribe en
+ * la misma transaccion que el alta o la edicion del PTS y no se borra al archivar, asi la
+ * busqueda cubre tambien los PTS archivados.
+ *
+ * Al arrancar, el hilo pts-texto indexa los PTS que no tienen fila (tabla recien creada o
+ * PTS cargados por fuera de la aplicacion), de a pts.busqueda.lote, recorriendo por id.
+ */
+@Component
+@Profile("prod")
+@DependsOn("entityManagerFactory")
+public class IndiceTextoPts {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceTextoPts.class);
+
+    private static final String TABLA = "pts_texto";
+
+    private final JdbcTemplate jdbc;
+    private final int lote;
+    private final ExecutorService completado = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pts-texto");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public IndiceTextoPts(JdbcTemplate jdbc, @Value("${pts.busqueda.lote:1000}") int lote) {
+        this.jdbc = jdbc;
+        this.lote = Math.max(1, lote);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + TABLA + " ("
+                + " id VARCHAR(50) NOT NULL PRIMARY KEY,"
+                + " texto MEDIUMTEXT NOT NULL,"
+                + " FULLTEXT INDEX ft_pts_texto (texto)"
+                + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+        completado.submit(() -> {
+            try {
+                completar("permisos_trabajo_seguro", "pts_riesgos_controles");
+                if (existe("permisos_trabajo_seguro_archivo")) {
+                    completar("permisos_trabajo_seguro_archivo", "pts_riesgos_controles_archivo");
+                }
+            } catch (Exception e) {
+                log.error("Error al completar el indice de texto de PTS", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        completado.shutdownNow();
+    }
+
+    public void indexar(PermisoTrabajoSeguro pts) {
+        jdbc.update("REPLACE INTO " + TABLA + " (id, texto) VALUES (?, ?)", pts.getId(), TextoBusqueda.texto(pts));
+    }
+
+    /**
+     * Ids de los PTS que contienen todos los terminos (como prefijo: "mec" encuentra
+     * "mecanico"), de mayor a menor relevancia.
+     * @return id -> relevancia, en orden
+     */
+    public Map<String, Double> buscar(List<String> terminos, int pagina, int tamanio) {
+        Map<String, Double> ids = new LinkedHashMap<>();
+        String expresion = expresion(terminos);
+        jdbc.query("SELECT id, MATCH(texto) AGAINST (? IN BOOLEAN MODE) AS relevancia FROM " + TABLA
+                        + " WHERE MATCH(texto) AGAINST (? IN BOOLEAN MODE) ORDER BY relevancia DESC, id DESC LIMIT ? OFFSET ?",
+                rs -> { ids.put(rs.getString(1), rs.getDouble(2)); },
+                expresion, expresion, tamanio, (long) pagina * tamanio);
+        return ids;
+    }
+
+    public long contar(List<String> terminos) {
+        Long total = jdbc.queryForObject("SELECT COUNT(*) FROM " + TABLA + " WHERE MATCH(texto) AGAINST (? IN BOOLEAN MODE)",
+                Long.class, expresion(terminos));
+        return total != null ? total : 0;
+    }
+
+    // Datos de la lista de los PTS vivos; los que no estan (archivados) quedan afuera del mapa
+    public Map<String, CoincidenciaPtsDTO> resumenes(Map<String, Double> relevancias) {
+        Map<String, CoincidenciaPtsDTO> resumenes = new LinkedHashMap<>();
+        if (relevancias.isEmpty()) {
+            return resumenes;
+        }
+        jdbc.query("SELECT id, equipoOInstalacion, descripcionTrabajo, ubicacion, fechaInicio, rtoEstado"
+                        + " FROM permisos_trabajo_seguro WHERE id IN (" + marcas(relevancias.size()) + ")",
+                rs -> {
+                    String id = rs.getString(1);
+                    resumenes.put(id, new CoincidenciaPtsDTO(id, rs.getString(2), rs.getString(3), rs.getString(4),
+                            FechasPts.texto(rs.getObject(5, LocalDate.class)), rs.getString(6), relevancias.get(id)));
+                }, relevancias.keySet().toArray());
+        return resumenes;
+    }
+
+    // +termino* por cada termino: todos obligatorios, como prefijo
+    private static String expresion(List<String> terminos) {
+        StringBuilder expresion = new StringBuilder();
+        for (String t : terminos) {
+            expresion.append(expresion.length() == 0 ? "" : " ").append('+').append(t).append('*');
+        }
+        return expresion.toString();
+    }
+
+    private void completar(String tabla, String riesgos) {
+        long inicio = System.nanoTime();
+        long indexados = 0;
+        String ultimo = "";
+        while (!Thread.currentThread().isInterrupted()) {
+            List<String> recorridos = new ArrayList<>();
+            Map<String, PermisoTrabajoSeguro> faltantes = new LinkedHashMap<>();
+            // Avanza por id para no volver a leer los ya indexados en cada lote
+            jdbc.query("SELECT p.id, t.id IS NULL, p.descripcionTrabajo, p.tareaDetallada, p.ubicacion FROM " + tabla + " p"
+                    + " LEFT JOIN " + TABLA + " t ON t.id = p.id WHERE p.id > ? ORDER BY p.id LIMIT ?", rs -> {
+                recorridos.add(rs.getString(1));
+                if (rs.getBoolean(2)) {
+                    PermisoTrabajoSeguro p = new PermisoTrabajoSeguro();
+                    p.setId(rs.getString(1));
+                    p.setDescripcionTrabajo(rs.getString(3));
+                    p.setTareaDetallada(rs.getString(4));
+                    p.setUbicacion(rs.getString(5));
+                    p.setRiesgosControles(new ArrayList<>());
+                    faltantes.put(p.getId(), p);
+                }
+            }, ultimo, lote);
+            if (!faltantes.isEmpty()) {
+                jdbc.query("SELECT pts_id, peligro, consecuencia, controlRequerido FROM " + riesgos
+                        + " WHERE pts_id IN (" + marcas(faltantes.size()) + ")", rs -> {
+                    faltantes.get(rs.getString(1)).getRiesgosControles().add(
+                            new PermisoTrabajoSeguro.RiesgoControl(rs.getString(2), rs.getString(3), rs.getString(4)));
+                }, faltantes.keySet().toArray());
+                List<Object[]> filas = new ArrayList<>(faltantes.size());
+                for (PermisoTrabajoSeguro p : faltantes.values()) {
+                    filas.add(new Object[] {p.getId(), TextoBusqueda.texto(p)});
+                }
+                // INSERT IGNORE: si un alta lo indexo mientras tanto, queda esa version
+                jdbc.batchUpdate("INSERT IGNORE INTO " + TABLA + " (id, texto) VALUES (?, ?)", filas);
+                indexados += filas.size();
+            }
+            if (recorridos.size() < lote) {
+                break;
+            }
+            ultimo = recorridos.get(recorridos.size() - 1);
+        }
+        if (indexados > 0) {
+            log.info("Indice de texto: {} PTS de {} indexados en {} ms", indexados, tabla, (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    private boolean existe(String tabla) {
+        Integer cantidad = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.TABLES"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", Integer.class, tabla);
+        return cantidad != null && cantidad > 0;
+    }
+
+    private static String marcas(int cantidad) {
+        return String.join(", ", Collections.nCopies(cantidad, "?"));
+    }
+}
@@ -0,0 +1,329 @@
+package com.epu.prototipo.service.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pipeline asincrono de comandos hacia el DCS.
+ *
+ * Cada controlador tiene su propia cola y un unico hilo que la consume, por lo que
+ * los comandos de un mismo tag se envian en el orden en que se encolaron. El hilo
+ * agrupa los comandos pendientes del controlador en lotes, aplica un timeout por
+ * envio y reintenta con backoff exponencial y jitter. Un lote que vencio por timeout
+ * no se reintenta: parte de sus tramas pudo haber llegado al DCS y reenviarlo podria
+ * aplicar un habilitar/deshabilitar dos veces o fuera de orden; lo mismo si el gateway
+ * informa su propio timeout (una excepcion con TimeoutException como causa). Un comando
+ * que el gateway no acepta (IllegalArgumentException, por ejemplo un tag sin mapear) falla
+ * solo, sin reintentos y sin contar como falla del DCS en el circuito. El resultado se
+ * informa con el CompletableFuture devuelto por {@link #enviar(String, String)}.
+ *
+ * Cada controlador tiene ademas su {@link CircuitoDcs}: con el circuito abierto los
+ * comandos fallan al instante con {@link DcsNoDisponibleException}, sin encolarse ni
+ * esperar timeouts, y el equipo pasa a SIN_CONEXION por el camino habitual.
+ */
+@Component
+public class AsyncDcsGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncDcsGateway.class);
+
+    private final DcsGateway dcsGateway;
+    private final int loteMaximo;
+    private final long timeoutMs;
+    private final int reintentos;
+    private final long backoffMs;
+    private final Map<String, String> controladoresPorPrefijo;
+    private final String controladorPorDefecto;
+    private final int fallasParaAbrir;
+    private final long aperturaMs;
+    private final int concurrenciaMaxima;
+
+    private final Map<String, CircuitoDcs> circuitos = new ConcurrentHashMap<>();
+    private final Map<String, ColaControlador> colas = new ConcurrentHashMap<>();
+    private final ExecutorService llamadas;
+    private final MeterRegistry registro;
+    private volatile boolean activo = true;
+
+    public AsyncDcsGateway(DcsGateway dcsGateway,
+                           @Value("${dcs.pipeline.lote-maximo:20}") int loteMaximo,
+                           @Value("${dcs.pipeline.timeout-ms:2000}") long timeoutMs,
+                           @Value("${dcs.pipeline.reintentos:3}") int reintentos,
+                           @Value("${dcs.pipeline.backoff-ms:200}") long backoffMs,
+                           @Value("${dcs.controladores:}") String controladores,
+                           @Value("${dcs.controlador-por-defecto:DCS}") String controladorPorDefecto,
+                           @Value("${dcs.resiliencia.fallas-para-abrir:5}") int fallasParaAbrir,
+                           @Value("${dcs.resiliencia.apertura-ms:10000}") long aperturaMs,
+                           @Value("${dcs.resiliencia.concurrencia-maxima:3}") int concurrenciaMaxima,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales,
+                           MeterRegistry registro) {
+        this.dcsGateway = dcsGateway;
+        this.registro = registro;
+        this.loteMaximo = Math.max(1, loteMaximo);
+        this.timeoutMs = timeoutMs;
+        this.reintentos = Math.max(0, reintentos);
+        this.backoffMs = backoffMs;
+        this.controladoresPorPrefijo = parsearControladores(controladores);
+        this.controladorPorDefecto = controladorPorDefecto;
+        this.fallasParaAbrir = fallasParaAbrir;
+        this.aperturaMs = aperturaMs;
+        this.concurrenciaMaxima = concurrenciaMaxima;
+        // Las llamadas pasan casi todo el tiempo esperando al DCS: en modo virtual no ocupan un hilo de plataforma
+        this.llamadas = hilosVirtuales
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dcs-llamada-", 0).factory())
+                : Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r, "dcs-llamada");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Encola un comando para el tag. El futuro se completa cuando el DCS confirma
+     * el comando, o con excepcion si se agotaron los reintentos.
+     */
+    public CompletableFuture<Void> enviar(String tag, String estadoObjetivo) {
+        ComandoDcs comando = new ComandoDcs(tag, estadoObjetivo);
+        if (!activo) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Pipeline DCS detenido"));
+        }
+        try {
+            dcsGateway.validar(comando);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String controlador = resolverControlador(tag);
+        if (circuito(controlador).estaAbierto()) {
+            return CompletableFuture.failedFuture(new DcsNoDisponibleException("Circuito DCS abierto para " + controlador));
+        }
+        Pendiente pendiente = new Pendiente(comando);
+        colas.computeIfAbsent(controlador, ColaControlador::new).cola.add(pendiente);
+        return pendiente.resultado;
+    }
+
+    /**
+     * Controlador que atiende el tag. Se configura con prefijos de tag,
+     * por ejemplo dcs.controladores=K=CTRL-COMP,P=CTRL-BOMBAS. Gana el prefijo mas largo.
+     */
+    public String resolverControlador(String tag) {
+        String elegido = controladorPorDefecto;
+        int largo = -1;
+        for (Map.Entry<String, String> e : controladoresPorPrefijo.entrySet()) {
+            if (tag.startsWith(e.getKey()) && e.getKey().length() > largo) {
+                elegido = e.getValue();
+                largo = e.getKey().length();
+            }
+        }
+        return elegido;
+    }
+
+    // Latencia vista por el pipeline (hasta el timeout como maximo) por controlador y resultado
+    private void medirLlamada(String controlador, String resultado, long inicio) {
+        Timer.builder("dcs.llamadas")
+                .description("Latencia de los envios de lotes al DCS")
+                .tag("controlador", controlador)
+                .tag("resultado", resultado)
+                .register(registro)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+
+    // Estado y metricas del circuito de cada controlador usado hasta ahora
+    public Map<String, Map<String, Object>> getMetricasCircuitos() {
+        Map<String, Map<String, Object>> metricas = new LinkedHashMap<>();
+        new TreeMap<>(circuitos).forEach((controlador, circuito) -> metricas.put(controlador, circuito.metricas()));
+        return metricas;
+    }
+
+    private CircuitoDcs circuito(String controlador) {
+        return circuitos.computeIfAbsent(controlador,
+                c -> new CircuitoDcs(c, fallasParaAbrir, aperturaMs, concurrenciaMaxima));
+    }
+
+    private static Map<String, String> parsearControladores(String valor) {
+        Map<String, String> mapa = new ConcurrentHashMap<>();
+        if (valor == null || valor.isBlank()) {
+            return mapa;
+        }
+        for (String par : valor.split(",")) {
+            String[] partes = par.split("=");
+            if (partes.length == 2 && !partes[0].isBlank() && !partes[1].isBlank()) {
+                mapa.put(partes[0].trim(), partes[1].trim());
+            }
+        }
+        return mapa;
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        colas.values().forEach(c -> c.hilo.interrupt());
+        llamadas.shutdownNow();
+    }
+
+    // Envia el lote con timeout y reintentos; devuelve la ultima falla o null si fue confirmado.
+    // Con timeout no se sabe que llego al DCS: se informa la falla sin reenviar
+    private Exception enviarConReintentos(String controlador, List<ComandoDcs> lote) {
+        CircuitoDcs circuito = circuito(controlador);
+        Exception ultimaFalla = null;
+        for (int intento = 0; intento <= reintentos && activo; intento++) {
+            if (intento > 0) {
+                esperarBackoff(intento);
+            }
+            // El lugar del bulkhead se libera cuando la llamada termina de verdad, no al vencer el timeout
+            if (!circuito.ocuparLugar()) {
+                ultimaFalla = new DcsNoDisponibleException("Demasiadas llamadas colgadas al DCS " + controlador);
+                continue;
+            }
+            if (!circuito.permitirLlamada()) {
+                circuito.liberarLugar();
+                return new DcsNoDisponibleException("Circuito DCS abierto para " + controlador);
+            }
+            long inicio = System.nanoTime();
+            Future<?> llamada;
+            try {
+                llamada = llamadas.submit(() -> {
+                    try {
+                        dcsGateway.enviarLote(controlador, lote);
+                    } finally {
+                        circuito.liberarLugar();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                circuito.liberarLugar();
+                return e;
+            }
+            try {
+                llamada.get(timeoutMs, TimeUnit.MILLISECONDS);
+                circuito.registrarExito(System.nanoTime() - inicio);
+                medirLlamada(controlador, "ok", inicio);
+                return null;
+            } catch (TimeoutException e) {
+                llamada.cancel(true);
+                circuito.registrarFalla(System.nanoTime() - inicio);
+                medirLlamada(controlador, "timeout", inicio);
+                log.warn("Timeout de {} ms enviando lote a {} (intento {}), no se reintenta", timeoutMs, controlador, intento + 1);
+                return new TimeoutException("Timeout de " + timeoutMs + " ms enviando " + lote + " a " + controlador);
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof IllegalArgumentException rechazo) {
+                    // El DCS no llego a intervenir: ni falla del circuito ni reintento
+                    circuito.liberarPrueba();
+                    medirLlamada(controlador, "rechazado", inicio);
+                    log.warn("Lote rechazado por el gateway DCS de {}: {}", controlador, rechazo.getMessage());
+                    return rechazo;
+                }
+                circuito.registrarFalla(System.nanoTime() - inicio);
+                if (vencio(causa)) {
+                    medirLlamada(controlador, "timeout", inicio);
+                    log.warn("Timeout del gateway enviando lote a {} (intento {}), no se reintenta", controlador, intento + 1);
+                    TimeoutException timeout = new TimeoutException(causa.getMessage());
+                    timeout.initCause(causa);
+                    return timeout;
+                }
+                medirLlamada(controlador, "error", inicio);
+                ultimaFalla = causa instanceof Exception ex ? ex : e;
+            } catch (InterruptedException e) {
+                llamada.cancel(true);
+                circuito.liberarPrueba();
+                Thread.currentThread().interrupt();
+                return e;
+            }
+            log.warn("Falla enviando lote a {} (intento {}): {}", controlador, intento + 1, ultimaFalla.getMessage());
+        }
+        return ultimaFalla;
+    }
+
+    // true si la falla tiene un TimeoutException en su cadena de causas
+    private static boolean vencio(Throwable falla) {
+        for (Throwable t = falla; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void esperarBackoff(int intento) {
+        long base = backoffMs * (1L << Math.min(intento - 1, 10));
+        long jitter = backoffMs > 0 ? ThreadLocalRandom.current().nextLong(backoffMs + 1) : 0;
+        try {
+            Thread.sleep(base + jitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Pendiente {
+        final ComandoDcs comando;
+        final CompletableFuture<Void> resultado = new CompletableFuture<>();
+
+        Pendiente(ComandoDcs comando) {
+            this.comando = comando;
+        }
+    }
+
+    // Cola y hilo consumidor de un controlador
+    private class ColaControlador implements Runnable {
+        final String controlador;
+        final BlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+        final Thread hilo;
+
+        ColaControlador(String controlador) {
+            this.controlador = controlador;
+            this.hilo = new Thread(this, "dcs-" + controlador);
+            this.hilo.setDaemon(true);
+            this.hilo.start();
+        }
+
+        @Override
+        public void run() {
+            List<Pendiente> lote = new ArrayList<>(loteMaximo);
+            while (activo) {
+                try {
+                    lote.add(cola.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                cola.drainTo(lote, loteMaximo - 1);
+
+                List<ComandoDcs> comandos = new ArrayList<>(lote.size());
+                lote.forEach(p -> comandos.add(p.comando));
+                Exception falla = enviarConReintentos(controlador, comandos);
+                for (Pendiente p : lote) {
+                    if (falla == null) {
+                        p.resultado.complete(null);
+                    } else {
+                        p.resultado.completeExceptionally(falla);
+                    }
+                }
+                lote.clear();
+            }
+            // Lo que quede en la cola no se va a enviar
+            Pendiente p;
+            while ((p = cola.poll()) != null) {
+                p.resultado.completeExceptionally(new IllegalStateException("Pipeline DCS detenido"));
+            }
+        }
+    }
+}
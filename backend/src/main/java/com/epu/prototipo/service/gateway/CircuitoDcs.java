@@ -0,0 +1,182 @@
+package com.epu.prototipo.service.gateway;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker y bulkhead de un controlador DCS.
+ *
+ * CERRADO: las llamadas pasan; tras fallasParaAbrir fallas seguidas se abre.
+ * ABIERTO: se rechaza todo sin llamar al DCS hasta que pasa aperturaMs.
+ * SEMI_ABIERTO: se deja pasar una unica llamada de prueba; si anda se cierra, si no
+ * vuelve a abrirse. El bulkhead limita las llamadas en curso, contando tambien las
+ * que vencieron por timeout pero siguen colgadas en el driver.
+ */
+public class CircuitoDcs {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitoDcs.class);
+
+    public enum Estado { CERRADO, ABIERTO, SEMI_ABIERTO }
+
+    private final String controlador;
+    private final int fallasParaAbrir;
+    private final long aperturaMs;
+    private final int concurrenciaMaxima;
+    private final Semaphore enCurso;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallasSeguidas;
+    private long abiertoHasta;
+    private boolean pruebaEnCurso;
+
+    private final AtomicLong llamadas = new AtomicLong();
+    private final AtomicLong fallas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final AtomicLong aperturas = new AtomicLong();
+    private final AtomicLong latenciaTotalNanos = new AtomicLong();
+    private final AtomicLong latenciaMaximaNanos = new AtomicLong();
+
+    public CircuitoDcs(String controlador, int fallasParaAbrir, long aperturaMs, int concurrenciaMaxima) {
+        this.controlador = controlador;
+        this.fallasParaAbrir = Math.max(1, fallasParaAbrir);
+        this.aperturaMs = aperturaMs;
+        this.concurrenciaMaxima = Math.max(1, concurrenciaMaxima);
+        this.enCurso = new Semaphore(this.concurrenciaMaxima);
+    }
+
+    /**
+     * Indica si se puede llamar al DCS ahora. Con el circuito abierto devuelve false
+     * hasta que vence la apertura; ahi pasa a SEMI_ABIERTO y autoriza una sola prueba.
+     */
+    public synchronized boolean permitirLlamada() {
+        if (estado == Estado.ABIERTO && System.currentTimeMillis() >= abiertoHasta) {
+            estado = Estado.SEMI_ABIERTO;
+            pruebaEnCurso = false;
+        }
+        boolean permitida = switch (estado) {
+            case CERRADO -> true;
+            case ABIERTO -> false;
+            case SEMI_ABIERTO -> {
+                if (pruebaEnCurso) {
+                    yield false;
+                }
+                pruebaEnCurso = true;
+                yield true;
+            }
+        };
+        if (!permitida) {
+            rechazadas.incrementAndGet();
+        }
+        return permitida;
+    }
+
+    // Rechazo rapido sin consumir la prueba del semi-abierto (para encolar)
+    public synchronized boolean estaAbierto() {
+        return estado == Estado.ABIERTO && System.currentTimeMillis() < abiertoHasta;
+    }
+
+    // Toma un lugar del bulkhead; false si ya hay concurrenciaMaxima llamadas en curso
+    public boolean ocuparLugar() {
+        if (enCurso.tryAcquire()) {
+            return true;
+        }
+        rechazadas.incrementAndGet();
+        return false;
+    }
+
+    public void liberarLugar() {
+        enCurso.release();
+    }
+
+    public synchronized void registrarExito(long nanos) {
+        registrarLatencia(nanos);
+        fallasSeguidas = 0;
+        pruebaEnCurso = false;
+        if (estado != Estado.CERRADO) {
+            log.info("Circuito {} CERRADO", controlador);
+        }
+        estado = Estado.CERRADO;
+    }
+
+    public synchronized void registrarFalla(long nanos) {
+        registrarLatencia(nanos);
+        fallas.incrementAndGet();
+        fallasSeguidas++;
+        pruebaEnCurso = false;
+        if (estado == Estado.SEMI_ABIERTO || fallasSeguidas >= fallasParaAbrir) {
+            if (estado != Estado.ABIERTO) {
+                aperturas.incrementAndGet();
+                log.warn("Circuito {} ABIERTO por {} ms tras {} fallas seguidas", controlador, aperturaMs, fallasSeguidas);
+            }
+            estado = Estado.ABIERTO;
+            abiertoHasta = System.currentTimeMillis() + aperturaMs;
+        }
+    }
+
+    // La llamada termino sin resultado (hilo interrumpido): no cuenta como falla del DCS,
+    // pero si era la prueba del semi-abierto hay que liberarla para que pase otra
+    public synchronized void liberarPrueba() {
+        pruebaEnCurso = false;
+    }
+
+    private void registrarLatencia(long nanos) {
+        llamadas.incrementAndGet();
+        latenciaTotalNanos.addAndGet(nanos);
+        latenciaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public String getControlador() {
+        return controlador;
+    }
+
+    public long getLlamadas() {
+        return llamadas.get();
+    }
+
+    public long getFallas() {
+        return fallas.get();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.get();
+    }
+
+    public long getAperturas() {
+        return aperturas.get();
+    }
+
+    public int getEnCurso() {
+        return concurrenciaMaxima - enCurso.availablePermits();
+    }
+
+    public double getLatenciaPromedioMs() {
+        long n = llamadas.get();
+        return n == 0 ? 0 : latenciaTotalNanos.get() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getLatenciaMaximaMs() {
+        return latenciaMaximaNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("estado", getEstado());
+        m.put("llamadas", getLlamadas());
+        m.put("fallas", getFallas());
+        m.put("rechazadas", getRechazadas());
+        m.put("aperturas", getAperturas());
+        m.put("enCurso", getEnCurso());
+        m.put("latenciaPromedioMs", getLatenciaPromedioMs());
+        m.put("latenciaMaximaMs", getLatenciaMaximaMs());
+        return m;
+    }
+}
@@ -0,0 +1,32 @@
+package com.epu.prototipo.service.gateway;
+
+import com.epu.prototipo.model.EstadoDcs;
+
+/**
+ * Comando a enviar al DCS para un equipo: habilitar o deshabilitar un tag.
+ */
+public class ComandoDcs {
+
+    private final String tag;
+    private final String estadoObjetivo; // HABILITADO o DESHABILITADO
+
+    public ComandoDcs(String tag, String estadoObjetivo) {
+        if (!EstadoDcs.HABILITADO.equals(estadoObjetivo) && !EstadoDcs.DESHABILITADO.equals(estadoObjetivo)) {
+            throw new IllegalArgumentException("Comando DCS no válido: " + estadoObjetivo);
+        }
+        this.tag = tag;
+        this.estadoObjetivo = estadoObjetivo;
+    }
+
+    public String getTag() { return tag; }
+    public String getEstadoObjetivo() { return estadoObjetivo; }
+
+    public boolean isHabilitar() {
+        return EstadoDcs.HABILITADO.equals(estadoObjetivo);
+    }
+
+    @Override
+    public String toString() {
+        return tag + "=" + estadoObjetivo;
+    }
+}
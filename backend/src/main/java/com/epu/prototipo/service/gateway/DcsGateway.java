@@ -1,6 +1,32 @@
 package com.epu.prototipo.service.gateway;
 
+import java.util.List;
+
 public interface DcsGateway {
     void deshabilitarEquipo(String tagEquipo);
     void habilitarEquipo(String tagEquipo);
+
+    /**
+     * Rechaza, antes de encolarlo, un comando que el DCS no puede recibir (por ejemplo un tag
+     * sin direccion configurada), para que no haga fallar al resto de su lote.
+     * @throws IllegalArgumentException si el comando no se puede enviar
+     */
+    default void validar(ComandoDcs comando) {
+    }
+
+    /**
+     * Envía en un solo viaje varios comandos dirigidos al mismo controlador.
+     * Por defecto los envía uno por uno; las implementaciones con protocolo real
+     * pueden agruparlos en una única trama. Si vence esperando la respuesta, la excepcion
+     * lleva como causa un TimeoutException: no se sabe que comandos llegaron y el lote no se reenvia.
+     */
+    default void enviarLote(String controlador, List<ComandoDcs> comandos) {
+        for (ComandoDcs comando : comandos) {
+            if (comando.isHabilitar()) {
+                habilitarEquipo(comando.getTag());
+            } else {
+                deshabilitarEquipo(comando.getTag());
+            }
+        }
+    }
 }
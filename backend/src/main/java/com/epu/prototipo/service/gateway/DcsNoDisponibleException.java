@@ -0,0 +1,12 @@
+package com.epu.prototipo.service.gateway;
+
+/**
+ * El comando no se envio porque el circuito del controlador esta abierto o su bulkhead
+ * esta lleno. El equipo queda SIN_CONEXION igual que ante una falla del DCS.
+ */
+public class DcsNoDisponibleException extends RuntimeException {
+
+    public DcsNoDisponibleException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,62 @@
+package com.epu.prototipo.service.gateway;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Envoltorio de un DcsGateway que simula la latencia (y opcionalmente fallas)
+ * de un viaje de ida y vuelta OPC/Modbus. Sirve para probar el pipeline
+ * asincrono localmente sin red de planta.
+ */
+public class LatenciaDcsGateway implements DcsGateway {
+
+    private final DcsGateway delegado;
+    private final long latenciaMs;
+    private final long jitterMs;
+    private final double tasaFallos;
+
+    public LatenciaDcsGateway(DcsGateway delegado, long latenciaMs, long jitterMs, double tasaFallos) {
+        this.delegado = delegado;
+        this.latenciaMs = latenciaMs;
+        this.jitterMs = jitterMs;
+        this.tasaFallos = tasaFallos;
+    }
+
+    @Override
+    public void deshabilitarEquipo(String tagEquipo) {
+        simularViaje();
+        delegado.deshabilitarEquipo(tagEquipo);
+    }
+
+    @Override
+    public void habilitarEquipo(String tagEquipo) {
+        simularViaje();
+        delegado.habilitarEquipo(tagEquipo);
+    }
+
+    @Override
+    public void validar(ComandoDcs comando) {
+        delegado.validar(comando);
+    }
+
+    // Un lote viaja en una sola trama: se paga la latencia una vez
+    @Override
+    public void enviarLote(String controlador, List<ComandoDcs> comandos) {
+        simularViaje();
+        delegado.enviarLote(controlador, comandos);
+    }
+
+    private void simularViaje() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long espera = latenciaMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Comando DCS interrumpido", e);
+        }
+        if (tasaFallos > 0 && random.nextDouble() < tasaFallos) {
+            throw new IllegalStateException("Falla simulada de comunicación con el DCS");
+        }
+    }
+}
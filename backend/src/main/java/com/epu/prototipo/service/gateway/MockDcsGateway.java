@@ -1,20 +1,33 @@
 package com.epu.prototipo.service.gateway;
 
+import com.epu.prototipo.config.LogMuestreado;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class MockDcsGateway implements DcsGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(MockDcsGateway.class);
+    private static final LogMuestreado MUESTREO = new LogMuestreado(20, 1, TimeUnit.SECONDS);
+
     @Override
     public void deshabilitarEquipo(String tagEquipo) {
-        System.out.println(">>> [MOCK_DCS_GATEWAY] Enviando comando OPC/Modbus...");
-        System.out.println("    -> TAG: " + tagEquipo + " | NUEVO ESTADO: 0 (DESHABILITADO)");
-        System.out.println("<<< [MOCK_DCS_GATEWAY] Comando confirmado por el DCS.");
+        registrar(tagEquipo, 0);
     }
 
     @Override
     public void habilitarEquipo(String tagEquipo) {
-        System.out.println(">>> [MOCK_DCS_GATEWAY] Enviando comando OPC/Modbus...");
-        System.out.println("    -> TAG: " + tagEquipo + " | NUEVO ESTADO: 1 (HABILITADO)");
-        System.out.println("<<< [MOCK_DCS_GATEWAY] Comando confirmado por el DCS.");
+        registrar(tagEquipo, 1);
+    }
+
+    // Simulado: el comando se confirma siempre; en pruebas de carga se muestrea
+    private static void registrar(String tagEquipo, int estado) {
+        if (log.isDebugEnabled() && MUESTREO.permitir()) {
+            log.debug("Comando DCS simulado confirmado: tag {} estado {} (+{} omitidos)",
+                    tagEquipo, estado, MUESTREO.tomarDescartados());
+        }
     }
 }
@@ -0,0 +1,164 @@
+package com.epu.prototipo.service.gateway.modbus;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conexion Modbus TCP persistente y pipelined.
+ *
+ * Las peticiones se escriben sin esperar la respuesta anterior; un hilo lector
+ * empareja cada respuesta con su peticion por el transaction id del encabezado MBAP.
+ * La escritura al socket se serializa con un ReentrantLock y no con synchronized: con
+ * hilos virtuales un bloqueo de I/O dentro de un monitor fija el hilo a su carrier.
+ */
+class ModbusConexion implements Closeable {
+
+    private final Socket socket;
+    private final OutputStream salida;
+    private final DataInputStream entrada;
+    private final AtomicInteger transacciones = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<byte[]>> pendientes = new ConcurrentHashMap<>();
+    private final ReentrantLock escritura = new ReentrantLock();
+    private volatile boolean abierta = true;
+
+    // Peticion en vuelo; con el transaction id se descarta si vence sin respuesta
+    record Peticion(int tx, CompletableFuture<byte[]> respuesta) {}
+
+    ModbusConexion(String host, int puerto, int timeoutConexionMs) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setKeepAlive(true);
+        socket.connect(new InetSocketAddress(host, puerto), timeoutConexionMs);
+        salida = new BufferedOutputStream(socket.getOutputStream());
+        entrada = new DataInputStream(socket.getInputStream());
+
+        Thread lector = new Thread(this::leerRespuestas, "modbus-lector-" + host + ":" + puerto);
+        lector.setDaemon(true);
+        lector.start();
+    }
+
+    boolean isAbierta() {
+        return abierta;
+    }
+
+    /**
+     * Escribe la PDU sin bloquear esperando la respuesta. La escritura se encola en el
+     * buffer; las tramas pendientes salen juntas al llamar a {@link #flush()}.
+     */
+    Peticion enviar(int unidad, byte[] pdu) {
+        CompletableFuture<byte[]> respuesta = new CompletableFuture<>();
+        if (!abierta) {
+            respuesta.completeExceptionally(new ModbusException("Conexión Modbus cerrada", null));
+            return new Peticion(-1, respuesta);
+        }
+        // El id es de 16 bits: se saltean los que todavia esperan respuesta
+        int tx;
+        do {
+            tx = transacciones.getAndIncrement() & 0xFFFF;
+        } while (pendientes.putIfAbsent(tx, respuesta) != null);
+
+        byte[] trama = new byte[7 + pdu.length];
+        trama[0] = (byte) (tx >> 8);
+        trama[1] = (byte) tx;
+        // bytes 2-3: protocol id = 0
+        trama[4] = (byte) ((pdu.length + 1) >> 8);
+        trama[5] = (byte) (pdu.length + 1);
+        trama[6] = (byte) unidad;
+        System.arraycopy(pdu, 0, trama, 7, pdu.length);
+        try {
+            escritura.lock();
+            try {
+                salida.write(trama);
+            } finally {
+                escritura.unlock();
+            }
+        } catch (IOException e) {
+            pendientes.remove(tx);
+            respuesta.completeExceptionally(new ModbusException("Error escribiendo trama Modbus", e));
+            cerrar(e);
+        }
+        return new Peticion(tx, respuesta);
+    }
+
+    /**
+     * Olvida una peticion que vencio sin respuesta. Si no, queda en pendientes hasta que
+     * se cierra la conexion y su respuesta tardia se toma como la de otra peticion cuando
+     * el transaction id se recicla. No hace nada si la respuesta ya llego.
+     */
+    void descartar(Peticion peticion) {
+        if (pendientes.remove(peticion.tx(), peticion.respuesta())) {
+            peticion.respuesta().cancel(false);
+        }
+    }
+
+    int getPendientes() {
+        return pendientes.size();
+    }
+
+    void flush() {
+        try {
+            escritura.lock();
+            try {
+                salida.flush();
+            } finally {
+                escritura.unlock();
+            }
+        } catch (IOException e) {
+            cerrar(e);
+        }
+    }
+
+    private void leerRespuestas() {
+        try {
+            while (abierta) {
+                int tx = entrada.readUnsignedShort();
+                entrada.readUnsignedShort(); // protocol id
+                int largo = entrada.readUnsignedShort();
+                entrada.readUnsignedByte(); // unidad
+                byte[] pdu = new byte[largo - 1];
+                entrada.readFully(pdu);
+
+                CompletableFuture<byte[]> respuesta = pendientes.remove(tx);
+                if (respuesta == null) {
+                    continue; // respuesta tardia de una peticion ya vencida
+                }
+                int funcion = pdu[0] & 0xFF;
+                if ((funcion & 0x80) != 0) {
+                    respuesta.completeExceptionally(new ModbusException(funcion & 0x7F, pdu.length > 1 ? pdu[1] & 0xFF : -1));
+                } else {
+                    respuesta.complete(pdu);
+                }
+            }
+        } catch (EOFException e) {
+            cerrar(new IOException("El esclavo Modbus cerró la conexión"));
+        } catch (IOException e) {
+            cerrar(e);
+        }
+    }
+
+    private void cerrar(IOException causa) {
+        abierta = false;
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+        ModbusException error = new ModbusException("Conexión Modbus perdida: " + causa.getMessage(), causa);
+        pendientes.values().forEach(f -> f.completeExceptionally(error));
+        pendientes.clear();
+    }
+
+    @Override
+    public void close() {
+        cerrar(new IOException("Conexión cerrada por el cliente"));
+    }
+}
@@ -0,0 +1,178 @@
+package com.epu.prototipo.service.gateway.modbus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Esclavo Modbus TCP en proceso, para probar el gateway sin red de planta.
+ *
+ * Atiende lectura/escritura de coils y holding registers (funciones 0x01, 0x03, 0x05,
+ * 0x06, 0x0F y 0x10) para cualquier unidad. Cada conexion se atiende en su propio hilo
+ * y las peticiones se responden en orden, como un equipo real. Con latenciaMs > 0 se
+ * demora cada respuesta para medir el efecto del pipelining.
+ */
+public class ModbusEsclavoSimulador implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ModbusEsclavoSimulador.class);
+
+    private final ServerSocket servidor;
+    private final long latenciaMs;
+    private final Map<Integer, Boolean> coils = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> registros = new ConcurrentHashMap<>();
+    private final AtomicLong peticionesAtendidas = new AtomicLong();
+    private volatile boolean activo = true;
+
+    /**
+     * @param puerto puerto TCP a escuchar; 0 toma uno libre (ver {@link #getPuerto()})
+     */
+    public ModbusEsclavoSimulador(int puerto, long latenciaMs) throws IOException {
+        this.servidor = new ServerSocket(puerto, 50, InetAddress.getLoopbackAddress());
+        this.latenciaMs = latenciaMs;
+        Thread aceptador = new Thread(this::aceptar, "modbus-simulador-" + getPuerto());
+        aceptador.setDaemon(true);
+        aceptador.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getLocalPort();
+    }
+
+    public boolean leerCoil(int unidad, int direccion) {
+        return coils.getOrDefault(clave(unidad, direccion), false);
+    }
+
+    public int leerRegistro(int unidad, int direccion) {
+        return registros.getOrDefault(clave(unidad, direccion), 0);
+    }
+
+    public long getPeticionesAtendidas() {
+        return peticionesAtendidas.get();
+    }
+
+    private static int clave(int unidad, int direccion) {
+        return (unidad << 16) | direccion;
+    }
+
+    private void aceptar() {
+        while (activo) {
+            try {
+                Socket cliente = servidor.accept();
+                cliente.setTcpNoDelay(true);
+                Thread atencion = new Thread(() -> atender(cliente), "modbus-simulador-cliente");
+                atencion.setDaemon(true);
+                atencion.start();
+            } catch (IOException e) {
+                if (activo) {
+                    log.warn("Error aceptando conexión: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void atender(Socket cliente) {
+        try (cliente;
+             DataInputStream entrada = new DataInputStream(cliente.getInputStream());
+             OutputStream salida = new BufferedOutputStream(cliente.getOutputStream())) {
+            while (activo) {
+                int tx = entrada.readUnsignedShort();
+                int protocolo = entrada.readUnsignedShort();
+                int largo = entrada.readUnsignedShort();
+                int unidad = entrada.readUnsignedByte();
+                byte[] pdu = new byte[largo - 1];
+                entrada.readFully(pdu);
+
+                if (latenciaMs > 0) {
+                    Thread.sleep(latenciaMs);
+                }
+                byte[] respuesta = procesar(unidad, pdu);
+                peticionesAtendidas.incrementAndGet();
+
+                salida.write(tx >> 8);
+                salida.write(tx);
+                salida.write(protocolo >> 8);
+                salida.write(protocolo);
+                salida.write((respuesta.length + 1) >> 8);
+                salida.write(respuesta.length + 1);
+                salida.write(unidad);
+                salida.write(respuesta);
+                // Solo se vacia el buffer cuando no quedan peticiones en espera
+                if (entrada.available() == 0) {
+                    salida.flush();
+                }
+            }
+        } catch (IOException e) {
+            // El cliente cerro la conexion
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] procesar(int unidad, byte[] pdu) {
+        int funcion = pdu[0] & 0xFF;
+        int direccion = pdu.length >= 3 ? ((pdu[1] & 0xFF) << 8) | (pdu[2] & 0xFF) : 0;
+        int valor = pdu.length >= 5 ? ((pdu[3] & 0xFF) << 8) | (pdu[4] & 0xFF) : 0;
+        switch (funcion) {
+            case 0x01: { // read coils: valor = cantidad
+                byte[] r = new byte[2 + (valor + 7) / 8];
+                r[0] = 0x01;
+                r[1] = (byte) ((valor + 7) / 8);
+                for (int i = 0; i < valor; i++) {
+                    if (leerCoil(unidad, direccion + i)) {
+                        r[2 + i / 8] |= (byte) (1 << (i % 8));
+                    }
+                }
+                return r;
+            }
+            case 0x03: { // read holding registers
+                byte[] r = new byte[2 + valor * 2];
+                r[0] = 0x03;
+                r[1] = (byte) (valor * 2);
+                for (int i = 0; i < valor; i++) {
+                    int v = leerRegistro(unidad, direccion + i);
+                    r[2 + i * 2] = (byte) (v >> 8);
+                    r[3 + i * 2] = (byte) v;
+                }
+                return r;
+            }
+            case 0x05: // write single coil
+                if (valor != 0xFF00 && valor != 0x0000) {
+                    return new byte[] {(byte) (funcion | 0x80), 0x03};
+                }
+                coils.put(clave(unidad, direccion), valor == 0xFF00);
+                return pdu;
+            case 0x06: // write single register
+                registros.put(clave(unidad, direccion), valor);
+                return pdu;
+            case 0x0F: // write multiple coils
+                for (int i = 0; i < valor; i++) {
+                    boolean on = (pdu[6 + i / 8] & (1 << (i % 8))) != 0;
+                    coils.put(clave(unidad, direccion + i), on);
+                }
+                return new byte[] {pdu[0], pdu[1], pdu[2], pdu[3], pdu[4]};
+            case 0x10: // write multiple registers
+                for (int i = 0; i < valor; i++) {
+                    registros.put(clave(unidad, direccion + i), ((pdu[6 + i * 2] & 0xFF) << 8) | (pdu[7 + i * 2] & 0xFF));
+                }
+                return new byte[] {pdu[0], pdu[1], pdu[2], pdu[3], pdu[4]};
+            default: // illegal function
+                return new byte[] {(byte) (funcion | 0x80), 0x01};
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        activo = false;
+        servidor.close();
+    }
+}
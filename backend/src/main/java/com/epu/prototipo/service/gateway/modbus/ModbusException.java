@@ -0,0 +1,21 @@
+package com.epu.prototipo.service.gateway.modbus;
+
+/**
+ * Respuesta de excepcion Modbus (codigo de funcion con el bit 0x80) o falla de transporte.
+ */
+public class ModbusException extends RuntimeException {
+
+    private final int codigoExcepcion;
+
+    public ModbusException(int funcion, int codigoExcepcion) {
+        super("Excepción Modbus " + codigoExcepcion + " en función 0x" + Integer.toHexString(funcion));
+        this.codigoExcepcion = codigoExcepcion;
+    }
+
+    public ModbusException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+        this.codigoExcepcion = -1;
+    }
+
+    public int getCodigoExcepcion() { return codigoExcepcion; }
+}
@@ -0,0 +1,167 @@
+package com.epu.prototipo.service.gateway.modbus;
+
+import com.epu.prototipo.model.EstadoDcs;
+import com.epu.prototipo.service.gateway.ComandoDcs;
+import com.epu.prototipo.service.gateway.DcsGateway;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DcsGateway sobre Modbus TCP.
+ *
+ * Mantiene un pool fijo de conexiones persistentes (se reconectan al caer) y escribe
+ * cada lote pipelined sobre una misma conexion: todas las tramas salen juntas y
+ * luego se esperan las respuestas. Cada tag se traduce a un coil o holding register
+ * segun el mapa configurado.
+ */
+public class ModbusTcpDcsGateway implements DcsGateway, Closeable {
+
+    private static final int WRITE_SINGLE_COIL = 0x05;
+    private static final int WRITE_SINGLE_REGISTER = 0x06;
+
+    private final String host;
+    private final int puerto;
+    private final int timeoutMs;
+    private final Map<String, PuntoModbus> mapa;
+    private final ModbusConexion[] pool;
+    private final AtomicInteger siguiente = new AtomicInteger();
+    // No synchronized: la reconexion abre un socket y fijaria un hilo virtual
+    private final ReentrantLock lockPool = new ReentrantLock();
+
+    public ModbusTcpDcsGateway(String host, int puerto, int conexiones, int timeoutMs, Map<String, PuntoModbus> mapa) {
+        this.host = host;
+        this.puerto = puerto;
+        this.timeoutMs = timeoutMs;
+        this.mapa = mapa;
+        this.pool = new ModbusConexion[Math.max(1, conexiones)];
+    }
+
+    @Override
+    public void deshabilitarEquipo(String tagEquipo) {
+        enviarLote(null, List.of(new ComandoDcs(tagEquipo, EstadoDcs.DESHABILITADO)));
+    }
+
+    @Override
+    public void habilitarEquipo(String tagEquipo) {
+        enviarLote(null, List.of(new ComandoDcs(tagEquipo, EstadoDcs.HABILITADO)));
+    }
+
+    // AsyncDcsGateway lo llama al encolar: un tag sin mapear falla solo, no con todo su lote
+    @Override
+    public void validar(ComandoDcs comando) {
+        punto(comando);
+    }
+
+    @Override
+    public void enviarLote(String controlador, List<ComandoDcs> comandos) {
+        // Validar el lote completo antes de escribir nada
+        List<PuntoModbus> puntos = new ArrayList<>(comandos.size());
+        for (ComandoDcs comando : comandos) {
+            puntos.add(punto(comando));
+        }
+
+        ModbusConexion conexion = obtenerConexion();
+        List<ModbusConexion.Peticion> peticiones = new ArrayList<>(comandos.size());
+        for (int i = 0; i < comandos.size(); i++) {
+            peticiones.add(conexion.enviar(puntos.get(i).getUnidad(), armarPdu(puntos.get(i), comandos.get(i).isHabilitar())));
+        }
+        conexion.flush();
+
+        try {
+            CompletableFuture.allOf(peticiones.stream().map(ModbusConexion.Peticion::respuesta).toArray(CompletableFuture[]::new))
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Con el TimeoutException como causa el pipeline no reenvia el lote: parte ya pudo aplicarse
+            throw new ModbusException("Timeout Modbus esperando " + comandos.size() + " respuestas de " + host + ":" + puerto, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof ModbusException me ? me : new ModbusException("Error Modbus", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusException("Envío Modbus interrumpido", e);
+        } finally {
+            // Las que siguen sin respuesta (timeout, error de otra del lote) no quedan registradas
+            peticiones.forEach(conexion::descartar);
+        }
+    }
+
+    private PuntoModbus punto(ComandoDcs comando) {
+        PuntoModbus punto = mapa.get(comando.getTag());
+        if (punto == null) {
+            throw new IllegalArgumentException("Tag sin dirección Modbus configurada: " + comando.getTag());
+        }
+        return punto;
+    }
+
+    static byte[] armarPdu(PuntoModbus punto, boolean habilitar) {
+        int dir = punto.getDireccion();
+        if (punto.getTipo() == PuntoModbus.Tipo.COIL) {
+            return new byte[] {
+                    WRITE_SINGLE_COIL, (byte) (dir >> 8), (byte) dir,
+                    (byte) (habilitar ? 0xFF : 0x00), 0x00
+            };
+        }
+        return new byte[] {
+                WRITE_SINGLE_REGISTER, (byte) (dir >> 8), (byte) dir,
+                0x00, (byte) (habilitar ? 1 : 0)
+        };
+    }
+
+    // Round-robin sobre el pool; una conexion caida se reabre en el momento
+    private ModbusConexion obtenerConexion() {
+        int i = Math.floorMod(siguiente.getAndIncrement(), pool.length);
+        lockPool.lock();
+        try {
+            ModbusConexion conexion = pool[i];
+            if (conexion == null || !conexion.isAbierta()) {
+                try {
+                    conexion = new ModbusConexion(host, puerto, timeoutMs);
+                } catch (IOException e) {
+                    throw new ModbusException("No se pudo conectar a " + host + ":" + puerto, e);
+                }
+                pool[i] = conexion;
+            }
+            return conexion;
+        } finally {
+            lockPool.unlock();
+        }
+    }
+
+    // Peticiones esperando respuesta en todo el pool
+    int getPendientes() {
+        lockPool.lock();
+        try {
+            int total = 0;
+            for (ModbusConexion conexion : pool) {
+                total += conexion == null ? 0 : conexion.getPendientes();
+            }
+            return total;
+        } finally {
+            lockPool.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lockPool.lock();
+        try {
+            for (int i = 0; i < pool.length; i++) {
+                if (pool[i] != null) {
+                    pool[i].close();
+                    pool[i] = null;
+                }
+            }
+        } finally {
+            lockPool.unlock();
+        }
+    }
+}
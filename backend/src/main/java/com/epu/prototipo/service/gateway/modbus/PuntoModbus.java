@@ -0,0 +1,66 @@
+package com.epu.prototipo.service.gateway.modbus;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ubicacion de un tag en el esclavo Modbus: unidad, tipo (coil o holding register) y direccion.
+ * Para registros se escribe 1 = HABILITADO y 0 = DESHABILITADO.
+ */
+public class PuntoModbus {
+
+    public enum Tipo { COIL, REGISTRO }
+
+    private final String tag;
+    private final Tipo tipo;
+    private final int unidad;
+    private final int direccion;
+
+    public PuntoModbus(String tag, Tipo tipo, int unidad, int direccion) {
+        if (unidad < 0 || unidad > 255) {
+            throw new IllegalArgumentException("Unidad Modbus fuera de rango para " + tag + ": " + unidad);
+        }
+        if (direccion < 0 || direccion > 0xFFFF) {
+            throw new IllegalArgumentException("Dirección Modbus fuera de rango para " + tag + ": " + direccion);
+        }
+        this.tag = tag;
+        this.tipo = tipo;
+        this.unidad = unidad;
+        this.direccion = direccion;
+    }
+
+    public String getTag() { return tag; }
+    public Tipo getTipo() { return tipo; }
+    public int getUnidad() { return unidad; }
+    public int getDireccion() { return direccion; }
+
+    /**
+     * Parsea el mapa de tags con formato tag=tipo:unidad:direccion separados por coma,
+     * por ejemplo: K7451=coil:1:100,P5511=registro:2:40
+     */
+    public static Map<String, PuntoModbus> parsearMapa(String valor) {
+        Map<String, PuntoModbus> mapa = new LinkedHashMap<>();
+        if (valor == null || valor.isBlank()) {
+            return mapa;
+        }
+        for (String entrada : valor.split(",")) {
+            String[] tagYPunto = entrada.trim().split("=");
+            String[] partes = tagYPunto.length == 2 ? tagYPunto[1].split(":") : new String[0];
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Entrada de mapa Modbus no válida: " + entrada);
+            }
+            String tag = tagYPunto[0].trim();
+            String tipoTexto = partes[0].trim();
+            Tipo tipo;
+            if ("coil".equalsIgnoreCase(tipoTexto)) {
+                tipo = Tipo.COIL;
+            } else if ("registro".equalsIgnoreCase(tipoTexto)) {
+                tipo = Tipo.REGISTRO;
+            } else {
+                throw new IllegalArgumentException("Tipo Modbus no válido (coil|registro): " + tipoTexto);
+            }
+            mapa.put(tag, new PuntoModbus(tag, tipo, Integer.parseInt(partes[1].trim()), Integer.parseInt(partes[2].trim())));
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,247 @@
+package com.epu.prototipo.service.outbox;
+
+import com.epu.prototipo.entity.OutboxEventoEntity;
+import com.epu.prototipo.repository.OutboxEventoRepository;
+import com.epu.prototipo.service.EstadoEquiposStore;
+import com.epu.prototipo.service.IEquipoService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aplica los eventos de outbox_eventos.
+ *
+ * Un solo hilo lee los pendientes en orden de id y los agrupa por equipo; cada grupo va a
+ * un hilo del pool y se aplica en orden, asi los efectos de un mismo equipo nunca se
+ * cruzan (bloquear de un PTS nuevo y liberar de un RTO cerrado) y equipos distintos
+ * avanzan en paralelo. Cada evento se aplica y se marca ENVIADO en una transaccion. Si
+ * falla queda con espera exponencial y los siguientes de su equipo esperan detras; los
+ * errores que no se arreglan reintentando (equipo inexistente) o que agotan los intentos
+ * lo dejan FALLIDO y el equipo sigue. Bloquear y liberar son idempotentes, asi que
+ * aplicar dos veces un evento (caida entre aplicarlo y marcarlo) no cambia el resultado.
+ *
+ * Los pendientes se leen sin reclamarlos y los efectos van a EstadoEquiposStore, que vive
+ * en memoria: corre una sola instancia del backend por base (InstanciaUnica). El orden
+ * por id es el de confirmacion dentro de cada equipo porque Outbox.encolar bloquea la
+ * fila del equipo antes de insertar el evento.
+ */
+@Component
+@Profile("prod")
+public class DespachadorOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachadorOutbox.class);
+
+    private static final long ESPERA_MAXIMA_MS = 60_000;
+
+    private final OutboxEventoRepository repo;
+    private final Outbox outbox;
+    private final IEquipoService equipoService;
+    private final EstadoEquiposStore estados;
+    private final TransactionTemplate transaccion;
+    private final long intervaloMs;
+    private final int lote;
+    private final int intentosMaximos;
+    private final long esperaBaseMs;
+    private final long retencionHoras;
+
+    private final ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "outbox-despacho");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService trabajadores;
+    private final AtomicBoolean despertado = new AtomicBoolean();
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong reintentos = new AtomicLong();
+
+    public DespachadorOutbox(OutboxEventoRepository repo, Outbox outbox, IEquipoService equipoService,
+                             EstadoEquiposStore estados, PlatformTransactionManager transactionManager,
+                             @Value("${outbox.despacho-ms:1000}") long intervaloMs,
+                             @Value("${outbox.lote:200}") int lote,
+                             @Value("${outbox.hilos:4}") int hilos,
+                             @Value("${outbox.intentos-maximos:10}") int intentosMaximos,
+                             @Value("${outbox.espera-base-ms:500}") long esperaBaseMs,
+                             @Value("${outbox.retencion-horas:72}") long retencionHoras) {
+        this.repo = repo;
+        this.outbox = outbox;
+        this.equipoService = equipoService;
+        this.estados = estados;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.intervaloMs = Math.max(50, intervaloMs);
+        this.lote = Math.max(1, lote);
+        this.intentosMaximos = Math.max(1, intentosMaximos);
+        this.esperaBaseMs = Math.max(0, esperaBaseMs);
+        this.retencionHoras = Math.max(1, retencionHoras);
+        AtomicInteger numero = new AtomicInteger();
+        this.trabajadores = Executors.newFixedThreadPool(Math.max(1, hilos), r -> {
+            Thread t = new Thread(r, "outbox-equipo-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PostConstruct
+    void iniciar() {
+        outbox.alEncolar(this::despertar);
+        // Al arrancar toma lo que quedo pendiente de la ejecucion anterior
+        programador.scheduleWithFixedDelay(this::despacharSeguro, 0, intervaloMs, TimeUnit.MILLISECONDS);
+        programador.scheduleWithFixedDelay(this::limpiar, 1, 1, TimeUnit.HOURS);
+    }
+
+    // Pide una pasada ya; varias llamadas seguidas se juntan en una
+    public void despertar() {
+        if (despertado.compareAndSet(false, true)) {
+            programador.execute(() -> {
+                despertado.set(false);
+                despacharSeguro();
+            });
+        }
+    }
+
+    private void despacharSeguro() {
+        try {
+            despachar();
+        } catch (Exception e) {
+            log.error("Error despachando eventos", e);
+        }
+    }
+
+    void despachar() throws InterruptedException {
+        while (true) {
+            List<OutboxEventoEntity> pendientes = repo.findByEstadoOrderByIdAsc(Outbox.PENDIENTE, PageRequest.of(0, lote));
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            Map<String, List<OutboxEventoEntity>> porEquipo = new LinkedHashMap<>();
+            pendientes.forEach(e -> porEquipo.computeIfAbsent(e.getEquipoTag(), t -> new ArrayList<>()).add(e));
+            List<Callable<Integer>> tareas = new ArrayList<>(porEquipo.size());
+            porEquipo.values().forEach(eventos -> tareas.add(() -> procesarEquipo(eventos)));
+            int procesados = 0;
+            for (var futuro : trabajadores.invokeAll(tareas)) {
+                try {
+                    procesados += futuro.get();
+                } catch (Exception e) {
+                    log.error("Error en un grupo de equipo", e);
+                }
+            }
+            // Lote incompleto o todo lo que queda esta esperando reintento: hasta el proximo sondeo
+            if (pendientes.size() < lote || procesados == 0) {
+                return;
+            }
+        }
+    }
+
+    private int procesarEquipo(List<OutboxEventoEntity> eventos) {
+        int procesados = 0;
+        long ahora = System.currentTimeMillis();
+        for (OutboxEventoEntity evento : eventos) {
+            // Mantener el orden: si uno espera reintento, los siguientes del equipo tambien
+            if (evento.getSiguienteIntento() > ahora || !procesar(evento)) {
+                break;
+            }
+            procesados++;
+        }
+        return procesados;
+    }
+
+    // true si el evento quedo resuelto (ENVIADO o FALLIDO) y se puede seguir con el siguiente
+    private boolean procesar(OutboxEventoEntity evento) {
+        try {
+            transaccion.executeWithoutResult(s -> {
+                aplicar(evento);
+                evento.setEstado(Outbox.ENVIADO);
+                evento.setProcesado(LocalDateTime.now());
+                repo.save(evento);
+            });
+            enviados.incrementAndGet();
+            return true;
+        } catch (RuntimeException e) {
+            evento.setEstado(Outbox.PENDIENTE);
+            evento.setProcesado(null);
+            evento.setIntentos(evento.getIntentos() + 1);
+            evento.setUltimoError(recortar(e.getClass().getSimpleName() + ": " + e.getMessage()));
+            boolean definitivo = e instanceof IllegalArgumentException || evento.getIntentos() >= intentosMaximos;
+            if (definitivo) {
+                evento.setEstado(Outbox.FALLIDO);
+                evento.setProcesado(LocalDateTime.now());
+                fallidos.incrementAndGet();
+                log.error("Evento {} {} de {} FALLIDO tras {} intentos: {}", evento.getId(), evento.getTipo(), evento.getEquipoTag(), evento.getIntentos(), e.getMessage());
+            } else {
+                long espera = Math.min(ESPERA_MAXIMA_MS, esperaBaseMs << Math.min(evento.getIntentos() - 1, 16));
+                evento.setSiguienteIntento(System.currentTimeMillis() + espera);
+                reintentos.incrementAndGet();
+            }
+            repo.save(evento);
+            return definitivo;
+        }
+    }
+
+    private void aplicar(OutboxEventoEntity evento) {
+        String tag = evento.getEquipoTag();
+        switch (evento.getTipo()) {
+            case Outbox.BLOQUEAR_EQUIPO -> equipoService.bloquearEquipo(equipoExistente(tag));
+            case Outbox.LIBERAR_EQUIPO -> equipoService.liberarEquipo(equipoExistente(tag));
+            default -> throw new IllegalArgumentException("Tipo de evento desconocido: " + evento.getTipo());
+        }
+    }
+
+    private String equipoExistente(String tag) {
+        if (!estados.contiene(tag)) {
+            throw new IllegalArgumentException("Equipo no encontrado con tag: " + tag);
+        }
+        return tag;
+    }
+
+    void limpiar() {
+        try {
+            int borrados = repo.borrarProcesados(Outbox.ENVIADO, LocalDateTime.now().minusHours(retencionHoras));
+            if (borrados > 0) {
+                log.info("{} eventos enviados depurados", borrados);
+            }
+        } catch (Exception e) {
+            log.warn("Error depurando eventos: {}", e.getMessage());
+        }
+    }
+
+    private static String recortar(String texto) {
+        return texto != null && texto.length() > 500 ? texto.substring(0, 500) : texto;
+    }
+
+    public Map<String, Object> getMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("pendientes", repo.countByEstado(Outbox.PENDIENTE));
+        metricas.put("fallidos", repo.countByEstado(Outbox.FALLIDO));
+        metricas.put("enviados", enviados.get());
+        metricas.put("reintentos", reintentos.get());
+        metricas.put("fallidosDesdeInicio", fallidos.get());
+        return metricas;
+    }
+
+    @PreDestroy
+    void detener() {
+        programador.shutdownNow();
+        trabajadores.shutdownNow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.epu.prototipo.service.outbox;
+
+import com.epu.prototipo.entity.OutboxEventoEntity;
+import com.epu.prototipo.repository.EquipoRepository;
+import com.epu.prototipo.repository.OutboxEventoRepository;
+import com.epu.prototipo.service.CambiosBroadcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Registro de efectos de PTS y RTO sobre equipos (bloqueo con su comando al DCS y
+ * liberacion) en la tabla outbox_eventos.
+ *
+ * encolar exige una transaccion abierta: el evento queda confirmado junto con el cambio
+ * que lo origina o no queda. Los aplica DespachadorOutbox, en orden por equipo.
+ *
+ * Antes de insertar se bloquea la fila del equipo: dos transacciones que encolan para el
+ * mismo equipo se serializan y el id del evento sigue el orden de confirmacion. Sin eso un
+ * id menor podria confirmarse despues de que el despachador aplico uno mayor.
+ */
+@Component
+@Profile("prod")
+public class Outbox {
+
+    private static final Logger log = LoggerFactory.getLogger(Outbox.class);
+
+    public static final String BLOQUEAR_EQUIPO = "BLOQUEAR_EQUIPO";
+    public static final String LIBERAR_EQUIPO = "LIBERAR_EQUIPO";
+
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String ENVIADO = "ENVIADO";
+    public static final String FALLIDO = "FALLIDO";
+
+    private final OutboxEventoRepository repo;
+    private final CambiosBroadcaster cambios;
+    private final EquipoRepository equipos;
+    private volatile Runnable aviso = () -> { };
+
+    public Outbox(OutboxEventoRepository repo, CambiosBroadcaster cambios, EquipoRepository equipos) {
+        this.repo = repo;
+        this.cambios = cambios;
+        this.equipos = equipos;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void encolar(String equipoTag, String tipo, String referencia) {
+        if (equipoTag == null || equipoTag.isBlank()) {
+            log.warn("{} de {} sin equipo, no se encola", tipo, referencia);
+            return;
+        }
+        String tag = equipoTag.trim();
+        // Un equipo inexistente no tiene fila que bloquear: el despachador lo deja FALLIDO
+        equipos.bloquearFila(tag);
+        repo.save(new OutboxEventoEntity(tag, tipo, referencia, PENDIENTE));
+        // Despierta al despachador al confirmar, sin esperar al proximo sondeo
+        cambios.despuesDelCommit(aviso);
+    }
+
+    void alEncolar(Runnable aviso) {
+        this.aviso = aviso;
+    }
+}
@@ -0,0 +1,130 @@
+package com.epu.prototipo.service.sintetico;
+
+import com.epu.prototipo.dto.UsuarioDTO;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.model.RetornoOperaciones;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carga de datos sinteticos al arrancar, con generador.activo=true. Por ejemplo, un millon
+ * de PTS en la MySQL de desarrollo:
+ *   java -jar backend.jar --generador.activo=true --generador.pts=1000000 --generador.salir=true
+ * Genera en lotes de generador.lote con {@link GeneradorDatosSinteticos} y los escribe en el
+ * {@link DestinoDatosSinteticos} del perfil. La clave de los usuarios se codifica una sola vez
+ * (PBKDF2 por usuario llevaria minutos). Con generador.salir=true la aplicacion termina al final.
+ */
+@Component
+@ConditionalOnProperty(name = "generador.activo", havingValue = "true")
+public class CargaDatosSinteticos implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaDatosSinteticos.class);
+
+    private final DestinoDatosSinteticos destino;
+    private final PasswordEncoder passwordEncoder;
+    private final ConfigurableApplicationContext contexto;
+    private final int equipos;
+    private final int usuarios;
+    private final long pts;
+    private final int lote;
+    private final String clave;
+    private final boolean salir;
+    private final GeneradorDatosSinteticos generador;
+
+    public CargaDatosSinteticos(DestinoDatosSinteticos destino,
+                                PasswordEncoder passwordEncoder,
+                                ConfigurableApplicationContext contexto,
+                                @Value("${generador.equipos:2000}") int equipos,
+                                @Value("${generador.usuarios:500}") int usuarios,
+                                @Value("${generador.pts:100000}") long pts,
+                                @Value("${generador.dias:365}") int dias,
+                                @Value("${generador.semilla:42}") long semilla,
+                                @Value("${generador.lote:1000}") int lote,
+                                @Value("${generador.clave:Sintetico.2025}") String clave,
+                                @Value("${generador.firma-bytes:4096}") int firmaBytes,
+                                @Value("${generador.salir:false}") boolean salir) {
+        this.destino = destino;
+        this.passwordEncoder = passwordEncoder;
+        this.contexto = contexto;
+        this.equipos = Math.max(1, equipos);
+        this.usuarios = usuarios;
+        this.pts = Math.max(0, pts);
+        this.lote = Math.max(1, lote);
+        this.clave = clave;
+        this.salir = salir;
+        this.generador = new GeneradorDatosSinteticos(semilla, this.equipos, usuarios, this.pts, dias,
+                LocalDate.now(), destino.formatoIdPts(), firmaBytes);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long inicio = System.nanoTime();
+        log.info("Generando datos sinteticos: {} equipos, {} usuarios, {} PTS", equipos, usuarios, pts);
+
+        int equiposCreados = 0;
+        for (int desde = 0; desde < equipos; desde += lote) {
+            List<Equipo> bloque = new ArrayList<>(lote);
+            for (int i = desde; i < Math.min(equipos, desde + lote); i++) {
+                bloque.add(generador.equipo(i));
+            }
+            equiposCreados += destino.equipos(bloque);
+        }
+
+        String claveCodificada = passwordEncoder.encode(clave);
+        int usuariosCreados = 0;
+        for (int desde = 0; desde < usuarios; desde += lote) {
+            List<UsuarioDTO> bloque = new ArrayList<>(lote);
+            for (int i = desde; i < Math.min(usuarios, desde + lote); i++) {
+                bloque.add(generador.usuario(i, claveCodificada));
+            }
+            usuariosCreados += destino.usuarios(bloque);
+        }
+        log.info("Equipos creados: {}, usuarios creados: {}", equiposCreados, usuariosCreados);
+
+        long ptsCreados = 0;
+        long rtosGenerados = 0;
+        long decimo = Math.max(1, pts / 10);
+        for (long desde = 0; desde < pts; desde += lote) {
+            List<PermisoTrabajoSeguro> bloque = new ArrayList<>(lote);
+            List<RetornoOperaciones> rtos = new ArrayList<>();
+            for (long i = desde; i < Math.min(pts, desde + lote); i++) {
+                PermisoTrabajoSeguro permiso = generador.pts(i);
+                bloque.add(permiso);
+                RetornoOperaciones rto = generador.rto(permiso);
+                if (rto != null) {
+                    rtos.add(rto);
+                }
+            }
+            ptsCreados += destino.pts(bloque, rtos);
+            rtosGenerados += rtos.size();
+            long hasta = Math.min(pts, desde + lote);
+            if (hasta / decimo > desde / decimo && hasta < pts) {
+                log.info("PTS: {} de {} ({} PTS/s)", hasta, pts, porSegundo(hasta, inicio));
+            }
+        }
+        log.info("Datos sinteticos listos en {} s: {} PTS creados, {} RTO generados ({} PTS/s)",
+                (System.nanoTime() - inicio) / 1_000_000_000L, ptsCreados, rtosGenerados, porSegundo(pts, inicio));
+
+        if (salir) {
+            System.exit(SpringApplication.exit(contexto, () -> 0));
+        }
+    }
+
+    private static long porSegundo(long cantidad, long inicio) {
+        long nanos = Math.max(1, System.nanoTime() - inicio);
+        return cantidad * 1_000_000_000L / nanos;
+    }
+}
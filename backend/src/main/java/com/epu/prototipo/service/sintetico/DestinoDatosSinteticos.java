@@ -0,0 +1,25 @@
+package com.epu.prototipo.service.sintetico;
+
+import com.epu.prototipo.dto.UsuarioDTO;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.model.RetornoOperaciones;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Donde escribe la carga de datos sinteticos segun el perfil. Cada llamada recibe un lote;
+// los registros que ya existen se omiten, asi que repetir la carga con la misma semilla no duplica.
+
+public interface DestinoDatosSinteticos {
+
+    // Fecha en el ID de PTS, igual que la que genera createPts del servicio del perfil
+    DateTimeFormatter formatoIdPts();
+
+    // @return cantidad de registros insertados
+    int equipos(List<Equipo> lote);
+
+    int usuarios(List<UsuarioDTO> lote);
+
+    int pts(List<PermisoTrabajoSeguro> lote, List<RetornoOperaciones> rtos);
+}
@@ -0,0 +1,350 @@
+package com.epu.prototipo.service.sintetico;
+
+import com.epu.prototipo.dto.UsuarioDTO;
+import com.epu.prototipo.model.CondicionEquipo;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.EstadoDcs;
+import com.epu.prototipo.model.EstadoPts;
+import com.epu.prototipo.model.EstadoRto;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.model.RetornoOperaciones;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genera equipos, usuarios, PTS (con riesgos y elementos de seguridad) y RTO sinteticos.
+ *
+ * Cada registro sale solo de la semilla y de su indice, asi que dos corridas con los mismos
+ * parametros producen los mismos datos y se pueden generar por lotes sin guardar estado.
+ * Los PTS se reparten en orden por los ultimos {@code dias} dias con numeracion correlativa
+ * por fecha (como el alta real); los viejos estan casi todos cerrados y los de hoy abiertos,
+ * en los turnos de 6, 14 y 22 hs. Los abiertos usan el primer decimo de los equipos, que se
+ * generan BLOQUEADOS. Los usuarios tienen legajo SIN00000..., rol segun el indice (ver
+ * {@link #rol(int)}) y todos la misma clave, para que el driver de carga pueda loguearse.
+ */
+public class GeneradorDatosSinteticos {
+
+    public static final String PREFIJO_LEGAJO = "SIN";
+
+    // Reparto de roles cada 20 usuarios: 10 emisores, 5 ejecutantes, 2 supervisores, 2 receptores, 1 RTO
+    private static final String[] ROLES_POR_INDICE = {
+            "EMISOR", "EMISOR", "EMISOR", "EMISOR", "EMISOR", "EMISOR", "EMISOR", "EMISOR", "EMISOR", "EMISOR",
+            "EJECUTANTE", "EJECUTANTE", "EJECUTANTE", "EJECUTANTE", "EJECUTANTE",
+            "SUPERVISOR", "SUPERVISOR", "RECEPTOR", "RECEPTOR", "RTO MANT"};
+
+    private static final String[][] TIPOS_EQUIPO = {
+            {"K", "Compresor de gas"}, {"P", "Bomba centrifuga"}, {"E", "Intercambiador de calor"},
+            {"T", "Tanque de almacenamiento"}, {"V", "Valvula motorizada"}, {"M", "Motor electrico"},
+            {"F", "Horno de proceso"}, {"C", "Columna de destilacion"}};
+    private static final String[] UNIDADES = {"Topping", "Vacio", "Cracking", "Reformado", "Servicios", "Despacho"};
+    private static final String[] NOMBRES = {"Juan", "Ana", "Carlos", "Maria", "Luis", "Patricia", "Roberto", "Sandra",
+            "Gabriel", "Lucia", "Diego", "Valeria", "Martin", "Carolina", "Pablo", "Florencia"};
+    private static final String[] APELLIDOS = {"Perez", "Gomez", "Sanchez", "Rodriguez", "Fernandez", "Diaz", "Morales",
+            "Torres", "Vega", "Lopez", "Martinez", "Romero", "Alvarez", "Herrera", "Castro", "Suarez"};
+    private static final String[] SECTORES = {"Operaciones Planta", "Mantenimiento Mecanico", "Mantenimiento Electrico",
+            "Instrumentos", "Control de Proceso", "Seguridad e Higiene", "Produccion"};
+    private static final String[] TAREAS = {"Cambio de sello mecanico", "Inspeccion de rodamientos", "Limpieza de filtro",
+            "Calibracion de transmisor", "Reparacion de fuga en brida", "Cambio de empaquetadura", "Megado de motor",
+            "Soldadura en linea de drenaje", "Reemplazo de valvula de seguridad", "Alineacion de acoplamiento"};
+    private static final String[] TIPOS_TRABAJO = {"Mecanico", "Electrico", "Instrumentos", "Trabajo en caliente",
+            "Espacio confinado", "Trabajo en altura"};
+    private static final String[] PASOS = {
+            "Verificar aislamiento y bloqueo del equipo con tarjeta personal.",
+            "Drenar y ventear el equipo hasta presion atmosferica.",
+            "Medir atmosfera explosiva antes de abrir y cada dos horas.",
+            "Delimitar el area de trabajo y colocar señalizacion.",
+            "Desmontar el componente y trasladarlo al taller.",
+            "Registrar las mediciones en la planilla de mantenimiento.",
+            "Montar, ajustar al torque indicado y probar estanqueidad.",
+            "Retirar herramientas, limpiar el area y avisar a operaciones."};
+    private static final String[][] RIESGOS = {
+            {"Energia electrica", "Electrocucion", "Bloqueo y etiquetado de tablero"},
+            {"Presion residual", "Proyeccion de fluido", "Despresurizar y verificar con manometro"},
+            {"Atmosfera explosiva", "Incendio o explosion", "Medicion con explosimetro"},
+            {"Superficie caliente", "Quemaduras", "Esperar enfriamiento y usar guantes termicos"},
+            {"Trabajo en altura", "Caida a distinto nivel", "Arnes y linea de vida"},
+            {"Sustancias toxicas", "Intoxicacion", "Equipo de respiracion autonoma"},
+            {"Partes moviles", "Atrapamiento", "Bloqueo mecanico del acoplamiento"},
+            {"Ruido", "Hipoacusia", "Proteccion auditiva"}};
+    private static final String[] ELEMENTOS_SEGURIDAD = {"Casco", "Anteojos de seguridad", "Guantes de cuero",
+            "Zapatos de seguridad", "Protector auditivo", "Arnes", "Mascara con filtro", "Ropa ignifuga", "Detector de gases"};
+    private static final String[] ESPECIALIDADES = {"Mecanica", "Electricidad", "Instrumentos", "Procesos"};
+    private static final int[] INICIO_TURNO = {6, 14, 22};
+
+    private static final DateTimeFormatter FECHA_RTO = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private final long semilla;
+    private final int equipos;
+    private final long pts;
+    private final int dias;
+    private final LocalDate hasta;
+    private final DateTimeFormatter formatoIdPts;
+    private final String firma;
+    private final int bloqueados;
+    private final int emisores;
+    private final int supervisores;
+    private final int receptores;
+    private final int responsablesRto;
+
+    /**
+     * @param formatoIdPts fecha del ID de PTS segun el servicio del perfil (yyMMdd en los dos perfiles)
+     * @param firmaBytes   tamaño de la firma en Base64 de los PTS firmados
+     */
+    public GeneradorDatosSinteticos(long semilla, int equipos, int usuarios, long pts, int dias, LocalDate hasta,
+                                    DateTimeFormatter formatoIdPts, int firmaBytes) {
+        if (usuarios < ROLES_POR_INDICE.length) {
+            throw new IllegalArgumentException("Se necesitan al menos " + ROLES_POR_INDICE.length + " usuarios");
+        }
+        this.semilla = semilla;
+        this.equipos = Math.max(1, equipos);
+        this.pts = Math.max(0, pts);
+        this.dias = Math.max(1, dias);
+        this.hasta = hasta;
+        this.formatoIdPts = formatoIdPts;
+        this.firma = "data:image/png;base64," + "A".repeat(Math.max(0, firmaBytes));
+        this.bloqueados = Math.max(1, this.equipos / 10);
+        this.emisores = cantidadConRol(usuarios, "EMISOR");
+        this.supervisores = cantidadConRol(usuarios, "SUPERVISOR");
+        this.receptores = cantidadConRol(usuarios, "RECEPTOR");
+        this.responsablesRto = cantidadConRol(usuarios, "RTO MANT");
+    }
+
+    // ---------- Nombres estables, usados tambien por el driver de carga ----------
+
+    public static String legajo(int indice) {
+        return String.format("%s%05d", PREFIJO_LEGAJO, indice);
+    }
+
+    public static String rol(int indice) {
+        return ROLES_POR_INDICE[indice % ROLES_POR_INDICE.length];
+    }
+
+    // Legajo del n-esimo usuario con ese rol (n desde 0)
+    public static String legajoConRol(String rol, int n) {
+        int porCiclo = 0;
+        for (String r : ROLES_POR_INDICE) {
+            if (r.equals(rol)) porCiclo++;
+        }
+        int enCiclo = n % porCiclo;
+        for (int i = 0; i < ROLES_POR_INDICE.length; i++) {
+            if (ROLES_POR_INDICE[i].equals(rol) && enCiclo-- == 0) {
+                return legajo((n / porCiclo) * ROLES_POR_INDICE.length + i);
+            }
+        }
+        throw new IllegalArgumentException("Rol desconocido: " + rol);
+    }
+
+    public static int cantidadConRol(int usuarios, String rol) {
+        int cantidad = 0;
+        for (int i = 0; i < usuarios; i++) {
+            if (rol(i).equals(rol)) cantidad++;
+        }
+        return cantidad;
+    }
+
+    public static String tagEquipo(int indice) {
+        return String.format("%s%05d", TIPOS_EQUIPO[indice % TIPOS_EQUIPO.length][0], indice);
+    }
+
+    // ---------- Registros ----------
+
+    public Equipo equipo(int i) {
+        String descripcion = TIPOS_EQUIPO[i % TIPOS_EQUIPO.length][1] + " - Unidad " + UNIDADES[(i / TIPOS_EQUIPO.length) % UNIDADES.length];
+        String condicion = i < bloqueados ? CondicionEquipo.BLOQUEADO : CondicionEquipo.DESBLOQUEADO;
+        return new Equipo(tagEquipo(i), descripcion, EstadoDcs.SIN_CONEXION, condicion);
+    }
+
+    public UsuarioDTO usuario(int i, String claveCodificada) {
+        SplittableRandom azar = azar(1, i);
+        UsuarioDTO usuario = new UsuarioDTO(legajo(i), nombre(azar), elegir(azar, SECTORES), rol(i));
+        usuario.setPassword(claveCodificada);
+        return usuario;
+    }
+
+    public PermisoTrabajoSeguro pts(long i) {
+        SplittableRandom azar = azar(2, i);
+        int dia = (int) (i * dias / pts);
+        long primeroDelDia = (dia * pts + dias - 1) / dias;
+        int numero = (int) (i - primeroDelDia + 1);
+        int diasAtras = dias - 1 - dia;
+        LocalDate fecha = hasta.minusDays(diasAtras);
+
+        String estado = estado(azar, diasAtras);
+        boolean abierto = !EstadoPts.CERRADO.equals(estado) && !EstadoPts.CANCELADO.equals(estado);
+        // Solo dias anteriores: createRto numera los de hoy contando los existentes
+        boolean requiereRto = EstadoPts.CERRADO.equals(estado) && diasAtras >= 1 && azar.nextDouble() < 0.15;
+        boolean rtoAbierto = requiereRto && diasAtras <= 7;
+        int equipo = abierto || rtoAbierto ? azar.nextInt(bloqueados) : azar.nextInt(equipos);
+
+        LocalDateTime inicio = fecha.atTime(elegir(azar, INICIO_TURNO), 0).plusMinutes(azar.nextInt(90));
+        LocalDateTime fin = inicio.plusHours(2 + azar.nextInt(7));
+
+        PermisoTrabajoSeguro p = new PermisoTrabajoSeguro();
+        p.setId(String.format("PTS-%s-%03d", fecha.format(formatoIdPts), numero));
+        p.setEquipoOInstalacion(tagEquipo(equipo));
+        String tarea = elegir(azar, TAREAS);
+        p.setDescripcionTrabajo(tarea + " en " + tagEquipo(equipo));
+        int emisor = azar.nextInt(emisores);
+        p.setSolicitanteLegajo(legajoConRol("EMISOR", emisor));
+        p.setNombreSolicitante(nombre(azar(1, indiceDe(p.getSolicitanteLegajo()))));
+        boolean conSupervisor = azar.nextDouble() < 0.7;
+        if (conSupervisor) {
+            p.setSupervisorLegajo(legajoConRol("SUPERVISOR", azar.nextInt(supervisores)));
+        }
+        p.setReceptorLegajo(legajoConRol("RECEPTOR", azar.nextInt(receptores)));
+        p.setNombreReceptor(nombre(azar(1, indiceDe(p.getReceptorLegajo()))));
+        p.setFechaInicio(fecha.toString());
+        p.setFechaFin(fin.toLocalDate().toString());
+        p.setHoraInicio(hora(inicio));
+        p.setHoraFin(hora(fin));
+        p.setUbicacion("Planta " + UNIDADES[equipo % UNIDADES.length] + " - Sector " + (char) ('A' + equipo % 6));
+        p.setTareaDetallada(tareaDetallada(azar, tarea));
+        p.setTipoTrabajo(elegir(azar, TIPOS_TRABAJO));
+        p.setRequiereAnalisisRiesgoAdicional(azar.nextDouble() < 0.2);
+        p.setRiesgosControles(riesgos(azar));
+        p.setEquiposSeguridad(elementosSeguridad(azar));
+        p.setRtoEstado(estado);
+        p.setRequiereRTO(requiereRto);
+
+        boolean firmado = EstadoPts.FIRMADO_PEND_CIERRE.equals(estado) || EstadoPts.CERRADO.equals(estado);
+        if (firmado && conSupervisor) {
+            p.setFirmaSupervisorBase64(firma);
+            p.setDniSupervisorFirmante(p.getSupervisorLegajo());
+            p.setFechaHoraFirmaSupervisor(inicio.plusMinutes(10 + azar.nextInt(50)));
+        }
+        if (EstadoPts.CERRADO.equals(estado)) {
+            if (!conSupervisor) {
+                // Igual que cerrarPts sin supervisor: firma el propio emisor al cerrar
+                p.setFirmaSupervisorBase64("FIRMA_CIERRE_EMISOR_" + p.getSolicitanteLegajo() + "_" + fin);
+                p.setDniSupervisorFirmante(p.getSolicitanteLegajo());
+                p.setFechaHoraFirmaSupervisor(fin);
+            }
+            p.setRtoResponsableCierreLegajo(p.getSolicitanteLegajo());
+            p.setRtoFechaHoraCierre(fin);
+            p.setRtoObservaciones(azar.nextDouble() < 0.3 ? "Trabajo terminado sin novedades" : null);
+        }
+        if (requiereRto) {
+            p.setRtoAsociadoId(idRto(fecha, numero));
+        }
+        return p;
+    }
+
+    // RTO del PTS si lo requiere; el ID repite la fecha y el numero del PTS, que son unicos
+    public RetornoOperaciones rto(PermisoTrabajoSeguro p) {
+        if (p.getRtoAsociadoId() == null) {
+            return null;
+        }
+        SplittableRandom azar = azar(3, p.getId().hashCode());
+        LocalDateTime creacion = p.getRtoFechaHoraCierre();
+        boolean cerrado = creacion.toLocalDate().isBefore(hasta.minusDays(7));
+
+        RetornoOperaciones rto = new RetornoOperaciones();
+        rto.setId(p.getRtoAsociadoId());
+        rto.setEquipoTag(p.getEquipoOInstalacion());
+        rto.setPtsIds(new ArrayList<>(List.of(p.getId())));
+        rto.setFechaCreacion(creacion);
+        rto.setEstado(cerrado ? EstadoRto.CERRADO : EstadoRto.ABIERTO);
+        List<RetornoOperaciones.EspecialidadRTO> especialidades = new ArrayList<>();
+        int cantidad = 1 + azar.nextInt(3);
+        int primera = azar.nextInt(ESPECIALIDADES.length);
+        LocalDateTime ultimoCierre = creacion;
+        for (int e = 0; e < cantidad; e++) {
+            RetornoOperaciones.EspecialidadRTO especialidad = new RetornoOperaciones.EspecialidadRTO();
+            especialidad.setNombre(ESPECIALIDADES[(primera + e) % ESPECIALIDADES.length]);
+            especialidad.setResponsableLegajo(legajoConRol("RTO MANT", azar.nextInt(responsablesRto)));
+            if (cerrado || azar.nextBoolean()) {
+                LocalDateTime cierre = creacion.plusHours(1 + azar.nextInt(48));
+                especialidad.setCerrada(true);
+                especialidad.setFechaCierre(cierre);
+                especialidad.setObservaciones("Verificado en campo");
+                if (cierre.isAfter(ultimoCierre)) ultimoCierre = cierre;
+            }
+            especialidades.add(especialidad);
+        }
+        rto.setEspecialidades(especialidades);
+        if (cerrado) {
+            rto.setFechaCierre(ultimoCierre);
+        }
+        return rto;
+    }
+
+    // ---------- Auxiliares ----------
+
+    private static String estado(SplittableRandom azar, int diasAtras) {
+        double r = azar.nextDouble();
+        if (diasAtras == 0) {
+            return r < 0.45 ? EstadoPts.PENDIENTE : r < 0.75 ? EstadoPts.FIRMADO_PEND_CIERRE
+                    : r < 0.85 ? EstadoPts.STANDBY : r < 0.97 ? EstadoPts.CERRADO : EstadoPts.CANCELADO;
+        }
+        if (diasAtras <= 2) {
+            return r < 0.10 ? EstadoPts.PENDIENTE : r < 0.30 ? EstadoPts.FIRMADO_PEND_CIERRE
+                    : r < 0.35 ? EstadoPts.STANDBY : r < 0.95 ? EstadoPts.CERRADO : EstadoPts.CANCELADO;
+        }
+        return r < 0.93 ? EstadoPts.CERRADO : r < 0.99 ? EstadoPts.CANCELADO : EstadoPts.STANDBY;
+    }
+
+    private static List<PermisoTrabajoSeguro.RiesgoControl> riesgos(SplittableRandom azar) {
+        int cantidad = 1 + azar.nextInt(4);
+        int primero = azar.nextInt(RIESGOS.length);
+        List<PermisoTrabajoSeguro.RiesgoControl> riesgos = new ArrayList<>(cantidad);
+        for (int r = 0; r < cantidad; r++) {
+            String[] riesgo = RIESGOS[(primero + r) % RIESGOS.length];
+            riesgos.add(new PermisoTrabajoSeguro.RiesgoControl(riesgo[0], riesgo[1], riesgo[2]));
+        }
+        return riesgos;
+    }
+
+    private static List<PermisoTrabajoSeguro.EquipoSeguridad> elementosSeguridad(SplittableRandom azar) {
+        int cantidad = 3 + azar.nextInt(4);
+        int primero = azar.nextInt(ELEMENTOS_SEGURIDAD.length);
+        List<PermisoTrabajoSeguro.EquipoSeguridad> elementos = new ArrayList<>(cantidad);
+        for (int e = 0; e < cantidad; e++) {
+            boolean proporcionado = azar.nextDouble() < 0.9;
+            elementos.add(new PermisoTrabajoSeguro.EquipoSeguridad(ELEMENTOS_SEGURIDAD[(primero + e) % ELEMENTOS_SEGURIDAD.length],
+                    true, proporcionado, proporcionado ? null : "Se solicita al pañol"));
+        }
+        return elementos;
+    }
+
+    private static String tareaDetallada(SplittableRandom azar, String tarea) {
+        StringBuilder texto = new StringBuilder(tarea).append(". ");
+        int pasos = 3 + azar.nextInt(PASOS.length - 2);
+        for (int i = 0; i < pasos; i++) {
+            texto.append(PASOS[i]).append(' ');
+        }
+        return texto.toString().trim();
+    }
+
+    private String idRto(LocalDate fecha, int numero) {
+        return String.format("RTO-%s-%03d", fecha.format(FECHA_RTO), numero);
+    }
+
+    private static String nombre(SplittableRandom azar) {
+        return elegir(azar, NOMBRES) + " " + elegir(azar, APELLIDOS);
+    }
+
+    private static int indiceDe(String legajo) {
+        return Integer.parseInt(legajo.substring(PREFIJO_LEGAJO.length()));
+    }
+
+    private static String hora(LocalDateTime instante) {
+        return String.format("%02d:%02d", instante.getHour(), instante.getMinute());
+    }
+
+    private SplittableRandom azar(int tipo, long indice) {
+        return new SplittableRandom(semilla * 31 + tipo * 0x9E3779B97F4A7C15L + indice * 0xBF58476D1CE4E5B9L);
+    }
+
+    private static String elegir(SplittableRandom azar, String[] opciones) {
+        return opciones[azar.nextInt(opciones.length)];
+    }
+
+    private static int elegir(SplittableRandom azar, int[] opciones) {
+        return opciones[azar.nextInt(opciones.length)];
+    }
+}
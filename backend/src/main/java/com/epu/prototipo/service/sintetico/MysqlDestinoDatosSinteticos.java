@@ -0,0 +1,156 @@
+package com.epu.prototipo.service.sintetico;
+
+import com.epu.prototipo.dto.UsuarioDTO;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.service.IEquipoService;
+import com.epu.prototipo.util.FechasPts;
+import com.epu.prototipo.util.TextoBusqueda;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Carga sintetica en MySQL con JDBC en batch (rewriteBatchedStatements arma un INSERT
+ * multi-fila por lote), un lote por transaccion. Va directo a las tablas: no pasa por el
+ * outbox ni avisa por SSE, y los equipos se crean con crearEquipos para que la memoria de
+ * estados y el indice de sugerencias los vean.
+ */
+@Component
+@Profile("prod")
+public class MysqlDestinoDatosSinteticos implements DestinoDatosSinteticos {
+
+    private static final DateTimeFormatter FECHA_ID = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private final JdbcTemplate jdbc;
+    private final IEquipoService equipoService;
+
+    public MysqlDestinoDatosSinteticos(JdbcTemplate jdbc, IEquipoService equipoService) {
+        this.jdbc = jdbc;
+        this.equipoService = equipoService;
+    }
+
+    @Override
+    public DateTimeFormatter formatoIdPts() {
+        return FECHA_ID;
+    }
+
+    @Override
+    public int equipos(List<Equipo> lote) {
+        return lote.size() - equipoService.crearEquipos(lote).size();
+    }
+
+    @Override
+    @Transactional
+    public int usuarios(List<UsuarioDTO> lote) {
+        List<UsuarioDTO> nuevos = nuevos(lote, UsuarioDTO::getLegajo, "usuarios", "legajo");
+        List<Object[]> filas = new ArrayList<>(nuevos.size());
+        List<Object[]> roles = new ArrayList<>();
+        for (UsuarioDTO u : nuevos) {
+            filas.add(new Object[] {u.getLegajo(), u.getNombreCompleto(), u.getSector(), u.getPassword(), u.isMustChangePassword()});
+            for (String rol : u.getRoles()) {
+                roles.add(new Object[] {u.getLegajo(), rol});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO usuarios (legajo, nombreCompleto, sector, password, mustChangePassword,"
+                + " failedLoginAttempts, isAccountLocked) VALUES (?, ?, ?, ?, ?, 0, false)", filas);
+        jdbc.batchUpdate("INSERT INTO usuario_roles (legajo, rol) VALUES (?, ?)", roles);
+        return nuevos.size();
+    }
+
+    @Override
+    @Transactional
+    public int pts(List<PermisoTrabajoSeguro> lote, List<RetornoOperaciones> rtos) {
+        List<PermisoTrabajoSeguro> nuevos = nuevos(lote, PermisoTrabajoSeguro::getId, "permisos_trabajo_seguro", "id");
+        List<Object[]> filas = new ArrayList<>(nuevos.size());
+        List<Object[]> riesgos = new ArrayList<>();
+        List<Object[]> elementos = new ArrayList<>();
+        List<Object[]> textos = new ArrayList<>(nuevos.size());
+        for (PermisoTrabajoSeguro p : nuevos) {
+            filas.add(new Object[] {p.getId(), p.getEquipoOInstalacion(), p.getDescripcionTrabajo(), p.getSolicitanteLegajo(),
+                    p.getNombreSolicitante(), p.getSupervisorLegajo(), p.getReceptorLegajo(), p.getNombreReceptor(),
+                    FechasPts.fecha(p.getFechaInicio()), FechasPts.fecha(p.getFechaFin()), FechasPts.hora(p.getHoraInicio()),
+                    FechasPts.hora(p.getHoraFin()), p.getUbicacion(),
+                    p.getTareaDetallada(), p.getTipoTrabajo(), p.isRequiereAnalisisRiesgoAdicional(),
+                    p.getFirmaSupervisorBase64(), p.getDniSupervisorFirmante(), instante(p.getFechaHoraFirmaSupervisor()),
+                    p.getRtoEstado(), p.getRtoObservaciones(), p.getRtoResponsableCierreLegajo(),
+                    instante(p.getRtoFechaHoraCierre()), p.isRequiereRTO(), p.getRtoAsociadoId()});
+            for (PermisoTrabajoSeguro.RiesgoControl r : p.getRiesgosControles()) {
+                riesgos.add(new Object[] {p.getId(), r.getPeligro(), r.getConsecuencia(), r.getControlRequerido()});
+            }
+            textos.add(new Object[] {p.getId(), TextoBusqueda.texto(p)});
+            for (PermisoTrabajoSeguro.EquipoSeguridad e : p.getEquiposSeguridad()) {
+                elementos.add(new Object[] {p.getId(), e.getEquipo(), e.isEsRequerido(), e.isEsProporcionado(), e.getObservacion()});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO permisos_trabajo_seguro (id, equipoOInstalacion, descripcionTrabajo, solicitanteLegajo,"
+                + " nombreSolicitante, supervisorLegajo, receptorLegajo, nombreReceptor, fechaInicio, fechaFin, horaInicio,"
+                + " horaFin, ubicacion, tareaDetallada, tipoTrabajo, requiereAnalisisRiesgoAdicional, firmaSupervisorBase64,"
+                + " dniSupervisorFirmante, fechaHoraFirmaSupervisor, rtoEstado, rtoObservaciones, rtoResponsableCierreLegajo,"
+                + " rtoFechaHoraCierre, requiereRTO, rtoAsociadoId, version)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", filas);
+        jdbc.batchUpdate("INSERT INTO pts_riesgos_controles (pts_id, peligro, consecuencia, controlRequerido)"
+                + " VALUES (?, ?, ?, ?)", riesgos);
+        jdbc.batchUpdate("INSERT INTO pts_equipos_seguridad (pts_id, equipo, esRequerido, esProporcionado, observacion)"
+                + " VALUES (?, ?, ?, ?, ?)", elementos);
+        // Indice de busqueda de texto (IndiceTextoPts), como en un alta por la API
+        jdbc.batchUpdate("INSERT IGNORE INTO pts_texto (id, texto) VALUES (?, ?)", textos);
+        rtos(rtos);
+        return nuevos.size();
+    }
+
+    private void rtos(List<RetornoOperaciones> lote) {
+        List<RetornoOperaciones> nuevos = nuevos(lote, RetornoOperaciones::getId, "retorno_operaciones", "id");
+        List<Object[]> filas = new ArrayList<>(nuevos.size());
+        List<Object[]> pts = new ArrayList<>();
+        List<Object[]> especialidades = new ArrayList<>();
+        for (RetornoOperaciones rto : nuevos) {
+            filas.add(new Object[] {rto.getId(), rto.getEquipoTag(), rto.getEstado(), instante(rto.getFechaCreacion()),
+                    instante(rto.getFechaCierre()), rto.getObservaciones()});
+            for (String ptsId : rto.getPtsIds()) {
+                pts.add(new Object[] {rto.getId(), ptsId});
+            }
+            for (RetornoOperaciones.EspecialidadRTO e : rto.getEspecialidades()) {
+                especialidades.add(new Object[] {rto.getId(), e.getNombre(), e.getResponsableLegajo(), e.isCerrada(),
+                        instante(e.getFechaCierre()), e.getObservaciones()});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO retorno_operaciones (id, equipoTag, estado, fechaCreacion, fechaCierre, observaciones, version)"
+                + " VALUES (?, ?, ?, ?, ?, ?, 0)", filas);
+        jdbc.batchUpdate("INSERT INTO rto_pts_ids (rto_id, pts_id) VALUES (?, ?)", pts);
+        jdbc.batchUpdate("INSERT INTO rto_especialidades (rto_id, nombre, responsableLegajo, cerrada, fechaCierre, observaciones)"
+                + " VALUES (?, ?, ?, ?, ?, ?)", especialidades);
+    }
+
+    // Una consulta por lote para saber que claves ya estan (una corrida anterior con la misma semilla)
+    private <T> List<T> nuevos(List<T> lote, Function<T, String> clave, String tabla, String columna) {
+        if (lote.isEmpty()) {
+            return lote;
+        }
+        List<String> claves = lote.stream().map(clave).toList();
+        String marcadores = String.join(", ", Collections.nCopies(claves.size(), "?"));
+        Set<String> existentes = new HashSet<>(jdbc.queryForList(
+                "SELECT " + columna + " FROM " + tabla + " WHERE " + columna + " IN (" + marcadores + ")",
+                String.class, claves.toArray()));
+        if (existentes.isEmpty()) {
+            return lote;
+        }
+        return lote.stream().filter(r -> !existentes.contains(clave.apply(r))).toList();
+    }
+
+    private static Timestamp instante(LocalDateTime valor) {
+        return valor == null ? null : Timestamp.valueOf(valor);
+    }
+}
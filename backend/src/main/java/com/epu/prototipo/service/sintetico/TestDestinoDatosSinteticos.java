@@ -0,0 +1,67 @@
+package com.epu.prototipo.service.sintetico;
+
+import com.epu.prototipo.dto.UsuarioDTO;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.service.IEquipoService;
+import com.epu.prototipo.service.IUsuarioService;
+import com.epu.prototipo.service.TestPtsService;
+import com.epu.prototipo.service.TestRtoService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Carga sintetica en los servicios en memoria del perfil test. Los PTS y RTO entran en bloque
+// (con createPts cada alta recorre la lista para numerar y bloquea el equipo)
+
+@Component
+@Profile("test")
+public class TestDestinoDatosSinteticos implements DestinoDatosSinteticos {
+
+    private static final DateTimeFormatter FECHA_ID = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private final IEquipoService equipoService;
+    private final IUsuarioService usuarioService;
+    private final TestPtsService ptsService;
+    private final TestRtoService rtoService;
+
+    public TestDestinoDatosSinteticos(IEquipoService equipoService, IUsuarioService usuarioService,
+                                      TestPtsService ptsService, TestRtoService rtoService) {
+        this.equipoService = equipoService;
+        this.usuarioService = usuarioService;
+        this.ptsService = ptsService;
+        this.rtoService = rtoService;
+    }
+
+    @Override
+    public DateTimeFormatter formatoIdPts() {
+        return FECHA_ID;
+    }
+
+    @Override
+    public int equipos(List<Equipo> lote) {
+        return lote.size() - equipoService.crearEquipos(lote).size();
+    }
+
+    @Override
+    public int usuarios(List<UsuarioDTO> lote) {
+        int creados = 0;
+        for (UsuarioDTO usuario : lote) {
+            if (!usuarioService.existeUsuario(usuario.getLegajo())) {
+                usuarioService.createUsuario(usuario);
+                creados++;
+            }
+        }
+        return creados;
+    }
+
+    @Override
+    public int pts(List<PermisoTrabajoSeguro> lote, List<RetornoOperaciones> rtos) {
+        ptsService.cargarSinteticos(lote);
+        rtoService.cargarSinteticos(rtos);
+        return lote.size();
+    }
+}
@@ -0,0 +1,54 @@
+package com.epu.prototipo.util;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Campos pedidos con ?fields=a,b,c en los GET de PTS, RTO y equipos. Filtran el JSON (filtro
+ * Jackson "campos" en los modelos) y, en MySQL, deciden que columnas y colecciones se leen.
+ * El identificador (id, o tag en equipos) sale siempre; los nombres que no son campos del
+ * modelo se ignoran. Sin fields, o vacio, van todos.
+ */
+public final class CamposSolicitados {
+
+    public static final String PARAMETRO = "fields";
+    public static final String FILTRO = "campos";
+    public static final CamposSolicitados TODOS = new CamposSolicitados(null);
+
+    private static final Set<String> IDENTIFICADORES = Set.of("id", "tag");
+
+    // null = todos
+    private final Set<String> nombres;
+
+    private CamposSolicitados(Set<String> nombres) {
+        this.nombres = nombres;
+    }
+
+    public static CamposSolicitados de(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return TODOS;
+        }
+        Set<String> nombres = new LinkedHashSet<>(IDENTIFICADORES);
+        for (String campo : fields.split(",")) {
+            String nombre = campo.trim();
+            if (!nombre.isEmpty()) {
+                nombres.add(nombre);
+            }
+        }
+        return new CamposSolicitados(Collections.unmodifiableSet(nombres));
+    }
+
+    public boolean todos() {
+        return nombres == null;
+    }
+
+    public boolean incluye(String campo) {
+        return nombres == null || nombres.contains(campo);
+    }
+
+    // Nombres pedidos mas los identificadores; null si son todos
+    public Set<String> nombres() {
+        return nombres;
+    }
+}
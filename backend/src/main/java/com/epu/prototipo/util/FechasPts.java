@@ -0,0 +1,80 @@
+package com.epu.prototipo.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Conversion entre el texto de fecha/hora del PTS en la API (AAAA-MM-DD, HH:mm) y las columnas
+ * DATE/TIME de MySQL. Acepta lo que guardaban las columnas VARCHAR: fecha con hora a
+ * continuacion (2025-11-06T10:00) o DD/MM/AAAA, y horas H:mm o HH:mm:ss.
+ */
+public final class FechasPts {
+
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DIA_MES_ANIO = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+    private static final Pattern FECHA_EN_ID = Pattern.compile("PTS-(\\d{6}|\\d{8})-\\d+");
+
+    private FechasPts() {}
+
+    /**
+     * @return la fecha, o null si el texto es null o vacio
+     * @throws IllegalArgumentException si no es una fecha reconocible
+     */
+    public static LocalDate fecha(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String t = texto.trim();
+        try {
+            if (t.contains("/")) {
+                return LocalDate.parse(t, DIA_MES_ANIO);
+            }
+            return LocalDate.parse(t.length() > 10 ? t.substring(0, 10) : t);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida: '" + texto + "' (formato AAAA-MM-DD)");
+        }
+    }
+
+    /**
+     * @return la hora, o null si el texto es null o vacio
+     * @throws IllegalArgumentException si no es una hora reconocible
+     */
+    public static LocalTime hora(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String t = texto.trim();
+        try {
+            // 8:00 -> 08:00
+            return LocalTime.parse(t.indexOf(':') == 1 ? "0" + t : t);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Hora inválida: '" + texto + "' (formato HH:mm)");
+        }
+    }
+
+    public static String texto(LocalDate fecha) {
+        return fecha != null ? fecha.toString() : null;
+    }
+
+    public static String texto(LocalTime hora) {
+        return hora != null ? hora.format(HORA) : null;
+    }
+
+    // Fecha del ID (PTS-AAMMDD-NNN, o PTS-AAAAMMDD-NNN en los IDs viejos de MySQL); null si no la tiene
+    public static LocalDate fechaDelId(String id) {
+        Matcher m = id != null ? FECHA_EN_ID.matcher(id) : null;
+        if (m == null || !m.matches()) {
+            return null;
+        }
+        String digitos = m.group(1);
+        try {
+            return LocalDate.parse(digitos.length() == 6 ? "20" + digitos : digitos, DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.epu.prototipo.util;
+
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Texto de busqueda libre de un PTS (descripcion, tarea, ubicacion y riesgos/controles) y de
+ * las consultas, normalizados igual: minusculas y sin acentos, asi "mecanico" encuentra
+ * "mecánico" sin depender de la intercalacion de la base.
+ */
+public final class TextoBusqueda {
+
+    // Palabras mas cortas no entran al indice FULLTEXT de InnoDB (innodb_ft_min_token_size=3)
+    public static final int LARGO_MINIMO = 3;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextoBusqueda() {}
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public static String texto(PermisoTrabajoSeguro pts) {
+        List<String> partes = new ArrayList<>(List.of(nulo(pts.getDescripcionTrabajo()), nulo(pts.getTareaDetallada()),
+                nulo(pts.getUbicacion())));
+        if (pts.getRiesgosControles() != null) {
+            for (PermisoTrabajoSeguro.RiesgoControl r : pts.getRiesgosControles()) {
+                partes.add(nulo(r.getPeligro()));
+                partes.add(nulo(r.getConsecuencia()));
+                partes.add(nulo(r.getControlRequerido()));
+            }
+        }
+        return normalizar(String.join(" ", partes));
+    }
+
+    // Terminos distintos de la consulta que el indice puede encontrar
+    public static List<String> terminos(String consulta) {
+        Set<String> terminos = new LinkedHashSet<>();
+        for (String t : normalizar(consulta).split(" ")) {
+            if (t.length() >= LARGO_MINIMO) {
+                terminos.add(t);
+            }
+        }
+        return new ArrayList<>(terminos);
+    }
+
+    private static String nulo(String s) {
+        return s != null ? s : "";
+    }
+}
@@ -2,4 +2,74 @@ ALTER TABLE retorno_operaciones
     MODIFY COLUMN observaciones LONGTEXT NULL;
 
 ALTER TABLE rto_especialidades
-    MODIFY COLUMN observaciones LONGTEXT NULL;
\ No newline at end of file
+    MODIFY COLUMN observaciones LONGTEXT NULL;
+
+-- rto_pts_ids y rto_especialidades venian de @ElementCollection, sin clave primaria, y
+-- ddl-auto=update no la agrega. Si falta, se copia la tabla a una nueva con la PK usando
+-- INSERT IGNORE (descarta las filas repetidas) y se intercambian con un RENAME atomico.
+-- Con la PK ya creada cada sentencia queda en DO 0, asi el script corre en cada arranque.
+
+SET @migrar := (SELECT COUNT(*) FROM information_schema.tables
+        WHERE table_schema = DATABASE() AND table_name = 'rto_pts_ids')
+    - (SELECT COUNT(*) FROM information_schema.table_constraints
+        WHERE table_schema = DATABASE() AND table_name = 'rto_pts_ids' AND constraint_type = 'PRIMARY KEY');
+
+DROP TABLE IF EXISTS rto_pts_ids_nueva;
+DROP TABLE IF EXISTS rto_pts_ids_vieja;
+
+SET @sql := IF(@migrar = 1, 'CREATE TABLE rto_pts_ids_nueva LIKE rto_pts_ids', 'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @sql := IF(@migrar = 1, 'ALTER TABLE rto_pts_ids_nueva ADD PRIMARY KEY (rto_id, pts_id)', 'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @sql := IF(@migrar = 1,
+    'INSERT IGNORE INTO rto_pts_ids_nueva (rto_id, pts_id) SELECT rto_id, pts_id FROM rto_pts_ids WHERE rto_id IS NOT NULL AND pts_id IS NOT NULL',
+    'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @sql := IF(@migrar = 1, 'RENAME TABLE rto_pts_ids TO rto_pts_ids_vieja, rto_pts_ids_nueva TO rto_pts_ids', 'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+DROP TABLE IF EXISTS rto_pts_ids_vieja;
+
+-- Ante especialidades repetidas se conserva primero la cerrada
+SET @migrar := (SELECT COUNT(*) FROM information_schema.tables
+        WHERE table_schema = DATABASE() AND table_name = 'rto_especialidades')
+    - (SELECT COUNT(*) FROM information_schema.table_constraints
+        WHERE table_schema = DATABASE() AND table_name = 'rto_especialidades' AND constraint_type = 'PRIMARY KEY');
+
+DROP TABLE IF EXISTS rto_especialidades_nueva;
+DROP TABLE IF EXISTS rto_especialidades_vieja;
+
+SET @sql := IF(@migrar = 1, 'CREATE TABLE rto_especialidades_nueva LIKE rto_especialidades', 'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @sql := IF(@migrar = 1, 'ALTER TABLE rto_especialidades_nueva ADD PRIMARY KEY (rto_id, nombre)', 'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @sql := IF(@migrar = 1,
+    'INSERT IGNORE INTO rto_especialidades_nueva SELECT * FROM rto_especialidades WHERE rto_id IS NOT NULL AND nombre IS NOT NULL ORDER BY cerrada DESC, fechaCierre DESC',
+    'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @sql := IF(@migrar = 1, 'RENAME TABLE rto_especialidades TO rto_especialidades_vieja, rto_especialidades_nueva TO rto_especialidades', 'DO 0');
+PREPARE migracion FROM @sql;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+DROP TABLE IF EXISTS rto_especialidades_vieja;
@@ -0,0 +1,247 @@
+package com.epu.prototipo.backend;
+
+import com.epu.prototipo.BackendApplication;
+import com.epu.prototipo.service.sintetico.GeneradorDatosSinteticos;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Cambio de turno: cada operador se loguea junto con su supervisor, revisa los PTS del dia y
+// los de un equipo, da de alta un PTS, lo consulta, el supervisor lo firma, el emisor lo cierra
+// y se mira el tablero de RTO abiertos; y vuelve a empezar. Reporta por operacion cantidad,
+// errores, req/s y percentiles 50/95/99. No corre en el build normal:
+//   mvn test -Dtest=CambioDeTurnoCargaTest -Dcarga=true [-Dcarga.operadores=100 -Dcarga.segundos=60]
+// Sin -Dcarga.url levanta la aplicacion en proceso con el perfil test y datos sinteticos
+// (-Dcarga.pts, por defecto 20000). Con -Dcarga.url=http://host:8080 va contra un servidor ya
+// cargado con el generador (--generador.activo=true); -Dcarga.usuarios/-Dcarga.equipos/-Dcarga.clave
+// tienen que coincidir con los de esa carga.
+
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+class CambioDeTurnoCargaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CambioDeTurnoCargaTest.class);
+
+    private static final String URL = System.getProperty("carga.url", "");
+    private static final int OPERADORES = Integer.getInteger("carga.operadores", 50);
+    private static final int SEGUNDOS = Integer.getInteger("carga.segundos", 30);
+    private static final int CALENTAMIENTO = Integer.getInteger("carga.calentamiento", 5);
+    private static final int PAUSA_MS = Integer.getInteger("carga.pausa-ms", 100);
+    private static final int USUARIOS = Integer.getInteger("carga.usuarios", 500);
+    private static final int EQUIPOS = Integer.getInteger("carga.equipos", 2000);
+    private static final int PTS = Integer.getInteger("carga.pts", 20000);
+    private static final String CLAVE = System.getProperty("carga.clave", "Sintetico.2025");
+
+    private static final List<String> OPERACIONES = List.of(
+            "login", "busqueda-turno", "busqueda-equipo", "alta", "detalle", "firma", "cierre", "tablero-rto");
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<String, Medicion> mediciones = new ConcurrentHashMap<>();
+    private volatile long inicioVentana;
+    private volatile long finVentana;
+
+    // Latencias de una operacion dentro de la ventana medida
+    private static class Medicion {
+        private long[] latencias = new long[1 << 12];
+        private int cantidad;
+        private long errores;
+        private String primerError;
+
+        synchronized void registrar(long nanos, String error) {
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = nanos;
+            if (error != null) {
+                errores++;
+                if (primerError == null) primerError = error;
+            }
+        }
+    }
+
+    private interface Peticion {
+        HttpResponse<String> enviar() throws Exception;
+    }
+
+    @Test
+    void cambioDeTurno() throws Exception {
+        ConfigurableApplicationContext contexto = null;
+        String base = URL;
+        if (base.isEmpty()) {
+            contexto = new SpringApplicationBuilder(BackendApplication.class).run(
+                    "--spring.profiles.active=test", "--server.port=0",
+                    "--generador.activo=true", "--generador.usuarios=" + USUARIOS,
+                    "--generador.equipos=" + EQUIPOS, "--generador.pts=" + PTS, "--generador.clave=" + CLAVE);
+            base = "http://localhost:" + ((WebServerApplicationContext) contexto).getWebServer().getPort();
+        }
+        try {
+            inicioVentana = System.nanoTime() + CALENTAMIENTO * 1_000_000_000L;
+            finVentana = inicioVentana + SEGUNDOS * 1_000_000_000L;
+            String servidor = base;
+            try (ExecutorService operadores = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int o = 0; o < OPERADORES; o++) {
+                    int operador = o;
+                    operadores.submit(() -> {
+                        turno(servidor, operador);
+                        return null;
+                    });
+                }
+            }
+            imprimir();
+            Medicion altas = mediciones.get("alta");
+            assertNotNull(altas, "No se completo ningun alta en la ventana");
+            assertTrue(altas.cantidad > altas.errores, "Todas las altas fallaron: " + altas.primerError);
+        } finally {
+            if (contexto != null) {
+                contexto.close();
+            }
+        }
+    }
+
+    private void turno(String base, int operador) throws Exception {
+        int emisores = GeneradorDatosSinteticos.cantidadConRol(USUARIOS, "EMISOR");
+        int supervisores = GeneradorDatosSinteticos.cantidadConRol(USUARIOS, "SUPERVISOR");
+        String emisor = GeneradorDatosSinteticos.legajoConRol("EMISOR", operador % emisores);
+        String supervisor = GeneradorDatosSinteticos.legajoConRol("SUPERVISOR", operador % supervisores);
+        // Los operadores entran escalonados durante el calentamiento, como en un cambio de turno real
+        Thread.sleep(ThreadLocalRandom.current().nextLong(CALENTAMIENTO * 1000L + 1));
+        String tokenEmisor = login(base, emisor);
+        String tokenSupervisor = login(base, supervisor);
+        if (tokenEmisor == null || tokenSupervisor == null) {
+            return;
+        }
+        String hoy = LocalDate.now().toString();
+        while (System.nanoTime() < finVentana) {
+            String tag = GeneradorDatosSinteticos.tagEquipo(ThreadLocalRandom.current().nextInt(EQUIPOS));
+            medir("busqueda-turno", () -> get(base + "/api/pts?fechaInicio=" + hoy, tokenEmisor));
+            medir("busqueda-equipo", () -> get(base + "/api/pts?equipo=" + URLEncoder.encode(tag, StandardCharsets.UTF_8), tokenEmisor));
+
+            Map<String, Object> alta = new LinkedHashMap<>();
+            alta.put("equipoOInstalacion", tag);
+            alta.put("descripcionTrabajo", "Inspeccion de cambio de turno en " + tag);
+            alta.put("solicitanteLegajo", emisor);
+            alta.put("supervisorLegajo", supervisor);
+            alta.put("fechaInicio", hoy);
+            alta.put("horaInicio", "06:00");
+            alta.put("tipoTrabajo", "Mecanico");
+            alta.put("rtoEstado", "PENDIENTE");
+            alta.put("riesgosControles", List.of(Map.of("peligro", "Presion residual",
+                    "consecuencia", "Proyeccion de fluido", "controlRequerido", "Despresurizar")));
+            HttpResponse<String> creado = medir("alta", () -> enviar("POST", base + "/api/pts", tokenEmisor, alta));
+            if (creado == null || creado.statusCode() >= 400) {
+                continue;
+            }
+            String id = json.readTree(creado.body()).path("id").asText();
+            medir("detalle", () -> get(base + "/api/pts/" + id, tokenEmisor));
+            medir("firma", () -> enviar("PUT", base + "/api/pts/firmar", tokenSupervisor,
+                    Map.of("ptsId", id, "dniFirmante", supervisor, "firmaBase64", "data:image/png;base64,AAAA")));
+            medir("cierre", () -> enviar("PUT", base + "/api/pts/cerrar", tokenEmisor,
+                    Map.of("ptsId", id, "rtoResponsableCierreLegajo", emisor, "rtoObservaciones", "Sin novedades",
+                            "requiereRTO", false)));
+            medir("tablero-rto", () -> get(base + "/api/rto/abiertos/tablero", tokenEmisor));
+            if (PAUSA_MS > 0) {
+                Thread.sleep(PAUSA_MS);
+            }
+        }
+    }
+
+    private String login(String base, String legajo) throws Exception {
+        HttpResponse<String> respuesta = medir("login", () -> enviar("POST", base + "/api/auth/login", null,
+                Map.of("legajo", legajo, "password", CLAVE)));
+        if (respuesta == null || respuesta.statusCode() != 200) {
+            return null;
+        }
+        return json.readTree(respuesta.body()).path("token").asText();
+    }
+
+    private HttpResponse<String> get(String url, String token) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token)
+                .GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> enviar(String metodo, String url, String token, Object cuerpo) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .method(metodo, HttpRequest.BodyPublishers.ofString(json.writeValueAsString(cuerpo)));
+        if (token != null) {
+            peticion.header("Authorization", "Bearer " + token);
+        }
+        return http.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Solo cuentan las peticiones que terminan dentro de la ventana; devuelve null si fallo la conexion
+    private HttpResponse<String> medir(String operacion, Peticion peticion) {
+        long inicio = System.nanoTime();
+        HttpResponse<String> respuesta = null;
+        String error;
+        try {
+            respuesta = peticion.enviar();
+            error = respuesta.statusCode() >= 400 ? "HTTP " + respuesta.statusCode() + ": " + respuesta.body() : null;
+        } catch (Exception e) {
+            error = e.toString();
+        }
+        long fin = System.nanoTime();
+        if (fin >= inicioVentana && fin <= finVentana) {
+            mediciones.computeIfAbsent(operacion, o -> new Medicion()).registrar(fin - inicio, error);
+        }
+        return respuesta;
+    }
+
+    private void imprimir() {
+        log.info("Cambio de turno: {} operadores, {} s medidos, pausa {} ms", OPERADORES, SEGUNDOS, PAUSA_MS);
+        log.info(String.format("%-16s %9s %8s %9s %9s %9s %9s %9s",
+                "operacion", "cantidad", "errores", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        long total = 0;
+        for (String operacion : OPERACIONES) {
+            Medicion m = mediciones.get(operacion);
+            if (m == null) {
+                continue;
+            }
+            long[] ordenadas = Arrays.copyOf(m.latencias, m.cantidad);
+            Arrays.sort(ordenadas);
+            total += m.cantidad;
+            log.info(String.format("%-16s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f", operacion, m.cantidad, m.errores,
+                    m.cantidad / (double) SEGUNDOS, percentil(ordenadas, 0.50), percentil(ordenadas, 0.95),
+                    percentil(ordenadas, 0.99), percentil(ordenadas, 1.0)));
+            if (m.primerError != null) {
+                log.warn("{}: primer error: {}", operacion, m.primerError);
+            }
+        }
+        log.info(String.format("Total %.1f req/s", total / (double) SEGUNDOS));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        return ordenadas[Math.min(ordenadas.length - 1, (int) (ordenadas.length * p))] / 1e6;
+    }
+}
@@ -0,0 +1,82 @@
+package com.epu.prototipo.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// ?fields= de punta a punta sobre el perfil test: CamposJsonAdvice recorta el JSON y el ETag
+// distingue cada seleccion de campos, asi un 304 no valida una respuesta con otros campos
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CamposSolicitadosWebTest {
+
+    private static final String PTS = "/api/pts/PTS-001";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Test
+    void elJsonSoloLlevaLosCamposPedidosYElId() throws Exception {
+        JsonNode completo = json.readTree(mvc.perform(get(PTS)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertTrue(completo.size() > 2);
+
+        JsonNode parcial = json.readTree(mvc.perform(get(PTS).param("fields", "descripcionTrabajo,noEsUnCampo"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+
+        Set<String> nombres = new HashSet<>();
+        parcial.fieldNames().forEachRemaining(nombres::add);
+        assertEquals(Set.of("id", "descripcionTrabajo"), nombres);
+        assertEquals(completo.get("id"), parcial.get("id"));
+        assertEquals(completo.get("descripcionTrabajo"), parcial.get("descripcionTrabajo"));
+    }
+
+    @Test
+    void elEtagDependeDeLosCamposPedidos() throws Exception {
+        String etagCompleto = etag(mvc.perform(get(PTS)).andExpect(status().isOk()).andReturn());
+        String etagParcial = etag(mvc.perform(get(PTS).param("fields", "descripcionTrabajo,ubicacion"))
+                .andExpect(status().isOk()).andReturn());
+        assertNotEquals(etagCompleto, etagParcial);
+
+        // El orden de los campos no cambia la representacion
+        String etagReordenado = etag(mvc.perform(get(PTS).param("fields", "ubicacion, descripcionTrabajo"))
+                .andExpect(status().isOk()).andReturn());
+        assertEquals(etagParcial, etagReordenado);
+
+        // El ETag de la respuesta completa no valida la parcial, ni al reves
+        mvc.perform(get(PTS).param("fields", "descripcionTrabajo,ubicacion").header(HttpHeaders.IF_NONE_MATCH, etagCompleto))
+                .andExpect(status().isOk());
+        mvc.perform(get(PTS).header(HttpHeaders.IF_NONE_MATCH, etagParcial))
+                .andExpect(status().isOk());
+
+        mvc.perform(get(PTS).param("fields", "descripcionTrabajo,ubicacion").header(HttpHeaders.IF_NONE_MATCH, etagParcial))
+                .andExpect(status().isNotModified());
+        mvc.perform(get(PTS).header(HttpHeaders.IF_NONE_MATCH, etagCompleto))
+                .andExpect(status().isNotModified());
+    }
+
+    private static String etag(MvcResult resultado) {
+        String etag = resultado.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+}
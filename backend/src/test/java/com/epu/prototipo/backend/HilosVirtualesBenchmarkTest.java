@@ -0,0 +1,195 @@
+package com.epu.prototipo.backend;
+
+import com.epu.prototipo.BackendApplication;
+import com.epu.prototipo.dto.UsuarioDTO;
+import com.epu.prototipo.service.IUsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Carga comparada hilos de plataforma vs hilos virtuales: busqueda de PTS, alta de PTS y login.
+// No corre en el build normal:
+//   mvn test -Dtest=HilosVirtualesBenchmarkTest -Dbenchmark=true [-Dbenchmark.clientes=400 -Dbenchmark.segundos=10]
+// Con el perfil test (por defecto) los servicios son en memoria: no hay esperas de JDBC y la
+// diferencia sale del login (PBKDF2) y del stack HTTP. Con -Dbenchmark.perfil=prod corre contra
+// la MySQL de application-prod.properties (-Dbenchmark.legajo/-Dbenchmark.clave de un usuario real).
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HilosVirtualesBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(HilosVirtualesBenchmarkTest.class);
+
+    private static final String PERFIL = System.getProperty("benchmark.perfil", "test");
+    private static final int CLIENTES = Integer.getInteger("benchmark.clientes", 400);
+    private static final int SEGUNDOS = Integer.getInteger("benchmark.segundos", 10);
+    private static final String LEGAJO = System.getProperty("benchmark.legajo", "ADM999");
+    private static final String CLAVE = System.getProperty("benchmark.clave", LEGAJO);
+    private static final String EQUIPO = System.getProperty("benchmark.equipo", "K7451");
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private record Resultado(long peticiones, long errores, double porSegundo, double p50Ms, double p99Ms) {
+    }
+
+    @Test
+    void comparaPlataformaContraVirtuales() throws Exception {
+        Map<String, Resultado> plataforma = medir(false);
+        Map<String, Resultado> virtuales = medir(true);
+
+        log.info("Perfil {}, {} clientes, {} s por escenario", PERFIL, CLIENTES, SEGUNDOS);
+        log.info(String.format("%-10s %-10s %10s %8s %10s %10s", "escenario", "hilos", "req/s", "errores", "p50 ms", "p99 ms"));
+        for (String escenario : plataforma.keySet()) {
+            imprimir(escenario, "plataforma", plataforma.get(escenario));
+            imprimir(escenario, "virtuales", virtuales.get(escenario));
+        }
+        // El login es PBKDF2 puro: con pocos nucleos y muchos clientes puede no completar ninguno en la ventana
+        for (String escenario : List.of("busqueda", "alta")) {
+            assertTrue(plataforma.get(escenario).peticiones() > 0, escenario);
+            assertTrue(virtuales.get(escenario).peticiones() > 0, escenario);
+        }
+    }
+
+    private Map<String, Resultado> medir(boolean hilosVirtuales) throws Exception {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BackendApplication.class)
+                .run("--spring.profiles.active=" + PERFIL, "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + hilosVirtuales);
+        try {
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            String base = "http://localhost:" + puerto;
+            if ("test".equals(PERFIL)) {
+                // Los usuarios en memoria arrancan sin clave codificada; updateUsuario la codifica
+                IUsuarioService usuarios = contexto.getBean(IUsuarioService.class);
+                UsuarioDTO usuario = usuarios.getUsuarioByLegajo(LEGAJO);
+                usuario.setPassword(CLAVE);
+                usuarios.updateUsuario(LEGAJO, usuario);
+            }
+            String token = login(base).body();
+            String autorizacion = "Bearer " + json.readTree(token).path("token").asText();
+            String fecha = LocalDate.now().toString();
+            String alta = json.writeValueAsString(Map.of(
+                    "equipoOInstalacion", EQUIPO,
+                    "descripcionTrabajo", "Benchmark de carga",
+                    "fechaInicio", fecha,
+                    "solicitanteLegajo", LEGAJO));
+
+            Map<String, Resultado> resultados = new LinkedHashMap<>();
+            resultados.put("busqueda", cargar(() -> http.send(HttpRequest.newBuilder(URI.create(base + "/api/pts?fechaInicio=" + fecha))
+                    .header("Authorization", autorizacion).GET().build(), HttpResponse.BodyHandlers.discarding())));
+            resultados.put("alta", cargar(() -> http.send(HttpRequest.newBuilder(URI.create(base + "/api/pts"))
+                    .header("Authorization", autorizacion).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(alta)).build(), HttpResponse.BodyHandlers.discarding())));
+            resultados.put("login", cargar(() -> login(base)));
+            return resultados;
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private HttpResponse<String> login(String base) throws Exception {
+        String cuerpo = json.writeValueAsString(Map.of("legajo", LEGAJO, "password", CLAVE));
+        return http.send(HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private interface Peticion {
+        HttpResponse<?> enviar() throws Exception;
+    }
+
+    // CLIENTES clientes en bucle cerrado durante SEGUNDOS; el primer segundo es calentamiento.
+    // Cuenta las peticiones que terminan dentro de la ventana (un login puede tardar mas que el calentamiento)
+    private Resultado cargar(Peticion peticion) throws Exception {
+        long calentamiento = System.nanoTime() + 1_000_000_000L;
+        long fin = calentamiento + SEGUNDOS * 1_000_000_000L;
+        AtomicLong errores = new AtomicLong();
+        AtomicReference<String> primerError = new AtomicReference<>();
+        List<long[]> latenciasPorCliente = new ArrayList<>();
+        int[] cantidades = new int[CLIENTES];
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTES; c++) {
+                long[] latencias = new long[1 << 16];
+                latenciasPorCliente.add(latencias);
+                int cliente = c;
+                clientes.submit(() -> {
+                    long ahora;
+                    while ((ahora = System.nanoTime()) < fin) {
+                        boolean error;
+                        try {
+                            int estado = peticion.enviar().statusCode();
+                            error = estado >= 400;
+                            if (error) {
+                                primerError.compareAndSet(null, "HTTP " + estado);
+                            }
+                        } catch (Exception e) {
+                            error = true;
+                            primerError.compareAndSet(null, e.toString());
+                        }
+                        long despues = System.nanoTime();
+                        if (despues < calentamiento || despues > fin) {
+                            continue;
+                        }
+                        if (error) {
+                            errores.incrementAndGet();
+                        }
+                        if (cantidades[cliente] < latencias.length) {
+                            latencias[cantidades[cliente]++] = despues - ahora;
+                        }
+                    }
+                });
+            }
+        }
+        int total = Arrays.stream(cantidades).sum();
+        long[] todas = new long[total];
+        int i = 0;
+        for (int c = 0; c < CLIENTES; c++) {
+            System.arraycopy(latenciasPorCliente.get(c), 0, todas, i, cantidades[c]);
+            i += cantidades[c];
+        }
+        Arrays.sort(todas);
+        if (primerError.get() != null) {
+            log.warn("Primer error: {}", primerError.get());
+        }
+        return new Resultado(total, errores.get(), total / (double) SEGUNDOS,
+                percentil(todas, 0.50), percentil(todas, 0.99));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        return ordenadas[Math.min(ordenadas.length - 1, (int) (ordenadas.length * p))] / 1e6;
+    }
+
+    private static void imprimir(String escenario, String hilos, Resultado r) {
+        log.info(String.format("%-10s %-10s %10.0f %8d %10.2f %10.2f",
+                escenario, hilos, r.porSegundo(), r.errores(), r.p50Ms(), r.p99Ms()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.epu.prototipo.config;
+
+import com.epu.prototipo.service.MysqlPtsService;
+import com.epu.prototipo.service.MysqlRtoService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// Destino de cada transaccion con la replica disponible: las versiones de los GET condicionales
+// (y los cuerpos que validan) se leen de la primaria, las demas lecturas de la aplicacion de la replica
+
+class RuteoDataSourceTest {
+
+    private final AnnotationTransactionAttributeSource atributos = new AnnotationTransactionAttributeSource();
+    private RuteoDataSource ruteo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Una replica sin replicacion configurada (SHOW REPLICA STATUS sin filas) se toma como disponible
+        ResultSet sinFilas = mock(ResultSet.class);
+        Statement sentencia = mock(Statement.class);
+        when(sentencia.executeQuery(anyString())).thenReturn(sinFilas);
+        Connection conexion = mock(Connection.class);
+        when(conexion.createStatement()).thenReturn(sentencia);
+        HikariDataSource replica = mock(HikariDataSource.class);
+        when(replica.getConnection()).thenReturn(conexion);
+
+        ruteo = new RuteoDataSource(mock(HikariDataSource.class), replica, 5, 60);
+        ruteo.afterPropertiesSet();
+        long limite = System.currentTimeMillis() + 5000;
+        while (!Boolean.TRUE.equals(ruteo.getMetricas().get("replicaDisponible"))) {
+            assertTrue(System.currentTimeMillis() < limite, "la replica no quedo disponible");
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ruteo.close();
+    }
+
+    @Test
+    void lasVersionesDeLosGetCondicionalesVanALaPrimaria() throws Exception {
+        assertEquals("primaria", destino(MysqlPtsService.class, "getVersionPts", String.class));
+        assertEquals("primaria", destino(MysqlPtsService.class, "getVersionPtsActivosPorEquipo", String.class));
+        assertEquals("primaria", destino(MysqlPtsService.class, "getPtsActivosPorEquipo", String.class));
+        assertEquals("primaria", destino(MysqlRtoService.class, "getVersionRtosAbiertos"));
+    }
+
+    @Test
+    void lasDemasLecturasDeLaAplicacionVanALaReplica() throws Exception {
+        assertEquals("replica", destino(MysqlPtsService.class, "getAllPts"));
+        assertEquals("replica", destino(MysqlRtoService.class, "getTableroAbiertos"));
+        assertEquals(2L, ruteo.getMetricas().get("lecturasReplica"));
+    }
+
+    // Lo que elige el ruteo dentro de la transaccion que Spring abre para el metodo
+    private Object destino(Class<?> clase, String nombre, Class<?>... parametros) throws Exception {
+        Method metodo = clase.getMethod(nombre, parametros);
+        TransactionAttribute atributo = atributos.getTransactionAttribute(metodo, clase);
+        assertNotNull(atributo, nombre + " sin @Transactional");
+        TransactionSynchronizationManager.setCurrentTransactionName(ClassUtils.getQualifiedMethodName(metodo, clase));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(atributo.isReadOnly());
+        try {
+            return ruteo.determineCurrentLookupKey();
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionName(null);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+}
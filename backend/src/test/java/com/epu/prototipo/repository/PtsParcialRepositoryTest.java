@@ -0,0 +1,157 @@
+package com.epu.prototipo.repository;
+
+import com.epu.prototipo.entity.EntityMapper;
+import com.epu.prototipo.entity.EquipoSeguridadEmb;
+import com.epu.prototipo.entity.PtsEntity;
+import com.epu.prototipo.entity.RiesgoControlEmb;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.util.CamposSolicitados;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// La lectura parcial por JDBC contra la carga completa por JPA (EntityMapper) del mismo PTS: con
+// fields= de todos los campos el JSON tiene que ser igual, asi un campo que falte en COLUMNAS
+// no se pierde en silencio
+
+class PtsParcialRepositoryTest {
+
+    private static final String ID = "PTS-20260301-001";
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json()
+            .filters(new SimpleFilterProvider().addFilter(CamposSolicitados.FILTRO, SimpleBeanPropertyFilter.serializeAll()))
+            .build();
+
+    private final List<String> consultas = new ArrayList<>();
+    private PtsEntity entidad;
+    private PtsParcialRepository repo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        entidad = entidadCompleta();
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(inv -> {
+            consultas.add(inv.getArgument(0));
+            RowMapper<?> mapper = inv.getArgument(1);
+            return List.of(mapper.mapRow(filaPorNombre(entidad), 0));
+        });
+        doAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            consultas.add(sql);
+            RowCallbackHandler handler = inv.getArgument(1);
+            if (sql.contains("pts_riesgos_controles")) {
+                for (RiesgoControlEmb r : entidad.getRiesgosControles()) {
+                    handler.processRow(filaPorPosicion(ID, r.getPeligro(), r.getConsecuencia(), r.getControlRequerido()));
+                }
+            } else {
+                for (EquipoSeguridadEmb e : entidad.getEquiposSeguridad()) {
+                    handler.processRow(filaPorPosicion(ID, e.getEquipo(), e.isEsRequerido(), e.isEsProporcionado(), e.getObservacion()));
+                }
+            }
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        repo = new PtsParcialRepository(jdbc);
+    }
+
+    @Test
+    void todosLosCamposIgualQueLaCargaJpa() {
+        JsonNode completo = json.valueToTree(EntityMapper.toModel(entidad));
+        // Cada campo del modelo tiene valor: si no, la comparacion no probaria nada
+        List<String> campos = new ArrayList<>();
+        completo.fields().forEachRemaining(c -> {
+            assertFalse(c.getValue().isNull(), c.getKey() + " sin valor en la entidad de prueba");
+            campos.add(c.getKey());
+        });
+
+        PermisoTrabajoSeguro parcial = repo.porId(false, ID, CamposSolicitados.de(String.join(",", campos)));
+
+        assertEquals(completo, json.valueToTree(parcial));
+    }
+
+    @Test
+    void soloLeeLasColumnasYColeccionesPedidas() {
+        PermisoTrabajoSeguro parcial = repo.porId(false, ID, CamposSolicitados.de("descripcionTrabajo,riesgosControles"));
+
+        assertEquals(2, consultas.size());
+        assertEquals("SELECT id, `descripcionTrabajo` FROM permisos_trabajo_seguro WHERE id = ?", consultas.get(0));
+        assertTrue(consultas.get(1).contains("pts_riesgos_controles"), consultas.get(1));
+
+        PermisoTrabajoSeguro completo = EntityMapper.toModel(entidad);
+        assertEquals(ID, parcial.getId());
+        assertEquals(completo.getDescripcionTrabajo(), parcial.getDescripcionTrabajo());
+        assertEquals(json.valueToTree(completo.getRiesgosControles()), json.valueToTree(parcial.getRiesgosControles()));
+        assertNull(parcial.getFirmaSupervisorBase64());
+        assertNull(parcial.getEquiposSeguridad());
+    }
+
+    // Un valor distinto por columna de la entidad, y una fila en cada coleccion
+    private static PtsEntity entidadCompleta() throws IllegalAccessException {
+        PtsEntity e = new PtsEntity();
+        int n = 1;
+        for (Field campo : PtsEntity.class.getDeclaredFields()) {
+            if (Modifier.isStatic(campo.getModifiers()) || Collection.class.isAssignableFrom(campo.getType())) {
+                continue;
+            }
+            campo.setAccessible(true);
+            campo.set(e, valor(campo, n++));
+        }
+        e.setId(ID);
+        e.getRiesgosControles().add(new RiesgoControlEmb("Caida", "Lesion", "Arnes"));
+        e.getEquiposSeguridad().add(new EquipoSeguridadEmb("Casco", true, false, "Talle L"));
+        return e;
+    }
+
+    private static Object valor(Field campo, int n) {
+        Class<?> tipo = campo.getType();
+        if (tipo == String.class) return campo.getName() + "-" + n;
+        if (tipo == boolean.class) return true;
+        if (tipo == Long.class) return (long) n;
+        if (tipo == LocalDate.class) return LocalDate.of(2026, 3, n % 28 + 1);
+        if (tipo == LocalTime.class) return LocalTime.of(n % 24, 30);
+        if (tipo == LocalDateTime.class) return LocalDateTime.of(2026, 3, n % 28 + 1, 8, 15);
+        throw new IllegalStateException("Sin valor de prueba para " + campo.getName() + " (" + tipo + ")");
+    }
+
+    // Fila del SELECT principal: cada columna sale del campo homonimo de la entidad
+    private static ResultSet filaPorNombre(PtsEntity entidad) {
+        return mock(ResultSet.class, inv -> {
+            String columna = inv.getArgument(0);
+            Field campo;
+            try {
+                campo = PtsEntity.class.getDeclaredField(columna);
+            } catch (NoSuchFieldException ex) {
+                throw new SQLException("Columna desconocida: " + columna);
+            }
+            campo.setAccessible(true);
+            Object valor = campo.get(entidad);
+            return inv.getMethod().getName().equals("getString") && valor != null ? valor.toString() : valor;
+        });
+    }
+
+    private static ResultSet filaPorPosicion(Object... valores) {
+        return mock(ResultSet.class, inv -> valores[(Integer) inv.getArgument(0) - 1]);
+    }
+}
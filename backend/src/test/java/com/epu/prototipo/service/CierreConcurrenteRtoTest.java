@@ -0,0 +1,158 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.entity.EspecialidadRtoEntity;
+import com.epu.prototipo.entity.RtoEntity;
+import com.epu.prototipo.model.EstadoRto;
+import com.epu.prototipo.model.RetornoOperaciones;
+import com.epu.prototipo.repository.EspecialidadRtoRepository;
+import com.epu.prototipo.repository.RtoParcialRepository;
+import com.epu.prototipo.repository.RtoPtsRepository;
+import com.epu.prototipo.repository.RtoRepository;
+import com.epu.prototipo.service.outbox.Outbox;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Dos responsables cierran a la vez especialidades distintas del mismo RTO: el segundo en
+// confirmar choca con la version, reintenta sobre el estado nuevo y ningun cierre se pierde
+
+class CierreConcurrenteRtoTest {
+
+    private static final String RTO_ID = "RTO-260101-001";
+
+    @Test
+    void cierresSimultaneosReintentanYConservanAmbos() throws Exception {
+        RtoVersionado almacen = new RtoVersionado();
+        ReintentosOptimistas reintentos = new ReintentosOptimistas(almacen, 4, 0);
+
+        RtoRepository repo = mock(RtoRepository.class);
+        when(repo.findParaActualizarById(RTO_ID)).thenAnswer(inv -> Optional.of(almacen.leer()));
+        Outbox outbox = mock(Outbox.class);
+        MysqlRtoService servicio = new MysqlRtoService(repo, mock(RtoPtsRepository.class),
+                mock(EspecialidadRtoRepository.class), mock(RtoParcialRepository.class), outbox,
+                mock(CambiosBroadcaster.class), reintentos);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<RetornoOperaciones> mecanica = pool.submit(() ->
+                    servicio.cerrarEspecialidad(RTO_ID, "Mecanica", "L1", "ok mecanica"));
+            Future<RetornoOperaciones> electrica = pool.submit(() ->
+                    servicio.cerrarEspecialidad(RTO_ID, "Electrica", "L2", "ok electrica"));
+            mecanica.get(5, TimeUnit.SECONDS);
+            electrica.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Las dos leyeron la version 0; una confirmo y la otra reintento una sola vez
+        assertEquals(1, reintentos.getConflictos());
+        assertEquals(0, reintentos.getAgotados());
+        assertEquals(3, almacen.lecturas.get());
+
+        RtoEntity rto = almacen.confirmado;
+        assertEquals(2L, rto.getVersion());
+        assertEquals(EstadoRto.CERRADO, rto.getEstado());
+        assertNotNull(rto.getFechaCierre());
+        for (EspecialidadRtoEntity e : rto.getEspecialidades()) {
+            assertTrue(e.isCerrada(), e.getNombre());
+            assertNotNull(e.getFechaCierre(), e.getNombre());
+        }
+        assertEquals("ok mecanica", especialidad(rto, "Mecanica").getObservaciones());
+        assertEquals("ok electrica", especialidad(rto, "Electrica").getObservaciones());
+
+        // Solo el intento que cerro la ultima especialidad libera el equipo
+        verify(outbox, times(1)).encolar(eq("P-5511"), eq(Outbox.LIBERAR_EQUIPO), anyString());
+    }
+
+    private static EspecialidadRtoEntity especialidad(RtoEntity rto, String nombre) {
+        return rto.getEspecialidades().stream().filter(e -> nombre.equals(e.getNombre())).findFirst().orElseThrow();
+    }
+
+    /**
+     * Un RTO guardado con version y un gestor de transacciones que, como el
+     * OPTIMISTIC_FORCE_INCREMENT de findParaActualizarById, confirma solo si la version
+     * leida sigue vigente y en ese caso la incrementa. Cada transaccion trabaja sobre su
+     * copia; las dos primeras lecturas se esperan entre si para forzar el choque.
+     */
+    private static class RtoVersionado implements PlatformTransactionManager {
+
+        private final ThreadLocal<RtoEntity> enCurso = new ThreadLocal<>();
+        private final CyclicBarrier ambasLeyeron = new CyclicBarrier(2);
+        private final AtomicInteger lecturas = new AtomicInteger();
+        private volatile RtoEntity confirmado;
+
+        RtoVersionado() {
+            RtoEntity rto = new RtoEntity();
+            rto.setId(RTO_ID);
+            rto.setEquipoTag("P-5511");
+            rto.setEstado(EstadoRto.ABIERTO);
+            rto.setVersion(0L);
+            rto.getEspecialidades().add(new EspecialidadRtoEntity(RTO_ID, "Electrica", "L2"));
+            rto.getEspecialidades().add(new EspecialidadRtoEntity(RTO_ID, "Mecanica", "L1"));
+            confirmado = rto;
+        }
+
+        RtoEntity leer() throws Exception {
+            RtoEntity copia = copiar(confirmado);
+            enCurso.set(copia);
+            if (lecturas.incrementAndGet() <= 2) {
+                ambasLeyeron.await(5, TimeUnit.SECONDS);
+            }
+            return copia;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public synchronized void commit(TransactionStatus status) {
+            RtoEntity leido = enCurso.get();
+            enCurso.remove();
+            if (!leido.getVersion().equals(confirmado.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(RtoEntity.class, RTO_ID);
+            }
+            leido.setVersion(leido.getVersion() + 1);
+            confirmado = leido;
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            enCurso.remove();
+        }
+
+        private static RtoEntity copiar(RtoEntity origen) {
+            RtoEntity copia = new RtoEntity();
+            copia.setId(origen.getId());
+            copia.setEquipoTag(origen.getEquipoTag());
+            copia.setEstado(origen.getEstado());
+            copia.setFechaCierre(origen.getFechaCierre());
+            copia.setVersion(origen.getVersion());
+            for (EspecialidadRtoEntity e : origen.getEspecialidades()) {
+                EspecialidadRtoEntity esp = new EspecialidadRtoEntity(e.getRtoId(), e.getNombre(), e.getResponsableLegajo());
+                esp.setCerrada(e.isCerrada());
+                esp.setFechaCierre(e.getFechaCierre());
+                esp.setObservaciones(e.getObservaciones());
+                copia.getEspecialidades().add(esp);
+            }
+            return copia;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.model.CondicionEquipo;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.EstadoDcs;
+import com.epu.prototipo.model.TransicionEquipo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Cambios de condicion dentro de una transaccion: el UPDATE va en ella y la memoria, el historial
+// y la revision cambian recien al confirmar; un rollback deja la memoria como estaba
+
+class EstadoEquiposStoreTest {
+
+    private static final String TAG = "P-5511";
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final IHistorialEquipoService historial = mock(IHistorialEquipoService.class);
+    private final EstadoEquiposStore estados = new EstadoEquiposStore(jdbc, historial, 1000, 500);
+
+    @BeforeEach
+    void setUp() {
+        estados.registrar(new Equipo(TAG, "Bomba A", EstadoDcs.HABILITADO, CondicionEquipo.DESBLOQUEADO));
+        clearInvocations(historial);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void elBloqueoLlegaALaMemoriaAlConfirmar() {
+        String version = estados.version().etag();
+
+        assertTrue(estados.aplicarEstadoYCondicion(TAG, EstadoDcs.DESHABILITADO, CondicionEquipo.BLOQUEADO));
+
+        verify(jdbc).update(startsWith("UPDATE equipos SET estadoDcs = ?, condicion = ?"), any(Object[].class));
+        assertEquals(CondicionEquipo.DESBLOQUEADO, estados.obtener(TAG).getCondicion());
+        assertEquals(version, estados.version().etag());
+        verifyNoInteractions(historial);
+
+        completar(true);
+
+        Equipo equipo = estados.obtener(TAG);
+        assertEquals(CondicionEquipo.BLOQUEADO, equipo.getCondicion());
+        assertEquals(EstadoDcs.DESHABILITADO, equipo.getEstadoDcs());
+        assertNotEquals(version, estados.version().etag());
+        verify(historial).registrar(TAG, TransicionEquipo.CAMPO_CONDICION, CondicionEquipo.BLOQUEADO);
+        verify(historial).registrar(TAG, TransicionEquipo.CAMPO_ESTADO_DCS, EstadoDcs.DESHABILITADO);
+        assertEquals(1, estados.getCambiosAplicados());
+    }
+
+    @Test
+    void conRollbackLaMemoriaNoCambia() {
+        String version = estados.version().etag();
+
+        assertTrue(estados.aplicarCondicion(TAG, CondicionEquipo.BLOQUEADO));
+        completar(false);
+
+        assertEquals(CondicionEquipo.DESBLOQUEADO, estados.obtener(TAG).getCondicion());
+        assertEquals(version, estados.version().etag());
+        verifyNoInteractions(historial);
+        assertEquals(0, estados.getCambiosAplicados());
+    }
+
+    @Test
+    void sinCambioNoEscribeNiRegistra() {
+        assertFalse(estados.aplicarCondicion(TAG, CondicionEquipo.DESBLOQUEADO));
+
+        verifyNoInteractions(jdbc);
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        assertEquals(1, estados.getCambiosSinEfecto());
+    }
+
+    // Lo que hace el transaction manager al terminar la transaccion
+    private static void completar(boolean confirmada) {
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (confirmada) {
+                s.afterCommit();
+            }
+            s.afterCompletion(confirmada ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.dto.SugerenciaEquipoDTO;
+import com.epu.prototipo.model.CondicionEquipo;
+import com.epu.prototipo.model.Equipo;
+import com.epu.prototipo.model.EstadoDcs;
+import com.epu.prototipo.service.gateway.AsyncDcsGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Autocompletado por prefijo, palabra y aproximado, y sincronia del indice con las altas, ediciones y bajas
+
+class IndiceEquiposTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceEquiposTest.class);
+
+    private final IndiceEquipos indice = new IndiceEquipos();
+
+    @BeforeEach
+    void setUp() {
+        indice.reconstruir(List.of(
+                equipo("P-5511", "Bomba A de agua caliente"),
+                equipo("P5512", "Bomba B de agua caliente"),
+                equipo("K7451", "Compresor de aire de instrumentos"),
+                equipo("F1002A", "Bomba de refrigeración Torre 1")));
+    }
+
+    @Test
+    void prefijoDeTagIgnoraSeparadoresYMayusculas() {
+        List<SugerenciaEquipoDTO> sugerencias = indice.sugerir("p55", 10);
+        assertEquals(List.of("P-5511", "P5512"), tags(sugerencias));
+        assertTrue(sugerencias.stream().allMatch(s -> IndiceEquipos.COINCIDENCIA_TAG.equals(s.getCoincidencia())));
+        assertEquals("Bomba A de agua caliente", sugerencias.get(0).getDescripcion());
+        assertEquals(1, indice.sugerir("P-55", 1).size());
+    }
+
+    @Test
+    void palabrasDeDescripcionSinAcentosYEnTodas() {
+        List<SugerenciaEquipoDTO> sugerencias = indice.sugerir("refrigeracion", 10);
+        assertEquals("F1002A", sugerencias.get(0).getTag());
+        assertEquals(IndiceEquipos.COINCIDENCIA_DESCRIPCION, sugerencias.get(0).getCoincidencia());
+
+        // Cada palabra de la consulta es prefijo de alguna palabra del equipo
+        assertEquals(List.of("P-5511", "P5512"), tags(soloDescripcion(indice.sugerir("bom cal", 10))));
+        assertEquals(List.of("F1002A"), tags(soloDescripcion(indice.sugerir("bomba torre", 10))));
+    }
+
+    @Test
+    void aproximadoToleraUnaTransposicion() {
+        List<SugerenciaEquipoDTO> sugerencias = indice.sugerir("K7541", 10);
+        assertEquals("K7451", sugerencias.get(0).getTag());
+        assertEquals(IndiceEquipos.COINCIDENCIA_APROXIMADA, sugerencias.get(0).getCoincidencia());
+        assertTrue(indice.sugerir("", 10).isEmpty());
+    }
+
+    @Test
+    void indexarReemplazaLaDescripcionAnterior() {
+        indice.indexar(equipo("K7451", "Ventilador de sala de control"));
+        assertEquals(4, indice.getCantidad());
+        assertTrue(soloDescripcion(indice.sugerir("compresor", 10)).isEmpty());
+        assertEquals(List.of("K7451"), tags(soloDescripcion(indice.sugerir("ventilador", 10))));
+        assertEquals("Ventilador de sala de control", indice.sugerir("K7451", 1).get(0).getDescripcion());
+    }
+
+    @Test
+    void quitarLoSacaDeTodasLasBusquedas() {
+        indice.quitar("K7451");
+        assertEquals(3, indice.getCantidad());
+        assertFalse(tags(indice.sugerir("K7451", 10)).contains("K7451"));
+        assertFalse(tags(indice.sugerir("K7541", 10)).contains("K7451"));
+        assertFalse(tags(indice.sugerir("compresor", 10)).contains("K7451"));
+        indice.quitar("NO_EXISTE");
+        assertEquals(3, indice.getCantidad());
+
+        // Las claves liberadas se reusan para el proximo equipo
+        indice.indexar(equipo("K7452", "Compresor nuevo"));
+        assertEquals("K7452", indice.sugerir("K7425", 10).get(0).getTag());
+        assertEquals(List.of("K7452"), tags(indice.sugerir("compresr", 10)));
+    }
+
+    @Test
+    void serviceMantieneElIndiceEnAltasEdicionesYBajas() {
+        IndiceEquipos propio = new IndiceEquipos();
+        EquipoService service = new EquipoService(mock(AsyncDcsGateway.class), mock(CambiosBroadcaster.class),
+                mock(IHistorialEquipoService.class), propio);
+        int iniciales = propio.getCantidad();
+
+        service.createEquipo(equipo("Z9001", "Turbina de vapor"));
+        assertEquals(iniciales + 1, propio.getCantidad());
+        assertEquals(List.of("Z9001"), tags(propio.sugerir("Z900", 10)));
+
+        service.updateEquipo("Z9001", equipo("Z9001", "Caldera auxiliar"));
+        assertTrue(soloDescripcion(propio.sugerir("turbina", 10)).isEmpty());
+        assertEquals(List.of("Z9001"), tags(soloDescripcion(propio.sugerir("caldera", 10))));
+
+        service.crearEquipos(List.of(equipo("Z9002", "Enfriador"), equipo("z9001", "Repetido")));
+        assertEquals(iniciales + 2, propio.getCantidad());
+        assertEquals(List.of("Z9001", "Z9002"), tags(propio.sugerir("z900", 10)));
+
+        service.deleteEquipo("Z9001");
+        assertEquals(iniciales + 1, propio.getCantidad());
+        assertFalse(tags(propio.sugerir("z900", 10)).contains("Z9001"));
+    }
+
+    @Test
+    void midePromedioPorConsulta() {
+        List<Equipo> equipos = new ArrayList<>();
+        String[] descripciones = {"Bomba de agua", "Compresor de aire", "Valvula de control", "Tanque de almacenamiento"};
+        for (int i = 0; i < 20_000; i++) {
+            equipos.add(equipo(String.format("%c%05d", 'A' + i % 20, i), descripciones[i % 4] + " " + i));
+        }
+        IndiceEquipos grande = new IndiceEquipos();
+        grande.reconstruir(equipos);
+        String[] consultas = {"B001", "comp", "valv cont", "A0042", "tanqe", "K12345"};
+        for (int i = 0; i < 2_000; i++) {
+            grande.sugerir(consultas[i % consultas.length], 10); // calentamiento
+        }
+        int n = 5_000;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            assertFalse(grande.sugerir(consultas[i % consultas.length], 10).isEmpty());
+        }
+        double msPorConsulta = (System.nanoTime() - inicio) / 1e6 / n;
+        log.info("{} equipos: {} ms por consulta", equipos.size(), String.format("%.3f", msPorConsulta));
+        // Cota holgada para maquinas de CI: con este catalogo (la mitad de las consultas cae en la
+        // busqueda aproximada) se midieron 0.1-0.5 ms
+        assertTrue(msPorConsulta < 2, "promedio " + msPorConsulta + " ms");
+    }
+
+    private static Equipo equipo(String tag, String descripcion) {
+        return new Equipo(tag, descripcion, EstadoDcs.HABILITADO, CondicionEquipo.DESBLOQUEADO);
+    }
+
+    private static List<String> tags(List<SugerenciaEquipoDTO> sugerencias) {
+        return sugerencias.stream().map(SugerenciaEquipoDTO::getTag).toList();
+    }
+
+    private static List<SugerenciaEquipoDTO> soloDescripcion(List<SugerenciaEquipoDTO> sugerencias) {
+        return sugerencias.stream().filter(s -> IndiceEquipos.COINCIDENCIA_DESCRIPCION.equals(s.getCoincidencia())).toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.epu.prototipo.service;
+
+import com.epu.prototipo.entity.PtsEntity;
+import com.epu.prototipo.model.EstadoPts;
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.repository.PtsParcialRepository;
+import com.epu.prototipo.repository.PtsRepository;
+import com.epu.prototipo.service.archivo.ArchivoPts;
+import com.epu.prototipo.service.busqueda.IndiceTextoPts;
+import com.epu.prototipo.service.outbox.Outbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+// Unicidad del ID de PTS con la PK (id, fechaInicio) de la tabla particionada: los ID nuevos
+// llevan la fecha de alta y se numeran por prefijo, contando movidos de fecha y archivados
+
+class NumeracionPtsTest {
+
+    private PtsRepository repo;
+    private ArchivoPts archivo;
+    private MysqlPtsService servicio;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(PtsRepository.class);
+        when(repo.save(any(PtsEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        archivo = mock(ArchivoPts.class);
+        servicio = new MysqlPtsService(repo, mock(PtsParcialRepository.class), mock(IRtoService.class), mock(Outbox.class),
+                mock(CambiosBroadcaster.class), mock(ReintentosOptimistas.class), archivo, mock(IndiceTextoPts.class), 2000);
+    }
+
+    @Test
+    void generaElSiguienteAlMayorDelPrefijo() {
+        // 004 se paso a otra fecha y 007 esta archivado: ninguno de los dos se vuelve a generar
+        when(repo.idsComo("PTS-250310-%")).thenReturn(List.of("PTS-250310-001", "PTS-250310-004"));
+        when(archivo.idsConPrefijo("PTS-250310-")).thenReturn(List.of("PTS-250310-007"));
+
+        PermisoTrabajoSeguro creado = servicio.createPts(pts(null, "2025-03-10"));
+
+        assertEquals("PTS-250310-008", creado.getId());
+        assertEquals("2025-03-10", creado.getFechaInicio());
+    }
+
+    @Test
+    void cuentaTambienLosIdsConAnioCompleto() {
+        // Los que generaba antes el backend (PTS-AAAAMMDD-NNN) siguen ocupando su numero
+        when(repo.idsComo("PTS-250310-%")).thenReturn(List.of("PTS-250310-002"));
+        when(repo.idsComo("PTS-20250310-%")).thenReturn(List.of("PTS-20250310-005"));
+
+        assertEquals(5, servicio.obtenerUltimoNumeroPtsPorFecha("2025-03-10"));
+        assertEquals("PTS-250310-006", servicio.createPts(pts(null, "2025-03-10")).getId());
+    }
+
+    @Test
+    void primerPtsDelDia() {
+        assertEquals(0, servicio.obtenerUltimoNumeroPtsPorFecha("2025-03-11"));
+        assertEquals("PTS-250311-001", servicio.createPts(pts("", "2025-03-11")).getId());
+    }
+
+    @Test
+    void aceptaElIdQueArmaElFrontend() {
+        // CrearPTS.jsx: PTS-${aa}${mm}${dd}-NNN con el siguiente a /api/pts/ultimo-numero
+        when(repo.idsComo("PTS-250310-%")).thenReturn(List.of("PTS-250310-001"));
+        int siguiente = servicio.obtenerUltimoNumeroPtsPorFecha("2025-03-10") + 1;
+        String id = String.format("PTS-250310-%03d", siguiente);
+
+        PermisoTrabajoSeguro creado = servicio.createPts(pts(id, "2025-03-10"));
+
+        assertEquals("PTS-250310-002", creado.getId());
+        verify(repo).save(argThat(e -> "PTS-250310-002".equals(e.getId())));
+        // Tambien uno viejo con el anio completo
+        assertEquals("PTS-20250310-003", servicio.createPts(pts("PTS-20250310-003", "2025-03-10")).getId());
+    }
+
+    @Test
+    void rechazaUnIdDeOtraFecha() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> servicio.createPts(pts("PTS-250309-001", "2025-03-10")));
+        assertTrue(e.getMessage().contains("PTS-250310-"), e.getMessage());
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void rechazaUnIdQueYaExisteVivoOArchivado() {
+        when(repo.existsById("PTS-250310-002")).thenReturn(true);
+        when(archivo.contiene("PTS-250310-003")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> servicio.createPts(pts("PTS-250310-002", "2025-03-10")));
+        assertThrows(IllegalArgumentException.class, () -> servicio.createPts(pts("PTS-250310-003", "2025-03-10")));
+        verify(repo, never()).save(any());
+
+        assertEquals("PTS-250310-009", servicio.createPts(pts("PTS-250310-009", "2025-03-10")).getId());
+    }
+
+    private static PermisoTrabajoSeguro pts(String id, String fechaInicio) {
+        PermisoTrabajoSeguro pts = new PermisoTrabajoSeguro();
+        pts.setId(id);
+        pts.setFechaInicio(fechaInicio);
+        pts.setEquipoOInstalacion("P-5511");
+        pts.setDescripcionTrabajo("Cambio de sello");
+        pts.setRtoEstado(EstadoPts.PENDIENTE);
+        return pts;
+    }
+}
@@ -0,0 +1,94 @@
+package com.epu.prototipo.service.archivo;
+
+import com.epu.prototipo.repository.PtsParcialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Archivado de PTS sobre un JdbcTemplate simulado: sentencias de cada lote, corte por lotes y
+// lecturas del archivo antes de que tenga datos
+
+class ArchivoPtsTest {
+
+    private final List<String> sentencias = Collections.synchronizedList(new ArrayList<>());
+    private JdbcTemplate jdbc;
+    private ArchivoPts archivo;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        when(jdbc.queryForList(contains("CONCAT('`'"), eq(String.class), anyString()))
+                .thenAnswer(inv -> "permisos_trabajo_seguro".equals(inv.getArgument(2))
+                        ? List.of("`id`", "`fechaInicio`", "`rtoEstado`")
+                        : List.of("`pts_id`", "`detalle`"));
+        // Cada DELETE de la tabla viva de PTS borra las filas de los IDs que recibe
+        when(jdbc.update(anyString(), any(Object[].class))).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            sentencias.add(sql);
+            return sql.startsWith("DELETE FROM permisos_trabajo_seguro WHERE") ? inv.getArguments().length - 1 : 0;
+        });
+
+        PlatformTransactionManager transacciones = mock(PlatformTransactionManager.class);
+        when(transacciones.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        archivo = new ArchivoPts(jdbc, mock(PtsParcialRepository.class), transacciones, mock(ParticionesPts.class),
+                false, 12, 2, 1440, false);
+    }
+
+    @Test
+    void cadaLoteReemplazaLoArchivadoEnLasTresTablas() {
+        assertEquals(2, archivo.moverLote(List.of("PTS-20240105-001", "PTS-20240105-002")));
+
+        String enIds = " WHERE %s IN (?, ?)";
+        List<String> esperadas = new ArrayList<>();
+        for (String hija : List.of("pts_riesgos_controles", "pts_equipos_seguridad")) {
+            esperadas.add("DELETE FROM " + hija + "_archivo" + String.format(enIds, "pts_id"));
+            esperadas.add("INSERT INTO " + hija + "_archivo (`pts_id`, `detalle`) SELECT `pts_id`, `detalle` FROM " + hija
+                    + String.format(enIds, "pts_id"));
+            esperadas.add("DELETE FROM " + hija + String.format(enIds, "pts_id"));
+        }
+        esperadas.add("DELETE FROM permisos_trabajo_seguro_archivo" + String.format(enIds, "id"));
+        esperadas.add("INSERT INTO permisos_trabajo_seguro_archivo (`id`, `fechaInicio`, `rtoEstado`)"
+                + " SELECT `id`, `fechaInicio`, `rtoEstado` FROM permisos_trabajo_seguro" + String.format(enIds, "id"));
+        esperadas.add("DELETE FROM permisos_trabajo_seguro" + String.format(enIds, "id"));
+        assertEquals(esperadas, sentencias);
+    }
+
+    @Test
+    void archivarMueveDeALotesHastaQueNoQuedan() {
+        LocalDate corte = LocalDate.of(2025, 1, 1);
+        when(jdbc.queryForList(startsWith("SELECT p.id FROM"), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("PTS-20240105-001", "PTS-20240105-002"), List.of("PTS-20240106-001"));
+        when(jdbc.queryForObject(contains("MAX(fechaInicio)"), eq(LocalDate.class)))
+                .thenReturn(null, LocalDate.of(2024, 1, 6));
+
+        assertEquals(3, archivo.archivar(corte));
+
+        // Lote completo: se busca otro; el segundo vino incompleto y corta
+        verify(jdbc, times(2)).queryForList(startsWith("SELECT p.id FROM"), eq(String.class), any(Object[].class));
+        assertEquals(2, sentencias.stream().filter(s -> s.startsWith("DELETE FROM permisos_trabajo_seguro WHERE")).count());
+        // Las lecturas por rango consultan el archivo solo hasta el PTS archivado mas reciente
+        assertTrue(archivo.incluye(LocalDate.of(2024, 1, 6)));
+        assertTrue(archivo.incluye(null));
+        assertFalse(archivo.incluye(LocalDate.of(2024, 1, 7)));
+    }
+
+    @Test
+    void sinNadaArchivadoNoLeeElArchivo() {
+        assertFalse(archivo.incluye(null));
+        assertFalse(archivo.contiene("PTS-20240105-001"));
+        assertEquals(List.of(), archivo.idsConPrefijo("PTS-20240105-"));
+        assertNull(archivo.porId("PTS-20240105-001", null));
+        verifyNoInteractions(jdbc);
+    }
+}
@@ -0,0 +1,91 @@
+package com.epu.prototipo.service.archivo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Layout mensual de permisos_trabajo_seguro: SQL de la conversion y de los meses que se agregan
+
+class ParticionesPtsTest {
+
+    private static final DateTimeFormatter NOMBRE = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private JdbcTemplate jdbc;
+    private ParticionesPts particiones;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        particiones = new ParticionesPts(jdbc, 3);
+    }
+
+    @Test
+    void convertirArmaUnaParticionPorMesDesdeElPrimerPts() {
+        YearMonth primero = YearMonth.now().minusMonths(2);
+        when(jdbc.queryForObject(contains("MIN(fechaInicio)"), eq(LocalDate.class), any()))
+                .thenReturn(primero.atDay(17));
+
+        particiones.convertir();
+
+        // Los PTS sin fecha pasan a SIN_FECHA antes de volver NOT NULL la columna
+        verify(jdbc).update(contains("SET fechaInicio = ? WHERE fechaInicio IS NULL"), eq(ParticionesPts.SIN_FECHA));
+        String alter = sqlEjecutado();
+        assertTrue(alter.contains("DROP PRIMARY KEY, ADD PRIMARY KEY (id, fechaInicio)"), alter);
+        List<String> esperadas = new ArrayList<>();
+        esperadas.add("PARTITION p_inicial VALUES LESS THAN ('" + primero.atDay(1) + "')");
+        for (YearMonth mes = primero; !mes.isAfter(YearMonth.now().plusMonths(3)); mes = mes.plusMonths(1)) {
+            esperadas.add("PARTITION " + mes.format(NOMBRE) + " VALUES LESS THAN ('" + mes.plusMonths(1).atDay(1) + "')");
+        }
+        esperadas.add("PARTITION p_futuro VALUES LESS THAN (MAXVALUE)");
+        assertTrue(alter.endsWith("PARTITION BY RANGE COLUMNS (fechaInicio) (" + String.join(", ", esperadas) + ")"), alter);
+    }
+
+    @Test
+    void agregaLosMesesQueFaltanPartiendoFuturo() {
+        YearMonth ultimo = YearMonth.now().plusMonths(1);
+        particionesActuales("p_inicial", YearMonth.now().minusMonths(1).format(NOMBRE), YearMonth.now().format(NOMBRE),
+                ultimo.format(NOMBRE), "p_futuro");
+
+        assertEquals(2, particiones.agregarMesesFuturos());
+
+        YearMonth m2 = YearMonth.now().plusMonths(2);
+        YearMonth m3 = YearMonth.now().plusMonths(3);
+        assertEquals("ALTER TABLE permisos_trabajo_seguro REORGANIZE PARTITION p_futuro INTO ("
+                + "PARTITION " + m2.format(NOMBRE) + " VALUES LESS THAN ('" + m3.atDay(1) + "'), "
+                + "PARTITION " + m3.format(NOMBRE) + " VALUES LESS THAN ('" + m3.plusMonths(1).atDay(1) + "'), "
+                + "PARTITION p_futuro VALUES LESS THAN (MAXVALUE))", sqlEjecutado());
+    }
+
+    @Test
+    void alDiaOSinFuturoNoCambiaNada() {
+        particionesActuales("p_inicial", YearMonth.now().plusMonths(3).format(NOMBRE), "p_futuro");
+        assertEquals(0, particiones.agregarMesesFuturos());
+
+        particionesActuales("p_inicial", YearMonth.now().format(NOMBRE));
+        assertEquals(0, particiones.agregarMesesFuturos());
+
+        verify(jdbc, never()).execute(anyString());
+    }
+
+    private void particionesActuales(String... nombres) {
+        when(jdbc.queryForList(contains("PARTITION_NAME FROM"), eq(String.class), eq(ParticionesPts.TABLA)))
+                .thenReturn(List.of(nombres));
+    }
+
+    private String sqlEjecutado() {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbc).execute(sql.capture());
+        return sql.getValue();
+    }
+}
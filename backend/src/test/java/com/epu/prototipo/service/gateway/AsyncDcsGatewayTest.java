@@ -0,0 +1,202 @@
+package com.epu.prototipo.service.gateway;
+
+import com.epu.prototipo.model.EstadoDcs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Pipeline de comandos al DCS contra un gateway falso: orden por tag dentro del controlador,
+// lotes de hasta lote-maximo, reintentos con espera, timeout sin reenvio y circuito abierto
+
+class AsyncDcsGatewayTest {
+
+    private final DcsFalso dcs = new DcsFalso();
+    private AsyncDcsGateway pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.detener();
+        }
+    }
+
+    @Test
+    void cadaTagSaleEnOrdenPorSuControlador() throws Exception {
+        // Con la latencia simulada de cada viaje al DCS (LatenciaDcsGateway)
+        pipeline = new AsyncDcsGateway(new LatenciaDcsGateway(dcs, 2, 3, 0), 5, 1000, 0, 0, "K=CTRL-K,P=CTRL-P", "DCS",
+                5, 60_000, 3, false, new SimpleMeterRegistry());
+        List<CompletableFuture<Void>> futuros = new ArrayList<>();
+        Map<String, List<String>> esperado = new LinkedHashMap<>();
+        String[] tags = {"K-1", "K-2", "P-1", "P-2"};
+        for (int i = 0; i < 200; i++) {
+            String tag = tags[i % tags.length];
+            String estado = (i / tags.length) % 2 == 0 ? EstadoDcs.DESHABILITADO : EstadoDcs.HABILITADO;
+            esperado.computeIfAbsent(tag, t -> new ArrayList<>()).add(estado);
+            futuros.add(pipeline.enviar(tag, estado));
+        }
+        CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        for (String tag : tags) {
+            assertEquals(esperado.get(tag), dcs.enviados(tag), tag);
+        }
+        for (Lote lote : dcs.lotes) {
+            String prefijo = lote.controlador.equals("CTRL-K") ? "K-" : "P-";
+            assertTrue(lote.comandos.stream().allMatch(c -> c.getTag().startsWith(prefijo)), lote.toString());
+        }
+    }
+
+    @Test
+    void agrupaLosPendientesEnLotesDeHastaLoteMaximo() throws Exception {
+        pipeline = pipeline(5, 5000, 0, 0, 5);
+        CountDownLatch adentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        dcs.siguientes.add(lote -> {
+            adentro.countDown();
+            esperar(soltar);
+        });
+
+        List<CompletableFuture<Void>> futuros = new ArrayList<>();
+        futuros.add(pipeline.enviar("K-0", EstadoDcs.DESHABILITADO));
+        assertTrue(adentro.await(5, TimeUnit.SECONDS));
+        // Mientras el primer lote esta en viaje se acumulan 23 mas
+        for (int i = 1; i <= 23; i++) {
+            futuros.add(pipeline.enviar("K-" + i, EstadoDcs.DESHABILITADO));
+        }
+        soltar.countDown();
+        CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1, 5, 5, 5, 5, 3), dcs.lotes.stream().map(l -> l.comandos.size()).toList());
+    }
+
+    @Test
+    void reintentaConEsperaCrecienteHastaConfirmar() throws Exception {
+        long espera = 50;
+        pipeline = pipeline(5, 1000, 3, espera, 5);
+        dcs.siguientes.add(lote -> { throw new IllegalStateException("DCS ocupado"); });
+        dcs.siguientes.add(lote -> { throw new IllegalStateException("DCS ocupado"); });
+
+        pipeline.enviar("K-1", EstadoDcs.DESHABILITADO).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, dcs.lotes.size());
+        dcs.lotes.forEach(l -> assertEquals("[K-1=DESHABILITADO]", l.comandos.toString()));
+        // Espera base * 2^(intento-1) mas un jitter de hasta la base
+        long primera = dcs.lotes.get(1).nanos - dcs.lotes.get(0).nanos;
+        long segunda = dcs.lotes.get(2).nanos - dcs.lotes.get(1).nanos;
+        assertTrue(primera >= TimeUnit.MILLISECONDS.toNanos(espera), "primera espera " + primera / 1_000_000 + " ms");
+        assertTrue(segunda >= TimeUnit.MILLISECONDS.toNanos(2 * espera), "segunda espera " + segunda / 1_000_000 + " ms");
+    }
+
+    @Test
+    void agotadosLosReintentosInformaLaUltimaFalla() {
+        pipeline = pipeline(5, 1000, 2, 0, 100);
+        for (int i = 0; i < 3; i++) {
+            int intento = i + 1;
+            dcs.siguientes.add(lote -> { throw new IllegalStateException("falla " + intento); });
+        }
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> pipeline.enviar("K-1", EstadoDcs.HABILITADO).get(5, TimeUnit.SECONDS));
+
+        assertEquals("falla 3", e.getCause().getMessage());
+        assertEquals(3, dcs.lotes.size());
+    }
+
+    @Test
+    void unLoteVencidoNoSeReintenta() throws Exception {
+        pipeline = pipeline(5, 100, 3, 0, 5);
+        dcs.siguientes.add(lote -> esperar(new CountDownLatch(1)));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> pipeline.enviar("K-1", EstadoDcs.DESHABILITADO).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        Thread.sleep(300);
+        assertEquals(1, dcs.lotes.size());
+    }
+
+    @Test
+    void conElCircuitoAbiertoFallaAlInstante() throws Exception {
+        pipeline = pipeline(5, 1000, 0, 0, 2);
+        for (int i = 0; i < 2; i++) {
+            dcs.siguientes.add(lote -> { throw new IllegalStateException("sin respuesta"); });
+            CompletableFuture<Void> fallido = pipeline.enviar("K-1", EstadoDcs.DESHABILITADO);
+            assertThrows(ExecutionException.class, () -> fallido.get(5, TimeUnit.SECONDS));
+        }
+
+        CompletableFuture<Void> rechazado = pipeline.enviar("K-1", EstadoDcs.HABILITADO);
+
+        assertTrue(rechazado.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, rechazado::get);
+        assertInstanceOf(DcsNoDisponibleException.class, e.getCause());
+        assertEquals(2, dcs.lotes.size());
+        assertEquals("ABIERTO", String.valueOf(pipeline.getMetricasCircuitos().get("CTRL-K").get("estado")));
+    }
+
+    // Prefijos K y P en dos controladores
+    private AsyncDcsGateway pipeline(int loteMaximo, long timeoutMs, int reintentos, long esperaMs, int fallasParaAbrir) {
+        return new AsyncDcsGateway(dcs, loteMaximo, timeoutMs, reintentos, esperaMs, "K=CTRL-K,P=CTRL-P", "DCS",
+                fallasParaAbrir, 60_000, 3, false, new SimpleMeterRegistry());
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Envio interrumpido", e);
+        }
+    }
+
+    private record Lote(String controlador, List<ComandoDcs> comandos, long nanos) {}
+
+    /**
+     * Gateway que registra cada lote recibido y aplica, si hay, la siguiente conducta
+     * programada (fallar, demorarse); sin conducta confirma al instante.
+     */
+    private static class DcsFalso implements DcsGateway {
+
+        final List<Lote> lotes = Collections.synchronizedList(new ArrayList<>());
+        final List<Consumer<List<ComandoDcs>>> siguientes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void enviarLote(String controlador, List<ComandoDcs> comandos) {
+            lotes.add(new Lote(controlador, List.copyOf(comandos), System.nanoTime()));
+            Consumer<List<ComandoDcs>> conducta = siguientes.isEmpty() ? null : siguientes.remove(0);
+            if (conducta != null) {
+                conducta.accept(comandos);
+            }
+        }
+
+        @Override
+        public void deshabilitarEquipo(String tagEquipo) {
+            enviarLote(null, List.of(new ComandoDcs(tagEquipo, EstadoDcs.DESHABILITADO)));
+        }
+
+        @Override
+        public void habilitarEquipo(String tagEquipo) {
+            enviarLote(null, List.of(new ComandoDcs(tagEquipo, EstadoDcs.HABILITADO)));
+        }
+
+        // Estados enviados para el tag, en el orden en que llegaron
+        List<String> enviados(String tag) {
+            synchronized (lotes) {
+                return lotes.stream().flatMap(l -> l.comandos.stream())
+                        .filter(c -> c.getTag().equals(tag)).map(ComandoDcs::getEstadoObjetivo).toList();
+            }
+        }
+    }
+}
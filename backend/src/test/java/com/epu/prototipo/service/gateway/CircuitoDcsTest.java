@@ -0,0 +1,85 @@
+package com.epu.prototipo.service.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Transiciones del circuit breaker y limite del bulkhead
+
+class CircuitoDcsTest {
+
+    private static final long APERTURA_MS = 50;
+
+    private final CircuitoDcs circuito = new CircuitoDcs("CTRL", 3, APERTURA_MS, 2);
+
+    @Test
+    void cerradoAbiertoSemiAbiertoCerrado() throws Exception {
+        assertEquals(CircuitoDcs.Estado.CERRADO, circuito.getEstado());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(circuito.permitirLlamada());
+            circuito.registrarFalla(1_000);
+        }
+        assertEquals(CircuitoDcs.Estado.ABIERTO, circuito.getEstado());
+        assertTrue(circuito.estaAbierto());
+        assertFalse(circuito.permitirLlamada());
+
+        Thread.sleep(APERTURA_MS + 20);
+        assertFalse(circuito.estaAbierto());
+        assertTrue(circuito.permitirLlamada());
+        assertEquals(CircuitoDcs.Estado.SEMI_ABIERTO, circuito.getEstado());
+        assertFalse(circuito.permitirLlamada(), "una sola prueba a la vez");
+
+        circuito.registrarExito(1_000);
+        assertEquals(CircuitoDcs.Estado.CERRADO, circuito.getEstado());
+        assertTrue(circuito.permitirLlamada());
+        assertEquals(1, circuito.getAperturas());
+    }
+
+    @Test
+    void fallasNoSeguidasNoAbren() {
+        circuito.registrarFalla(1_000);
+        circuito.registrarFalla(1_000);
+        circuito.registrarExito(1_000);
+        circuito.registrarFalla(1_000);
+        assertEquals(CircuitoDcs.Estado.CERRADO, circuito.getEstado());
+    }
+
+    @Test
+    void pruebaFallidaVuelveAAbrir() throws Exception {
+        abrir();
+        Thread.sleep(APERTURA_MS + 20);
+        assertTrue(circuito.permitirLlamada());
+        circuito.registrarFalla(1_000);
+        assertEquals(CircuitoDcs.Estado.ABIERTO, circuito.getEstado());
+        assertFalse(circuito.permitirLlamada());
+        assertEquals(2, circuito.getAperturas());
+    }
+
+    @Test
+    void pruebaLiberadaSinResultadoDejaPasarOtra() throws Exception {
+        abrir();
+        Thread.sleep(APERTURA_MS + 20);
+        assertTrue(circuito.permitirLlamada());
+        circuito.liberarPrueba();
+        assertEquals(CircuitoDcs.Estado.SEMI_ABIERTO, circuito.getEstado());
+        assertTrue(circuito.permitirLlamada());
+    }
+
+    @Test
+    void bulkheadLimitaLlamadasEnCurso() {
+        assertTrue(circuito.ocuparLugar());
+        assertTrue(circuito.ocuparLugar());
+        assertFalse(circuito.ocuparLugar());
+        assertEquals(2, circuito.getEnCurso());
+        circuito.liberarLugar();
+        assertTrue(circuito.ocuparLugar());
+        assertEquals(1, circuito.getRechazadas());
+    }
+
+    private void abrir() {
+        for (int i = 0; i < 3; i++) {
+            circuito.registrarFalla(1_000);
+        }
+        assertEquals(CircuitoDcs.Estado.ABIERTO, circuito.getEstado());
+    }
+}
@@ -0,0 +1,161 @@
+package com.epu.prototipo.service.gateway.modbus;
+
+import com.epu.prototipo.model.EstadoDcs;
+import com.epu.prototipo.service.gateway.AsyncDcsGateway;
+import com.epu.prototipo.service.gateway.ComandoDcs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Gateway Modbus contra el esclavo simulado en proceso: correccion, timeouts y tags sin mapear a
+// traves del pipeline, y medicion de throughput/latencia
+
+class ModbusTcpDcsGatewayTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ModbusTcpDcsGatewayTest.class);
+
+    private ModbusEsclavoSimulador simulador;
+    private ModbusTcpDcsGateway gateway;
+    private final Map<String, PuntoModbus> mapa = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulador = new ModbusEsclavoSimulador(0, 0);
+        mapa.putAll(PuntoModbus.parsearMapa("K7451=coil:1:100,P5511=registro:2:40"));
+        for (int i = 0; i < 200; i++) {
+            mapa.put("TAG" + i, new PuntoModbus("TAG" + i, PuntoModbus.Tipo.COIL, 3, i));
+        }
+        gateway = new ModbusTcpDcsGateway("127.0.0.1", simulador.getPuerto(), 2, 2000, mapa);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        gateway.close();
+        simulador.close();
+    }
+
+    @Test
+    void escribeCoilsYRegistrosSegunElMapa() {
+        gateway.habilitarEquipo("K7451");
+        gateway.habilitarEquipo("P5511");
+        assertTrue(simulador.leerCoil(1, 100));
+        assertEquals(1, simulador.leerRegistro(2, 40));
+
+        gateway.deshabilitarEquipo("K7451");
+        gateway.deshabilitarEquipo("P5511");
+        assertFalse(simulador.leerCoil(1, 100));
+        assertEquals(0, simulador.leerRegistro(2, 40));
+    }
+
+    @Test
+    void rechazaTagsSinDireccion() {
+        assertThrows(IllegalArgumentException.class, () -> gateway.habilitarEquipo("NO_EXISTE"));
+    }
+
+    @Test
+    void timeoutNoDejaPeticionesPendientes() throws Exception {
+        try (ModbusEsclavoSimulador lento = new ModbusEsclavoSimulador(0, 300);
+             ModbusTcpDcsGateway conTimeout = new ModbusTcpDcsGateway("127.0.0.1", lento.getPuerto(), 1, 50, mapa)) {
+            List<ComandoDcs> lote = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                lote.add(new ComandoDcs("TAG" + i, EstadoDcs.HABILITADO));
+            }
+            ModbusException e = assertThrows(ModbusException.class, () -> conTimeout.enviarLote("DCS", lote));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            assertEquals(0, conTimeout.getPendientes());
+
+            // Las respuestas tardias llegan sin peticion que las espere y se ignoran
+            Thread.sleep(5 * 300 + 200);
+            assertEquals(0, conTimeout.getPendientes());
+        }
+    }
+
+    @Test
+    void elPipelineNoReenviaUnLoteVencidoEnModbus() throws Exception {
+        // Timeout Modbus (50 ms) mas corto que el del pipeline: igual cuenta como timeout
+        try (ModbusEsclavoSimulador lento = new ModbusEsclavoSimulador(0, 300);
+             ModbusTcpDcsGateway conTimeout = new ModbusTcpDcsGateway("127.0.0.1", lento.getPuerto(), 1, 50, mapa)) {
+            AsyncDcsGateway pipeline = pipeline(conTimeout);
+            try {
+                ExecutionException e = assertThrows(ExecutionException.class,
+                        () -> pipeline.enviar("TAG0", EstadoDcs.HABILITADO).get(5, TimeUnit.SECONDS));
+                assertInstanceOf(TimeoutException.class, e.getCause());
+
+                // La trama llego al esclavo una sola vez
+                Thread.sleep(500);
+                assertEquals(1, lento.getPeticionesAtendidas());
+            } finally {
+                pipeline.detener();
+            }
+        }
+    }
+
+    @Test
+    void unTagSinDireccionFallaSoloYNoAbreElCircuito() throws Exception {
+        AsyncDcsGateway pipeline = pipeline(gateway);
+        try {
+            for (int i = 0; i < 10; i++) {
+                CompletableFuture<Void> sinMapa = pipeline.enviar("NO_EXISTE", EstadoDcs.HABILITADO);
+                ExecutionException e = assertThrows(ExecutionException.class, () -> sinMapa.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+            pipeline.enviar("K7451", EstadoDcs.HABILITADO).get(5, TimeUnit.SECONDS);
+
+            assertTrue(simulador.leerCoil(1, 100));
+            Map<String, Object> circuito = pipeline.getMetricasCircuitos().get("DCS");
+            assertEquals("CERRADO", String.valueOf(circuito.get("estado")));
+            assertEquals(0L, circuito.get("fallas"));
+        } finally {
+            pipeline.detener();
+        }
+    }
+
+    @Test
+    void midePipeliningDeLotes() {
+        List<ComandoDcs> lote = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lote.add(new ComandoDcs("TAG" + i, i % 2 == 0 ? EstadoDcs.HABILITADO : EstadoDcs.DESHABILITADO));
+        }
+        gateway.enviarLote("DCS", lote); // calentamiento y conexiones
+
+        int lotes = 50;
+        long[] latencias = new long[lotes];
+        long inicio = System.nanoTime();
+        for (int i = 0; i < lotes; i++) {
+            long t0 = System.nanoTime();
+            gateway.enviarLote("DCS", lote);
+            latencias[i] = System.nanoTime() - t0;
+        }
+        long totalNs = System.nanoTime() - inicio;
+        Arrays.sort(latencias);
+
+        double comandosPorSeg = lotes * lote.size() / (totalNs / 1e9);
+        log.info(String.format("%d comandos en lotes de %d: %.0f cmd/s, p50 lote %.2f ms, p99 lote %.2f ms",
+                lotes * lote.size(), lote.size(), comandosPorSeg,
+                latencias[lotes / 2] / 1e6, latencias[lotes * 99 / 100] / 1e6));
+
+        assertTrue(simulador.leerCoil(3, 0));
+        assertFalse(simulador.leerCoil(3, 1));
+        assertEquals(51L * lote.size(), simulador.getPeticionesAtendidas());
+    }
+
+    // Timeout del pipeline 2000 ms, 3 reintentos, circuito de 2 fallas
+    private static AsyncDcsGateway pipeline(ModbusTcpDcsGateway dcs) {
+        return new AsyncDcsGateway(dcs, 20, 2000, 3, 10, "", "DCS", 2, 10_000, 3, false, new SimpleMeterRegistry());
+    }
+}
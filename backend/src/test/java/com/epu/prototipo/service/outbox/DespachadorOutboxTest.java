@@ -0,0 +1,192 @@
+package com.epu.prototipo.service.outbox;
+
+import com.epu.prototipo.entity.OutboxEventoEntity;
+import com.epu.prototipo.repository.OutboxEventoRepository;
+import com.epu.prototipo.service.EstadoEquiposStore;
+import com.epu.prototipo.service.IEquipoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Despacho del outbox sobre un repositorio en memoria: orden por equipo, espera exponencial,
+// FALLIDO y depuracion de enviados
+
+class DespachadorOutboxTest {
+
+    private static final long ESPERA_BASE_MS = 1000;
+
+    private final List<OutboxEventoEntity> tabla = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> aplicados = Collections.synchronizedList(new ArrayList<>());
+
+    private OutboxEventoRepository repo;
+    private IEquipoService equipos;
+    private EstadoEquiposStore estados;
+    private DespachadorOutbox despachador;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(OutboxEventoRepository.class);
+        when(repo.findByEstadoOrderByIdAsc(eq(Outbox.PENDIENTE), any(Pageable.class))).thenAnswer(inv -> {
+            Pageable pagina = inv.getArgument(1);
+            synchronized (tabla) {
+                return tabla.stream()
+                        .filter(e -> Outbox.PENDIENTE.equals(e.getEstado()))
+                        .sorted(Comparator.comparing(OutboxEventoEntity::getId))
+                        .limit(pagina.getPageSize())
+                        .toList();
+            }
+        });
+        when(repo.save(any(OutboxEventoEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        equipos = mock(IEquipoService.class);
+        when(equipos.bloquearEquipo(anyString())).thenAnswer(inv -> {
+            aplicados.add("BLOQUEAR " + inv.getArgument(0));
+            return null;
+        });
+        when(equipos.liberarEquipo(anyString())).thenAnswer(inv -> {
+            aplicados.add("LIBERAR " + inv.getArgument(0));
+            return null;
+        });
+        estados = mock(EstadoEquiposStore.class);
+        when(estados.contiene(anyString())).thenReturn(true);
+
+        PlatformTransactionManager transacciones = mock(PlatformTransactionManager.class);
+        when(transacciones.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        despachador = new DespachadorOutbox(repo, mock(Outbox.class), equipos, estados, transacciones,
+                1000, 200, 4, 3, ESPERA_BASE_MS, 72);
+    }
+
+    @AfterEach
+    void tearDown() {
+        despachador.detener();
+    }
+
+    @Test
+    void aplicaCadaEquipoEnOrdenDeId() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            String tag = "P-" + (i % 5);
+            evento(tag, i % 2 == 0 ? Outbox.BLOQUEAR_EQUIPO : Outbox.LIBERAR_EQUIPO);
+        }
+
+        despachador.despachar();
+
+        assertEquals(50, aplicados.size());
+        assertTrue(tabla.stream().allMatch(e -> Outbox.ENVIADO.equals(e.getEstado())));
+        for (int t = 0; t < 5; t++) {
+            String tag = "P-" + t;
+            List<String> esperado = new ArrayList<>();
+            for (int i = t; i < 50; i += 5) {
+                esperado.add((i % 2 == 0 ? "BLOQUEAR " : "LIBERAR ") + tag);
+            }
+            List<String> real = aplicados.stream().filter(a -> a.endsWith(" " + tag)).toList();
+            assertEquals(esperado, real, tag);
+        }
+    }
+
+    @Test
+    void fallaReintentableEsperaConBackoffYFrenaASuEquipo() throws Exception {
+        doThrow(new IllegalStateException("DCS no responde")).when(equipos).bloquearEquipo("K-1");
+        OutboxEventoEntity bloquear = evento("K-1", Outbox.BLOQUEAR_EQUIPO);
+        OutboxEventoEntity liberar = evento("K-1", Outbox.LIBERAR_EQUIPO);
+        OutboxEventoEntity otro = evento("P-1", Outbox.BLOQUEAR_EQUIPO);
+
+        long antes = System.currentTimeMillis();
+        despachador.despachar();
+
+        assertEquals(Outbox.PENDIENTE, bloquear.getEstado());
+        assertEquals(1, bloquear.getIntentos());
+        assertTrue(bloquear.getUltimoError().contains("DCS no responde"));
+        assertEsperaEntre(bloquear, antes, ESPERA_BASE_MS);
+        // El siguiente del mismo equipo no se adelanta; otro equipo sigue
+        assertEquals(Outbox.PENDIENTE, liberar.getEstado());
+        assertEquals(0, liberar.getIntentos());
+        assertEquals(Outbox.ENVIADO, otro.getEstado());
+        assertEquals(List.of("BLOQUEAR P-1"), aplicados);
+
+        // Antes de que venza la espera no se vuelve a intentar
+        despachador.despachar();
+        assertEquals(1, bloquear.getIntentos());
+
+        // Vencida, el segundo fallo duplica la espera
+        bloquear.setSiguienteIntento(0);
+        antes = System.currentTimeMillis();
+        despachador.despachar();
+        assertEquals(2, bloquear.getIntentos());
+        assertEsperaEntre(bloquear, antes, 2 * ESPERA_BASE_MS);
+        assertEquals(Outbox.PENDIENTE, liberar.getEstado());
+    }
+
+    @Test
+    void agotarIntentosDejaFallidoYElEquipoSigue() throws Exception {
+        doThrow(new IllegalStateException("DCS no responde")).when(equipos).bloquearEquipo("K-1");
+        OutboxEventoEntity bloquear = evento("K-1", Outbox.BLOQUEAR_EQUIPO);
+        OutboxEventoEntity liberar = evento("K-1", Outbox.LIBERAR_EQUIPO);
+
+        for (int i = 0; i < 3; i++) {
+            bloquear.setSiguienteIntento(0);
+            despachador.despachar();
+        }
+
+        assertEquals(Outbox.FALLIDO, bloquear.getEstado());
+        assertEquals(3, bloquear.getIntentos());
+        assertNotNull(bloquear.getProcesado());
+        assertEquals(Outbox.ENVIADO, liberar.getEstado());
+        assertEquals(List.of("LIBERAR K-1"), aplicados);
+        assertEquals(1L, despachador.getMetricas().get("fallidosDesdeInicio"));
+    }
+
+    @Test
+    void equipoInexistenteFallaSinReintentar() throws Exception {
+        OutboxEventoEntity evento = evento("X-9", Outbox.LIBERAR_EQUIPO);
+        OutboxEventoEntity siguiente = evento("X-9", Outbox.BLOQUEAR_EQUIPO);
+        when(estados.contiene("X-9")).thenReturn(false, true);
+
+        despachador.despachar();
+
+        assertEquals(Outbox.FALLIDO, evento.getEstado());
+        assertEquals(1, evento.getIntentos());
+        assertTrue(evento.getUltimoError().startsWith("IllegalArgumentException"));
+        assertEquals(Outbox.ENVIADO, siguiente.getEstado());
+        verify(equipos, never()).liberarEquipo(anyString());
+    }
+
+    @Test
+    void limpiarBorraEnviadosFueraDeLaRetencion() {
+        when(repo.borrarProcesados(anyString(), any())).thenReturn(7);
+
+        despachador.limpiar();
+
+        ArgumentCaptor<LocalDateTime> limite = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repo).borrarProcesados(eq(Outbox.ENVIADO), limite.capture());
+        long minutos = ChronoUnit.MINUTES.between(limite.getValue(), LocalDateTime.now());
+        assertTrue(minutos >= 72 * 60 - 1 && minutos <= 72 * 60 + 1, "limite " + limite.getValue());
+    }
+
+    private OutboxEventoEntity evento(String tag, String tipo) {
+        OutboxEventoEntity e = new OutboxEventoEntity(tag, tipo, "PTS-" + (tabla.size() + 1), Outbox.PENDIENTE);
+        e.setId((long) tabla.size() + 1);
+        tabla.add(e);
+        return e;
+    }
+
+    private static void assertEsperaEntre(OutboxEventoEntity e, long antes, long espera) {
+        long desde = e.getSiguienteIntento() - antes;
+        assertTrue(desde >= espera && desde <= espera + 1000, "espera de " + desde + " ms, se esperaba " + espera);
+    }
+}
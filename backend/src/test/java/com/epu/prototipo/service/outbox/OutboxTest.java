@@ -0,0 +1,40 @@
+package com.epu.prototipo.service.outbox;
+
+import com.epu.prototipo.entity.OutboxEventoEntity;
+import com.epu.prototipo.repository.EquipoRepository;
+import com.epu.prototipo.repository.OutboxEventoRepository;
+import com.epu.prototipo.service.CambiosBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Encolado: la fila del equipo se bloquea antes de insertar el evento, asi los ids de un mismo
+// equipo siguen el orden de confirmacion
+
+class OutboxTest {
+
+    @Test
+    void bloqueaLaFilaDelEquipoAntesDeInsertar() {
+        OutboxEventoRepository repo = mock(OutboxEventoRepository.class);
+        EquipoRepository equipos = mock(EquipoRepository.class);
+        Outbox outbox = new Outbox(repo, mock(CambiosBroadcaster.class), equipos);
+
+        outbox.encolar(" P-5511 ", Outbox.BLOQUEAR_EQUIPO, "PTS-250310-0001");
+
+        InOrder orden = inOrder(equipos, repo);
+        orden.verify(equipos).bloquearFila("P-5511");
+        orden.verify(repo).save(any(OutboxEventoEntity.class));
+    }
+
+    @Test
+    void sinEquipoNoBloqueaNiEncola() {
+        OutboxEventoRepository repo = mock(OutboxEventoRepository.class);
+        EquipoRepository equipos = mock(EquipoRepository.class);
+
+        new Outbox(repo, mock(CambiosBroadcaster.class), equipos).encolar(" ", Outbox.BLOQUEAR_EQUIPO, "PTS-250310-0001");
+
+        verifyNoInteractions(equipos, repo);
+    }
+}
@@ -0,0 +1,63 @@
+package com.epu.prototipo.util;
+
+import com.epu.prototipo.model.PermisoTrabajoSeguro;
+import com.epu.prototipo.service.busqueda.IndiceTextoPts;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Normalizacion de consultas de texto libre y la expresion BOOLEAN MODE que se arma con ellas
+
+class TextoBusquedaTest {
+
+    @Test
+    void operadoresDelModoBooleanoSonSeparadores() {
+        assertEquals(List.of("bomba", "valvula", "sello", "agua"),
+                TextoBusqueda.terminos("+bomba -valvula \"sello\" (agua)* ~<>@"));
+        assertEquals(List.of("drop", "table", "pts"), TextoBusqueda.terminos("'; DROP TABLE pts; --"));
+    }
+
+    @Test
+    void descartaPalabrasCortasYRepetidas() {
+        assertEquals(List.of("cambio", "sello", "p5511"),
+                TextoBusqueda.terminos("Cambio de sello en la P5511, cambio de SELLO"));
+        assertEquals(List.of("k74"), TextoBusqueda.terminos("a de k74 x1"));
+        assertEquals(List.of(), TextoBusqueda.terminos("a de la"));
+        assertEquals(List.of(), TextoBusqueda.terminos("  "));
+        assertEquals(List.of(), TextoBusqueda.terminos(null));
+    }
+
+    @Test
+    void quitaAcentosYMayusculas() {
+        assertEquals(List.of("mecanico", "inspeccion", "camara", "nino"),
+                TextoBusqueda.terminos("MECÁNICO Inspección cámara niño"));
+        // Forma descompuesta (a + acento combinado) igual que la compuesta
+        assertEquals(List.of("camara"), TextoBusqueda.terminos("ca\u0301mara"));
+    }
+
+    @Test
+    void textoDelPtsSeNormalizaIgualQueLaConsulta() {
+        PermisoTrabajoSeguro pts = new PermisoTrabajoSeguro();
+        pts.setDescripcionTrabajo("Reparación de tubería");
+        pts.setUbicacion("Área de producción");
+        assertEquals("reparacion de tuberia area de produccion", TextoBusqueda.texto(pts));
+    }
+
+    @Test
+    void expresionConCadaTerminoObligatorioYComoPrefijo() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        IndiceTextoPts indice = new IndiceTextoPts(jdbc, 1000);
+
+        indice.buscar(TextoBusqueda.terminos("+Mecánico -de (bomba)* a1 P-5511"), 0, 20);
+
+        // La expresion va como parametro dos veces: en el SELECT y en el WHERE
+        verify(jdbc).query(anyString(), any(RowCallbackHandler.class),
+                eq("+mecanico* +bomba* +5511*"), eq("+mecanico* +bomba* +5511*"), eq(20), eq(0L));
+    }
+}